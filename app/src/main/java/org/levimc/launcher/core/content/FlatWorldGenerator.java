@@ -4,6 +4,7 @@ import android.util.Log;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.levimc.launcher.core.content.leveldb.FlatChunkWriter;
 import org.levimc.launcher.core.content.nbt.BedrockNbtWriter;
 import org.levimc.launcher.core.content.nbt.NbtTag;
 
@@ -66,6 +67,11 @@ public class FlatWorldGenerator {
     }
 
     public static File generateFlatWorld(File worldsDirectory, String worldName, List<BlockLayer> layers, int biomeId, int gameMode) throws IOException {
+        return generateFlatWorld(worldsDirectory, worldName, layers, biomeId, gameMode, 0);
+    }
+
+    public static File generateFlatWorld(File worldsDirectory, String worldName, List<BlockLayer> layers, int biomeId, int gameMode,
+                                         int pregenerateRadius) throws IOException {
         String safeName = worldName.replaceAll("[^a-zA-Z0-9_\\- ]", "_");
         String folderName = safeName + "_" + System.currentTimeMillis();
         File worldDir = new File(worldsDirectory, folderName);
@@ -89,6 +95,9 @@ public class FlatWorldGenerator {
             copyFile(levelDat, levelDatOld);
 
             createDbDirectory(worldDir);
+            if (pregenerateRadius > 0) {
+                pregenerateChunks(new File(worldDir, "db"), layers, biomeId, pregenerateRadius);
+            }
 
             writeEmptyJsonArray(new File(worldDir, "world_behavior_packs.json"));
             writeEmptyJsonArray(new File(worldDir, "world_resource_packs.json"));
@@ -241,6 +250,17 @@ public class FlatWorldGenerator {
         return new NbtTag(NbtTag.TAG_LIST, name, version);
     }
 
+    private static void pregenerateChunks(File dbDir, List<BlockLayer> layers, int biomeId, int radius) throws IOException {
+        List<String> column = new ArrayList<>();
+        for (BlockLayer layer : layers) {
+            for (int i = 0; i < layer.count && column.size() < FlatChunkWriter.WORLD_HEIGHT; i++) {
+                column.add(layer.blockName);
+            }
+        }
+        int chunks = new FlatChunkWriter(column, biomeId).write(dbDir, radius);
+        Log.d(TAG, "Pre-generated " + chunks + " flat chunks within radius " + radius);
+    }
+
     private static void createDbDirectory(File worldDir) {
         File dbDir = new File(worldDir, "db");
         dbDir.mkdirs();
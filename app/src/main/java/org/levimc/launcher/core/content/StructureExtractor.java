@@ -89,6 +89,8 @@ public class StructureExtractor {
     private final ExecutorService executor;
     private List<StructureInfo> cachedStructures;
     private File cachedWorldDir;
+    private volatile LevelDBManager dbManager;
+    private File dbManagerWorldDir;
 
     public StructureExtractor(Context context) {
         this.context = context;
@@ -97,10 +99,8 @@ public class StructureExtractor {
 
     public void loadStructures(File worldDir, StructureListCallback callback) {
         executor.execute(() -> {
-            LevelDBManager dbManager = null;
             try {
-                dbManager = new LevelDBManager(worldDir);
-                final LevelDBManager finalDbManager = dbManager;
+                final LevelDBManager finalDbManager = getDbManager(worldDir);
 
                 CountDownLatch latch = new CountDownLatch(1);
                 AtomicReference<List<LevelDBEntry>> structuresRef = new AtomicReference<>();
@@ -127,13 +127,12 @@ public class StructureExtractor {
 
                 if (!completed) {
                     callback.onError("Database loading timed out");
-                    finalDbManager.shutdown();
+                    releaseDbManager();
                     return;
                 }
 
                 if (errorRef.get() != null) {
                     callback.onError(errorRef.get());
-                    finalDbManager.shutdown();
                     return;
                 }
 
@@ -153,19 +152,34 @@ public class StructureExtractor {
                 cachedStructures = structures;
                 cachedWorldDir = worldDir;
 
-                finalDbManager.shutdown();
                 callback.onComplete(structures);
 
             } catch (Exception e) {
                 Log.e(TAG, "Failed to load structures", e);
                 callback.onError("Failed to load structures: " + e.getMessage());
-                if (dbManager != null) {
-                    dbManager.shutdown();
-                }
+                releaseDbManager();
             }
         });
     }
 
+    private LevelDBManager getDbManager(File worldDir) {
+        if (dbManager != null && worldDir.equals(dbManagerWorldDir)) {
+            return dbManager;
+        }
+        releaseDbManager();
+        dbManager = new LevelDBManager(worldDir);
+        dbManagerWorldDir = worldDir;
+        return dbManager;
+    }
+
+    private void releaseDbManager() {
+        if (dbManager != null) {
+            dbManager.shutdown();
+            dbManager = null;
+            dbManagerWorldDir = null;
+        }
+    }
+
     public void exportSingleStructure(StructureInfo structure, Uri outputUri, ExtractionCallback callback) {
         executor.execute(() -> {
             try {
@@ -193,7 +207,16 @@ public class StructureExtractor {
         });
     }
 
+    public void cancel() {
+        LevelDBManager manager = dbManager;
+        if (manager != null) {
+            manager.cancel();
+        }
+    }
+
     public void shutdown() {
+        cancel();
+        executor.execute(this::releaseDbManager);
         executor.shutdown();
         cachedStructures = null;
         cachedWorldDir = null;
@@ -4,6 +4,14 @@ import android.content.Context;
 import android.net.Uri;
 import android.util.Log;
 
+import org.levimc.launcher.core.content.leveldb.ChunkIndex;
+import org.levimc.launcher.core.content.leveldb.ChunkPruner;
+import org.levimc.launcher.core.content.leveldb.CompactionResult;
+import org.levimc.launcher.core.content.leveldb.LevelDBRepairer;
+import org.levimc.launcher.core.content.leveldb.LevelDBWriter;
+import org.levimc.launcher.core.content.leveldb.RegionCopier;
+import org.levimc.launcher.core.content.leveldb.RepairReport;
+import org.levimc.launcher.core.content.leveldb.WorldDiff;
 import org.levimc.launcher.core.versions.GameVersion;
 
 import java.io.File;
@@ -37,6 +45,11 @@ public class WorldManager {
         void onProgress(int progress);
     }
 
+    public interface DiffCallback {
+        void onComplete(WorldDiff diff);
+        void onError(String error);
+    }
+
     public WorldManager(Context context) {
         this.context = context;
         this.executor = Executors.newSingleThreadExecutor();
@@ -196,6 +209,181 @@ public class WorldManager {
         });
     }
 
+    public void compareWorld(WorldItem world, File snapshot, DiffCallback callback) {
+        if (executor.isShutdown()) {
+            callback.onError("WorldManager has been shut down");
+            return;
+        }
+        executor.execute(() -> {
+            File tempDir = null;
+            try {
+                File snapshotDir = snapshot;
+                if (snapshot.isFile()) {
+                    tempDir = new File(context.getCacheDir(), "diff_world_" + System.currentTimeMillis());
+                    tempDir.mkdirs();
+                    try (InputStream in = new FileInputStream(snapshot)) {
+                        extractZip(in, tempDir, null);
+                    }
+                    snapshotDir = findWorldDirectory(tempDir);
+                    if (snapshotDir == null) {
+                        callback.onError("Invalid world file - no world data found");
+                        return;
+                    }
+                }
+
+                File snapshotDb = new File(snapshotDir, "db");
+                File worldDb = new File(world.getFile(), "db");
+                if (!snapshotDb.isDirectory() || !worldDb.isDirectory()) {
+                    callback.onError("World has no database");
+                    return;
+                }
+                callback.onComplete(WorldDiff.compare(snapshotDb, worldDb, null));
+
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to compare worlds", e);
+                callback.onError("Compare failed: " + e.getMessage());
+            } finally {
+                if (tempDir != null) {
+                    deleteDirectory(tempDir);
+                }
+            }
+        });
+    }
+
+    public void compactWorld(WorldItem world, WorldOperationCallback callback) {
+        if (executor.isShutdown()) {
+            callback.onError("WorldManager has been shut down");
+            return;
+        }
+        executor.execute(() -> {
+            File dbDir = new File(world.getFile(), "db");
+            if (!dbDir.isDirectory()) {
+                callback.onError("World has no database");
+                return;
+            }
+            try {
+                createBackup(world);
+                callback.onProgress(10);
+
+                LevelDBWriter writer = new LevelDBWriter(dbDir);
+                CompactionResult result;
+                try {
+                    result = writer.compact(null);
+                } finally {
+                    writer.close();
+                }
+                callback.onProgress(100);
+                callback.onSuccess("World compacted, reclaimed " + formatSize(result.getReclaimedBytes()));
+
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to compact world", e);
+                callback.onError("Compaction failed: " + e.getMessage());
+            }
+        });
+    }
+
+    public void pruneWorld(WorldItem world, ChunkPruner pruner, WorldOperationCallback callback) {
+        if (executor.isShutdown()) {
+            callback.onError("WorldManager has been shut down");
+            return;
+        }
+        executor.execute(() -> {
+            File dbDir = new File(world.getFile(), "db");
+            if (!dbDir.isDirectory()) {
+                callback.onError("World has no database");
+                return;
+            }
+            try {
+                createBackup(world);
+                callback.onProgress(10);
+
+                CompactionResult result = pruner.prune(dbDir);
+                callback.onProgress(100);
+                callback.onSuccess("World pruned, reclaimed " + formatSize(result.getReclaimedBytes()));
+
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to prune world", e);
+                callback.onError("Pruning failed: " + e.getMessage());
+            }
+        });
+    }
+
+    public void copyRegion(WorldItem source, WorldItem target, RegionCopier copier, WorldOperationCallback callback) {
+        if (executor.isShutdown()) {
+            callback.onError("WorldManager has been shut down");
+            return;
+        }
+        executor.execute(() -> {
+            File sourceDb = new File(source.getFile(), "db");
+            File targetDb = new File(target.getFile(), "db");
+            if (!sourceDb.isDirectory() || !targetDb.isDirectory()) {
+                callback.onError("World has no database");
+                return;
+            }
+            try {
+                createBackup(target);
+                callback.onProgress(10);
+
+                RegionCopier.Result result = copier.copy(sourceDb, targetDb);
+                callback.onProgress(100);
+                callback.onSuccess("Copied " + result.getChunkCount() + " chunks, " + result.getEntityCount() + " entities and " +
+                        result.getBlockEntityCount() + " block entities into " + target.getName());
+
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to copy region", e);
+                callback.onError("Region copy failed: " + e.getMessage());
+            }
+        });
+    }
+
+    public void repairWorld(WorldItem world, WorldOperationCallback callback) {
+        if (executor.isShutdown()) {
+            callback.onError("WorldManager has been shut down");
+            return;
+        }
+        executor.execute(() -> {
+            File sourceDir = world.getFile();
+            File dbDir = new File(sourceDir, "db");
+            if (!dbDir.isDirectory()) {
+                callback.onError("World has no database");
+                return;
+            }
+            File parent = worldsDirectory != null ? worldsDirectory : sourceDir.getParentFile();
+            File targetDir = new File(parent, generateUniqueWorldName(sourceDir.getName() + "_recovered", parent));
+            try {
+                File[] files = sourceDir.listFiles();
+                if (files != null) {
+                    for (File file : files) {
+                        if (file.getName().equals("db") || file.getName().equals(ChunkIndex.DIRECTORY)) continue;
+                        copyDirectory(file, new File(targetDir, file.getName()));
+                    }
+                }
+                callback.onProgress(10);
+
+                RepairReport report = new LevelDBRepairer(null).repair(dbDir, new File(targetDir, "db"));
+                callback.onProgress(100);
+                if (report.isClean()) {
+                    callback.onSuccess("World copied to " + targetDir.getName() + ", no damage found");
+                } else {
+                    callback.onSuccess("World recovered to " + targetDir.getName() + ": " + report.getDamagedFiles().size() +
+                            " damaged files, " + report.getLostBlocks() + " blocks and " + formatSize(report.getLostBytes()) + " lost");
+                }
+
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to repair world", e);
+                deleteDirectory(targetDir);
+                callback.onError("Repair failed: " + e.getMessage());
+            }
+        });
+    }
+
+    private static String formatSize(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format(Locale.getDefault(), "%.1f KB", bytes / 1024.0);
+        if (bytes < 1024 * 1024 * 1024) return String.format(Locale.getDefault(), "%.1f MB", bytes / (1024.0 * 1024.0));
+        return String.format(Locale.getDefault(), "%.1f GB", bytes / (1024.0 * 1024.0 * 1024.0));
+    }
+
     private void extractZip(InputStream inputStream, File targetDir, WorldOperationCallback callback) throws IOException {
         ZipInputStream zis = new ZipInputStream(inputStream);
         ZipEntry entry;
@@ -298,6 +486,7 @@ public class WorldManager {
         File[] files = dir.listFiles();
         if (files != null) {
             for (File file : files) {
+                if (basePath.isEmpty() && file.getName().equals(ChunkIndex.DIRECTORY)) continue;
                 String entryPath = basePath.isEmpty() ? file.getName() : basePath + "/" + file.getName();
                 if (file.isDirectory()) {
                     zipDirectory(file, entryPath, zos);
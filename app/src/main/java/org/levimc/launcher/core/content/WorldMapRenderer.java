@@ -0,0 +1,544 @@
+package org.levimc.launcher.core.content;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import org.levimc.launcher.core.content.leveldb.ChunkIndex;
+import org.levimc.launcher.core.content.leveldb.ChunkPos;
+import org.levimc.launcher.core.content.leveldb.FlatChunkWriter;
+import org.levimc.launcher.core.content.leveldb.LevelDBEntry;
+import org.levimc.launcher.core.content.leveldb.LevelDBKey;
+import org.levimc.launcher.core.content.leveldb.LevelDBManager;
+import org.levimc.launcher.core.content.leveldb.LevelDBReader;
+import org.levimc.launcher.core.content.leveldb.SubChunkDecoder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class WorldMapRenderer {
+    private static final String TAG = "WorldMapRenderer";
+    private static final int TILE_CHUNKS = 16;
+    private static final int MAX_CHUNKS_PER_SIDE = 128;
+    private static final int CACHE_MAGIC = 0x4C4D4150;
+    private static final int CACHE_VERSION = 2;
+    private static final int NO_HEIGHT = Short.MIN_VALUE;
+
+    private static final Map<String, Integer> BLOCK_COLORS = new HashMap<>();
+    private static final String[] KEYWORDS = {
+        "leaves", "water", "lava", "log", "wood", "stem", "planks", "snow", "ice", "sand", "terracotta",
+        "ore", "stone", "cobble", "brick", "grass", "fern", "flower", "sapling", "kelp", "vine", "dirt",
+        "nether", "end_"
+    };
+    private static final int[] KEYWORD_COLORS = {
+        0xFF3B7A1F, 0xFF3F76E4, 0xFFD96415, 0xFF6B5331, 0xFF6B5331, 0xFF6B5331, 0xFFA2834F, 0xFFF4FBFB, 0xFF91B6FF, 0xFFDBD3A0, 0xFF985E43,
+        0xFF7D7D7D, 0xFF8A8A8A, 0xFF8A8A8A, 0xFF8A8A8A, 0xFF5E9D34, 0xFF5E9D34, 0xFF5E9D34, 0xFF5E9D34, 0xFF5E9D34, 0xFF5E9D34, 0xFF866043,
+        0xFF6F3634, 0xFFDBDE9E
+    };
+
+    static {
+        BLOCK_COLORS.put("grass_block", 0xFF7CB342);
+        BLOCK_COLORS.put("grass", 0xFF7CB342);
+        BLOCK_COLORS.put("water", 0xFF3F76E4);
+        BLOCK_COLORS.put("flowing_water", 0xFF3F76E4);
+        BLOCK_COLORS.put("lava", 0xFFD96415);
+        BLOCK_COLORS.put("flowing_lava", 0xFFD96415);
+        BLOCK_COLORS.put("stone", 0xFF7D7D7D);
+        BLOCK_COLORS.put("deepslate", 0xFF4D4D50);
+        BLOCK_COLORS.put("dirt", 0xFF866043);
+        BLOCK_COLORS.put("sand", 0xFFDBD3A0);
+        BLOCK_COLORS.put("red_sand", 0xFFBE6621);
+        BLOCK_COLORS.put("gravel", 0xFF837E7E);
+        BLOCK_COLORS.put("snow", 0xFFF4FBFB);
+        BLOCK_COLORS.put("snow_layer", 0xFFF4FBFB);
+        BLOCK_COLORS.put("ice", 0xFF91B6FF);
+        BLOCK_COLORS.put("clay", 0xFFA0A6B3);
+        BLOCK_COLORS.put("netherrack", 0xFF6F3634);
+        BLOCK_COLORS.put("soul_sand", 0xFF513E32);
+        BLOCK_COLORS.put("soul_soil", 0xFF4B392E);
+        BLOCK_COLORS.put("end_stone", 0xFFDBDE9E);
+        BLOCK_COLORS.put("bedrock", 0xFF333333);
+        BLOCK_COLORS.put("obsidian", 0xFF14121D);
+        BLOCK_COLORS.put("mycelium", 0xFF6F6265);
+        BLOCK_COLORS.put("podzol", 0xFF5B3F18);
+        BLOCK_COLORS.put("sandstone", 0xFFD8CB9B);
+        BLOCK_COLORS.put("basalt", 0xFF515156);
+        BLOCK_COLORS.put("crimson_nylium", 0xFF831F1F);
+        BLOCK_COLORS.put("warped_nylium", 0xFF2B7265);
+        BLOCK_COLORS.put("glowstone", 0xFFFBDA74);
+        BLOCK_COLORS.put("magma", 0xFF8E3F1F);
+        BLOCK_COLORS.put("moss_block", 0xFF596E2D);
+        BLOCK_COLORS.put("mud", 0xFF3C393D);
+        BLOCK_COLORS.put("calcite", 0xFFDFE0DC);
+        BLOCK_COLORS.put("tuff", 0xFF6C6D66);
+    }
+
+    public interface RenderCallback {
+        void onProgress(int current, int total);
+        void onComplete(File output, int chunkCount, int[] bounds);
+        void onError(String error);
+    }
+
+    private final File worldDir;
+    private final LevelDBManager manager;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final Map<String, Integer> colorCache = new ConcurrentHashMap<>();
+
+    public WorldMapRenderer(File worldDir, LevelDBManager manager) {
+        this.worldDir = worldDir;
+        this.manager = manager;
+    }
+
+    public void render(int dimension, File output, RenderCallback callback) {
+        render(dimension, null, output, callback);
+    }
+
+    public void render(int dimension, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ,
+                       File output, RenderCallback callback) {
+        render(dimension, new int[]{minChunkX, minChunkZ, maxChunkX, maxChunkZ}, output, callback);
+    }
+
+    private void render(int dimension, int[] bounds, File output, RenderCallback callback) {
+        cancelled.set(false);
+        manager.getExecutor().execute(() -> {
+            LevelDBReader reader = null;
+            try {
+                if (bounds != null && ((long) bounds[2] - bounds[0] >= MAX_CHUNKS_PER_SIDE
+                        || (long) bounds[3] - bounds[1] >= MAX_CHUNKS_PER_SIDE)) {
+                    callback.onError("Region " + Arrays.toString(bounds) + " is larger than " +
+                            MAX_CHUNKS_PER_SIDE + "x" + MAX_CHUNKS_PER_SIDE + " chunks");
+                    return;
+                }
+
+                long start = System.currentTimeMillis();
+                ChunkIndex index = new ChunkIndex(worldDir);
+                index.update();
+
+                List<ChunkPos> chunks = bounds != null
+                        ? index.getChunks(dimension, bounds[0], bounds[1], bounds[2], bounds[3])
+                        : index.getChunks(dimension);
+                if (chunks.isEmpty()) {
+                    callback.onError("No chunks found in dimension " + dimension);
+                    return;
+                }
+                int[] area = bounds != null ? bounds : clampedBounds(chunkBounds(chunks));
+                int widthChunks = area[2] - area[0] + 1;
+                int heightChunks = area[3] - area[1] + 1;
+
+                Map<Long, List<ChunkPos>> tiles = new HashMap<>();
+                int chunkCount = 0;
+                for (ChunkPos pos : chunks) {
+                    if (pos.x < area[0] || pos.x > area[2] || pos.z < area[1] || pos.z > area[3]) continue;
+                    chunkCount++;
+                    long tile = ((long) Math.floorDiv(pos.x, TILE_CHUNKS) << 32) | (Math.floorDiv(pos.z, TILE_CHUNKS) & 0xFFFFFFFFL);
+                    List<ChunkPos> list = tiles.get(tile);
+                    if (list == null) {
+                        list = new ArrayList<>();
+                        tiles.put(tile, list);
+                    }
+                    list.add(pos);
+                }
+                if (chunkCount == 0) {
+                    callback.onError("No chunks found in " + Arrays.toString(area));
+                    return;
+                }
+
+                MapImage image = new MapImage(area[0], area[1], widthChunks * 16, heightChunks * 16);
+                reader = manager.openReader();
+
+                AtomicInteger finished = new AtomicInteger();
+                AtomicInteger rendered = new AtomicInteger();
+                List<Future<?>> futures = new ArrayList<>();
+                for (Map.Entry<Long, List<ChunkPos>> tile : tiles.entrySet()) {
+                    int tileX = (int) (tile.getKey() >> 32);
+                    int tileZ = (int) (long) tile.getKey();
+                    LevelDBReader tileReader = reader;
+                    futures.add(manager.getWorkerPool().submit(() -> {
+                        rendered.addAndGet(renderTile(tileReader, index, dimension, tileX, tileZ, tile.getValue(), image));
+                        callback.onProgress(finished.incrementAndGet(), tiles.size());
+                        return null;
+                    }));
+                }
+                awaitAll(futures);
+
+                image.shade();
+                writePng(image, output);
+                Log.d(TAG, "Rendered " + chunkCount + " chunks (" + rendered.get() + " changed) in " +
+                      tiles.size() + " tiles to " + output.getName() + " in " + (System.currentTimeMillis() - start) + " ms");
+                callback.onComplete(output, chunkCount, area);
+
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to render map", e);
+                callback.onError("Failed to render map: " + e.getMessage());
+            } finally {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        });
+    }
+
+    private int renderTile(LevelDBReader reader, ChunkIndex index, int dimension, int tileX, int tileZ,
+                           List<ChunkPos> chunks, MapImage image) throws IOException {
+        File cacheFile = new File(worldDir, ChunkIndex.DIRECTORY + "/map/" + dimension + "_" + tileX + "_" + tileZ + ".bin");
+        Map<ChunkPos, ChunkImage> cached = loadTile(cacheFile, dimension);
+        Map<ChunkPos, ChunkImage> current = new HashMap<>();
+        SubChunkDecoder decoder = new SubChunkDecoder();
+        int rendered = 0;
+
+        for (ChunkPos pos : chunks) {
+            if (cancelled.get()) {
+                throw new InterruptedIOException("Rendering cancelled");
+            }
+            List<LevelDBEntry> entries = reader.readChunk(index, pos);
+            long hash = contentHash(entries);
+            if (hash == 0) continue;
+
+            ChunkImage chunk = cached.get(pos);
+            if (chunk == null || chunk.hash != hash) {
+                chunk = renderChunk(entries, hash, dimension, decoder);
+                rendered++;
+            }
+            current.put(pos, chunk);
+            image.draw(pos, chunk);
+        }
+
+        if (rendered > 0 || current.size() != cached.size()) {
+            saveTile(cacheFile, current);
+        }
+        return rendered;
+    }
+
+    private ChunkImage renderChunk(List<LevelDBEntry> entries, long hash, int dimension, SubChunkDecoder decoder) {
+        ChunkImage chunk = new ChunkImage(hash);
+        List<LevelDBEntry> subChunks = new ArrayList<>();
+        short[] heightMap = null;
+        int heightMapMinY = 0;
+        for (LevelDBEntry entry : entries) {
+            LevelDBKey.KeyType type = entry.getKey().getKeyType();
+            if (type == LevelDBKey.KeyType.SUB_CHUNK) {
+                subChunks.add(entry);
+            } else if ((type == LevelDBKey.KeyType.DATA_3D || type == LevelDBKey.KeyType.DATA_2D)
+                    && heightMap == null && entry.getValue().length >= 512) {
+                heightMap = new short[256];
+                ByteBuffer.wrap(entry.getValue(), 0, 512).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(heightMap);
+                if (type == LevelDBKey.KeyType.DATA_3D && dimension == LevelDBKey.OVERWORLD) {
+                    heightMapMinY = FlatChunkWriter.MIN_Y;
+                }
+            }
+        }
+        subChunks.sort((a, b) -> Integer.compare(b.getKey().getSubChunkIndex(), a.getKey().getSubChunkIndex()));
+
+        int unresolved = 256;
+        int[] paletteColors = new int[16];
+        for (LevelDBEntry entry : subChunks) {
+            if (unresolved == 0) break;
+            try {
+                if (!decoder.decode(ByteBuffer.wrap(entry.getValue()), entry.getKey().getSubChunkIndex())) continue;
+            } catch (IOException e) {
+                continue;
+            }
+
+            int size = decoder.getPaletteSize();
+            if (size > paletteColors.length) {
+                paletteColors = new int[Math.max(size, paletteColors.length * 2)];
+            }
+            boolean visible = false;
+            for (int i = 0; i < size; i++) {
+                paletteColors[i] = colorOf(decoder.getBlockState(i).name);
+                visible |= paletteColors[i] != 0;
+            }
+            if (!visible) continue;
+
+            int baseY = decoder.getYIndex() * 16;
+            for (int column = 0; column < 256; column++) {
+                if (chunk.heights[column] != NO_HEIGHT) continue;
+                int x = column & 15;
+                int z = column >> 4;
+                for (int y = 15; y >= 0; y--) {
+                    int color = paletteColors[decoder.getBlock(x, y, z)];
+                    if (color != 0) {
+                        chunk.colors[column] = color;
+                        chunk.heights[column] = (short) (baseY + y);
+                        unresolved--;
+                        break;
+                    }
+                }
+            }
+        }
+
+        // Height maps hold the first free block above the surface relative to the dimension floor; 0 is an empty column.
+        if (unresolved > 0 && heightMap != null) {
+            int span = heightMapMinY < 0 ? FlatChunkWriter.WORLD_HEIGHT : 256;
+            for (int column = 0; column < 256; column++) {
+                if (chunk.heights[column] != NO_HEIGHT || heightMap[column] <= 0) continue;
+                int level = Math.min(255, heightMap[column] * 256 / span);
+                chunk.colors[column] = 0xFF000000 | (level << 16) | (level << 8) | level;
+                chunk.heights[column] = (short) (heightMapMinY + heightMap[column] - 1);
+            }
+        }
+        return chunk;
+    }
+
+    private int colorOf(String name) {
+        Integer color = colorCache.get(name);
+        if (color == null) {
+            color = lookupColor(name);
+            colorCache.put(name, color);
+        }
+        return color;
+    }
+
+    private static int lookupColor(String name) {
+        String id = name.startsWith("minecraft:") ? name.substring(10) : name;
+        if (id.equals("air") || id.equals("cave_air") || id.equals("void_air") || id.equals("structure_void")
+                || id.equals("barrier") || id.startsWith("light_block")) {
+            return 0;
+        }
+        Integer color = BLOCK_COLORS.get(id);
+        if (color != null) return color;
+        for (int i = 0; i < KEYWORDS.length; i++) {
+            if (id.contains(KEYWORDS[i])) return KEYWORD_COLORS[i];
+        }
+        int hash = id.hashCode();
+        return 0xFF404040 + (hash & 0x7F7F7F);
+    }
+
+    private static long contentHash(List<LevelDBEntry> entries) {
+        CRC32 crc = new CRC32();
+        Adler32 adler = new Adler32();
+        boolean found = false;
+        for (LevelDBEntry entry : entries) {
+            LevelDBKey.KeyType type = entry.getKey().getKeyType();
+            if (type != LevelDBKey.KeyType.SUB_CHUNK && type != LevelDBKey.KeyType.DATA_3D
+                    && type != LevelDBKey.KeyType.DATA_2D) {
+                continue;
+            }
+            byte[] key = entry.getKey().getRawKey();
+            byte[] value = entry.getValue();
+            crc.update(key, 0, key.length);
+            crc.update(value, 0, value.length);
+            adler.update(key, 0, key.length);
+            adler.update(value, 0, value.length);
+            found = true;
+        }
+        if (!found) return 0;
+        long hash = (crc.getValue() << 32) | adler.getValue();
+        return hash != 0 ? hash : 1;
+    }
+
+    private static int[] chunkBounds(List<ChunkPos> chunks) {
+        int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (ChunkPos pos : chunks) {
+            minX = Math.min(minX, pos.x);
+            minZ = Math.min(minZ, pos.z);
+            maxX = Math.max(maxX, pos.x);
+            maxZ = Math.max(maxZ, pos.z);
+        }
+        return new int[]{minX, minZ, maxX, maxZ};
+    }
+
+    // Whole-dimension renders are cropped to the central MAX_CHUNKS_PER_SIDE square; the crop is reported through onComplete.
+    private static int[] clampedBounds(int[] bounds) {
+        int minX = bounds[0], minZ = bounds[1];
+        int maxX = bounds[2], maxZ = bounds[3];
+        if (maxX - minX >= MAX_CHUNKS_PER_SIDE) {
+            minX = (int) (((long) minX + maxX) / 2) - MAX_CHUNKS_PER_SIDE / 2;
+            maxX = minX + MAX_CHUNKS_PER_SIDE - 1;
+        }
+        if (maxZ - minZ >= MAX_CHUNKS_PER_SIDE) {
+            minZ = (int) (((long) minZ + maxZ) / 2) - MAX_CHUNKS_PER_SIDE / 2;
+            maxZ = minZ + MAX_CHUNKS_PER_SIDE - 1;
+        }
+        if (minX != bounds[0] || minZ != bounds[1] || maxX != bounds[2] || maxZ != bounds[3]) {
+            Log.w(TAG, "Cropping map from " + Arrays.toString(bounds) + " to " + minX + "," + minZ + " - " + maxX + "," + maxZ);
+        }
+        return new int[]{minX, minZ, maxX, maxZ};
+    }
+
+    private Map<ChunkPos, ChunkImage> loadTile(File file, int dimension) {
+        Map<ChunkPos, ChunkImage> chunks = new HashMap<>();
+        if (!file.isFile()) return chunks;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION) {
+                return chunks;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                ChunkPos pos = new ChunkPos(dimension, in.readInt(), in.readInt());
+                ChunkImage chunk = new ChunkImage(in.readLong());
+                for (int j = 0; j < 256; j++) {
+                    chunk.colors[j] = in.readInt();
+                }
+                for (int j = 0; j < 256; j++) {
+                    chunk.heights[j] = in.readShort();
+                }
+                chunks.put(pos, chunk);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Discarding unreadable map tile " + file.getName() + " - " + e.getMessage());
+            chunks.clear();
+        }
+        return chunks;
+    }
+
+    private void saveTile(File file, Map<ChunkPos, ChunkImage> chunks) {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            Log.w(TAG, "Cannot create map cache directory: " + dir);
+            return;
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(temp))))) {
+                out.writeInt(CACHE_MAGIC);
+                out.writeInt(CACHE_VERSION);
+                out.writeInt(chunks.size());
+                for (Map.Entry<ChunkPos, ChunkImage> entry : chunks.entrySet()) {
+                    out.writeInt(entry.getKey().x);
+                    out.writeInt(entry.getKey().z);
+                    out.writeLong(entry.getValue().hash);
+                    for (int color : entry.getValue().colors) {
+                        out.writeInt(color);
+                    }
+                    for (short height : entry.getValue().heights) {
+                        out.writeShort(height);
+                    }
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to save map tile " + file.getName(), e);
+            temp.delete();
+        }
+    }
+
+    private static void writePng(MapImage image, File output) throws IOException {
+        File dir = output.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create output directory: " + dir);
+        }
+        Bitmap bitmap = Bitmap.createBitmap(image.pixels, image.width, image.height, Bitmap.Config.ARGB_8888);
+        try (FileOutputStream out = new FileOutputStream(output)) {
+            if (!bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)) {
+                throw new IOException("Failed to encode PNG");
+            }
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    private static void awaitAll(List<Future<?>> futures) throws IOException {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelAll(futures);
+            throw new InterruptedIOException("Rendering interrupted");
+        } catch (ExecutionException e) {
+            cancelAll(futures);
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Tile rendering failed: " + cause, cause);
+        }
+    }
+
+    private static void cancelAll(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(false);
+        }
+    }
+
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public void shutdown() {
+        cancel();
+    }
+
+    private static final class ChunkImage {
+        final long hash;
+        final int[] colors = new int[256];
+        final short[] heights = new short[256];
+
+        ChunkImage(long hash) {
+            this.hash = hash;
+            Arrays.fill(heights, (short) NO_HEIGHT);
+        }
+    }
+
+    private static final class MapImage {
+        final int originX;
+        final int originZ;
+        final int width;
+        final int height;
+        final int[] pixels;
+        final short[] heights;
+
+        MapImage(int originX, int originZ, int width, int height) {
+            this.originX = originX;
+            this.originZ = originZ;
+            this.width = width;
+            this.height = height;
+            this.pixels = new int[width * height];
+            this.heights = new short[width * height];
+            Arrays.fill(heights, (short) NO_HEIGHT);
+        }
+
+        void draw(ChunkPos pos, ChunkImage chunk) {
+            int left = (pos.x - originX) * 16;
+            int top = (pos.z - originZ) * 16;
+            for (int z = 0; z < 16; z++) {
+                int row = (top + z) * width + left;
+                System.arraycopy(chunk.colors, z * 16, pixels, row, 16);
+                System.arraycopy(chunk.heights, z * 16, heights, row, 16);
+            }
+        }
+
+        void shade() {
+            for (int i = pixels.length - 1; i >= width; i--) {
+                int h = heights[i];
+                int north = heights[i - width];
+                if (h == NO_HEIGHT || north == NO_HEIGHT || h == north) continue;
+                pixels[i] = scale(pixels[i], h > north ? 1.12f : 0.82f);
+            }
+        }
+
+        private static int scale(int color, float factor) {
+            int r = Math.min(255, (int) (((color >> 16) & 0xFF) * factor));
+            int g = Math.min(255, (int) (((color >> 8) & 0xFF) * factor));
+            int b = Math.min(255, (int) ((color & 0xFF) * factor));
+            return (color & 0xFF000000) | (r << 16) | (g << 8) | b;
+        }
+    }
+}
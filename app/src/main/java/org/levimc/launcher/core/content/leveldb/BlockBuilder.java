@@ -0,0 +1,79 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+final class BlockBuilder {
+    private final int restartInterval;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private int[] restarts = new int[16];
+    private int restartCount;
+    private int counter;
+    private byte[] lastKey = new byte[64];
+    private int lastKeyLength;
+    private boolean empty = true;
+
+    BlockBuilder(int restartInterval) {
+        this.restartInterval = restartInterval;
+        reset();
+    }
+
+    void reset() {
+        buffer.reset();
+        restartCount = 0;
+        addRestart(0);
+        counter = 0;
+        lastKeyLength = 0;
+        empty = true;
+    }
+
+    void add(byte[] key, int keyLength, byte[] value, int valueOffset, int valueLength) {
+        int shared = 0;
+        if (counter < restartInterval) {
+            int limit = Math.min(lastKeyLength, keyLength);
+            while (shared < limit && lastKey[shared] == key[shared]) {
+                shared++;
+            }
+        } else {
+            addRestart(buffer.size());
+            counter = 0;
+        }
+
+        Coding.writeVarInt32(buffer, shared);
+        Coding.writeVarInt32(buffer, keyLength - shared);
+        Coding.writeVarInt32(buffer, valueLength);
+        buffer.write(key, shared, keyLength - shared);
+        buffer.write(value, valueOffset, valueLength);
+
+        if (lastKey.length < keyLength) {
+            lastKey = Arrays.copyOf(lastKey, Math.max(keyLength, lastKey.length * 2));
+        }
+        System.arraycopy(key, shared, lastKey, shared, keyLength - shared);
+        lastKeyLength = keyLength;
+        counter++;
+        empty = false;
+    }
+
+    byte[] finish() {
+        for (int i = 0; i < restartCount; i++) {
+            Coding.writeInt32LE(buffer, restarts[i]);
+        }
+        Coding.writeInt32LE(buffer, restartCount);
+        return buffer.toByteArray();
+    }
+
+    int currentSizeEstimate() {
+        return buffer.size() + restartCount * 4 + 4;
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    private void addRestart(int offset) {
+        if (restartCount == restarts.length) {
+            restarts = Arrays.copyOf(restarts, restarts.length * 2);
+        }
+        restarts[restartCount++] = offset;
+    }
+}
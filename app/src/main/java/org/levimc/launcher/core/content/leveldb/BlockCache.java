@@ -0,0 +1,102 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class BlockCache {
+    private final long capacityBytes;
+    private final LinkedHashMap<Key, Block> blocks = new LinkedHashMap<>(64, 0.75f, true);
+    private long usedBytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public BlockCache(long capacityBytes) {
+        this.capacityBytes = capacityBytes;
+    }
+
+    synchronized Block get(long fileNumber, long offset) {
+        Block block = blocks.get(new Key(fileNumber, offset));
+        if (block != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return block;
+    }
+
+    synchronized void put(long fileNumber, long offset, Block block) {
+        int size = block.size();
+        if (size > capacityBytes / 4) {
+            return;
+        }
+
+        Block previous = blocks.put(new Key(fileNumber, offset), block);
+        if (previous != null) {
+            usedBytes -= previous.size();
+        }
+        usedBytes += size;
+
+        Iterator<Map.Entry<Key, Block>> iterator = blocks.entrySet().iterator();
+        while (usedBytes > capacityBytes && iterator.hasNext()) {
+            usedBytes -= iterator.next().getValue().size();
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public long getCapacityBytes() {
+        return capacityBytes;
+    }
+
+    public synchronized void clear() {
+        blocks.clear();
+        usedBytes = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "BlockCache{hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount +
+               ", used=" + usedBytes + "/" + capacityBytes + "}";
+    }
+
+    private static final class Key {
+        final long fileNumber;
+        final long offset;
+
+        Key(long fileNumber, long offset) {
+            this.fileNumber = fileNumber;
+            this.offset = offset;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return fileNumber == other.fileNumber && offset == other.offset;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(fileNumber * 31 + offset);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+final class BlockHandle {
+    static final int MAX_ENCODED_LENGTH = 20;
+
+    final long offset;
+    final long size;
+
+    BlockHandle(long offset, long size) {
+        this.offset = offset;
+        this.size = size;
+    }
+
+    static BlockHandle decode(ByteBuffer buffer) {
+        long offset = Coding.readVarInt64(buffer);
+        long size = Coding.readVarInt64(buffer);
+        return new BlockHandle(offset, size);
+    }
+
+    void encodeTo(ByteArrayOutputStream out) {
+        Coding.writeVarInt64(out, offset);
+        Coding.writeVarInt64(out, size);
+    }
+
+    boolean isPlausible(long fileSize) {
+        return offset >= 0 && size > 0 && size < 100 * 1024 * 1024 && offset + size <= fileSize;
+    }
+}
@@ -0,0 +1,97 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class BlockHistogram {
+    private final Map<Integer, Map<String, long[]>> dimensions = new HashMap<>();
+    private long subChunkCount;
+    private long skippedCount;
+
+    public void add(int dimension, String name, long count) {
+        Map<String, long[]> counts = dimensions.get(dimension);
+        if (counts == null) {
+            counts = new HashMap<>();
+            dimensions.put(dimension, counts);
+        }
+        long[] total = counts.get(name);
+        if (total == null) {
+            counts.put(name, new long[]{count});
+        } else {
+            total[0] += count;
+        }
+    }
+
+    void addSubChunk() {
+        subChunkCount++;
+    }
+
+    void addSkipped() {
+        skippedCount++;
+    }
+
+    public void merge(BlockHistogram other) {
+        for (Map.Entry<Integer, Map<String, long[]>> dimension : other.dimensions.entrySet()) {
+            for (Map.Entry<String, long[]> entry : dimension.getValue().entrySet()) {
+                add(dimension.getKey(), entry.getKey(), entry.getValue()[0]);
+            }
+        }
+        subChunkCount += other.subChunkCount;
+        skippedCount += other.skippedCount;
+    }
+
+    public Set<Integer> getDimensions() {
+        return new TreeSet<>(dimensions.keySet());
+    }
+
+    public long getCount(int dimension, String name) {
+        Map<String, long[]> counts = dimensions.get(dimension);
+        long[] total = counts != null ? counts.get(name) : null;
+        return total != null ? total[0] : 0;
+    }
+
+    public long getTotal(int dimension) {
+        Map<String, long[]> counts = dimensions.get(dimension);
+        long total = 0;
+        if (counts != null) {
+            for (long[] count : counts.values()) {
+                total += count[0];
+            }
+        }
+        return total;
+    }
+
+    public List<Map.Entry<String, Long>> getSortedCounts(int dimension) {
+        List<Map.Entry<String, Long>> result = new ArrayList<>();
+        Map<String, long[]> counts = dimensions.get(dimension);
+        if (counts != null) {
+            for (Map.Entry<String, long[]> entry : counts.entrySet()) {
+                result.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()[0]));
+            }
+        }
+        result.sort((a, b) -> {
+            int order = Long.compare(b.getValue(), a.getValue());
+            return order != 0 ? order : a.getKey().compareTo(b.getKey());
+        });
+        return result;
+    }
+
+    public long getSubChunkCount() {
+        return subChunkCount;
+    }
+
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "BlockHistogram{dimensions=" + dimensions.size() + ", subChunks=" + subChunkCount +
+               ", skipped=" + skippedCount + "}";
+    }
+}
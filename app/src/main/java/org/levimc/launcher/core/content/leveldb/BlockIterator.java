@@ -0,0 +1,155 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+final class BlockIterator implements InternalIterator {
+    private final ByteBuffer data;
+    private final int restartOffset;
+    private final int numRestarts;
+
+    private int current;
+    private int cursor;
+    private int nextOffset;
+    private byte[] key = new byte[64];
+    private int keyLength;
+    private int valueOffset;
+    private int valueLength;
+    private boolean valid;
+
+    BlockIterator(ByteBuffer data, int restartOffset, int numRestarts) {
+        this.data = data;
+        this.restartOffset = restartOffset;
+        this.numRestarts = numRestarts;
+        this.nextOffset = restartOffset;
+    }
+
+    @Override
+    public boolean isValid() {
+        return valid;
+    }
+
+    @Override
+    public void seekToFirst() {
+        seekToRestartPoint(0);
+        parseNextEntry();
+    }
+
+    @Override
+    public void seek(byte[] target) {
+        int left = 0;
+        int right = numRestarts - 1;
+        while (left < right) {
+            int mid = (left + right + 1) >>> 1;
+            seekToRestartPoint(mid);
+            if (!parseNextEntry()) {
+                right = mid - 1;
+                continue;
+            }
+            if (InternalKey.compare(key, 0, keyLength, target, 0, target.length) < 0) {
+                left = mid;
+            } else {
+                right = mid - 1;
+            }
+        }
+
+        seekToRestartPoint(left);
+        while (parseNextEntry()) {
+            if (InternalKey.compare(key, 0, keyLength, target, 0, target.length) >= 0) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void next() {
+        parseNextEntry();
+    }
+
+    @Override
+    public byte[] keyArray() {
+        return key;
+    }
+
+    @Override
+    public int keyLength() {
+        return keyLength;
+    }
+
+    @Override
+    public ByteBuffer value() {
+        ByteBuffer view = data.duplicate();
+        view.limit(valueOffset + valueLength);
+        view.position(valueOffset);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    int valueOffset() {
+        return valueOffset;
+    }
+
+    int valueLength() {
+        return valueLength;
+    }
+
+    private void seekToRestartPoint(int index) {
+        keyLength = 0;
+        valid = false;
+        if (numRestarts == 0) {
+            nextOffset = restartOffset;
+            return;
+        }
+        nextOffset = data.getInt(restartOffset + index * 4);
+    }
+
+    private boolean parseNextEntry() {
+        current = nextOffset;
+        if (current >= restartOffset) {
+            valid = false;
+            return false;
+        }
+
+        cursor = current;
+        int shared = readVarInt32();
+        int nonShared = readVarInt32();
+        int length = readVarInt32();
+
+        if (shared < 0 || nonShared < 0 || length < 0 || shared > keyLength
+                || cursor + nonShared + length > restartOffset) {
+            valid = false;
+            nextOffset = restartOffset;
+            return false;
+        }
+
+        int newLength = shared + nonShared;
+        if (newLength > key.length) {
+            key = Arrays.copyOf(key, Math.max(newLength, key.length * 2));
+        }
+        if (data.hasArray()) {
+            System.arraycopy(data.array(), data.arrayOffset() + cursor, key, shared, nonShared);
+        } else {
+            for (int i = 0; i < nonShared; i++) {
+                key[shared + i] = data.get(cursor + i);
+            }
+        }
+        keyLength = newLength;
+        valueOffset = cursor + nonShared;
+        valueLength = length;
+        nextOffset = valueOffset + valueLength;
+        valid = true;
+        return true;
+    }
+
+    private int readVarInt32() {
+        int result = 0;
+        int shift = 0;
+        while (cursor < restartOffset && shift < 35) {
+            byte b = data.get(cursor++);
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+            shift += 7;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,94 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class BlockSearchResult {
+    public static final class Match {
+        public final int dimension;
+        public final int x;
+        public final int y;
+        public final int z;
+        public final String name;
+
+        Match(int dimension, int x, int y, int z, String name) {
+            this.dimension = dimension;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name + " @ " + dimension + ":" + x + "," + y + "," + z;
+        }
+    }
+
+    private final List<Match> matches = new ArrayList<>();
+    private long subChunkCount;
+    private long skippedCount;
+    private long filteredCount;
+    private boolean truncated;
+
+    void add(Match match) {
+        matches.add(match);
+    }
+
+    void addSubChunk(boolean filtered) {
+        subChunkCount++;
+        if (filtered) filteredCount++;
+    }
+
+    void addSkipped() {
+        skippedCount++;
+    }
+
+    void setTruncated() {
+        truncated = true;
+    }
+
+    void merge(BlockSearchResult other) {
+        matches.addAll(other.matches);
+        subChunkCount += other.subChunkCount;
+        skippedCount += other.skippedCount;
+        filteredCount += other.filteredCount;
+        truncated |= other.truncated;
+    }
+
+    void sort() {
+        matches.sort((a, b) -> {
+            if (a.dimension != b.dimension) return Integer.compare(a.dimension, b.dimension);
+            if (a.x != b.x) return Integer.compare(a.x, b.x);
+            if (a.z != b.z) return Integer.compare(a.z, b.z);
+            return Integer.compare(a.y, b.y);
+        });
+    }
+
+    public List<Match> getMatches() {
+        return Collections.unmodifiableList(matches);
+    }
+
+    public long getSubChunkCount() {
+        return subChunkCount;
+    }
+
+    public long getFilteredCount() {
+        return filteredCount;
+    }
+
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    @Override
+    public String toString() {
+        return "BlockSearchResult{matches=" + matches.size() + ", subChunks=" + subChunkCount +
+               ", filtered=" + filteredCount + ", skipped=" + skippedCount + ", truncated=" + truncated + "}";
+    }
+}
@@ -0,0 +1,101 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+final class BloomFilter {
+    static final String NAME = "leveldb.BuiltinBloomFilter2";
+
+    private BloomFilter() {
+    }
+
+    static boolean keyMayMatch(byte[] key, int keyLength, ByteBuffer filter, int offset, int length) {
+        if (length < 2) return false;
+
+        long bits = (long) (length - 1) * 8;
+        int probes = filter.get(offset + length - 1) & 0xFF;
+        if (probes > 30) return true;
+
+        if (probe(hash(key, keyLength, false), probes, bits, filter, offset)) return true;
+        return hasHighTailByte(key, keyLength)
+                && probe(hash(key, keyLength, true), probes, bits, filter, offset);
+    }
+
+    static void createFilter(List<byte[]> keys, int bitsPerKey, ByteArrayOutputStream out) {
+        int probes = Math.max(1, Math.min(30, (int) (bitsPerKey * 0.69)));
+        int bits = Math.max(64, keys.size() * bitsPerKey);
+        int bytes = (bits + 7) / 8;
+        bits = bytes * 8;
+
+        byte[] array = new byte[bytes + 1];
+        array[bytes] = (byte) probes;
+        for (byte[] key : keys) {
+            set(hash(key, key.length, false), probes, bits, array);
+            if (hasHighTailByte(key, key.length)) {
+                set(hash(key, key.length, true), probes, bits, array);
+            }
+        }
+        out.write(array, 0, array.length);
+    }
+
+    private static void set(int h, int probes, long bits, byte[] array) {
+        int delta = (h >>> 17) | (h << 15);
+        for (int j = 0; j < probes; j++) {
+            long bitPos = Integer.toUnsignedLong(h) % bits;
+            array[(int) (bitPos / 8)] |= (byte) (1 << (bitPos % 8));
+            h += delta;
+        }
+    }
+
+    private static boolean probe(int h, int probes, long bits, ByteBuffer filter, int offset) {
+        int delta = (h >>> 17) | (h << 15);
+        for (int j = 0; j < probes; j++) {
+            long bitPos = Integer.toUnsignedLong(h) % bits;
+            if ((filter.get(offset + (int) (bitPos / 8)) & (1 << (bitPos % 8))) == 0) {
+                return false;
+            }
+            h += delta;
+        }
+        return true;
+    }
+
+    // Older LevelDB builds hash the trailing bytes as signed chars, so both variants are accepted
+    // when reading and both are set when writing.
+    static boolean hasHighTailByte(byte[] key, int length) {
+        for (int i = length & ~3; i < length; i++) {
+            if (key[i] < 0) return true;
+        }
+        return false;
+    }
+
+    static int hash(byte[] data, int length, boolean signedTail) {
+        final int m = 0xc6a4a793;
+        int h = 0xbc9f1d34 ^ (length * m);
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            int w = (data[i] & 0xFF) | ((data[i + 1] & 0xFF) << 8)
+                    | ((data[i + 2] & 0xFF) << 16) | ((data[i + 3] & 0xFF) << 24);
+            h += w;
+            h *= m;
+            h ^= (h >>> 16);
+        }
+        int remaining = length - i;
+        if (remaining == 3) {
+            h += tailByte(data[i + 2], signedTail) << 16;
+        }
+        if (remaining >= 2) {
+            h += tailByte(data[i + 1], signedTail) << 8;
+        }
+        if (remaining >= 1) {
+            h += tailByte(data[i], signedTail);
+            h *= m;
+            h ^= (h >>> 24);
+        }
+        return h;
+    }
+
+    private static int tailByte(byte b, boolean signed) {
+        return signed ? b : b & 0xFF;
+    }
+}
@@ -0,0 +1,138 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.util.Arrays;
+
+final class ByteKeyMap {
+    static final int MISSING = -1;
+
+    private byte[] slab;
+    private int slabSize;
+    private int[] keyOffsets;
+    private int[] keyLengths;
+    private int[] hashes;
+    private int[] values;
+    private int size;
+    private int[] slots;
+
+    ByteKeyMap(int expectedKeys) {
+        int capacity = Math.max(16, expectedKeys);
+        slab = new byte[capacity * 16];
+        keyOffsets = new int[capacity];
+        keyLengths = new int[capacity];
+        hashes = new int[capacity];
+        values = new int[capacity];
+        slots = new int[tableSize(capacity)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int find(byte[] key, int offset, int length) {
+        int hash = hash(key, offset, length);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot] - 1;
+            if (entry < 0) return MISSING;
+            if (hashes[entry] == hash && keyEquals(entry, key, offset, length)) return entry;
+        }
+    }
+
+    int add(byte[] key, int offset, int length, int value) {
+        int hash = hash(key, offset, length);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        for (; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int entry = slots[slot] - 1;
+            if (hashes[entry] == hash && keyEquals(entry, key, offset, length)) return entry;
+        }
+
+        if (size == keyOffsets.length) {
+            int capacity = size * 2;
+            keyOffsets = Arrays.copyOf(keyOffsets, capacity);
+            keyLengths = Arrays.copyOf(keyLengths, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        if (slabSize + length > slab.length) {
+            slab = Arrays.copyOf(slab, Math.max(slabSize + length, slab.length * 2));
+        }
+        System.arraycopy(key, offset, slab, slabSize, length);
+
+        int entry = size++;
+        keyOffsets[entry] = slabSize;
+        keyLengths[entry] = length;
+        hashes[entry] = hash;
+        values[entry] = value;
+        slabSize += length;
+        slots[slot] = entry + 1;
+
+        if (size * 4 > slots.length * 3) {
+            rehash(slots.length * 2);
+        }
+        return entry;
+    }
+
+    int value(int entry) {
+        return values[entry];
+    }
+
+    void setValue(int entry, int value) {
+        values[entry] = value;
+    }
+
+    byte[] keys() {
+        return slab;
+    }
+
+    int keyOffset(int entry) {
+        return keyOffsets[entry];
+    }
+
+    int keyLength(int entry) {
+        return keyLengths[entry];
+    }
+
+    void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+        slabSize = 0;
+    }
+
+    private boolean keyEquals(int entry, byte[] key, int offset, int length) {
+        if (keyLengths[entry] != length) return false;
+        int start = keyOffsets[entry];
+        for (int i = 0; i < length; i++) {
+            if (slab[start + i] != key[offset + i]) return false;
+        }
+        return true;
+    }
+
+    private void rehash(int tableSize) {
+        slots = new int[tableSize];
+        int mask = tableSize - 1;
+        for (int entry = 0; entry < size; entry++) {
+            int slot = hashes[entry] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = entry + 1;
+        }
+    }
+
+    private static int tableSize(int capacity) {
+        int size = 16;
+        while (size * 3 < capacity * 4) {
+            size <<= 1;
+        }
+        return size * 2;
+    }
+
+    static int hash(byte[] key, int offset, int length) {
+        int hash = 0x9747b28c;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ (key[offset + i] & 0xFF)) * 0x01000193;
+        }
+        return hash ^ (hash >>> 15);
+    }
+}
@@ -0,0 +1,453 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ChunkIndex {
+    private static final String TAG = "ChunkIndex";
+    public static final String DIRECTORY = ".levilauncher";
+    private static final String FILE_NAME = "chunk_index.bin";
+    private static final int MAGIC = 0x4C434958;
+    private static final int FORMAT_VERSION = 2;
+    private static final int KEY_SIZE = 12;
+
+    private static final Comparator<ChunkPos> ORDER = (a, b) -> {
+        if (a.dimension != b.dimension) return Integer.compare(a.dimension, b.dimension);
+        if (a.x != b.x) return Integer.compare(a.x, b.x);
+        return Integer.compare(a.z, b.z);
+    };
+
+    private final File dbPath;
+    private final File indexFile;
+    private final Map<Long, TableChunks> tables = new HashMap<>();
+    private final ByteKeyMap chunkSlots = new ByteKeyMap(1024);
+    private final List<TableChunks> slotTables = new ArrayList<>();
+    private int[] locationTable = new int[1024];
+    private int[] locationEntry = new int[1024];
+    private int[] locationNext = new int[1024];
+    private int locationCount;
+    private TableChunks logKeys = new TableChunks(-1, 0);
+    private boolean loaded;
+
+    public ChunkIndex(File worldDir) {
+        this(new File(worldDir, "db"), new File(new File(worldDir, DIRECTORY), FILE_NAME));
+    }
+
+    ChunkIndex(File dbPath, File indexFile) {
+        this.dbPath = dbPath;
+        this.indexFile = indexFile;
+    }
+
+    public synchronized void update() throws IOException {
+        if (!loaded) {
+            load();
+            loaded = true;
+        }
+
+        Map<Long, File> liveTables = new HashMap<>();
+        List<File> liveLogs = new ArrayList<>();
+        findLiveFiles(liveTables, liveLogs);
+
+        boolean changed = false;
+        Iterator<Map.Entry<Long, TableChunks>> it = tables.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, TableChunks> entry = it.next();
+            File file = liveTables.get(entry.getKey());
+            if (file == null || file.length() != entry.getValue().fileSize) {
+                it.remove();
+                changed = true;
+            }
+        }
+
+        int scanned = 0;
+        for (Map.Entry<Long, File> entry : liveTables.entrySet()) {
+            if (tables.containsKey(entry.getKey())) continue;
+            try {
+                tables.put(entry.getKey(), scanTable(entry.getKey(), entry.getValue()));
+                scanned++;
+                changed = true;
+            } catch (IOException e) {
+                Log.w(TAG, "Cannot index " + entry.getValue().getName() + " - " + e.getMessage());
+            }
+        }
+
+        logKeys = new TableChunks(-1, 0);
+        for (File log : liveLogs) {
+            scanLog(log, logKeys);
+        }
+
+        rebuildLocations();
+        if (changed) {
+            save();
+        }
+        Log.d(TAG, "Index has " + chunkSlots.size() + " chunks in " + tables.size() + " tables (" +
+              scanned + " rescanned), " + logKeys.keyCount + " chunk keys in logs");
+    }
+
+    public synchronized int getChunkCount() {
+        return chunkSlots.size();
+    }
+
+    public synchronized boolean contains(ChunkPos pos) {
+        return chunkSlots.find(slotKey(pos, new byte[KEY_SIZE]), 0, KEY_SIZE) != ByteKeyMap.MISSING;
+    }
+
+    public List<ChunkPos> getChunks(int dimension) {
+        return getChunks(dimension, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    public synchronized List<ChunkPos> getChunks(int dimension, int minX, int minZ, int maxX, int maxZ) {
+        List<ChunkPos> sorted = new ArrayList<>();
+        byte[] keys = chunkSlots.keys();
+        for (int i = 0; i < chunkSlots.size(); i++) {
+            int offset = chunkSlots.keyOffset(i);
+            int keyDimension = Coding.readInt32LE(keys, offset);
+            int x = Coding.readInt32LE(keys, offset + 4);
+            int z = Coding.readInt32LE(keys, offset + 8);
+            if (keyDimension == dimension && x >= minX && x <= maxX && z >= minZ && z <= maxZ) {
+                sorted.add(new ChunkPos(keyDimension, x, z));
+            }
+        }
+        sorted.sort(ORDER);
+        return sorted;
+    }
+
+    public synchronized Set<Integer> getDimensions() {
+        Set<Integer> dimensions = new HashSet<>();
+        byte[] keys = chunkSlots.keys();
+        for (int i = 0; i < chunkSlots.size(); i++) dimensions.add(Coding.readInt32LE(keys, chunkSlots.keyOffset(i)));
+        return dimensions;
+    }
+
+    synchronized List<Location> getLocations(ChunkPos pos) {
+        int slot = chunkSlots.find(slotKey(pos, new byte[KEY_SIZE]), 0, KEY_SIZE);
+        if (slot == ByteKeyMap.MISSING) return Collections.emptyList();
+        List<Location> result = new ArrayList<>(1);
+        for (int i = chunkSlots.value(slot); i >= 0; i = locationNext[i]) {
+            TableChunks table = slotTables.get(locationTable[i]);
+            int entry = locationEntry[i];
+            result.add(new Location(table.number, new BlockHandle(table.offsets[entry], table.sizes[entry])));
+        }
+        return result;
+    }
+
+    synchronized boolean isIndexed(long fileNumber) {
+        return tables.containsKey(fileNumber);
+    }
+
+    private void findLiveFiles(Map<Long, File> liveTables, List<File> liveLogs) {
+        Version version = null;
+        try {
+            version = Version.load(dbPath);
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot use MANIFEST (" + e.getMessage() + "), indexing every table file");
+        }
+
+        if (version != null) {
+            for (List<FileMetaData> level : version.levels) {
+                for (FileMetaData meta : level) {
+                    File file = Version.tableFile(dbPath, meta.number);
+                    if (file.isFile()) liveTables.put(meta.number, file);
+                }
+            }
+        } else {
+            File[] files = dbPath.listFiles((dir, name) -> name.endsWith(".ldb") || name.endsWith(".sst"));
+            if (files != null) {
+                for (File file : files) {
+                    long number = LevelDBReader.parseFileNumber(file.getName());
+                    if (number >= 0) liveTables.put(number, file);
+                }
+            }
+        }
+
+        File[] logs = dbPath.listFiles((dir, name) -> name.endsWith(".log"));
+        if (logs != null) {
+            for (File log : logs) {
+                long number = LevelDBReader.parseFileNumber(log.getName());
+                if (version == null || version.isLiveLog(number)) liveLogs.add(log);
+            }
+        }
+    }
+
+    private static TableChunks scanTable(long number, File file) throws IOException {
+        TableChunks chunks = new TableChunks(number, file.length());
+        TableReader table = new TableReader(file, number, null, true);
+        try {
+            BlockIterator index = table.indexIterator();
+            for (index.seekToFirst(); index.isValid(); index.next()) {
+                BlockHandle handle = BlockHandle.decode(index.value());
+                BlockIterator data;
+                try {
+                    data = table.readBlock(handle).iterator();
+                } catch (IOException e) {
+                    Log.w(TAG, "Skipping unreadable block at " + handle.offset + " in " + file.getName());
+                    continue;
+                }
+
+                ChunkPos last = null;
+                int entry = -1;
+                for (data.seekToFirst(); data.isValid(); data.next()) {
+                    byte[] key = data.keyArray();
+                    int length = InternalKey.userKeyLength(data.keyLength());
+                    if (last == null || !last.matches(key, length)) {
+                        ChunkPos pos = ChunkPos.fromKey(key, length);
+                        if (pos == null) continue;
+                        entry = chunks.add(pos, handle);
+                        last = pos;
+                    }
+                    chunks.addKey(entry, keySuffix(key, length), InternalKey.trailer(key, 0, data.keyLength()));
+                }
+            }
+        } finally {
+            table.close();
+        }
+        return chunks;
+    }
+
+    private static void scanLog(File file, TableChunks keys) {
+        try {
+            MemTable memTable = new MemTable();
+            LogReader reader = LogReader.open(file);
+            byte[] record;
+            while ((record = reader.readRecord()) != null) {
+                memTable.applyWriteBatch(record);
+            }
+            InternalIterator it = memTable.iterator();
+            ChunkPos last = null;
+            int entry = -1;
+            for (it.seekToFirst(); it.isValid(); it.next()) {
+                byte[] key = it.keyArray();
+                int length = InternalKey.userKeyLength(it.keyLength());
+                if (last == null || !last.matches(key, length)) {
+                    ChunkPos pos = ChunkPos.fromKey(key, length);
+                    if (pos == null) continue;
+                    entry = keys.add(pos.dimension, pos.x, pos.z, 0, 0);
+                    last = pos;
+                }
+                keys.addKey(entry, keySuffix(key, length), InternalKey.trailer(key, 0, it.keyLength()));
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot index log " + file.getName() + " - " + e.getMessage());
+        }
+    }
+
+    private void rebuildLocations() {
+        chunkSlots.clear();
+        slotTables.clear();
+        locationCount = 0;
+
+        // A chunk exists while at least one of its keys has a value as its newest version.
+        ByteKeyMap newest = new ByteKeyMap(1024);
+        long[] trailers = new long[1024];
+        byte[] key = new byte[KEY_SIZE + 4];
+        List<TableChunks> sources = new ArrayList<>(tables.values());
+        sources.add(logKeys);
+        for (TableChunks table : sources) {
+            for (int i = 0; i < table.keyCount; i++) {
+                int entry = table.keyEntries[i];
+                Coding.putInt32LE(key, 0, table.dimensions[entry]);
+                Coding.putInt32LE(key, 4, table.xs[entry]);
+                Coding.putInt32LE(key, 8, table.zs[entry]);
+                Coding.putInt32LE(key, KEY_SIZE, table.keySuffixes[i]);
+                int size = newest.size();
+                int slot = newest.add(key, 0, key.length, 0);
+                if (slot == trailers.length) trailers = Arrays.copyOf(trailers, slot * 2);
+                if (slot == size || table.keyTrailers[i] > trailers[slot]) trailers[slot] = table.keyTrailers[i];
+            }
+        }
+        byte[] keys = newest.keys();
+        for (int i = 0; i < newest.size(); i++) {
+            if ((trailers[i] & 0xFF) == InternalKey.TYPE_VALUE) {
+                chunkSlots.add(keys, newest.keyOffset(i), KEY_SIZE, -1);
+            }
+        }
+
+        for (TableChunks table : tables.values()) {
+            int tableSlot = slotTables.size();
+            slotTables.add(table);
+            for (int i = 0; i < table.count; i++) {
+                Coding.putInt32LE(key, 0, table.dimensions[i]);
+                Coding.putInt32LE(key, 4, table.xs[i]);
+                Coding.putInt32LE(key, 8, table.zs[i]);
+                int slot = chunkSlots.find(key, 0, KEY_SIZE);
+                if (slot == ByteKeyMap.MISSING) continue;
+                if (locationCount == locationNext.length) {
+                    int capacity = locationCount * 2;
+                    locationTable = Arrays.copyOf(locationTable, capacity);
+                    locationEntry = Arrays.copyOf(locationEntry, capacity);
+                    locationNext = Arrays.copyOf(locationNext, capacity);
+                }
+                locationTable[locationCount] = tableSlot;
+                locationEntry[locationCount] = i;
+                locationNext[locationCount] = chunkSlots.value(slot);
+                chunkSlots.setValue(slot, locationCount++);
+            }
+        }
+    }
+
+    private static int keySuffix(byte[] key, int length) {
+        int tagOffset = length >= 13 ? 12 : 8;
+        int suffix = key[tagOffset] & 0xFF;
+        if (tagOffset + 1 < length) {
+            suffix |= 0x100 | (key[tagOffset + 1] & 0xFF) << 16;
+        }
+        return suffix;
+    }
+
+    private static byte[] slotKey(ChunkPos pos, byte[] key) {
+        Coding.putInt32LE(key, 0, pos.dimension);
+        Coding.putInt32LE(key, 4, pos.x);
+        Coding.putInt32LE(key, 8, pos.z);
+        return key;
+    }
+
+    private void load() {
+        if (!indexFile.isFile()) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                Log.w(TAG, "Ignoring chunk index with unknown format: " + indexFile);
+                return;
+            }
+            int tableCount = in.readInt();
+            for (int t = 0; t < tableCount; t++) {
+                TableChunks table = new TableChunks(in.readLong(), in.readLong());
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    table.add(in.readInt(), in.readInt(), in.readInt(), in.readLong(), in.readInt());
+                }
+                int keyCount = in.readInt();
+                for (int i = 0; i < keyCount; i++) {
+                    table.addKey(in.readInt(), in.readInt(), in.readLong());
+                }
+                tables.put(table.number, table);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Discarding unreadable chunk index", e);
+            tables.clear();
+        }
+    }
+
+    private void save() {
+        File dir = indexFile.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            Log.w(TAG, "Cannot create index directory: " + dir);
+            return;
+        }
+
+        File temp = new File(indexFile.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(tables.size());
+                for (TableChunks table : tables.values()) {
+                    out.writeLong(table.number);
+                    out.writeLong(table.fileSize);
+                    out.writeInt(table.count);
+                    for (int i = 0; i < table.count; i++) {
+                        out.writeInt(table.dimensions[i]);
+                        out.writeInt(table.xs[i]);
+                        out.writeInt(table.zs[i]);
+                        out.writeLong(table.offsets[i]);
+                        out.writeInt(table.sizes[i]);
+                    }
+                    out.writeInt(table.keyCount);
+                    for (int i = 0; i < table.keyCount; i++) {
+                        out.writeInt(table.keyEntries[i]);
+                        out.writeInt(table.keySuffixes[i]);
+                        out.writeLong(table.keyTrailers[i]);
+                    }
+                }
+            }
+            Files.move(temp.toPath(), indexFile.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to save chunk index", e);
+            temp.delete();
+        }
+    }
+
+    static final class Location {
+        final long fileNumber;
+        final BlockHandle handle;
+
+        Location(long fileNumber, BlockHandle handle) {
+            this.fileNumber = fileNumber;
+            this.handle = handle;
+        }
+    }
+
+    private static final class TableChunks {
+        final long number;
+        final long fileSize;
+        int count;
+        int[] dimensions = new int[16];
+        int[] xs = new int[16];
+        int[] zs = new int[16];
+        long[] offsets = new long[16];
+        int[] sizes = new int[16];
+        int keyCount;
+        int[] keyEntries = new int[16];
+        int[] keySuffixes = new int[16];
+        long[] keyTrailers = new long[16];
+
+        TableChunks(long number, long fileSize) {
+            this.number = number;
+            this.fileSize = fileSize;
+        }
+
+        int add(ChunkPos pos, BlockHandle handle) {
+            return add(pos.dimension, pos.x, pos.z, handle.offset, (int) handle.size);
+        }
+
+        int add(int dimension, int x, int z, long offset, int size) {
+            if (count == xs.length) {
+                int capacity = count * 2;
+                dimensions = Arrays.copyOf(dimensions, capacity);
+                xs = Arrays.copyOf(xs, capacity);
+                zs = Arrays.copyOf(zs, capacity);
+                offsets = Arrays.copyOf(offsets, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+            }
+            dimensions[count] = dimension;
+            xs[count] = x;
+            zs[count] = z;
+            offsets[count] = offset;
+            sizes[count] = size;
+            return count++;
+        }
+
+        void addKey(int entry, int suffix, long trailer) {
+            if (keyCount == keyEntries.length) {
+                int capacity = keyCount * 2;
+                keyEntries = Arrays.copyOf(keyEntries, capacity);
+                keySuffixes = Arrays.copyOf(keySuffixes, capacity);
+                keyTrailers = Arrays.copyOf(keyTrailers, capacity);
+            }
+            keyEntries[keyCount] = entry;
+            keySuffixes[keyCount] = suffix;
+            keyTrailers[keyCount] = trailer;
+            keyCount++;
+        }
+    }
+}
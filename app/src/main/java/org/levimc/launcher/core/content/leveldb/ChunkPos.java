@@ -0,0 +1,72 @@
+package org.levimc.launcher.core.content.leveldb;
+
+public final class ChunkPos {
+    public final int dimension;
+    public final int x;
+    public final int z;
+
+    public ChunkPos(int dimension, int x, int z) {
+        this.dimension = dimension;
+        this.x = x;
+        this.z = z;
+    }
+
+    static ChunkPos fromKey(byte[] key, int length) {
+        int tagOffset = LevelDBKey.chunkTagOffset(key, length);
+        if (tagOffset < 0) return null;
+        int dimension = tagOffset == 12 ? Coding.readInt32LE(key, 8) : LevelDBKey.OVERWORLD;
+        return new ChunkPos(dimension, Coding.readInt32LE(key, 0), Coding.readInt32LE(key, 4));
+    }
+
+    boolean matches(byte[] key, int length) {
+        int tagOffset = LevelDBKey.chunkTagOffset(key, length);
+        if (tagOffset < 0) return false;
+        int keyDimension = tagOffset == 12 ? Coding.readInt32LE(key, 8) : LevelDBKey.OVERWORLD;
+        return keyDimension == dimension && Coding.readInt32LE(key, 0) == x && Coding.readInt32LE(key, 4) == z;
+    }
+
+    public byte[] keyPrefix() {
+        byte[] prefix = new byte[dimension == LevelDBKey.OVERWORLD ? 8 : 12];
+        Coding.putInt32LE(prefix, 0, x);
+        Coding.putInt32LE(prefix, 4, z);
+        if (dimension != LevelDBKey.OVERWORLD) {
+            Coding.putInt32LE(prefix, 8, dimension);
+        }
+        return prefix;
+    }
+
+    public byte[] key(LevelDBKey.KeyType type) {
+        byte[] prefix = keyPrefix();
+        byte[] key = new byte[prefix.length + 1];
+        System.arraycopy(prefix, 0, key, 0, prefix.length);
+        key[prefix.length] = (byte) type.id;
+        return key;
+    }
+
+    public byte[] subChunkKey(int index) {
+        byte[] prefix = keyPrefix();
+        byte[] key = new byte[prefix.length + 2];
+        System.arraycopy(prefix, 0, key, 0, prefix.length);
+        key[prefix.length] = (byte) LevelDBKey.KeyType.SUB_CHUNK.id;
+        key[prefix.length + 1] = (byte) index;
+        return key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ChunkPos)) return false;
+        ChunkPos other = (ChunkPos) o;
+        return dimension == other.dimension && x == other.x && z == other.z;
+    }
+
+    @Override
+    public int hashCode() {
+        return (dimension * 31 + x) * 31 + z;
+    }
+
+    @Override
+    public String toString() {
+        return "ChunkPos{dim=" + dimension + ", x=" + x + ", z=" + z + "}";
+    }
+}
@@ -0,0 +1,93 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ChunkPruner {
+    private static final String TAG = "ChunkPruner";
+
+    private final Map<Integer, List<int[]>> keepAreas = new HashMap<>();
+
+    public void keepArea(int dimension, int minX, int minZ, int maxX, int maxZ) {
+        List<int[]> areas = keepAreas.get(dimension);
+        if (areas == null) {
+            areas = new ArrayList<>();
+            keepAreas.put(dimension, areas);
+        }
+        areas.add(new int[]{Math.min(minX, maxX), Math.min(minZ, maxZ), Math.max(minX, maxX), Math.max(minZ, maxZ)});
+    }
+
+    public void keepRadius(int dimension, int centerX, int centerZ, int radius) {
+        keepArea(dimension, centerX - radius, centerZ - radius, centerX + radius, centerZ + radius);
+    }
+
+    public boolean isPruned(int dimension, int x, int z) {
+        List<int[]> areas = keepAreas.get(dimension);
+        if (areas == null) return false;
+        for (int[] area : areas) {
+            if (x >= area[0] && x <= area[2] && z >= area[1] && z <= area[3]) return false;
+        }
+        return true;
+    }
+
+    public CompactionResult prune(File dbDir) throws IOException {
+        if (keepAreas.isEmpty()) {
+            throw new IOException("No areas to keep were specified");
+        }
+
+        Set<Long> actors = collectPrunedActors(dbDir);
+        Log.d(TAG, "Pruning " + actors.size() + " actors outside kept areas");
+
+        LevelDBWriter writer = new LevelDBWriter(dbDir);
+        try {
+            return writer.compact((key, length) -> shouldDrop(key, length, actors));
+        } finally {
+            writer.close();
+        }
+    }
+
+    private Set<Long> collectPrunedActors(File dbDir) throws IOException {
+        Set<Long> actors = new HashSet<>();
+        LevelDBReader reader = new LevelDBReader(dbDir);
+        try {
+            LevelDBIterator iterator = reader.iterator();
+            byte[] prefix = LevelDBKey.ACTOR_DIGEST_PREFIX;
+            for (iterator.seek(prefix); iterator.isValid() && iterator.keyStartsWith(prefix); iterator.next()) {
+                if (!isPrunedDigest(iterator.keyArray(), iterator.keyLength())) continue;
+                ByteBuffer ids = iterator.valueSlice();
+                while (ids.remaining() >= 8) {
+                    actors.add(ids.getLong());
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return actors;
+    }
+
+    private boolean shouldDrop(byte[] key, int length, Set<Long> actors) {
+        int tagOffset = LevelDBKey.chunkTagOffset(key, length);
+        if (tagOffset >= 0) {
+            int dimension = tagOffset == 12 ? Coding.readInt32LE(key, 8) : LevelDBKey.OVERWORLD;
+            return isPruned(dimension, Coding.readInt32LE(key, 0), Coding.readInt32LE(key, 4));
+        }
+        if (LevelDBKey.isActorKey(key, length)) {
+            return actors.contains(LevelDBKey.actorId(key));
+        }
+        return isPrunedDigest(key, length);
+    }
+
+    private boolean isPrunedDigest(byte[] key, int length) {
+        ChunkPos pos = LevelDBKey.digestChunk(key, length);
+        return pos != null && isPruned(pos.dimension, pos.x, pos.z);
+    }
+}
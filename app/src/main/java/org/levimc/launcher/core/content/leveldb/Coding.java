@@ -0,0 +1,107 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+final class Coding {
+    private Coding() {
+    }
+
+    static int readVarInt32(ByteBuffer buffer) {
+        int result = 0;
+        int shift = 0;
+        while (buffer.hasRemaining() && shift < 35) {
+            byte b = buffer.get();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+            shift += 7;
+        }
+        return result;
+    }
+
+    static long readVarInt64(ByteBuffer buffer) {
+        long result = 0;
+        int shift = 0;
+        while (buffer.hasRemaining() && shift < 70) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+            shift += 7;
+        }
+        return result;
+    }
+
+    static int[] readVarInt(byte[] data, int pos) {
+        int result = 0;
+        int shift = 0;
+        while (pos < data.length && shift < 35) {
+            byte b = data[pos++];
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+            shift += 7;
+        }
+        return new int[]{result, pos};
+    }
+
+    static int readInt32LE(byte[] data, int pos) {
+        if (pos + 4 > data.length) return 0;
+        return (data[pos] & 0xFF) |
+               ((data[pos + 1] & 0xFF) << 8) |
+               ((data[pos + 2] & 0xFF) << 16) |
+               ((data[pos + 3] & 0xFF) << 24);
+    }
+
+    static int readInt16LE(byte[] data, int pos) {
+        if (pos + 2 > data.length) return 0;
+        return (data[pos] & 0xFF) | ((data[pos + 1] & 0xFF) << 8);
+    }
+
+    static long readInt64LE(byte[] data, int pos) {
+        long result = 0;
+        for (int i = 7; i >= 0; i--) {
+            result = (result << 8) | (data[pos + i] & 0xFF);
+        }
+        return result;
+    }
+
+    static void writeVarInt32(ByteArrayOutputStream out, int value) {
+        writeVarInt64(out, value & 0xFFFFFFFFL);
+    }
+
+    static void writeVarInt64(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static void writeLengthPrefixed(ByteArrayOutputStream out, byte[] data, int offset, int length) {
+        writeVarInt32(out, length);
+        out.write(data, offset, length);
+    }
+
+    static void writeInt32LE(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    static void writeInt64LE(ByteArrayOutputStream out, long value) {
+        writeInt32LE(out, (int) value);
+        writeInt32LE(out, (int) (value >>> 32));
+    }
+
+    static void putInt32LE(byte[] data, int pos, int value) {
+        data[pos] = (byte) value;
+        data[pos + 1] = (byte) (value >>> 8);
+        data[pos + 2] = (byte) (value >>> 16);
+        data[pos + 3] = (byte) (value >>> 24);
+    }
+
+    static void putInt64LE(byte[] data, int pos, long value) {
+        putInt32LE(data, pos, (int) value);
+        putInt32LE(data, pos + 4, (int) (value >>> 32));
+    }
+}
@@ -0,0 +1,54 @@
+package org.levimc.launcher.core.content.leveldb;
+
+public class CompactionResult {
+    private final long bytesBefore;
+    private final long bytesAfter;
+    private final int tablesBefore;
+    private final int tablesAfter;
+    private final long entriesKept;
+    private final long entriesDropped;
+
+    CompactionResult(long bytesBefore, long bytesAfter, int tablesBefore, int tablesAfter,
+                     long entriesKept, long entriesDropped) {
+        this.bytesBefore = bytesBefore;
+        this.bytesAfter = bytesAfter;
+        this.tablesBefore = tablesBefore;
+        this.tablesAfter = tablesAfter;
+        this.entriesKept = entriesKept;
+        this.entriesDropped = entriesDropped;
+    }
+
+    public long getBytesBefore() {
+        return bytesBefore;
+    }
+
+    public long getBytesAfter() {
+        return bytesAfter;
+    }
+
+    public long getReclaimedBytes() {
+        return bytesBefore - bytesAfter;
+    }
+
+    public int getTablesBefore() {
+        return tablesBefore;
+    }
+
+    public int getTablesAfter() {
+        return tablesAfter;
+    }
+
+    public long getEntriesKept() {
+        return entriesKept;
+    }
+
+    public long getEntriesDropped() {
+        return entriesDropped;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactionResult{bytes=" + bytesBefore + "->" + bytesAfter + ", tables=" + tablesBefore +
+               "->" + tablesAfter + ", kept=" + entriesKept + ", dropped=" + entriesDropped + "}";
+    }
+}
@@ -0,0 +1,229 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+final class Compression {
+    static final int NONE = 0;
+    static final int SNAPPY = 1;
+    static final int ZLIB = 2;
+    static final int ZLIB_RAW = 4;
+    static final int LZ4 = 5;
+    static final int ZSTD = 7;
+
+    private static final int INITIAL_BUFFER = 64 * 1024;
+    private static final int MAX_RETAINED_BUFFER = 4 * 1024 * 1024;
+    private static final int MAX_BLOCK_SIZE = 100 * 1024 * 1024;
+
+    private static final ThreadLocal<InflaterState> INFLATERS = ThreadLocal.withInitial(InflaterState::new);
+    private static final ThreadLocal<ZstdDecoder> ZSTD_DECODERS = ThreadLocal.withInitial(ZstdDecoder::new);
+
+    private Compression() {
+    }
+
+    static byte[] decompress(int compressionType, byte[] blockData) throws IOException {
+        switch (compressionType) {
+            case NONE:
+                return blockData;
+            case SNAPPY:
+                return decompressSnappy(blockData);
+            case ZLIB:
+                return decompressZlib(blockData);
+            case ZLIB_RAW:
+                return inflate(blockData, true);
+            case LZ4:
+                return decompressLZ4(blockData);
+            case ZSTD:
+                return decompressZstd(blockData);
+            default:
+                throw new IOException("Unknown block compression type: " + compressionType);
+        }
+    }
+
+    private static byte[] decompressSnappy(byte[] data) throws IOException {
+        if (data.length == 0) {
+            throw new IOException("Empty snappy block");
+        }
+        int[] result = Coding.readVarInt(data, 0);
+        int uncompressedLen = result[0];
+        int pos = result[1];
+        if (uncompressedLen < 0 || uncompressedLen > MAX_BLOCK_SIZE || pos > data.length) {
+            throw new IOException("Corrupt snappy length: " + uncompressedLen);
+        }
+
+        byte[] output = new byte[uncompressedLen];
+        int outPos = 0;
+        try {
+            while (pos < data.length) {
+                int tag = data[pos++] & 0xFF;
+                int tagType = tag & 0x03;
+
+                if (tagType == 0) {
+                    int len = tag >> 2;
+                    if (len >= 60) {
+                        int extraBytes = len - 59;
+                        if (pos + extraBytes > data.length) {
+                            throw new IOException("Truncated snappy literal length");
+                        }
+                        len = 0;
+                        for (int i = 0; i < extraBytes; i++) {
+                            len |= (data[pos++] & 0xFF) << (8 * i);
+                        }
+                    }
+                    len += 1;
+                    if (len <= 0 || pos + len > data.length || outPos + len > uncompressedLen) {
+                        throw new IOException("Corrupt snappy literal of " + len + " bytes at " + outPos);
+                    }
+                    System.arraycopy(data, pos, output, outPos, len);
+                    pos += len;
+                    outPos += len;
+                } else {
+                    int len;
+                    int offset;
+                    if (tagType == 1) {
+                        len = ((tag >> 2) & 0x07) + 4;
+                        offset = ((tag & 0xE0) << 3) | (data[pos++] & 0xFF);
+                    } else if (tagType == 2) {
+                        len = (tag >> 2) + 1;
+                        offset = (data[pos++] & 0xFF) | ((data[pos++] & 0xFF) << 8);
+                    } else {
+                        len = (tag >> 2) + 1;
+                        offset = Coding.readInt32LE(data, pos);
+                        pos += 4;
+                    }
+                    if (offset <= 0 || offset > outPos || outPos + len > uncompressedLen) {
+                        throw new IOException("Corrupt snappy copy (offset " + offset + ", length " + len + ") at " + outPos);
+                    }
+                    int srcPos = outPos - offset;
+                    for (int i = 0; i < len; i++) {
+                        output[outPos++] = output[srcPos++];
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Truncated snappy block", e);
+        }
+        if (outPos != uncompressedLen) {
+            throw new IOException("Snappy block decompressed to " + outPos + " of " + uncompressedLen + " bytes");
+        }
+        return output;
+    }
+
+    private static byte[] decompressZlib(byte[] data) throws IOException {
+        try {
+            return inflate(data, false);
+        } catch (IOException e) {
+            return inflate(data, true);
+        }
+    }
+
+    static byte[] inflate(byte[] data, boolean nowrap) throws IOException {
+        return inflate(data, 0, data.length, nowrap, null);
+    }
+
+    static byte[] inflate(byte[] data, int offset, int length, boolean nowrap, int[] consumed) throws IOException {
+        InflaterState state = INFLATERS.get();
+        Inflater inflater = nowrap ? state.raw : state.zlib;
+        inflater.reset();
+        inflater.setInput(data, offset, length);
+
+        byte[] buffer = state.buffer;
+        int produced = 0;
+        try {
+            while (!inflater.finished()) {
+                if (produced == buffer.length) {
+                    if (buffer.length >= MAX_BLOCK_SIZE) {
+                        throw new IOException("Decompressed block exceeds " + MAX_BLOCK_SIZE + " bytes");
+                    }
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                int count = inflater.inflate(buffer, produced, buffer.length - produced);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated deflate stream");
+                }
+                produced += count;
+            }
+            if (consumed != null) {
+                consumed[0] = length - inflater.getRemaining();
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt deflate stream: " + e.getMessage(), e);
+        } finally {
+            state.buffer = buffer.length <= MAX_RETAINED_BUFFER ? buffer : new byte[INITIAL_BUFFER];
+        }
+        return Arrays.copyOf(buffer, produced);
+    }
+
+    private static byte[] decompressLZ4(byte[] data) throws IOException {
+        if (data.length < 4) {
+            throw new IOException("Truncated LZ4 block header");
+        }
+        int uncompressedSize = Coding.readInt32LE(data, 0);
+        if (uncompressedSize < 0 || uncompressedSize > MAX_BLOCK_SIZE) {
+            throw new IOException("Corrupt LZ4 length: " + uncompressedSize);
+        }
+
+        byte[] output = new byte[uncompressedSize];
+        int srcPos = 4;
+        int dstPos = 0;
+        try {
+            while (srcPos < data.length) {
+                int token = data[srcPos++] & 0xFF;
+
+                int literalLen = token >> 4;
+                if (literalLen == 15) {
+                    int b;
+                    do {
+                        b = data[srcPos++] & 0xFF;
+                        literalLen += b;
+                    } while (b == 255);
+                }
+                if (srcPos + literalLen > data.length || dstPos + literalLen > uncompressedSize) {
+                    throw new IOException("Corrupt LZ4 literal of " + literalLen + " bytes at " + dstPos);
+                }
+                System.arraycopy(data, srcPos, output, dstPos, literalLen);
+                srcPos += literalLen;
+                dstPos += literalLen;
+
+                if (srcPos == data.length) {
+                    break;
+                }
+
+                int offset = (data[srcPos++] & 0xFF) | ((data[srcPos++] & 0xFF) << 8);
+                int matchLen = (token & 0x0F) + 4;
+                if (matchLen == 19) {
+                    int b;
+                    do {
+                        b = data[srcPos++] & 0xFF;
+                        matchLen += b;
+                    } while (b == 255);
+                }
+                if (offset == 0 || offset > dstPos || dstPos + matchLen > uncompressedSize) {
+                    throw new IOException("Corrupt LZ4 match (offset " + offset + ", length " + matchLen + ") at " + dstPos);
+                }
+                int matchPos = dstPos - offset;
+                for (int i = 0; i < matchLen; i++) {
+                    output[dstPos++] = output[matchPos++];
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Truncated LZ4 block", e);
+        }
+        if (dstPos != uncompressedSize) {
+            throw new IOException("LZ4 block decompressed to " + dstPos + " of " + uncompressedSize + " bytes");
+        }
+        return output;
+    }
+
+    private static byte[] decompressZstd(byte[] data) throws IOException {
+        return ZSTD_DECODERS.get().decompress(data);
+    }
+
+    private static final class InflaterState {
+        final Inflater zlib = new Inflater(false);
+        final Inflater raw = new Inflater(true);
+        byte[] buffer = new byte[INITIAL_BUFFER];
+    }
+}
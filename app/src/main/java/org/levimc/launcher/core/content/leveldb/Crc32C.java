@@ -0,0 +1,40 @@
+package org.levimc.launcher.core.content.leveldb;
+
+final class Crc32C {
+    private static final int MASK_DELTA = 0xa282ead8;
+    private static final int[] TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i;
+            for (int j = 0; j < 8; j++) {
+                crc = (crc & 1) != 0 ? (crc >>> 1) ^ 0x82F63B78 : crc >>> 1;
+            }
+            TABLE[i] = crc;
+        }
+    }
+
+    private Crc32C() {
+    }
+
+    static int value(byte[] data, int offset, int length) {
+        return extend(0, data, offset, length);
+    }
+
+    static int extend(int crc, byte[] data, int offset, int length) {
+        int c = ~crc;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            c = TABLE[(c ^ data[i]) & 0xFF] ^ (c >>> 8);
+        }
+        return ~c;
+    }
+
+    static int mask(int crc) {
+        return ((crc >>> 15) | (crc << 17)) + MASK_DELTA;
+    }
+
+    static int unmask(int maskedCrc) {
+        int rot = maskedCrc - MASK_DELTA;
+        return (rot >>> 17) | (rot << 15);
+    }
+}
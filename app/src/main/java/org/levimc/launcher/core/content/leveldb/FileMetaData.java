@@ -0,0 +1,25 @@
+package org.levimc.launcher.core.content.leveldb;
+
+final class FileMetaData {
+    final int level;
+    final long number;
+    final long fileSize;
+    final byte[] smallest;
+    final byte[] largest;
+
+    FileMetaData(int level, long number, long fileSize, byte[] smallest, byte[] largest) {
+        this.level = level;
+        this.number = number;
+        this.fileSize = fileSize;
+        this.smallest = smallest;
+        this.largest = largest;
+    }
+
+    byte[] smallestUserKey() {
+        return InternalKey.userKey(smallest, 0, smallest.length);
+    }
+
+    byte[] largestUserKey() {
+        return InternalKey.userKey(largest, 0, largest.length);
+    }
+}
@@ -0,0 +1,56 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+final class FilterBlockBuilder {
+    private static final int FILTER_BASE_LG = 11;
+    private static final int FILTER_BASE = 1 << FILTER_BASE_LG;
+
+    private final int bitsPerKey;
+    private final ByteArrayOutputStream result = new ByteArrayOutputStream();
+    private final List<byte[]> keys = new ArrayList<>();
+    private int[] filterOffsets = new int[16];
+    private int filterCount;
+
+    FilterBlockBuilder(int bitsPerKey) {
+        this.bitsPerKey = bitsPerKey;
+    }
+
+    void startBlock(long blockOffset) {
+        long filterIndex = blockOffset / FILTER_BASE;
+        while (filterIndex > filterCount) {
+            generateFilter();
+        }
+    }
+
+    void addKey(byte[] key, int length) {
+        keys.add(Arrays.copyOf(key, length));
+    }
+
+    byte[] finish() {
+        if (!keys.isEmpty()) {
+            generateFilter();
+        }
+        int arrayOffset = result.size();
+        for (int i = 0; i < filterCount; i++) {
+            Coding.writeInt32LE(result, filterOffsets[i]);
+        }
+        Coding.writeInt32LE(result, arrayOffset);
+        result.write(FILTER_BASE_LG);
+        return result.toByteArray();
+    }
+
+    private void generateFilter() {
+        if (filterCount == filterOffsets.length) {
+            filterOffsets = Arrays.copyOf(filterOffsets, filterOffsets.length * 2);
+        }
+        filterOffsets[filterCount++] = result.size();
+        if (!keys.isEmpty()) {
+            BloomFilter.createFilter(keys, bitsPerKey, result);
+            keys.clear();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+final class FilterBlockReader {
+    private final ByteBuffer data;
+    private final int offsetArray;
+    private final int numFilters;
+    private final int baseLg;
+
+    FilterBlockReader(ByteBuffer contents) {
+        this.data = contents.slice().order(ByteOrder.LITTLE_ENDIAN);
+        int n = data.limit();
+        if (n < 5) {
+            offsetArray = 0;
+            numFilters = 0;
+            baseLg = 0;
+            return;
+        }
+        baseLg = data.get(n - 1) & 0xFF;
+        int lastWord = data.getInt(n - 5);
+        if (lastWord < 0 || lastWord > n - 5) {
+            offsetArray = 0;
+            numFilters = 0;
+            return;
+        }
+        offsetArray = lastWord;
+        numFilters = (n - 5 - lastWord) / 4;
+    }
+
+    boolean keyMayMatch(long blockOffset, byte[] userKey, int userKeyLength) {
+        long index = blockOffset >> baseLg;
+        if (index >= numFilters) {
+            return true;
+        }
+        int start = data.getInt(offsetArray + (int) index * 4);
+        int limit = data.getInt(offsetArray + (int) index * 4 + 4);
+        if (start <= limit && limit <= offsetArray) {
+            return BloomFilter.keyMayMatch(userKey, userKeyLength, data, start, limit - start);
+        }
+        return true;
+    }
+}
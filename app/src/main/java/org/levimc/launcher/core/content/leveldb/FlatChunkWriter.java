@@ -0,0 +1,188 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import android.util.Log;
+
+import org.levimc.launcher.core.content.nbt.BedrockNbtWriter;
+import org.levimc.launcher.core.content.nbt.NbtTag;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FlatChunkWriter {
+    private static final String TAG = "FlatChunkWriter";
+    public static final int MIN_Y = -64;
+    public static final int WORLD_HEIGHT = 384;
+    private static final int MIN_SUB_CHUNK = MIN_Y >> 4;
+    private static final int SUB_CHUNK_COUNT = WORLD_HEIGHT >> 4;
+    private static final int SUB_CHUNK_VERSION = 9;
+    private static final byte CHUNK_VERSION = 40;
+    private static final int FINALIZED_DONE = 2;
+    private static final int BLOCK_STATE_VERSION = (1 << 24) | (21 << 16) | (50 << 8);
+    private static final int[] VALID_BITS = {1, 2, 3, 4, 5, 6, 8, 16};
+    private static final int RECORDS_PER_TABLE = 64 * 1024;
+    private static final String AIR = "minecraft:air";
+
+    private final String[] column;
+    private final int biomeId;
+    private final byte[][] subChunks = new byte[SUB_CHUNK_COUNT][];
+    private final byte[] data3D;
+    private final byte[] version = {CHUNK_VERSION};
+    private final byte[] finalizedState = new byte[4];
+
+    public FlatChunkWriter(List<String> blocks, int biomeId) throws IOException {
+        int height = Math.min(blocks.size(), WORLD_HEIGHT);
+        this.column = new String[height];
+        for (int y = 0; y < height; y++) {
+            String name = blocks.get(y);
+            column[y] = name == null || name.isEmpty() || AIR.equals(name) ? null : name;
+        }
+        this.biomeId = biomeId;
+
+        int top = 0;
+        for (int y = 0; y < height; y++) {
+            if (column[y] != null) top = y + 1;
+        }
+        for (int index = 0; index < SUB_CHUNK_COUNT; index++) {
+            subChunks[index] = encodeSubChunk(index);
+        }
+        this.data3D = encodeData3D(top);
+        Coding.putInt32LE(finalizedState, 0, FINALIZED_DONE);
+    }
+
+    public int write(File dbDir, int radius) throws IOException {
+        if (new File(dbDir, "CURRENT").isFile()) {
+            throw new IOException("Flat chunks can only be written into a new database: " + dbDir);
+        }
+        long start = System.currentTimeMillis();
+
+        List<byte[]> prefixes = new ArrayList<>();
+        for (int x = -radius; x <= radius; x++) {
+            for (int z = -radius; z <= radius; z++) {
+                prefixes.add(new ChunkPos(LevelDBKey.OVERWORLD, x, z).keyPrefix());
+            }
+        }
+        prefixes.sort(InternalKey::compareUserKeys);
+
+        long sequence = 0;
+        int tables = 0;
+        LevelDBWriter writer = new LevelDBWriter(dbDir);
+        try {
+            MemTable memTable = new MemTable();
+            for (byte[] prefix : prefixes) {
+                memTable.add(++sequence, InternalKey.TYPE_VALUE, chunkKey(prefix, LevelDBKey.KeyType.DATA_3D), data3D);
+                memTable.add(++sequence, InternalKey.TYPE_VALUE, chunkKey(prefix, LevelDBKey.KeyType.CHUNK_VERSION), version);
+                memTable.add(++sequence, InternalKey.TYPE_VALUE, chunkKey(prefix, LevelDBKey.KeyType.FINALIZED_STATE), finalizedState);
+                for (int index = 0; index < SUB_CHUNK_COUNT; index++) {
+                    if (subChunks[index] == null) continue;
+                    memTable.add(++sequence, InternalKey.TYPE_VALUE, subChunkKey(prefix, MIN_SUB_CHUNK + index), subChunks[index]);
+                }
+
+                if (memTable.size() >= RECORDS_PER_TABLE) {
+                    writer.addTable(memTable, sequence);
+                    memTable = new MemTable();
+                    tables++;
+                }
+            }
+            if (!memTable.isEmpty()) {
+                writer.addTable(memTable, sequence);
+                tables++;
+            }
+        } finally {
+            writer.close();
+        }
+
+        Log.d(TAG, "Wrote " + prefixes.size() + " flat chunks (" + sequence + " records, " + tables + " tables) into " +
+              dbDir + " in " + (System.currentTimeMillis() - start) + " ms");
+        return prefixes.size();
+    }
+
+    private static byte[] chunkKey(byte[] prefix, LevelDBKey.KeyType type) {
+        byte[] key = new byte[prefix.length + 1];
+        System.arraycopy(prefix, 0, key, 0, prefix.length);
+        key[prefix.length] = (byte) type.id;
+        return key;
+    }
+
+    private static byte[] subChunkKey(byte[] prefix, int index) {
+        byte[] key = new byte[prefix.length + 2];
+        System.arraycopy(prefix, 0, key, 0, prefix.length);
+        key[prefix.length] = (byte) LevelDBKey.KeyType.SUB_CHUNK.id;
+        key[prefix.length + 1] = (byte) index;
+        return key;
+    }
+
+    private byte[] encodeSubChunk(int index) throws IOException {
+        int base = index << 4;
+        List<String> palette = new ArrayList<>();
+        int[] layerIndex = new int[16];
+        boolean empty = true;
+        for (int y = 0; y < 16; y++) {
+            String name = base + y < column.length ? column[base + y] : null;
+            if (name != null) empty = false;
+            String entry = name != null ? name : AIR;
+            int paletteIndex = palette.indexOf(entry);
+            if (paletteIndex < 0) {
+                paletteIndex = palette.size();
+                palette.add(entry);
+            }
+            layerIndex[y] = paletteIndex;
+        }
+        if (empty) return null;
+
+        int bits = VALID_BITS[VALID_BITS.length - 1];
+        for (int candidate : VALID_BITS) {
+            if (1 << candidate >= palette.size()) {
+                bits = candidate;
+                break;
+            }
+        }
+        int perWord = 32 / bits;
+        int[] words = new int[(SubChunkDecoder.BLOCK_COUNT + perWord - 1) / perWord];
+        for (int block = 0; block < SubChunkDecoder.BLOCK_COUNT; block++) {
+            words[block / perWord] |= layerIndex[block & 15] << (block % perWord * bits);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(words.length * 4 + palette.size() * 64 + 8);
+        out.write(SUB_CHUNK_VERSION);
+        out.write(1);
+        out.write(MIN_SUB_CHUNK + index);
+        out.write(bits << 1);
+        for (int word : words) {
+            Coding.writeInt32LE(out, word);
+        }
+        Coding.writeInt32LE(out, palette.size());
+        BedrockNbtWriter nbtWriter = new BedrockNbtWriter();
+        for (String name : palette) {
+            nbtWriter.writeTag(blockState(name), out);
+        }
+        return out.toByteArray();
+    }
+
+    private static NbtTag blockState(String name) {
+        Map<String, NbtTag> state = new LinkedHashMap<>();
+        state.put("name", new NbtTag(NbtTag.TAG_STRING, "name", name));
+        state.put("states", new NbtTag(NbtTag.TAG_COMPOUND, "states", new LinkedHashMap<String, NbtTag>()));
+        state.put("version", new NbtTag(NbtTag.TAG_INT, "version", BLOCK_STATE_VERSION));
+        return new NbtTag(NbtTag.TAG_COMPOUND, "", state);
+    }
+
+    // 256 column heights relative to MIN_Y, then one biome palette per sub-chunk; 0xFF repeats the one below.
+    private byte[] encodeData3D(int top) {
+        byte[] data = new byte[512 + 5 + SUB_CHUNK_COUNT - 1];
+        for (int i = 0; i < 256; i++) {
+            data[i * 2] = (byte) top;
+            data[i * 2 + 1] = (byte) (top >> 8);
+        }
+        data[512] = 1;
+        Coding.putInt32LE(data, 513, biomeId);
+        for (int i = 517; i < data.length; i++) {
+            data[i] = (byte) 0xFF;
+        }
+        return data;
+    }
+}
@@ -0,0 +1,155 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+public class HotspotReport {
+    public static final class ChunkStats {
+        public final ChunkPos pos;
+        private final Map<String, int[]> entityTypes = new HashMap<>();
+        private final Map<String, int[]> blockEntityTypes = new HashMap<>();
+        private int entityCount;
+        private int blockEntityCount;
+
+        ChunkStats(ChunkPos pos) {
+            this.pos = pos;
+        }
+
+        public int getEntityCount() {
+            return entityCount;
+        }
+
+        public int getBlockEntityCount() {
+            return blockEntityCount;
+        }
+
+        public List<Map.Entry<String, Integer>> getEntityTypes() {
+            return sorted(entityTypes);
+        }
+
+        public List<Map.Entry<String, Integer>> getBlockEntityTypes() {
+            return sorted(blockEntityTypes);
+        }
+
+        @Override
+        public String toString() {
+            return "ChunkStats{" + pos + ", entities=" + entityCount + ", blockEntities=" + blockEntityCount + "}";
+        }
+    }
+
+    private final Map<ChunkPos, ChunkStats> chunks = new HashMap<>();
+    private long entityCount;
+    private long blockEntityCount;
+    private long skippedCount;
+
+    void addEntity(ChunkPos pos, String type, int count) {
+        ChunkStats stats = stats(pos);
+        stats.entityCount += count;
+        increment(stats.entityTypes, type, count);
+        entityCount += count;
+    }
+
+    void addBlockEntity(ChunkPos pos, String type, int count) {
+        ChunkStats stats = stats(pos);
+        stats.blockEntityCount += count;
+        increment(stats.blockEntityTypes, type, count);
+        blockEntityCount += count;
+    }
+
+    void addSkipped() {
+        skippedCount++;
+    }
+
+    void merge(HotspotReport other) {
+        for (ChunkStats stats : other.chunks.values()) {
+            for (Map.Entry<String, int[]> entry : stats.entityTypes.entrySet()) {
+                addEntity(stats.pos, entry.getKey(), entry.getValue()[0]);
+            }
+            for (Map.Entry<String, int[]> entry : stats.blockEntityTypes.entrySet()) {
+                addBlockEntity(stats.pos, entry.getKey(), entry.getValue()[0]);
+            }
+        }
+        skippedCount += other.skippedCount;
+    }
+
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    public long getEntityCount() {
+        return entityCount;
+    }
+
+    public long getBlockEntityCount() {
+        return blockEntityCount;
+    }
+
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    public ChunkStats getChunk(ChunkPos pos) {
+        return chunks.get(pos);
+    }
+
+    public List<ChunkStats> getTopByEntities(int limit) {
+        return top(ChunkStats::getEntityCount, limit);
+    }
+
+    public List<ChunkStats> getTopByBlockEntities(int limit) {
+        return top(ChunkStats::getBlockEntityCount, limit);
+    }
+
+    private List<ChunkStats> top(ToIntFunction<ChunkStats> count, int limit) {
+        List<ChunkStats> result = new ArrayList<>();
+        for (ChunkStats stats : chunks.values()) {
+            if (count.applyAsInt(stats) > 0) {
+                result.add(stats);
+            }
+        }
+        result.sort(Comparator.comparingInt(count).reversed().thenComparingInt((ChunkStats s) -> s.pos.dimension)
+                .thenComparingInt(s -> s.pos.x).thenComparingInt(s -> s.pos.z));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    private ChunkStats stats(ChunkPos pos) {
+        ChunkStats stats = chunks.get(pos);
+        if (stats == null) {
+            stats = new ChunkStats(pos);
+            chunks.put(pos, stats);
+        }
+        return stats;
+    }
+
+    private static void increment(Map<String, int[]> counts, String type, int count) {
+        int[] total = counts.get(type);
+        if (total == null) {
+            counts.put(type, new int[]{count});
+        } else {
+            total[0] += count;
+        }
+    }
+
+    private static List<Map.Entry<String, Integer>> sorted(Map<String, int[]> counts) {
+        List<Map.Entry<String, Integer>> result = new ArrayList<>();
+        for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+            result.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()[0]));
+        }
+        result.sort((a, b) -> {
+            int order = Integer.compare(b.getValue(), a.getValue());
+            return order != 0 ? order : a.getKey().compareTo(b.getKey());
+        });
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "HotspotReport{chunks=" + chunks.size() + ", entities=" + entityCount +
+               ", blockEntities=" + blockEntityCount + ", skipped=" + skippedCount + "}";
+    }
+}
@@ -0,0 +1,19 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.nio.ByteBuffer;
+
+interface InternalIterator {
+    boolean isValid();
+
+    void seekToFirst();
+
+    void seek(byte[] target);
+
+    void next();
+
+    byte[] keyArray();
+
+    int keyLength();
+
+    ByteBuffer value();
+}
@@ -0,0 +1,71 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+final class InternalKey {
+    static final int TYPE_DELETION = 0;
+    static final int TYPE_VALUE = 1;
+    static final int TRAILER_SIZE = 8;
+    static final long MAX_SEQUENCE = (1L << 56) - 1;
+
+    static final Comparator<byte[]> COMPARATOR = (a, b) -> compare(a, 0, a.length, b, 0, b.length);
+
+    private InternalKey() {
+    }
+
+    static byte[] encode(byte[] userKey, long sequence, int type) {
+        byte[] key = Arrays.copyOf(userKey, userKey.length + TRAILER_SIZE);
+        long trailer = (sequence << 8) | (type & 0xFF);
+        for (int i = 0; i < TRAILER_SIZE; i++) {
+            key[userKey.length + i] = (byte) (trailer >>> (8 * i));
+        }
+        return key;
+    }
+
+    static byte[] seekKey(byte[] userKey) {
+        return encode(userKey, MAX_SEQUENCE, TYPE_VALUE);
+    }
+
+    static int userKeyLength(int length) {
+        return length >= TRAILER_SIZE ? length - TRAILER_SIZE : length;
+    }
+
+    static long trailer(byte[] key, int offset, int length) {
+        if (length < TRAILER_SIZE) {
+            return TYPE_VALUE;
+        }
+        return Coding.readInt64LE(key, offset + length - TRAILER_SIZE);
+    }
+
+    static long sequence(byte[] key, int offset, int length) {
+        return trailer(key, offset, length) >>> 8;
+    }
+
+    static int type(byte[] key, int offset, int length) {
+        return (int) (trailer(key, offset, length) & 0xFF);
+    }
+
+    static byte[] userKey(byte[] key, int offset, int length) {
+        return Arrays.copyOfRange(key, offset, offset + userKeyLength(length));
+    }
+
+    static int compareUserKeys(byte[] a, int aOffset, int aLength, byte[] b, int bOffset, int bLength) {
+        int min = Math.min(aLength, bLength);
+        for (int i = 0; i < min; i++) {
+            int diff = (a[aOffset + i] & 0xFF) - (b[bOffset + i] & 0xFF);
+            if (diff != 0) return diff;
+        }
+        return aLength - bLength;
+    }
+
+    static int compareUserKeys(byte[] a, byte[] b) {
+        return compareUserKeys(a, 0, a.length, b, 0, b.length);
+    }
+
+    static int compare(byte[] a, int aOffset, int aLength, byte[] b, int bOffset, int bLength) {
+        int result = compareUserKeys(a, aOffset, userKeyLength(aLength), b, bOffset, userKeyLength(bLength));
+        if (result != 0) return result;
+        return Long.compareUnsigned(trailer(b, bOffset, bLength), trailer(a, aOffset, aLength));
+    }
+}
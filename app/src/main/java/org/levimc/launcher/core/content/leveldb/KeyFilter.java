@@ -0,0 +1,5 @@
+package org.levimc.launcher.core.content.leveldb;
+
+public interface KeyFilter {
+    boolean accept(byte[] key, int length);
+}
@@ -0,0 +1,112 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+public class LevelDBIterator {
+    private final InternalIterator iterator;
+    private byte[] userKey = new byte[64];
+    private int userKeyLength;
+    private boolean valid;
+
+    LevelDBIterator(InternalIterator iterator) {
+        this.iterator = iterator;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public void seekToFirst() {
+        iterator.seekToFirst();
+        findNextUserEntry(false);
+    }
+
+    public void seek(byte[] key) {
+        iterator.seek(InternalKey.seekKey(key));
+        findNextUserEntry(false);
+    }
+
+    public void next() {
+        if (!valid) return;
+        iterator.next();
+        findNextUserEntry(true);
+    }
+
+    public byte[] key() {
+        return Arrays.copyOf(userKey, userKeyLength);
+    }
+
+    byte[] keyArray() {
+        return userKey;
+    }
+
+    public boolean keyStartsWith(byte[] prefix) {
+        if (prefix.length > userKeyLength) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (userKey[i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    public ByteBuffer keySlice() {
+        return ByteBuffer.wrap(userKey, 0, userKeyLength).slice().asReadOnlyBuffer();
+    }
+
+    public int keyLength() {
+        return userKeyLength;
+    }
+
+    public ByteBuffer valueSlice() {
+        return iterator.value().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public byte[] value() {
+        ByteBuffer buffer = iterator.value();
+        byte[] value = new byte[buffer.remaining()];
+        buffer.get(value);
+        return value;
+    }
+
+    public int valueLength() {
+        return iterator.value().remaining();
+    }
+
+    public LevelDBEntry entry() {
+        return new LevelDBEntry(key(), value());
+    }
+
+    private void findNextUserEntry(boolean skipping) {
+        while (iterator.isValid()) {
+            byte[] key = iterator.keyArray();
+            int length = iterator.keyLength();
+            int keyLength = InternalKey.userKeyLength(length);
+
+            if (skipping && InternalKey.compareUserKeys(key, 0, keyLength, userKey, 0, userKeyLength) == 0) {
+                iterator.next();
+                continue;
+            }
+
+            saveUserKey(key, keyLength);
+            if (InternalKey.type(key, 0, length) == InternalKey.TYPE_DELETION) {
+                skipping = true;
+                iterator.next();
+                continue;
+            }
+
+            valid = true;
+            return;
+        }
+        valid = false;
+    }
+
+    private void saveUserKey(byte[] key, int length) {
+        if (length > userKey.length) {
+            userKey = Arrays.copyOf(key, Math.max(length, userKey.length * 2));
+        } else {
+            System.arraycopy(key, 0, userKey, 0, length);
+        }
+        userKeyLength = length;
+    }
+}
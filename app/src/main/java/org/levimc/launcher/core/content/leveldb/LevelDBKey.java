@@ -4,10 +4,12 @@ import java.nio.charset.StandardCharsets;
 
 public class LevelDBKey {
     public enum KeyType {
+        DATA_3D(0x2b, "Data3D"),
         CHUNK_VERSION(0x2c, "ChunkVersion"),
-        CHUNK(0x2d, "Chunk"),
         DATA_2D(0x2d, "Data2D"),
+        DATA_2D_LEGACY(0x2e, "Data2DLegacy"),
         SUB_CHUNK(0x2f, "SubChunk"),
+        LEGACY_TERRAIN(0x30, "LegacyTerrain"),
         BLOCK_ENTITY(0x31, "BlockEntity"),
         ENTITY(0x32, "Entity"),
         PENDING_TICKS(0x33, "PendingTicks"),
@@ -36,17 +38,30 @@ public class LevelDBKey {
             this.name = name;
         }
 
-        public static KeyType fromId(int id) {
+        private static final KeyType[] BY_ID = new KeyType[256];
+
+        static {
             for (KeyType type : values()) {
-                if (type.id == id) return type;
+                if (type.id >= 0) BY_ID[type.id] = type;
             }
-            return UNKNOWN;
+        }
+
+        public static KeyType fromId(int id) {
+            KeyType type = id >= 0 && id < BY_ID.length ? BY_ID[id] : null;
+            return type != null ? type : UNKNOWN;
         }
     }
 
+    public static final int OVERWORLD = 0;
+    public static final int NETHER = 1;
+    public static final int THE_END = 2;
+
     private final byte[] rawKey;
     private KeyType keyType = KeyType.GENERAL;
-    private int subChunkIndex = -1;
+    private int subChunkIndex;
+    private int chunkX;
+    private int chunkZ;
+    private int dimension;
     private String stringKey;
     private boolean isChunkKey;
 
@@ -61,23 +76,18 @@ public class LevelDBKey {
             return;
         }
 
-        if (rawKey.length == 9 || rawKey.length == 10 || rawKey.length == 13 || rawKey.length == 14) {
-
-            if (rawKey.length == 9) {
-                keyType = KeyType.fromId(rawKey[8] & 0xFF);
-                isChunkKey = keyType.id >= 0;
-            } else if (rawKey.length == 10) {
-                keyType = KeyType.fromId(rawKey[8] & 0xFF);
-                subChunkIndex = rawKey[9] & 0xFF;
-                isChunkKey = keyType.id >= 0;
-            } else if (rawKey.length == 13) {
-                keyType = KeyType.fromId(rawKey[12] & 0xFF);
-                isChunkKey = keyType.id >= 0;
-            } else {
-                keyType = KeyType.fromId(rawKey[12] & 0xFF);
-                subChunkIndex = rawKey[13] & 0xFF;
-                isChunkKey = keyType.id >= 0;
+        int tagOffset = chunkTagOffset(rawKey, rawKey.length);
+        if (tagOffset > 0) {
+            isChunkKey = true;
+            keyType = KeyType.fromId(rawKey[tagOffset] & 0xFF);
+            chunkX = Coding.readInt32LE(rawKey, 0);
+            chunkZ = Coding.readInt32LE(rawKey, 4);
+            dimension = tagOffset == 12 ? Coding.readInt32LE(rawKey, 8) : OVERWORLD;
+            if (tagOffset + 1 < rawKey.length) {
+                subChunkIndex = rawKey[tagOffset + 1];
             }
+        } else if (rawKey.length == 9 || rawKey.length == 10 || rawKey.length == 13 || rawKey.length == 14) {
+            keyType = KeyType.UNKNOWN;
         } else {
             isChunkKey = false;
             keyType = KeyType.GENERAL;
@@ -89,6 +99,92 @@ public class LevelDBKey {
         }
     }
 
+    static final byte[] ACTOR_DIGEST_PREFIX = "digp".getBytes(StandardCharsets.US_ASCII);
+    static final byte[] ACTOR_PREFIX = "actorprefix".getBytes(StandardCharsets.US_ASCII);
+
+    static boolean startsWith(byte[] key, int length, byte[] prefix) {
+        if (prefix.length > length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    static boolean isActorKey(byte[] key, int length) {
+        return length == ACTOR_PREFIX.length + 8 && startsWith(key, length, ACTOR_PREFIX);
+    }
+
+    static long actorId(byte[] key) {
+        return Coding.readInt64LE(key, ACTOR_PREFIX.length);
+    }
+
+    static ChunkPos digestChunk(byte[] key, int length) {
+        int offset = ACTOR_DIGEST_PREFIX.length;
+        if ((length != offset + 8 && length != offset + 12) || !startsWith(key, length, ACTOR_DIGEST_PREFIX)) {
+            return null;
+        }
+        int dimension = length == offset + 12 ? Coding.readInt32LE(key, offset + 8) : OVERWORLD;
+        return new ChunkPos(dimension, Coding.readInt32LE(key, offset), Coding.readInt32LE(key, offset + 4));
+    }
+
+    static byte[] digestKey(ChunkPos pos) {
+        byte[] prefix = pos.keyPrefix();
+        byte[] key = new byte[ACTOR_DIGEST_PREFIX.length + prefix.length];
+        System.arraycopy(ACTOR_DIGEST_PREFIX, 0, key, 0, ACTOR_DIGEST_PREFIX.length);
+        System.arraycopy(prefix, 0, key, ACTOR_DIGEST_PREFIX.length, prefix.length);
+        return key;
+    }
+
+    static byte[] actorKey(long id) {
+        byte[] key = new byte[ACTOR_PREFIX.length + 8];
+        System.arraycopy(ACTOR_PREFIX, 0, key, 0, ACTOR_PREFIX.length);
+        Coding.putInt64LE(key, ACTOR_PREFIX.length, id);
+        return key;
+    }
+
+    // Chunk keys are x, z, optional dimension (all int32 LE), a tag byte and, for sub-chunks, a y index.
+    static int chunkTagOffset(byte[] key, int length) {
+        int tagOffset;
+        if (length == 9 || length == 10) {
+            tagOffset = 8;
+        } else if (length == 13 || length == 14) {
+            tagOffset = 12;
+            int dimension = Coding.readInt32LE(key, 8);
+            if (dimension <= OVERWORLD || dimension > 0xFF) return -1;
+        } else {
+            return -1;
+        }
+
+        int tag = key[tagOffset] & 0xFF;
+        if (KeyType.fromId(tag) == KeyType.UNKNOWN) return -1;
+        boolean hasIndex = length == tagOffset + 2;
+        return hasIndex == (tag == KeyType.SUB_CHUNK.id) ? tagOffset : -1;
+    }
+
+    public boolean isChunkKey() {
+        return isChunkKey;
+    }
+
+    public KeyType getKeyType() {
+        return keyType;
+    }
+
+    public int getChunkX() {
+        return chunkX;
+    }
+
+    public int getChunkZ() {
+        return chunkZ;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public int getSubChunkIndex() {
+        return subChunkIndex;
+    }
+
     public byte[] getRawKey() {
         return rawKey;
     }
@@ -100,7 +196,7 @@ public class LevelDBKey {
         }
         if (isChunkKey) {
             String name = keyType.name;
-            if (subChunkIndex >= 0) {
+            if (keyType == KeyType.SUB_CHUNK) {
                 name += " #" + subChunkIndex;
             }
             return name;
@@ -2,15 +2,42 @@ package org.levimc.launcher.core.content.leveldb;
 
 import android.util.Log;
 
+import org.levimc.launcher.core.content.nbt.BedrockNbtReader;
+import org.levimc.launcher.core.content.nbt.NbtTag;
+
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class LevelDBManager {
     private static final String TAG = "LevelDBManager";
+    private static final long BLOCK_CACHE_SIZE = 16L * 1024 * 1024;
+    private static final int WORKER_THREADS = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 8));
+    private static final byte[] STRUCTURE_PREFIX = "structuretemplate_".getBytes(StandardCharsets.UTF_8);
+    private static final KeyFilter SUB_CHUNK_FILTER = (key, length) -> {
+        int tagOffset = LevelDBKey.chunkTagOffset(key, length);
+        return tagOffset > 0 && key[tagOffset] == LevelDBKey.KeyType.SUB_CHUNK.id;
+    };
+    private static final KeyFilter HOTSPOT_FILTER = (key, length) -> {
+        int tagOffset = LevelDBKey.chunkTagOffset(key, length);
+        if (tagOffset > 0) {
+            return key[tagOffset] == LevelDBKey.KeyType.BLOCK_ENTITY.id || key[tagOffset] == LevelDBKey.KeyType.ENTITY.id;
+        }
+        return LevelDBKey.isActorKey(key, length) || LevelDBKey.digestChunk(key, length) != null;
+    };
 
     public interface LoadCallback {
         void onProgress(int current, int total);
@@ -24,19 +51,54 @@ public class LevelDBManager {
         void onError(String error);
     }
 
+    public interface StructureImportCallback {
+        void onProgress(int current, int total, String structureName);
+        void onComplete(StructureImportResult result);
+        void onError(String error);
+    }
+
+    public interface HistogramCallback {
+        void onProgress(int current, int total);
+        void onComplete(BlockHistogram histogram);
+        void onError(String error);
+    }
+
+    public interface HotspotCallback {
+        void onProgress(int current, int total);
+        void onComplete(HotspotReport report);
+        void onError(String error);
+    }
+
+    public interface BlockSearchCallback {
+        void onProgress(int current, int total);
+        void onComplete(BlockSearchResult result);
+        void onError(String error);
+    }
+
+    public interface PlayerCallback {
+        void onComplete(List<PlayerData> players);
+        void onError(String error);
+    }
+
     private final File dbDir;
+    private final File scanCacheDir;
     private final ExecutorService executor;
-    private List<LevelDBEntry> entries;
-    private List<LevelDBEntry> structureEntries;
+    private final ExecutorService workerPool;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final BlockCache blockCache;
+    private final List<LevelDBEntry> structureEntries;
 
     public LevelDBManager(File worldDir) {
         this.dbDir = new File(worldDir, "db");
+        this.scanCacheDir = new File(new File(worldDir, ChunkIndex.DIRECTORY), "scan");
         this.executor = Executors.newSingleThreadExecutor();
-        this.entries = new ArrayList<>();
+        this.workerPool = Executors.newFixedThreadPool(WORKER_THREADS);
+        this.blockCache = new BlockCache(BLOCK_CACHE_SIZE);
         this.structureEntries = new ArrayList<>();
     }
 
     public void loadDatabase(LoadCallback callback) {
+        cancelled.set(false);
         executor.execute(() -> {
             try {
                 if (!dbDir.exists() || !dbDir.isDirectory()) {
@@ -44,20 +106,19 @@ public class LevelDBManager {
                     return;
                 }
 
-                LevelDBReader reader = new LevelDBReader(dbDir);
-                entries = reader.readAllEntries();
-                reader.close();
-
-                Log.d(TAG, "Loaded " + entries.size() + " entries from database");
-
-                callback.onProgress(50, 100);
-
-                categorizeEntries();
+                LevelDBReader reader = openReader();
+                try {
+                    List<LevelDBEntry> entries = reader.scanPrefixCached(STRUCTURE_PREFIX, scanCacheDir, workerPool, cancelled);
+                    callback.onProgress(50, 100);
+                    categorizeEntries(entries);
+                } finally {
+                    reader.close();
+                }
 
-                Log.d(TAG, "Found " + structureEntries.size() + " structures");
+                Log.d(TAG, "Found " + structureEntries.size() + " structures, " + blockCache);
 
                 callback.onProgress(100, 100);
-                callback.onComplete(entries);
+                callback.onComplete(structureEntries);
 
             } catch (Exception e) {
                 Log.e(TAG, "Failed to load database", e);
@@ -66,23 +127,396 @@ public class LevelDBManager {
         });
     }
 
-    private void categorizeEntries() {
+    public void computeBlockHistogram(HistogramCallback callback) {
+        cancelled.set(false);
+        executor.execute(() -> {
+            try {
+                if (!dbDir.exists() || !dbDir.isDirectory()) {
+                    callback.onError("Database directory not found: " + dbDir.getAbsolutePath());
+                    return;
+                }
+
+                long start = System.currentTimeMillis();
+                List<HistogramVisitor> visitors = new ArrayList<>();
+                AtomicInteger finished = new AtomicInteger();
+                LevelDBReader reader = openReader();
+                try {
+                    reader.forEachParallel(SUB_CHUNK_FILTER, workerPool, cancelled, WORKER_THREADS * 4, () -> {
+                        HistogramVisitor visitor = new HistogramVisitor(() ->
+                                callback.onProgress(finished.incrementAndGet(), visitors.size()));
+                        visitors.add(visitor);
+                        return visitor;
+                    });
+                } finally {
+                    reader.close();
+                }
+
+                BlockHistogram histogram = new BlockHistogram();
+                for (HistogramVisitor visitor : visitors) {
+                    histogram.merge(visitor.histogram);
+                }
+                Log.d(TAG, "Block histogram: " + histogram + " in " + (System.currentTimeMillis() - start) + " ms");
+
+                callback.onProgress(visitors.size(), visitors.size());
+                callback.onComplete(histogram);
+
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to compute block histogram", e);
+                callback.onError("Failed to compute block histogram: " + e.getMessage());
+            }
+        });
+    }
+
+    private static final class HistogramVisitor implements LevelDBReader.EntryVisitor {
+        final BlockHistogram histogram = new BlockHistogram();
+        private final SubChunkDecoder decoder = new SubChunkDecoder();
+        private final Runnable onFinish;
+        private int[] counts = new int[16];
+
+        HistogramVisitor(Runnable onFinish) {
+            this.onFinish = onFinish;
+        }
+
+        @Override
+        public void visit(byte[] key, int keyLength, ByteBuffer value) {
+            int tagOffset = LevelDBKey.chunkTagOffset(key, keyLength);
+            int dimension = tagOffset == 12 ? Coding.readInt32LE(key, 8) : LevelDBKey.OVERWORLD;
+            try {
+                if (!decoder.decode(value, key[tagOffset + 1])) {
+                    histogram.addSkipped();
+                    return;
+                }
+            } catch (IOException e) {
+                histogram.addSkipped();
+                return;
+            }
+
+            int size = decoder.getPaletteSize();
+            if (size > counts.length) {
+                counts = new int[Math.max(size, counts.length * 2)];
+            }
+            Arrays.fill(counts, 0, size, 0);
+            decoder.countBlocks(counts);
+            for (int i = 0; i < size; i++) {
+                if (counts[i] > 0) {
+                    histogram.add(dimension, decoder.getBlockState(i).name, counts[i]);
+                }
+            }
+            histogram.addSubChunk();
+        }
+
+        @Override
+        public void finish() {
+            onFinish.run();
+        }
+    }
+
+    public void findBlocks(Set<String> names, int dimension, int limit, BlockSearchCallback callback) {
+        cancelled.set(false);
+        executor.execute(() -> {
+            try {
+                if (!dbDir.exists() || !dbDir.isDirectory()) {
+                    callback.onError("Database directory not found: " + dbDir.getAbsolutePath());
+                    return;
+                }
+
+                long start = System.currentTimeMillis();
+                KeyFilter filter = (key, length) -> {
+                    int tagOffset = LevelDBKey.chunkTagOffset(key, length);
+                    if (tagOffset <= 0 || key[tagOffset] != LevelDBKey.KeyType.SUB_CHUNK.id) return false;
+                    int keyDimension = tagOffset == 12 ? Coding.readInt32LE(key, 8) : LevelDBKey.OVERWORLD;
+                    return keyDimension == dimension;
+                };
+                List<BlockSearchVisitor> visitors = new ArrayList<>();
+                AtomicInteger finished = new AtomicInteger();
+                AtomicInteger remaining = new AtomicInteger(limit);
+                AtomicBoolean truncated = new AtomicBoolean();
+                LevelDBReader reader = openReader();
+                try {
+                    reader.forEachParallel(filter, workerPool, cancelled, WORKER_THREADS * 4, () -> {
+                        BlockSearchVisitor visitor = new BlockSearchVisitor(names, remaining, truncated, () ->
+                                callback.onProgress(finished.incrementAndGet(), visitors.size()));
+                        visitors.add(visitor);
+                        return visitor;
+                    });
+                } finally {
+                    reader.close();
+                }
+
+                BlockSearchResult result = new BlockSearchResult();
+                for (BlockSearchVisitor visitor : visitors) {
+                    result.merge(visitor.result);
+                }
+                result.sort();
+                Log.d(TAG, "Block search for " + names + ": " + result + " in " + (System.currentTimeMillis() - start) + " ms");
+
+                callback.onProgress(visitors.size(), visitors.size());
+                callback.onComplete(result);
+
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to search blocks", e);
+                callback.onError("Failed to search blocks: " + e.getMessage());
+            }
+        });
+    }
+
+    private static final class BlockSearchVisitor implements LevelDBReader.EntryVisitor {
+        final BlockSearchResult result = new BlockSearchResult();
+        private final Set<String> names;
+        private final AtomicInteger remaining;
+        private final AtomicBoolean truncated;
+        private final Runnable onFinish;
+        private final SubChunkDecoder decoder = new SubChunkDecoder();
+        private final int[] positions = new int[SubChunkDecoder.BLOCK_COUNT];
+        private boolean[] paletteMatch = new boolean[16];
+
+        BlockSearchVisitor(Set<String> names, AtomicInteger remaining, AtomicBoolean truncated, Runnable onFinish) {
+            this.names = names;
+            this.remaining = remaining;
+            this.truncated = truncated;
+            this.onFinish = onFinish;
+        }
+
+        @Override
+        public void visit(byte[] key, int keyLength, ByteBuffer value) {
+            if (truncated.get()) return;
+            int tagOffset = LevelDBKey.chunkTagOffset(key, keyLength);
+            try {
+                if (!decoder.decode(value, key[tagOffset + 1])) {
+                    result.addSkipped();
+                    return;
+                }
+            } catch (IOException e) {
+                result.addSkipped();
+                return;
+            }
+
+            int size = decoder.getPaletteSize();
+            if (size > paletteMatch.length) {
+                paletteMatch = new boolean[Math.max(size, paletteMatch.length * 2)];
+            }
+            boolean any = false;
+            for (int i = 0; i < size; i++) {
+                paletteMatch[i] = names.contains(decoder.getBlockState(i).name);
+                any |= paletteMatch[i];
+            }
+            result.addSubChunk(!any);
+            if (!any) return;
+
+            int found = decoder.findBlocks(paletteMatch, positions);
+            int dimension = tagOffset == 12 ? Coding.readInt32LE(key, 8) : LevelDBKey.OVERWORLD;
+            int baseX = Coding.readInt32LE(key, 0) << 4;
+            int baseZ = Coding.readInt32LE(key, 4) << 4;
+            int baseY = decoder.getYIndex() << 4;
+            for (int i = 0; i < found; i++) {
+                if (remaining.getAndDecrement() <= 0) {
+                    truncated.set(true);
+                    result.setTruncated();
+                    return;
+                }
+                int block = positions[i] & 0xFFF;
+                int paletteIndex = positions[i] >>> 12;
+                result.add(new BlockSearchResult.Match(dimension, baseX + (block >> 8), baseY + (block & 15),
+                        baseZ + ((block >> 4) & 15), decoder.getBlockState(paletteIndex).name));
+            }
+        }
+
+        @Override
+        public void finish() {
+            onFinish.run();
+        }
+    }
+
+    public void computeHotspots(HotspotCallback callback) {
+        cancelled.set(false);
+        executor.execute(() -> {
+            try {
+                if (!dbDir.exists() || !dbDir.isDirectory()) {
+                    callback.onError("Database directory not found: " + dbDir.getAbsolutePath());
+                    return;
+                }
+
+                long start = System.currentTimeMillis();
+                List<HotspotVisitor> visitors = new ArrayList<>();
+                AtomicInteger finished = new AtomicInteger();
+                LevelDBReader reader = openReader();
+                try {
+                    reader.forEachParallel(HOTSPOT_FILTER, workerPool, cancelled, WORKER_THREADS * 4, () -> {
+                        HotspotVisitor visitor = new HotspotVisitor(() ->
+                                callback.onProgress(finished.incrementAndGet(), visitors.size()));
+                        visitors.add(visitor);
+                        return visitor;
+                    });
+                } finally {
+                    reader.close();
+                }
+
+                Map<Long, String> actorTypes = new HashMap<>();
+                for (HotspotVisitor visitor : visitors) {
+                    actorTypes.putAll(visitor.actorTypes);
+                }
+                HotspotReport report = new HotspotReport();
+                for (HotspotVisitor visitor : visitors) {
+                    report.merge(visitor.report);
+                    for (Map.Entry<ChunkPos, long[]> digest : visitor.digests.entrySet()) {
+                        for (long id : digest.getValue()) {
+                            String type = actorTypes.get(id);
+                            report.addEntity(digest.getKey(), type != null ? type : "unknown", 1);
+                        }
+                    }
+                }
+                Log.d(TAG, "Hotspot report: " + report + " in " + (System.currentTimeMillis() - start) + " ms");
+
+                callback.onProgress(visitors.size(), visitors.size());
+                callback.onComplete(report);
+
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to compute hotspots", e);
+                callback.onError("Failed to compute hotspots: " + e.getMessage());
+            }
+        });
+    }
+
+    private static final class HotspotVisitor implements LevelDBReader.EntryVisitor {
+        final HotspotReport report = new HotspotReport();
+        final Map<ChunkPos, long[]> digests = new HashMap<>();
+        final Map<Long, String> actorTypes = new HashMap<>();
+        private final BedrockNbtReader nbtReader = new BedrockNbtReader();
+        private final Runnable onFinish;
+
+        HotspotVisitor(Runnable onFinish) {
+            this.onFinish = onFinish;
+        }
+
+        @Override
+        public void visit(byte[] key, int keyLength, ByteBuffer value) {
+            value = value.duplicate();
+            try {
+                int tagOffset = LevelDBKey.chunkTagOffset(key, keyLength);
+                if (tagOffset > 0) {
+                    ChunkPos pos = ChunkPos.fromKey(key, keyLength);
+                    boolean blockEntity = key[tagOffset] == LevelDBKey.KeyType.BLOCK_ENTITY.id;
+                    while (value.hasRemaining()) {
+                        String type = typeOf(nbtReader.readTag(value));
+                        if (blockEntity) {
+                            report.addBlockEntity(pos, type, 1);
+                        } else {
+                            report.addEntity(pos, type, 1);
+                        }
+                    }
+                } else if (LevelDBKey.isActorKey(key, keyLength)) {
+                    actorTypes.put(LevelDBKey.actorId(key), typeOf(nbtReader.readTag(value)).intern());
+                } else {
+                    ByteBuffer ids = value.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+                    long[] list = new long[ids.remaining() / 8];
+                    for (int i = 0; i < list.length; i++) {
+                        list[i] = ids.getLong();
+                    }
+                    digests.put(LevelDBKey.digestChunk(key, keyLength), list);
+                }
+            } catch (IOException e) {
+                report.addSkipped();
+            }
+        }
+
+        private static String typeOf(NbtTag tag) {
+            if (tag == null) return "unknown";
+            NbtTag identifier = tag.getTag("identifier");
+            if (identifier == null || identifier.getType() != NbtTag.TAG_STRING) {
+                identifier = tag.getTag("id");
+            }
+            if (identifier == null) return "unknown";
+            return identifier.getType() == NbtTag.TAG_STRING ? identifier.getString() : "id:" + identifier.getInt();
+        }
+
+        @Override
+        public void finish() {
+            onFinish.run();
+        }
+    }
+
+    private void categorizeEntries(List<LevelDBEntry> entries) {
         structureEntries.clear();
 
         for (LevelDBEntry entry : entries) {
-            LevelDBKey key = entry.getKey();
-            if (key.isStructureKey()) {
-                structureEntries.add(entry);
-                String structureId = key.getStructureId();
-                byte[] value = entry.getValue();
-                Log.d(TAG, "Found structure: " + structureId +
-                      " (value size: " + (value != null ? value.length : 0) + " bytes)");
-            }
+            structureEntries.add(entry);
+            byte[] value = entry.getValue();
+            Log.d(TAG, "Found structure: " + entry.getKey().getStructureId() +
+                  " (value size: " + (value != null ? value.length : 0) + " bytes)");
         }
 
         Log.d(TAG, "Categorization complete: " + structureEntries.size() + " structures found");
     }
 
+    public void loadPlayers(PlayerCallback callback) {
+        loadPlayers(null, callback);
+    }
+
+    public void loadPlayer(String key, PlayerCallback callback) {
+        loadPlayers(key, callback);
+    }
+
+    private void loadPlayers(String key, PlayerCallback callback) {
+        executor.execute(() -> {
+            try {
+                if (!dbDir.exists() || !dbDir.isDirectory()) {
+                    callback.onError("Database directory not found: " + dbDir.getAbsolutePath());
+                    return;
+                }
+
+                long start = System.currentTimeMillis();
+                List<PlayerData> players = new ArrayList<>();
+                LevelDBReader reader = openReader();
+                try {
+                    if (key != null) {
+                        addPlayer(players, key, reader.get(key.getBytes(StandardCharsets.UTF_8)));
+                    } else {
+                        addPlayer(players, PlayerData.LOCAL_PLAYER, reader.get(PlayerData.LOCAL_PLAYER.getBytes(StandardCharsets.UTF_8)));
+                        for (LevelDBEntry entry : reader.scanPrefix(PlayerData.SERVER_PLAYER_PREFIX.getBytes(StandardCharsets.UTF_8))) {
+                            addPlayer(players, new String(entry.getKey().getRawKey(), StandardCharsets.UTF_8), entry.getValue());
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+
+                Log.d(TAG, "Loaded " + players.size() + " players in " + (System.currentTimeMillis() - start) + " ms, " + blockCache);
+                callback.onComplete(players);
+
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to load player data", e);
+                callback.onError("Failed to load player data: " + e.getMessage());
+            }
+        });
+    }
+
+    private static void addPlayer(List<PlayerData> players, String key, byte[] value) {
+        if (value == null || value.length == 0) return;
+        try {
+            players.add(PlayerData.parse(key, value));
+        } catch (IOException e) {
+            Log.w(TAG, "Skipping unreadable player record " + key + " - " + e.getMessage());
+        }
+    }
+
+    public LevelDBReader openReader() {
+        LevelDBReader reader = new LevelDBReader(dbDir, blockCache);
+        reader.setMemoryMapped(true);
+        return reader;
+    }
+
+    public BlockCache getBlockCache() {
+        return blockCache;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    public ExecutorService getWorkerPool() {
+        return workerPool;
+    }
+
     public List<LevelDBEntry> getStructureEntries() {
         return structureEntries;
     }
@@ -154,6 +588,37 @@ public class LevelDBManager {
         });
     }
 
+    public void importStructures(File source, StructureImportCallback callback) {
+        cancelled.set(false);
+        executor.execute(() -> {
+            try {
+                if (!dbDir.exists() || !dbDir.isDirectory()) {
+                    callback.onError("Database directory not found: " + dbDir.getAbsolutePath());
+                    return;
+                }
+
+                List<File> files = StructureImporter.collectFiles(source);
+                if (files.isEmpty()) {
+                    callback.onError("No " + StructureImporter.EXTENSION + " files found in " + source.getAbsolutePath());
+                    return;
+                }
+
+                Log.d(TAG, "Starting import of " + files.size() + " structures from " + source.getAbsolutePath());
+                StructureImporter importer = new StructureImporter(dbDir, workerPool, cancelled);
+                StructureImportResult result = importer.importFiles(files, callback::onProgress);
+                if (!result.isVerified()) {
+                    callback.onError("Imported structures failed verification: " + result.getVerifyFailures());
+                    return;
+                }
+                callback.onComplete(result);
+
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to import structures", e);
+                callback.onError("Import failed: " + e.getMessage());
+            }
+        });
+    }
+
     private String sanitizeFileName(String name) {
         return name.replace("/", "_")
                    .replace("\\", "_")
@@ -166,7 +631,18 @@ public class LevelDBManager {
                    .replace("|", "_");
     }
 
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
     public void shutdown() {
+        cancel();
         executor.shutdown();
+        workerPool.shutdownNow();
+        blockCache.clear();
     }
 }
@@ -2,767 +2,651 @@ package org.levimc.launcher.core.content.leveldb;
 
 import android.util.Log;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.zip.Inflater;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class LevelDBReader {
     private static final String TAG = "LevelDBReader";
-    private static final long TABLE_MAGIC_NUMBER = 0xdb4775248b80fb57L;
-    private static final int BLOCK_TRAILER_SIZE = 5;
-    private static final int FOOTER_SIZE = 48;
-    private static final int LOG_BLOCK_SIZE = 32768;
+    static final RawScanner SALVAGE_SCANNER = new RawScanner(
+            "structuretemplate_".getBytes(StandardCharsets.US_ASCII),
+            "~local_player".getBytes(StandardCharsets.US_ASCII),
+            "player_".getBytes(StandardCharsets.US_ASCII),
+            "map_".getBytes(StandardCharsets.US_ASCII));
 
     private final File dbPath;
-    private final Map<ByteArrayWrapper, byte[]> allData = new HashMap<>();
+    private final BlockCache blockCache;
+    private final List<TableReader> tables = new ArrayList<>();
+    private final List<TableReader> levelZero = new ArrayList<>();
+    private final List<FileMetaData> levelZeroFiles = new ArrayList<>();
+    private final List<List<FileMetaData>> sortedLevelFiles = new ArrayList<>();
+    private final List<List<TableReader>> sortedLevelTables = new ArrayList<>();
+    private final MemTable logTable = new MemTable();
+    private final MemTable salvaged = new MemTable();
+    private boolean memoryMapped;
+    private boolean opened;
+    private boolean closed;
 
     public LevelDBReader(File dbPath) {
-        this.dbPath = dbPath;
+        this(dbPath, null);
     }
 
-    public List<LevelDBEntry> readAllEntries() throws IOException {
-        File[] sstFiles = dbPath.listFiles((dir, name) ->
-            name.endsWith(".ldb") || name.endsWith(".sst"));
-
-        if (sstFiles != null) {
-            Arrays.sort(sstFiles, Comparator.comparing(File::getName));
-            for (File sstFile : sstFiles) {
-                try {
-                    readSSTable(sstFile);
-                } catch (Exception e) {
-                    Log.w(TAG, "Failed to read SST file: " + sstFile.getName() + " - " + e.getMessage());
-                    try {
-                        readSSTableRaw(sstFile);
-                    } catch (Exception e2) {
-                        Log.w(TAG, "Raw scan also failed for: " + sstFile.getName());
-                    }
-                }
-            }
-        }
+    public LevelDBReader(File dbPath, BlockCache blockCache) {
+        this.dbPath = dbPath;
+        this.blockCache = blockCache;
+    }
 
-        File[] logFiles = dbPath.listFiles((dir, name) -> name.endsWith(".log"));
-        if (logFiles != null) {
-            Arrays.sort(logFiles, Comparator.comparing(File::getName));
-            for (File logFile : logFiles) {
-                try {
-                    readLogFile(logFile);
-                } catch (Exception e) {
-                    Log.w(TAG, "Failed to read log file: " + logFile.getName() + " - " + e.getMessage());
-                }
-            }
-        }
+    public void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
 
-        List<LevelDBEntry> entries = new ArrayList<>();
-        for (Map.Entry<ByteArrayWrapper, byte[]> entry : allData.entrySet()) {
-            if (entry.getValue() != null) {
-                entries.add(new LevelDBEntry(entry.getKey().data, entry.getValue()));
-            }
-        }
+    public LevelDBIterator iterator() throws IOException {
+        return iterator(null);
+    }
 
-        Log.d(TAG, "Total entries read: " + entries.size());
+    private LevelDBIterator iterator(byte[] prefix) throws IOException {
+        open();
 
-        int structureCount = 0;
-        for (LevelDBEntry entry : entries) {
-            String keyStr = tryDecodeKey(entry.getKey().getRawKey());
-            if (keyStr != null && keyStr.startsWith("structuretemplate_")) {
-                structureCount++;
+        List<InternalIterator> children = new ArrayList<>();
+        children.add(logTable.iterator());
+        for (int i = 0; i < levelZero.size(); i++) {
+            FileMetaData meta = levelZeroFiles.get(i);
+            if (prefix == null || meta == null || overlapsPrefix(meta, prefix)) {
+                children.add(levelZero.get(i).iterator());
             }
         }
-        Log.d(TAG, "Total structures found: " + structureCount);
-
-        return entries;
-    }
-
-    private void readLogFile(File logFile) throws IOException {
-        Log.d(TAG, "Reading log file: " + logFile.getName() + " size: " + logFile.length());
-
-        try (FileInputStream fis = new FileInputStream(logFile)) {
-            byte[] fileData = readAllBytes(fis, (int) logFile.length());
-
-            int pos = 0;
-            ByteArrayOutputStream fullRecord = new ByteArrayOutputStream();
-
-            while (pos + 7 <= fileData.length) {
-                int blockOffset = pos % LOG_BLOCK_SIZE;
-                int blockRemaining = LOG_BLOCK_SIZE - blockOffset;
-
-                if (blockRemaining < 7) {
-                    pos += blockRemaining;
-                    continue;
-                }
-
-                int length = readInt16LE(fileData, pos + 4);
-                int type = fileData[pos + 6] & 0xFF;
-
-                pos += 7;
-
-                if (length < 0 || length > LOG_BLOCK_SIZE || pos + length > fileData.length) {
-                    break;
-                }
-
-                byte[] recordData = Arrays.copyOfRange(fileData, pos, pos + length);
-                pos += length;
-
-                switch (type) {
-                    case 1:
-                        fullRecord.reset();
-                        fullRecord.write(recordData);
-                        parseWriteBatch(fullRecord.toByteArray());
-                        break;
-                    case 2:
-                        fullRecord.reset();
-                        fullRecord.write(recordData);
-                        break;
-                    case 3:
-                        fullRecord.write(recordData);
-                        break;
-                    case 4:
-                        fullRecord.write(recordData);
-                        parseWriteBatch(fullRecord.toByteArray());
-                        fullRecord.reset();
-                        break;
+        for (int i = 0; i < sortedLevelFiles.size(); i++) {
+            List<FileMetaData> files = sortedLevelFiles.get(i);
+            List<TableReader> readers = sortedLevelTables.get(i);
+            if (prefix != null) {
+                List<FileMetaData> matchingFiles = new ArrayList<>();
+                List<TableReader> matchingReaders = new ArrayList<>();
+                for (int j = 0; j < files.size(); j++) {
+                    if (overlapsPrefix(files.get(j), prefix)) {
+                        matchingFiles.add(files.get(j));
+                        matchingReaders.add(readers.get(j));
+                    }
                 }
+                files = matchingFiles;
+                readers = matchingReaders;
+            }
+            if (!readers.isEmpty()) {
+                children.add(new LevelIterator(files, readers));
             }
         }
+        children.add(salvaged.iterator());
+        return new LevelDBIterator(new MergingIterator(children));
     }
 
-    private void parseWriteBatch(byte[] data) {
-        if (data.length < 12) return;
-
-        try {
-            int count = readInt32LE(data, 8);
-            int pos = 12;
-
-            for (int i = 0; i < count && pos < data.length; i++) {
-                int recordType = data[pos++] & 0xFF;
+    public byte[] get(byte[] key) throws IOException {
+        open();
+        byte[] seekKey = InternalKey.seekKey(key);
 
-                int[] keyLenResult = readVarInt(data, pos);
-                int keyLen = keyLenResult[0];
-                pos = keyLenResult[1];
-
-                if (keyLen <= 0 || keyLen > 10000 || pos + keyLen > data.length) {
-                    break;
-                }
-
-                byte[] key = Arrays.copyOfRange(data, pos, pos + keyLen);
-                pos += keyLen;
-
-                if (recordType == 1) {
-                    int[] valLenResult = readVarInt(data, pos);
-                    int valLen = valLenResult[0];
-                    pos = valLenResult[1];
-
-                    if (valLen >= 0 && pos + valLen <= data.length) {
-                        byte[] value = Arrays.copyOfRange(data, pos, pos + valLen);
-                        pos += valLen;
+        InternalIterator logIterator = logTable.iterator();
+        logIterator.seek(seekKey);
+        if (matchesUserKey(logIterator, key)) {
+            return valueOf(logIterator);
+        }
 
-                        allData.put(new ByteArrayWrapper(key), value);
-                        logStructureIfFound(key, value, "log");
-                    }
-                } else if (recordType == 0) {
-                    allData.put(new ByteArrayWrapper(key), null);
+        InternalIterator newest = null;
+        long newestSequence = -1;
+        for (int i = 0; i < levelZero.size(); i++) {
+            FileMetaData meta = levelZeroFiles.get(i);
+            if (meta != null && !containsUserKey(meta, key)) {
+                continue;
+            }
+            BlockIterator candidate = levelZero.get(i).seekForGet(seekKey, key);
+            if (matchesUserKey(candidate, key)) {
+                long sequence = InternalKey.sequence(candidate.keyArray(), 0, candidate.keyLength());
+                if (sequence > newestSequence) {
+                    newest = candidate;
+                    newestSequence = sequence;
                 }
             }
-        } catch (Exception e) {
-            Log.w(TAG, "Error parsing write batch", e);
         }
-    }
-
-    private void logStructureIfFound(byte[] key, byte[] value, String source) {
-        String keyStr = tryDecodeKey(key);
-        if (keyStr != null && keyStr.startsWith("structuretemplate_")) {
-            Log.d(TAG, "Found structure in " + source + ": " + keyStr + " value size: " + (value != null ? value.length : 0));
+        if (newest != null) {
+            return valueOf(newest);
         }
-    }
 
-    private String tryDecodeKey(byte[] key) {
-        if (key == null || key.length == 0) return null;
-        try {
-            boolean printable = true;
-            for (byte b : key) {
-                if (b < 32 && b != 0) {
-                    printable = false;
-                    break;
-                }
+        for (int i = 0; i < sortedLevelFiles.size(); i++) {
+            List<FileMetaData> files = sortedLevelFiles.get(i);
+            int index = findFile(files, seekKey);
+            if (index >= files.size() || !containsUserKey(files.get(index), key)) {
+                continue;
             }
-            if (printable) {
-                return new String(key, StandardCharsets.UTF_8);
+            BlockIterator candidate = sortedLevelTables.get(i).get(index).seekForGet(seekKey, key);
+            if (matchesUserKey(candidate, key)) {
+                return valueOf(candidate);
             }
-        } catch (Exception e) {
+        }
+
+        InternalIterator salvagedIterator = salvaged.iterator();
+        salvagedIterator.seek(seekKey);
+        if (matchesUserKey(salvagedIterator, key)) {
+            return valueOf(salvagedIterator);
         }
         return null;
     }
 
-    private void readSSTable(File file) throws IOException {
-        Log.d(TAG, "Reading SSTable: " + file.getName() + " size: " + file.length());
-
-        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
-             FileChannel channel = raf.getChannel()) {
-
-            long fileSize = channel.size();
-            if (fileSize < FOOTER_SIZE) {
-                return;
-            }
-
-            ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
-            channel.position(fileSize - FOOTER_SIZE);
-            channel.read(footer);
-            footer.flip();
-
-            readVarInt64(footer);
-            readVarInt64(footer);
-            long indexOffset = readVarInt64(footer);
-            long indexSize = readVarInt64(footer);
-
-            footer.position(40);
-            long magic = footer.getLong();
-
-            if (magic != TABLE_MAGIC_NUMBER) {
-                Log.w(TAG, "Invalid magic number in " + file.getName() + ", trying raw scan");
-                readSSTableRaw(file);
-                return;
-            }
+    public List<LevelDBEntry> scanPrefix(byte[] prefix) throws IOException {
+        List<LevelDBEntry> entries = new ArrayList<>();
+        LevelDBIterator iterator = iterator(prefix);
+        for (iterator.seek(prefix); iterator.isValid() && iterator.keyStartsWith(prefix); iterator.next()) {
+            entries.add(iterator.entry());
+        }
+        return entries;
+    }
 
-            ByteBuffer indexBlock = readBlock(channel, indexOffset, (int) indexSize);
-            if (indexBlock == null) {
-                Log.w(TAG, "Failed to read index block from " + file.getName());
-                return;
+    public List<LevelDBEntry> readChunk(ChunkIndex index, ChunkPos pos) throws IOException {
+        open();
+        List<LevelDBEntry> entries = new ArrayList<>();
+        if (!index.contains(pos)) return entries;
+
+        List<ChunkIndex.Location> locations = index.getLocations(pos);
+        List<InternalIterator> children = new ArrayList<>();
+        children.add(logTable.iterator());
+        for (TableReader table : tables) {
+            if (!index.isIndexed(table.getFileNumber())) {
+                children.add(table.iterator());
+                continue;
             }
-
-            List<BlockHandle> dataBlocks = parseIndexBlock(indexBlock);
-            Log.d(TAG, "Found " + dataBlocks.size() + " data blocks in " + file.getName());
-
-            for (BlockHandle handle : dataBlocks) {
+            for (ChunkIndex.Location location : locations) {
+                if (location.fileNumber != table.getFileNumber()) continue;
                 try {
-                    ByteBuffer dataBlock = readBlock(channel, handle.offset, (int) handle.size);
-                    if (dataBlock != null) {
-                        parseDataBlock(dataBlock);
-                    }
-                } catch (Exception e) {
-                    Log.w(TAG, "Failed to read data block at offset " + handle.offset, e);
+                    children.add(table.readBlock(location.handle).iterator());
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to read indexed block in " + table.getFile().getName() + " - " + e.getMessage());
+                    children.add(table.iterator());
+                    break;
                 }
             }
         }
+        children.add(salvaged.iterator());
+
+        byte[] prefix = pos.keyPrefix();
+        LevelDBIterator iterator = new LevelDBIterator(new MergingIterator(children));
+        for (iterator.seek(prefix); iterator.isValid() && iterator.keyStartsWith(prefix); iterator.next()) {
+            byte[] key = iterator.key();
+            if (pos.matches(key, key.length)) {
+                entries.add(new LevelDBEntry(key, iterator.value()));
+            }
+        }
+        return entries;
     }
 
-    private void readSSTableRaw(File file) throws IOException {
-        Log.d(TAG, "Raw scanning file: " + file.getName());
-        try (FileInputStream fis = new FileInputStream(file)) {
-            byte[] data = readAllBytes(fis, (int) file.length());
-
-            byte[] prefix = "structuretemplate_".getBytes();
-            int found = 0;
-
-            for (int i = 0; i < data.length - prefix.length - 20; i++) {
-                boolean match = true;
-                for (int j = 0; j < prefix.length; j++) {
-                    if (data[i + j] != prefix[j]) {
-                        match = false;
-                        break;
-                    }
-                }
-
-                if (match) {
-                    int keyEnd = i;
-                    for (int j = i; j < Math.min(i + 256, data.length); j++) {
-                        byte b = data[j];
-                        if (b < 32 || b > 126) {
-                            keyEnd = j;
-                            break;
-                        }
-                    }
+    public interface EntryVisitor {
+        void visit(byte[] key, int keyLength, ByteBuffer value) throws IOException;
 
-                    if (keyEnd > i) {
-                        byte[] key = Arrays.copyOfRange(data, i, keyEnd);
-                        String keyStr = new String(key, StandardCharsets.UTF_8);
-
-                        int valueStart = keyEnd;
-                        int maxSearch = Math.min(keyEnd + 100, data.length - 8);
-
-                        while (valueStart < maxSearch) {
-                            if (isValidNbtStart(data, valueStart)) {
-                                break;
-                            }
-                            valueStart++;
-                        }
-
-                        int valueLen = estimateNbtLength(data, valueStart);
-                        if (valueLen > 0 && valueStart + valueLen <= data.length) {
-                            byte[] value = Arrays.copyOfRange(data, valueStart, valueStart + valueLen);
-                            allData.put(new ByteArrayWrapper(key), value);
-                            Log.d(TAG, "Found structure in raw scan: " + keyStr + " size: " + valueLen);
-                            found++;
-                            i = valueStart + valueLen - 1;
-                        }
-                    }
-                }
-            }
-            Log.d(TAG, "Raw scan found " + found + " structures in " + file.getName());
+        default void finish() {
         }
     }
 
-    private boolean isValidNbtStart(byte[] data, int pos) {
-        if (pos + 8 >= data.length) return false;
-        int version = readInt32LE(data, pos);
-        int length = readInt32LE(data, pos + 4);
-        return version >= 1 && version <= 10 && length > 0 && length < 10 * 1024 * 1024;
+    public interface VisitorFactory {
+        EntryVisitor create();
     }
 
-    private int estimateNbtLength(byte[] data, int start) {
-        if (start + 8 >= data.length) return 0;
-        int length = readInt32LE(data, start + 4);
-        if (length > 0 && length < 10 * 1024 * 1024 && start + 8 + length <= data.length) {
-            return 8 + length;
+    public void forEachParallel(KeyFilter filter, ExecutorService pool, AtomicBoolean cancelled,
+                                int partitions, VisitorFactory visitors) throws IOException {
+        open();
+
+        List<byte[]> bounds = partitionBounds(partitions);
+        AtomicBoolean aborted = new AtomicBoolean();
+        AtomicBoolean stop = cancelled != null ? cancelled : aborted;
+        List<Callable<Long>> tasks = new ArrayList<>();
+        for (int i = 0; i <= bounds.size(); i++) {
+            byte[] start = i > 0 ? bounds.get(i - 1) : null;
+            byte[] end = i < bounds.size() ? bounds.get(i) : null;
+            EntryVisitor visitor = visitors.create();
+            tasks.add(() -> visitRange(start, end, filter, visitor, stop, aborted));
         }
-        return 0;
-    }
 
-    private ByteBuffer readBlock(FileChannel channel, long offset, int size) throws IOException {
-        if (size <= 0 || offset < 0 || offset + size + BLOCK_TRAILER_SIZE > channel.size()) {
-            return null;
+        List<Future<Long>> futures = new ArrayList<>();
+        for (Callable<Long> task : tasks) {
+            futures.add(pool.submit(task));
         }
-
-        ByteBuffer buffer = ByteBuffer.allocate(size + BLOCK_TRAILER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
-        channel.position(offset);
-        int read = channel.read(buffer);
-        if (read < size + BLOCK_TRAILER_SIZE) {
-            return null;
+        long visited = 0;
+        for (long count : awaitAll(futures, aborted)) {
+            visited += count;
         }
-        buffer.flip();
-
-        byte[] blockData = new byte[size];
-        buffer.get(blockData);
-        byte compressionType = buffer.get();
+        Log.d(TAG, "Parallel visit of " + tasks.size() + " key ranges matched " + visited + " entries");
+    }
 
-        byte[] decompressed = blockData;
-        if (compressionType == 1) {
-            decompressed = decompressSnappy(blockData);
-        } else if (compressionType == 2) {
-            decompressed = decompressZlib(blockData);
-        } else if (compressionType == 4 || compressionType == 5) {
-            decompressed = decompressLZ4(blockData);
-        } else if (compressionType == 7) {
-            decompressed = decompressZstd(blockData);
+    private long visitRange(byte[] start, byte[] end, KeyFilter filter, EntryVisitor visitor,
+                            AtomicBoolean cancelled, AtomicBoolean aborted) throws IOException {
+        LevelDBIterator iterator = iterator(null);
+        if (start != null) {
+            iterator.seek(start);
+        } else {
+            iterator.seekToFirst();
         }
 
-        if (decompressed == null || decompressed.length == 0) {
-            decompressed = blockData;
+        long matched = 0;
+        int visited = 0;
+        for (; iterator.isValid(); iterator.next()) {
+            if ((++visited & 0xFF) == 0 && (cancelled.get() || aborted.get())) {
+                throw new InterruptedIOException("Scan cancelled");
+            }
+            byte[] key = iterator.keyArray();
+            int length = iterator.keyLength();
+            if (end != null && InternalKey.compareUserKeys(key, 0, length, end, 0, end.length) >= 0) {
+                break;
+            }
+            if (filter != null && !filter.accept(key, length)) {
+                continue;
+            }
+            visitor.visit(key, length, iterator.valueSlice());
+            matched++;
         }
-
-        return ByteBuffer.wrap(decompressed).order(ByteOrder.LITTLE_ENDIAN);
+        visitor.finish();
+        return matched;
     }
 
-    private byte[] decompressSnappy(byte[] data) {
-        try {
-            if (data.length == 0) return data;
-
-            int[] result = readVarInt(data, 0);
-            int uncompressedLen = result[0];
-            int pos = result[1];
-
-            if (uncompressedLen <= 0 || uncompressedLen > 100 * 1024 * 1024) {
-                return data;
-            }
-
-            byte[] output = new byte[uncompressedLen];
-            int outPos = 0;
-
-            while (pos < data.length && outPos < uncompressedLen) {
-                int tag = data[pos++] & 0xFF;
-                int tagType = tag & 0x03;
-
-                if (tagType == 0) {
-                    int len = (tag >> 2);
-                    if (len < 60) {
-                        len += 1;
-                    } else {
-                        int extraBytes = len - 59;
-                        len = 0;
-                        for (int i = 0; i < extraBytes && pos < data.length; i++) {
-                            len |= (data[pos++] & 0xFF) << (8 * i);
-                        }
-                        len += 1;
-                    }
-
-                    if (pos + len > data.length || outPos + len > uncompressedLen) {
-                        break;
-                    }
-                    System.arraycopy(data, pos, output, outPos, len);
-                    pos += len;
-                    outPos += len;
-                } else {
-                    int len, offset;
-                    if (tagType == 1) {
-                        len = ((tag >> 2) & 0x07) + 4;
-                        if (pos >= data.length) break;
-                        offset = ((tag & 0xE0) << 3) | (data[pos++] & 0xFF);
-                    } else if (tagType == 2) {
-                        len = (tag >> 2) + 1;
-                        if (pos + 2 > data.length) break;
-                        offset = (data[pos++] & 0xFF) | ((data[pos++] & 0xFF) << 8);
-                    } else {
-                        len = (tag >> 2) + 1;
-                        if (pos + 4 > data.length) break;
-                        offset = (data[pos++] & 0xFF) | ((data[pos++] & 0xFF) << 8) |
-                                ((data[pos++] & 0xFF) << 16) | ((data[pos++] & 0xFF) << 24);
-                    }
-
-                    if (offset <= 0 || offset > outPos) {
-                        break;
-                    }
-
-                    int srcPos = outPos - offset;
-                    for (int i = 0; i < len && outPos < uncompressedLen; i++) {
-                        output[outPos++] = output[srcPos++];
-                    }
+    private List<byte[]> partitionBounds(int partitions) {
+        List<byte[]> candidates = new ArrayList<>();
+        for (TableReader table : tables) {
+            BlockIterator index = table.indexIterator();
+            int blocks = 0;
+            for (index.seekToFirst(); index.isValid(); index.next()) {
+                blocks++;
+            }
+            int step = Math.max(1, blocks / 16);
+            int position = 0;
+            for (index.seekToFirst(); index.isValid(); index.next(), position++) {
+                if (position % step == 0) {
+                    candidates.add(Arrays.copyOf(index.keyArray(), InternalKey.userKeyLength(index.keyLength())));
                 }
             }
+        }
+        candidates.sort((a, b) -> InternalKey.compareUserKeys(a, 0, a.length, b, 0, b.length));
 
-            if (outPos == uncompressedLen) {
-                return output;
-            } else {
-                Log.w(TAG, "Snappy decompression incomplete: " + outPos + "/" + uncompressedLen);
-                return Arrays.copyOf(output, outPos);
+        List<byte[]> bounds = new ArrayList<>();
+        if (partitions <= 1 || candidates.isEmpty()) {
+            return bounds;
+        }
+        for (int i = 1; i < partitions; i++) {
+            byte[] bound = candidates.get((int) ((long) i * candidates.size() / partitions));
+            byte[] previous = bounds.isEmpty() ? null : bounds.get(bounds.size() - 1);
+            if (previous == null || InternalKey.compareUserKeys(previous, 0, previous.length, bound, 0, bound.length) < 0) {
+                bounds.add(bound);
             }
-        } catch (Exception e) {
-            Log.w(TAG, "Snappy decompression failed", e);
-            return data;
         }
+        return bounds;
     }
 
-    private byte[] decompressZlib(byte[] data) {
-        try {
-            Inflater inflater = new Inflater(false);
-            inflater.setInput(data);
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            byte[] buffer = new byte[4096];
+    public List<LevelDBEntry> scanPrefixCached(byte[] prefix, File cacheDir, ExecutorService pool,
+                                               AtomicBoolean cancelled) throws IOException {
+        open();
 
-            while (!inflater.finished()) {
-                try {
-                    int count = inflater.inflate(buffer);
-                    if (count == 0) {
-                        if (inflater.needsInput()) break;
-                    }
-                    baos.write(buffer, 0, count);
-                } catch (Exception e) {
-                    break;
+        TableScanCache cache = new TableScanCache(cacheDir);
+        List<TableReader> candidates = new ArrayList<>();
+        for (int i = 0; i < levelZero.size(); i++) {
+            FileMetaData meta = levelZeroFiles.get(i);
+            if (meta == null || overlapsPrefix(meta, prefix)) {
+                candidates.add(levelZero.get(i));
+            }
+        }
+        for (int i = 0; i < sortedLevelFiles.size(); i++) {
+            List<FileMetaData> files = sortedLevelFiles.get(i);
+            for (int j = 0; j < files.size(); j++) {
+                if (overlapsPrefix(files.get(j), prefix)) {
+                    candidates.add(sortedLevelTables.get(i).get(j));
                 }
             }
-            inflater.end();
+        }
+
+        AtomicBoolean aborted = new AtomicBoolean();
+        AtomicBoolean stop = cancelled != null ? cancelled : aborted;
+        List<Future<List<TableScanCache.Entry>>> futures = new ArrayList<>();
+        for (TableReader table : candidates) {
+            futures.add(pool.submit(() -> {
+                if (stop.get() || aborted.get()) {
+                    throw new InterruptedIOException("Scan cancelled");
+                }
+                return cache.entries(table, prefix);
+            }));
+        }
+        List<Record> records = collect(logTable.iterator(), prefix, stop, aborted);
+        records.addAll(collect(salvaged.iterator(), prefix, stop, aborted));
+        List<List<TableScanCache.Entry>> results = awaitAll(futures, aborted);
 
-            if (baos.size() > 0) {
-                return baos.toByteArray();
+        for (int i = 0; i < candidates.size(); i++) {
+            for (TableScanCache.Entry entry : results.get(i)) {
+                records.add(new Record(entry.key, null, candidates.get(i), entry));
             }
+        }
+        records.sort((a, b) -> InternalKey.compare(a.key, 0, a.key.length, b.key, 0, b.key.length));
 
-            inflater = new Inflater(true);
-            inflater.setInput(data);
-            baos.reset();
+        List<LevelDBEntry> entries = new ArrayList<>();
+        byte[] previous = null;
+        TableReader blockTable = null;
+        long blockOffset = -1;
+        Block block = null;
+        for (Record record : records) {
+            int userKeyLength = InternalKey.userKeyLength(record.key.length);
+            if (previous != null && InternalKey.compareUserKeys(record.key, 0, userKeyLength, previous, 0, previous.length) == 0) {
+                continue;
+            }
+            previous = Arrays.copyOf(record.key, userKeyLength);
 
-            while (!inflater.finished()) {
+            byte[] value = record.value;
+            TableScanCache.Entry location = record.location;
+            if (location != null && location.valueLength >= 0) {
                 try {
-                    int count = inflater.inflate(buffer);
-                    if (count == 0) {
-                        if (inflater.needsInput()) break;
+                    if (record.table != blockTable || location.blockOffset != blockOffset) {
+                        block = record.table.readBlock(new BlockHandle(location.blockOffset, location.blockSize));
+                        blockTable = record.table;
+                        blockOffset = location.blockOffset;
                     }
-                    baos.write(buffer, 0, count);
-                } catch (Exception e) {
-                    break;
+                    value = block.copyRange(location.valueOffset, location.valueLength);
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to read cached value in " + record.table.getFile().getName() + " - " + e.getMessage());
+                    blockTable = null;
+                    continue;
                 }
             }
-            inflater.end();
+            if (value != null) {
+                entries.add(new LevelDBEntry(previous, value));
+            }
+        }
 
-            return baos.size() > 0 ? baos.toByteArray() : data;
-        } catch (Exception e) {
-            return data;
+        Set<String> tableNames = new HashSet<>();
+        for (TableReader table : tables) {
+            tableNames.add(table.getFile().getName());
         }
+        cache.retainOnly(tableNames);
+        Log.d(TAG, "Cached scan of " + candidates.size() + " tables matched " + entries.size() + " entries");
+        return entries;
     }
 
-    private byte[] decompressLZ4(byte[] data) {
-        try {
-            if (data.length < 4) return data;
+    private static List<Record> collect(InternalIterator iterator, byte[] prefix, AtomicBoolean cancelled,
+                                        AtomicBoolean aborted) throws InterruptedIOException {
+        List<Record> records = new ArrayList<>();
+        if (prefix != null) {
+            iterator.seek(InternalKey.seekKey(prefix));
+        } else {
+            iterator.seekToFirst();
+        }
 
-            int uncompressedSize = readInt32LE(data, 0);
-            if (uncompressedSize <= 0 || uncompressedSize > 100 * 1024 * 1024) {
-                return data;
+        int visited = 0;
+        for (; iterator.isValid(); iterator.next()) {
+            if ((++visited & 0xFF) == 0 && (cancelled.get() || aborted.get())) {
+                throw new InterruptedIOException("Scan cancelled");
             }
-
-            byte[] output = new byte[uncompressedSize];
-            int srcPos = 4;
-            int dstPos = 0;
-
-            while (srcPos < data.length && dstPos < uncompressedSize) {
-                int token = data[srcPos++] & 0xFF;
-
-                int literalLen = token >> 4;
-                if (literalLen == 15) {
-                    int b;
-                    do {
-                        if (srcPos >= data.length) break;
-                        b = data[srcPos++] & 0xFF;
-                        literalLen += b;
-                    } while (b == 255);
-                }
-
-                if (srcPos + literalLen > data.length || dstPos + literalLen > uncompressedSize) {
-                    break;
-                }
-                System.arraycopy(data, srcPos, output, dstPos, literalLen);
-                srcPos += literalLen;
-                dstPos += literalLen;
-
-                if (srcPos >= data.length || dstPos >= uncompressedSize) {
-                    break;
-                }
-
-                if (srcPos + 2 > data.length) break;
-                int offset = (data[srcPos++] & 0xFF) | ((data[srcPos++] & 0xFF) << 8);
-                if (offset == 0 || offset > dstPos) {
-                    break;
-                }
-
-                int matchLen = (token & 0x0F) + 4;
-                if (matchLen == 19) {
-                    int b;
-                    do {
-                        if (srcPos >= data.length) break;
-                        b = data[srcPos++] & 0xFF;
-                        matchLen += b;
-                    } while (b == 255);
-                }
-
-                int matchPos = dstPos - offset;
-                for (int i = 0; i < matchLen && dstPos < uncompressedSize; i++) {
-                    output[dstPos++] = output[matchPos++];
-                }
+            byte[] key = iterator.keyArray();
+            int length = iterator.keyLength();
+            int userKeyLength = InternalKey.userKeyLength(length);
+            if (prefix != null && !startsWith(key, userKeyLength, prefix)) {
+                break;
             }
-
-            return dstPos == uncompressedSize ? output : Arrays.copyOf(output, dstPos);
-        } catch (Exception e) {
-            Log.w(TAG, "LZ4 decompression failed", e);
-            return data;
+            records.add(new Record(Arrays.copyOf(key, length), valueOf(iterator)));
         }
+        return records;
     }
 
-    private byte[] decompressZstd(byte[] data) {
-        return data;
-    }
-
-    private List<BlockHandle> parseIndexBlock(ByteBuffer buffer) {
-        List<BlockHandle> handles = new ArrayList<>();
-
+    private static <T> List<T> awaitAll(List<Future<T>> futures, AtomicBoolean aborted) throws IOException {
+        List<T> results = new ArrayList<>();
         try {
-            if (buffer.limit() < 4) return handles;
-
-            buffer.position(buffer.limit() - 4);
-            int numRestarts = buffer.getInt();
-
-            if (numRestarts < 0 || numRestarts > 10000) return handles;
-
-            int dataEnd = buffer.limit() - 4 - (numRestarts * 4);
-            if (dataEnd <= 0) return handles;
-
-            buffer.position(0);
-            byte[] prevKey = new byte[0];
-
-            while (buffer.position() < dataEnd && buffer.hasRemaining()) {
-                int shared = readVarInt32(buffer);
-                int nonShared = readVarInt32(buffer);
-                int valueLen = readVarInt32(buffer);
-
-                if (shared < 0 || nonShared < 0 || valueLen < 0) break;
-                if (nonShared > 10000 || valueLen > 100) break;
-                if (buffer.position() + nonShared + valueLen > buffer.limit()) break;
-
-                byte[] key = new byte[shared + nonShared];
-                if (shared > 0 && shared <= prevKey.length) {
-                    System.arraycopy(prevKey, 0, key, 0, shared);
-                }
-                buffer.get(key, shared, nonShared);
-                prevKey = key;
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelAll(futures, aborted);
+            throw new InterruptedIOException("Scan interrupted");
+        } catch (ExecutionException e) {
+            cancelAll(futures, aborted);
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Parallel scan failed: " + cause, cause);
+        }
+        return results;
+    }
 
-                if (valueLen > 0) {
-                    int valStart = buffer.position();
-                    long offset = readVarInt64(buffer);
-                    long size = readVarInt64(buffer);
+    private static void cancelAll(List<? extends Future<?>> futures, AtomicBoolean aborted) {
+        aborted.set(true);
+        for (Future<?> future : futures) {
+            future.cancel(false);
+        }
+    }
 
-                    if (offset >= 0 && size > 0 && size < 100 * 1024 * 1024) {
-                        handles.add(new BlockHandle(offset, size));
-                    }
+    private static boolean startsWith(byte[] key, int length, byte[] prefix) {
+        if (prefix.length > length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[i] != prefix[i]) return false;
+        }
+        return true;
+    }
 
-                    buffer.position(valStart + valueLen);
-                }
+    private static int findFile(List<FileMetaData> files, byte[] seekKey) {
+        int left = 0;
+        int right = files.size();
+        while (left < right) {
+            int mid = (left + right) >>> 1;
+            byte[] largest = files.get(mid).largest;
+            if (InternalKey.compare(largest, 0, largest.length, seekKey, 0, seekKey.length) < 0) {
+                left = mid + 1;
+            } else {
+                right = mid;
             }
-        } catch (Exception e) {
-            Log.w(TAG, "Error parsing index block", e);
         }
-
-        return handles;
+        return left;
     }
 
-    private void parseDataBlock(ByteBuffer buffer) {
-        try {
-            if (buffer.limit() < 4) return;
+    private static boolean containsUserKey(FileMetaData meta, byte[] key) {
+        return InternalKey.compareUserKeys(meta.smallestUserKey(), key) <= 0
+                && InternalKey.compareUserKeys(meta.largestUserKey(), key) >= 0;
+    }
 
-            buffer.position(buffer.limit() - 4);
-            int numRestarts = buffer.getInt();
+    private static boolean overlapsPrefix(FileMetaData meta, byte[] prefix) {
+        byte[] smallest = meta.smallestUserKey();
+        int length = Math.min(smallest.length, prefix.length);
+        return InternalKey.compareUserKeys(smallest, 0, length, prefix, 0, prefix.length) <= 0
+                && InternalKey.compareUserKeys(meta.largestUserKey(), prefix) >= 0;
+    }
 
-            if (numRestarts < 0 || numRestarts > 100000) return;
+    private static boolean matchesUserKey(InternalIterator iterator, byte[] key) {
+        return iterator != null && iterator.isValid()
+                && InternalKey.compareUserKeys(iterator.keyArray(), 0, InternalKey.userKeyLength(iterator.keyLength()),
+                        key, 0, key.length) == 0;
+    }
 
-            int dataEnd = buffer.limit() - 4 - (numRestarts * 4);
-            if (dataEnd <= 0) return;
+    private static byte[] valueOf(InternalIterator iterator) {
+        if (InternalKey.type(iterator.keyArray(), 0, iterator.keyLength()) == InternalKey.TYPE_DELETION) {
+            return null;
+        }
+        ByteBuffer buffer = iterator.value();
+        byte[] value = new byte[buffer.remaining()];
+        buffer.get(value);
+        return value;
+    }
 
-            buffer.position(0);
-            byte[] prevKey = new byte[0];
+    public List<LevelDBEntry> readAllEntries() throws IOException {
+        List<LevelDBEntry> entries = new ArrayList<>();
+        int structureCount = 0;
 
-            while (buffer.position() < dataEnd && buffer.hasRemaining()) {
-                int shared = readVarInt32(buffer);
-                int nonShared = readVarInt32(buffer);
-                int valueLen = readVarInt32(buffer);
+        LevelDBIterator iterator = iterator();
+        for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+            LevelDBEntry entry = iterator.entry();
+            if (entry.getKey().isStructureKey()) {
+                structureCount++;
+            }
+            entries.add(entry);
+        }
 
-                if (shared < 0 || nonShared < 0 || valueLen < 0) break;
-                if (shared > 10000 || nonShared > 10000 || valueLen > 50 * 1024 * 1024) break;
-                if (buffer.position() + nonShared + valueLen > buffer.limit()) break;
+        Log.d(TAG, "Total entries read: " + entries.size());
+        Log.d(TAG, "Total structures found: " + structureCount);
 
-                byte[] fullKey = new byte[shared + nonShared];
-                if (shared > 0 && shared <= prevKey.length) {
-                    System.arraycopy(prevKey, 0, fullKey, 0, shared);
-                }
-                buffer.get(fullKey, shared, nonShared);
-                prevKey = fullKey;
+        return entries;
+    }
 
-                byte[] value = new byte[valueLen];
-                buffer.get(value);
+    private synchronized void open() throws IOException {
+        if (closed) {
+            throw new IOException("LevelDBReader is closed: " + dbPath);
+        }
+        if (opened) return;
+        opened = true;
 
-                byte[] userKey = fullKey;
-                boolean isValue = true;
+        Version version;
+        try {
+            version = Version.load(dbPath);
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot use MANIFEST (" + e.getMessage() + "), falling back to directory scan");
+            openAllFiles();
+            return;
+        }
 
-                if (fullKey.length > 8) {
-                    userKey = Arrays.copyOf(fullKey, fullKey.length - 8);
-                    int type = fullKey[fullKey.length - 8] & 0xFF;
-                    isValue = (type == 1);
+        for (int level = 0; level < Version.NUM_LEVELS; level++) {
+            List<FileMetaData> files = new ArrayList<>();
+            List<TableReader> readers = new ArrayList<>();
+            for (FileMetaData meta : version.levels.get(level)) {
+                TableReader table = openTable(Version.tableFile(dbPath, meta.number), meta.number);
+                if (table != null) {
+                    files.add(meta);
+                    readers.add(table);
                 }
+            }
+            if (level == 0) {
+                levelZero.addAll(readers);
+                levelZeroFiles.addAll(files);
+            } else if (!readers.isEmpty()) {
+                sortedLevelFiles.add(files);
+                sortedLevelTables.add(readers);
+            }
+        }
 
-                if (userKey.length > 0) {
-                    if (isValue) {
-                        allData.put(new ByteArrayWrapper(userKey), value);
-                        logStructureIfFound(userKey, value, "SST");
-                    } else {
-                        allData.put(new ByteArrayWrapper(userKey), null);
-                    }
+        File[] logFiles = dbPath.listFiles((dir, name) -> name.endsWith(".log"));
+        if (logFiles != null) {
+            Arrays.sort(logFiles, Comparator.comparingLong(f -> parseFileNumber(f.getName())));
+            for (File logFile : logFiles) {
+                if (version.isLiveLog(parseFileNumber(logFile.getName()))) {
+                    readLogFileSafely(logFile);
+                } else {
+                    Log.d(TAG, "Skipping obsolete log file: " + logFile.getName());
                 }
             }
-        } catch (Exception e) {
-            Log.w(TAG, "Error parsing data block", e);
         }
     }
 
-    private int readVarInt32(ByteBuffer buffer) {
-        int result = 0;
-        int shift = 0;
-        while (buffer.hasRemaining() && shift < 35) {
-            byte b = buffer.get();
-            result |= (b & 0x7F) << shift;
-            if ((b & 0x80) == 0) break;
-            shift += 7;
+    private void openAllFiles() {
+        File[] sstFiles = dbPath.listFiles((dir, name) ->
+            name.endsWith(".ldb") || name.endsWith(".sst"));
+
+        if (sstFiles != null) {
+            Arrays.sort(sstFiles, Comparator.comparing(File::getName).reversed());
+            for (File sstFile : sstFiles) {
+                TableReader table = openTable(sstFile, parseFileNumber(sstFile.getName()));
+                if (table != null) {
+                    levelZero.add(table);
+                    levelZeroFiles.add(null);
+                }
+            }
         }
-        return result;
-    }
 
-    private long readVarInt64(ByteBuffer buffer) {
-        long result = 0;
-        int shift = 0;
-        while (buffer.hasRemaining() && shift < 70) {
-            byte b = buffer.get();
-            result |= (long) (b & 0x7F) << shift;
-            if ((b & 0x80) == 0) break;
-            shift += 7;
+        File[] logFiles = dbPath.listFiles((dir, name) -> name.endsWith(".log"));
+        if (logFiles != null) {
+            Arrays.sort(logFiles, Comparator.comparing(File::getName));
+            for (File logFile : logFiles) {
+                readLogFileSafely(logFile);
+            }
         }
-        return result;
     }
 
-    private int[] readVarInt(byte[] data, int pos) {
-        int result = 0;
-        int shift = 0;
-        while (pos < data.length && shift < 35) {
-            byte b = data[pos++];
-            result |= (b & 0x7F) << shift;
-            if ((b & 0x80) == 0) break;
-            shift += 7;
+    private TableReader openTable(File sstFile, long fileNumber) {
+        try {
+            Log.d(TAG, "Opening SSTable: " + sstFile.getName() + " size: " + sstFile.length());
+            TableReader table = new TableReader(sstFile, fileNumber, blockCache, memoryMapped);
+            tables.add(table);
+            return table;
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to read SST file: " + sstFile.getName() + " - " + e.getMessage());
+            try {
+                readSSTableRaw(sstFile);
+            } catch (Exception e2) {
+                Log.w(TAG, "Raw scan also failed for: " + sstFile.getName());
+            }
+            return null;
         }
-        return new int[]{result, pos};
     }
 
-    private int readInt32LE(byte[] data, int pos) {
-        if (pos + 4 > data.length) return 0;
-        return (data[pos] & 0xFF) |
-               ((data[pos + 1] & 0xFF) << 8) |
-               ((data[pos + 2] & 0xFF) << 16) |
-               ((data[pos + 3] & 0xFF) << 24);
+    private void readLogFileSafely(File logFile) {
+        try {
+            readLogFile(logFile);
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to read log file: " + logFile.getName() + " - " + e.getMessage());
+        }
     }
 
-    private int readInt16LE(byte[] data, int pos) {
-        if (pos + 2 > data.length) return 0;
-        return (data[pos] & 0xFF) | ((data[pos + 1] & 0xFF) << 8);
-    }
+    private void readLogFile(File logFile) throws IOException {
+        Log.d(TAG, "Reading log file: " + logFile.getName() + " size: " + logFile.length());
 
-    private byte[] readAllBytes(FileInputStream fis, int length) throws IOException {
-        byte[] data = new byte[length];
-        int offset = 0;
-        while (offset < length) {
-            int read = fis.read(data, offset, length - offset);
-            if (read < 0) break;
-            offset += read;
+        LogReader reader = LogReader.open(logFile);
+        byte[] record;
+        while ((record = reader.readRecord()) != null) {
+            logTable.applyWriteBatch(record);
         }
-        return data;
     }
 
-    public void close() {
-        allData.clear();
+    static long parseFileNumber(String name) {
+        int dot = name.indexOf('.');
+        String number = dot >= 0 ? name.substring(0, dot) : name;
+        try {
+            return Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
-    private static class BlockHandle {
-        final long offset;
-        final long size;
-
-        BlockHandle(long offset, long size) {
-            this.offset = offset;
-            this.size = size;
+    private void readSSTableRaw(File file) throws IOException {
+        Log.d(TAG, "Raw scanning file: " + file.getName());
+        List<TableSalvager.Hit> hits = new TableSalvager(SALVAGE_SCANNER).salvage(file);
+        for (TableSalvager.Hit hit : hits) {
+            salvaged.add(hit.sequence, hit.type, hit.userKey, hit.value);
         }
+        Log.d(TAG, "Raw scan recovered " + hits.size() + " entries from " + file.getName());
     }
 
-    private static class ByteArrayWrapper {
-        final byte[] data;
-        final int hashCode;
+    private static final class Record {
+        final byte[] key;
+        final byte[] value;
+        final TableReader table;
+        final TableScanCache.Entry location;
 
-        ByteArrayWrapper(byte[] data) {
-            this.data = data;
-            this.hashCode = Arrays.hashCode(data);
+        Record(byte[] key, byte[] value) {
+            this(key, value, null, null);
         }
 
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (!(o instanceof ByteArrayWrapper)) return false;
-            return Arrays.equals(data, ((ByteArrayWrapper) o).data);
+        Record(byte[] key, byte[] value, TableReader table, TableScanCache.Entry location) {
+            this.key = key;
+            this.value = value;
+            this.table = table;
+            this.location = location;
         }
+    }
 
-        @Override
-        public int hashCode() {
-            return hashCode;
+    public synchronized void close() {
+        closed = true;
+        for (TableReader table : tables) {
+            table.close();
         }
+        tables.clear();
+        levelZero.clear();
+        levelZeroFiles.clear();
+        sortedLevelFiles.clear();
+        sortedLevelTables.clear();
     }
 }
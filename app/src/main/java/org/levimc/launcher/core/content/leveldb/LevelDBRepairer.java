@@ -0,0 +1,203 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class LevelDBRepairer {
+    private static final String TAG = "LevelDBRepairer";
+
+    private final AtomicBoolean cancelled;
+    private long maxSequence;
+
+    public LevelDBRepairer(AtomicBoolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    public RepairReport repair(File sourceDb, File targetDb) throws IOException {
+        String[] existing = targetDb.list();
+        if (existing != null && existing.length > 0) {
+            throw new IOException("Recovery target is not empty: " + targetDb);
+        }
+
+        RepairReport report = new RepairReport();
+        Version version = null;
+        try {
+            version = Version.load(sourceDb);
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot use MANIFEST (" + e.getMessage() + "), recovering every table and log");
+        }
+        report.setManifestUsed(version != null);
+
+        List<File> tables = new ArrayList<>();
+        List<File> logs = new ArrayList<>();
+        Set<Long> present = new HashSet<>();
+        File[] files = sourceDb.listFiles();
+        if (files != null) {
+            Arrays.sort(files, Comparator.comparingLong(f -> LevelDBReader.parseFileNumber(f.getName())));
+            for (File file : files) {
+                String name = file.getName();
+                long number = LevelDBReader.parseFileNumber(name);
+                if (name.endsWith(".ldb") || name.endsWith(".sst")) {
+                    present.add(number);
+                    if (version == null || isLiveTable(version, number)) {
+                        tables.add(file);
+                    } else {
+                        Log.d(TAG, "Skipping obsolete table: " + name);
+                    }
+                } else if (name.endsWith(".log")) {
+                    if (version == null || version.isLiveLog(number)) {
+                        logs.add(file);
+                    } else {
+                        Log.d(TAG, "Skipping obsolete log file: " + name);
+                    }
+                }
+            }
+        }
+        if (version != null) {
+            for (List<FileMetaData> level : version.levels) {
+                for (FileMetaData meta : level) {
+                    if (!present.contains(meta.number)) {
+                        report.addFile(new RepairReport.FileReport(Version.tableFileName(meta.number),
+                                RepairReport.Status.MISSING, 0, 0, meta.fileSize));
+                    }
+                }
+            }
+        }
+
+        LevelDBWriter writer = new LevelDBWriter(targetDb);
+        try {
+            for (File table : tables) {
+                checkCancelled();
+                MemTable memTable = new MemTable();
+                report.addFile(recoverTable(table, memTable));
+                writer.addTable(memTable, maxSequence);
+            }
+            for (File log : logs) {
+                checkCancelled();
+                MemTable memTable = new MemTable();
+                report.addFile(recoverLog(log, memTable));
+                writer.addTable(memTable, maxSequence);
+            }
+            checkCancelled();
+            CompactionResult result = writer.compact(null);
+            report.setKeyCount(result.getEntriesKept());
+        } finally {
+            writer.close();
+        }
+
+        Log.d(TAG, "Recovered " + sourceDb + " into " + targetDb + ": " + report);
+        for (RepairReport.FileReport file : report.getDamagedFiles()) {
+            Log.w(TAG, "Damaged " + file);
+        }
+        return report;
+    }
+
+    private RepairReport.FileReport recoverTable(File file, MemTable memTable) throws IOException {
+        TableReader reader;
+        try {
+            reader = new TableReader(file, -1, null, false);
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot open " + file.getName() + " (" + e.getMessage() + "), salvaging blocks");
+            return salvageTable(file, memTable);
+        }
+
+        long records = 0;
+        int lostBlocks = 0;
+        long lostBytes = 0;
+        try {
+            BlockIterator index = reader.indexIterator();
+            for (index.seekToFirst(); index.isValid(); index.next()) {
+                BlockHandle handle = BlockHandle.decode(index.value());
+                BlockIterator block;
+                try {
+                    block = reader.readVerifiedBlock(handle).iterator();
+                } catch (IOException | RuntimeException e) {
+                    Log.w(TAG, "Lost block at offset " + handle.offset + " in " + file.getName() + " - " + e.getMessage());
+                    lostBlocks++;
+                    lostBytes += handle.size + TableReader.BLOCK_TRAILER_SIZE;
+                    continue;
+                }
+                for (block.seekToFirst(); block.isValid(); block.next()) {
+                    byte[] key = block.keyArray();
+                    int length = block.keyLength();
+                    if (length < 8) continue;
+                    int type = InternalKey.type(key, 0, length);
+                    byte[] value = null;
+                    if (type == InternalKey.TYPE_VALUE) {
+                        ByteBuffer slice = block.value();
+                        value = new byte[slice.remaining()];
+                        slice.get(value);
+                    }
+                    add(memTable, InternalKey.sequence(key, 0, length), type, InternalKey.userKey(key, 0, length), value);
+                    records++;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        if (records == 0 && lostBlocks > 0) {
+            Log.w(TAG, "No readable blocks behind the index of " + file.getName() + ", salvaging blocks");
+            return salvageTable(file, memTable);
+        }
+        RepairReport.Status status = lostBlocks == 0 ? RepairReport.Status.INTACT : RepairReport.Status.DAMAGED;
+        return new RepairReport.FileReport(file.getName(), status, records, lostBlocks, lostBytes);
+    }
+
+    private RepairReport.FileReport salvageTable(File file, MemTable memTable) throws IOException {
+        TableSalvager salvager = new TableSalvager(LevelDBReader.SALVAGE_SCANNER);
+        List<TableSalvager.Hit> hits = salvager.salvage(file);
+        for (TableSalvager.Hit hit : hits) {
+            add(memTable, hit.sequence, hit.type, hit.userKey, hit.value);
+        }
+        return new RepairReport.FileReport(file.getName(), RepairReport.Status.SALVAGED, hits.size(), 0, salvager.getLostBytes());
+    }
+
+    private RepairReport.FileReport recoverLog(File file, MemTable memTable) throws IOException {
+        LogReader reader = LogReader.open(file);
+        long records = 0;
+        byte[] record;
+        while ((record = reader.readRecord()) != null) {
+            if (record.length < WriteBatch.HEADER_SIZE) continue;
+            int before = memTable.size();
+            memTable.applyWriteBatch(record);
+            records += memTable.size() - before;
+            long last = Coding.readInt64LE(record, 0) + Coding.readInt32LE(record, 8) - 1;
+            maxSequence = Math.max(maxSequence, last);
+        }
+        long lostBytes = reader.getDroppedBytes();
+        RepairReport.Status status = lostBytes == 0 ? RepairReport.Status.INTACT : RepairReport.Status.DAMAGED;
+        return new RepairReport.FileReport(file.getName(), status, records, 0, lostBytes);
+    }
+
+    private void add(MemTable memTable, long sequence, int type, byte[] userKey, byte[] value) {
+        if (type > InternalKey.TYPE_VALUE || sequence >= InternalKey.MAX_SEQUENCE) return;
+        memTable.add(sequence, type, userKey, value);
+        maxSequence = Math.max(maxSequence, sequence);
+    }
+
+    private void checkCancelled() throws IOException {
+        if (cancelled != null && cancelled.get()) {
+            throw new InterruptedIOException("Repair cancelled");
+        }
+    }
+
+    private static boolean isLiveTable(Version version, long number) {
+        for (List<FileMetaData> level : version.levels) {
+            for (FileMetaData meta : level) {
+                if (meta.number == number) return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,399 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+public class LevelDBWriter {
+    private static final String TAG = "LevelDBWriter";
+    private static final long TARGET_FILE_SIZE = 2L * 1024 * 1024;
+
+    private final File dbPath;
+    private RandomAccessFile lockFile;
+    private FileLock lock;
+    private Version version;
+    private long lastSequence;
+    private LogWriter log;
+
+    public LevelDBWriter(File dbPath) {
+        this.dbPath = dbPath;
+    }
+
+    public void writeLog(WriteBatch batch) throws IOException {
+        open();
+        if (batch.isEmpty()) return;
+
+        if (log == null) {
+            File file = new File(dbPath, Version.logFileName(newFileNumber()));
+            log = new LogWriter(file);
+            Log.d(TAG, "Created log file: " + file.getName());
+        }
+        log.addRecord(batch.encode(lastSequence + 1));
+        log.sync();
+        lastSequence += batch.count();
+    }
+
+    public void writeTable(WriteBatch batch) throws IOException {
+        open();
+        closeLog();
+
+        List<File> liveLogs = liveLogFiles();
+        MemTable memTable = readLogs(liveLogs);
+        if (batch != null && !batch.isEmpty()) {
+            memTable.applyWriteBatch(batch.encode(lastSequence + 1));
+            lastSequence += batch.count();
+        }
+        if (memTable.isEmpty()) return;
+
+        long tableNumber = newFileNumber();
+        FileMetaData table = buildTable(tableNumber, memTable.iterator(), 0);
+
+        version.addFile(table);
+        version.logNumber = newFileNumber();
+        version.prevLogNumber = 0;
+        version.lastSequence = lastSequence;
+        installVersion();
+
+        for (File file : liveLogs) {
+            if (!file.delete()) {
+                Log.w(TAG, "Failed to delete flushed log file: " + file.getName());
+            }
+        }
+        Log.d(TAG, "Flushed " + memTable.size() + " records from " + liveLogs.size() +
+              " log files into " + Version.tableFileName(tableNumber));
+    }
+
+    void addTable(MemTable memTable, long maxSequence) throws IOException {
+        open();
+        if (memTable.isEmpty()) return;
+
+        long tableNumber = newFileNumber();
+        version.addFile(buildTable(tableNumber, memTable.iterator(), 0));
+        lastSequence = Math.max(lastSequence, maxSequence);
+        version.lastSequence = lastSequence;
+        installVersion();
+    }
+
+    public CompactionResult compact(KeyFilter drop) throws IOException {
+        open();
+        closeLog();
+
+        long bytesBefore = databaseSize();
+        List<FileMetaData> inputs = new ArrayList<>();
+        for (List<FileMetaData> level : version.levels) {
+            inputs.addAll(level);
+        }
+        List<File> liveLogs = liveLogFiles();
+
+        List<TableReader> readers = new ArrayList<>();
+        List<FileMetaData> outputs = new ArrayList<>();
+        long kept = 0;
+        long dropped = 0;
+        try {
+            List<InternalIterator> children = new ArrayList<>();
+            children.add(readLogs(liveLogs).iterator());
+            for (FileMetaData meta : inputs) {
+                TableReader reader = new TableReader(Version.tableFile(dbPath, meta.number), meta.number, null, true);
+                readers.add(reader);
+                children.add(reader.iterator());
+            }
+
+            MergingIterator iterator = new MergingIterator(children);
+            TableBuilder builder = null;
+            byte[] previous = new byte[64];
+            int previousLength = -1;
+            try {
+                for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                    byte[] key = iterator.keyArray();
+                    int length = iterator.keyLength();
+                    int userKeyLength = InternalKey.userKeyLength(length);
+                    if (previousLength >= 0 && InternalKey.compareUserKeys(key, 0, userKeyLength, previous, 0, previousLength) == 0) {
+                        dropped++;
+                        continue;
+                    }
+                    if (userKeyLength > previous.length) {
+                        previous = new byte[Math.max(userKeyLength, previous.length * 2)];
+                    }
+                    System.arraycopy(key, 0, previous, 0, userKeyLength);
+                    previousLength = userKeyLength;
+
+                    if (InternalKey.type(key, 0, length) == InternalKey.TYPE_DELETION
+                            || (drop != null && drop.accept(key, userKeyLength))) {
+                        dropped++;
+                        continue;
+                    }
+
+                    if (builder == null) {
+                        long number = newFileNumber();
+                        builder = new TableBuilder(new File(dbPath, Version.tableFileName(number)), number, Compression.ZLIB_RAW);
+                    }
+                    builder.add(key, length, iterator.value());
+                    kept++;
+                    if (builder.fileSize() >= TARGET_FILE_SIZE) {
+                        outputs.add(builder.finish(0));
+                        builder = null;
+                    }
+                }
+                if (builder != null) {
+                    outputs.add(builder.finish(0));
+                    builder = null;
+                }
+            } finally {
+                if (builder != null) {
+                    builder.abandon();
+                }
+            }
+
+            for (TableReader reader : readers) {
+                if (reader.getSkippedBlockCount() > 0) {
+                    throw new IOException("Unreadable blocks in " + reader.getFile().getName() + ", compaction aborted");
+                }
+            }
+
+            long outputSize = 0;
+            for (FileMetaData table : outputs) {
+                outputSize += table.fileSize;
+            }
+            int level = targetLevel(outputSize);
+            for (List<FileMetaData> files : version.levels) {
+                files.clear();
+            }
+            for (FileMetaData table : outputs) {
+                version.addFile(new FileMetaData(level, table.number, table.fileSize, table.smallest, table.largest));
+            }
+            version.logNumber = newFileNumber();
+            version.prevLogNumber = 0;
+            version.lastSequence = lastSequence;
+            installVersion();
+        } catch (IOException | RuntimeException e) {
+            for (FileMetaData table : outputs) {
+                new File(dbPath, Version.tableFileName(table.number)).delete();
+            }
+            version = null;
+            throw e;
+        } finally {
+            for (TableReader reader : readers) {
+                reader.close();
+            }
+        }
+
+        for (FileMetaData meta : inputs) {
+            if (!Version.tableFile(dbPath, meta.number).delete()) {
+                Log.w(TAG, "Failed to delete compacted table: " + meta.number);
+            }
+        }
+        for (File file : liveLogs) {
+            if (!file.delete()) {
+                Log.w(TAG, "Failed to delete compacted log file: " + file.getName());
+            }
+        }
+
+        CompactionResult result = new CompactionResult(bytesBefore, databaseSize(), inputs.size(), outputs.size(), kept, dropped);
+        Log.d(TAG, "Compacted " + dbPath + ": " + result);
+        return result;
+    }
+
+    private static int targetLevel(long size) {
+        long maxBytes = 10L * 1024 * 1024;
+        int level = 1;
+        while (level < Version.NUM_LEVELS - 1 && size > maxBytes) {
+            maxBytes *= 10;
+            level++;
+        }
+        return level;
+    }
+
+    private long databaseSize() {
+        long size = 0;
+        File[] files = dbPath.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile()) {
+                    size += file.length();
+                }
+            }
+        }
+        return size;
+    }
+
+    private MemTable readLogs(List<File> logs) throws IOException {
+        MemTable memTable = new MemTable();
+        for (File file : logs) {
+            LogReader reader = LogReader.open(file);
+            byte[] record;
+            while ((record = reader.readRecord()) != null) {
+                memTable.applyWriteBatch(record);
+            }
+        }
+        return memTable;
+    }
+
+    private FileMetaData buildTable(long number, InternalIterator iterator, int level) throws IOException {
+        File file = new File(dbPath, Version.tableFileName(number));
+        TableBuilder builder = new TableBuilder(file, number, Compression.ZLIB_RAW);
+        try {
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                builder.add(iterator.keyArray(), iterator.keyLength(), iterator.value());
+            }
+            return builder.finish(level);
+        } catch (IOException | RuntimeException e) {
+            builder.abandon();
+            throw e;
+        }
+    }
+
+    private void installVersion() throws IOException {
+        String oldManifest = version.manifestName;
+        String manifestName = Version.manifestFileName(newFileNumber());
+        File manifest = new File(dbPath, manifestName);
+        File temp = new File(dbPath, String.format(Locale.ROOT, "%06d.dbtmp", version.nextFileNumber - 1));
+
+        try {
+            LogWriter writer = new LogWriter(manifest);
+            try {
+                writer.addRecord(version.snapshot().encode());
+                writer.sync();
+            } finally {
+                writer.close();
+            }
+
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                out.write((manifestName + "\n").getBytes(StandardCharsets.UTF_8));
+                out.getFD().sync();
+            }
+            Files.move(temp.toPath(), new File(dbPath, "CURRENT").toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            temp.delete();
+            manifest.delete();
+            version = null;
+            throw e;
+        }
+
+        version.manifestName = manifestName;
+        if (oldManifest != null && !oldManifest.equals(manifestName)
+                && !new File(dbPath, oldManifest).delete()) {
+            Log.w(TAG, "Failed to delete old manifest: " + oldManifest);
+        }
+        Log.d(TAG, "Installed " + manifestName + " with " + version.fileCount() + " tables");
+    }
+
+    private long newFileNumber() {
+        return version.nextFileNumber++;
+    }
+
+    private void open() throws IOException {
+        if (version != null) return;
+
+        if (lock == null) {
+            if (!dbPath.isDirectory() && !dbPath.mkdirs()) {
+                throw new IOException("Cannot create database directory: " + dbPath);
+            }
+            lockDatabase();
+        }
+
+        if (new File(dbPath, "CURRENT").isFile()) {
+            version = Version.load(dbPath);
+        } else {
+            File[] existing = dbPath.listFiles((dir, name) ->
+                    name.endsWith(".ldb") || name.endsWith(".sst") || name.endsWith(".log"));
+            if (existing != null && existing.length > 0) {
+                throw new IOException("Database has data files but no CURRENT file: " + dbPath);
+            }
+            version = Version.create();
+            installVersion();
+        }
+
+        lastSequence = version.lastSequence;
+        File[] files = dbPath.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                long number = LevelDBReader.parseFileNumber(file.getName());
+                if (number >= version.nextFileNumber) {
+                    version.nextFileNumber = number + 1;
+                }
+            }
+        }
+        for (File file : liveLogFiles()) {
+            LogReader reader = LogReader.open(file);
+            byte[] record;
+            while ((record = reader.readRecord()) != null) {
+                if (record.length >= WriteBatch.HEADER_SIZE) {
+                    long last = Coding.readInt64LE(record, 0) + Coding.readInt32LE(record, 8) - 1;
+                    lastSequence = Math.max(lastSequence, last);
+                }
+            }
+        }
+    }
+
+    private void lockDatabase() throws IOException {
+        lockFile = new RandomAccessFile(new File(dbPath, "LOCK"), "rw");
+        try {
+            FileChannel channel = lockFile.getChannel();
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            lockFile.close();
+            lockFile = null;
+            throw new IOException("Database is in use: " + dbPath);
+        }
+    }
+
+    private List<File> liveLogFiles() {
+        List<File> logs = new ArrayList<>();
+        File[] files = dbPath.listFiles((dir, name) -> name.endsWith(".log"));
+        if (files != null) {
+            for (File file : files) {
+                long number = LevelDBReader.parseFileNumber(file.getName());
+                if (number >= 0 && version.isLiveLog(number)) {
+                    logs.add(file);
+                }
+            }
+        }
+        logs.sort(Comparator.comparingLong(f -> LevelDBReader.parseFileNumber(f.getName())));
+        return logs;
+    }
+
+    private void closeLog() throws IOException {
+        if (log == null) return;
+        try {
+            log.close();
+        } finally {
+            log = null;
+        }
+    }
+
+    public void close() {
+        try {
+            closeLog();
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to close log file", e);
+        }
+        if (lockFile != null) {
+            try {
+                lock.release();
+                lockFile.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to release database lock", e);
+            }
+            lockFile = null;
+            lock = null;
+        }
+        version = null;
+    }
+}
@@ -0,0 +1,85 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+final class LevelIterator implements InternalIterator {
+    private final List<FileMetaData> files;
+    private final List<TableReader> tables;
+    private int fileIndex;
+    private InternalIterator current;
+
+    LevelIterator(List<FileMetaData> files, List<TableReader> tables) {
+        this.files = files;
+        this.tables = tables;
+    }
+
+    @Override
+    public boolean isValid() {
+        return current != null && current.isValid();
+    }
+
+    @Override
+    public void seekToFirst() {
+        openFile(0);
+        if (current != null) {
+            current.seekToFirst();
+        }
+        skipEmptyFiles();
+    }
+
+    @Override
+    public void seek(byte[] target) {
+        int left = 0;
+        int right = files.size();
+        while (left < right) {
+            int mid = (left + right) >>> 1;
+            byte[] largest = files.get(mid).largest;
+            if (InternalKey.compare(largest, 0, largest.length, target, 0, target.length) < 0) {
+                left = mid + 1;
+            } else {
+                right = mid;
+            }
+        }
+        openFile(left);
+        if (current != null) {
+            current.seek(target);
+        }
+        skipEmptyFiles();
+    }
+
+    @Override
+    public void next() {
+        current.next();
+        skipEmptyFiles();
+    }
+
+    @Override
+    public byte[] keyArray() {
+        return current.keyArray();
+    }
+
+    @Override
+    public int keyLength() {
+        return current.keyLength();
+    }
+
+    @Override
+    public ByteBuffer value() {
+        return current.value();
+    }
+
+    private void skipEmptyFiles() {
+        while (current != null && !current.isValid()) {
+            openFile(fileIndex + 1);
+            if (current != null) {
+                current.seekToFirst();
+            }
+        }
+    }
+
+    private void openFile(int index) {
+        fileIndex = index;
+        current = index < tables.size() ? tables.get(index).iterator() : null;
+    }
+}
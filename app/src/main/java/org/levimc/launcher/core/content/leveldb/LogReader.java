@@ -0,0 +1,117 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+final class LogReader {
+    static final int BLOCK_SIZE = 32768;
+    static final int HEADER_SIZE = 7;
+
+    static final int FULL = 1;
+    static final int FIRST = 2;
+    static final int MIDDLE = 3;
+    static final int LAST = 4;
+
+    private final byte[] data;
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private int pos;
+    private long droppedBytes;
+
+    LogReader(byte[] data) {
+        this.data = data;
+    }
+
+    static LogReader open(File file) throws IOException {
+        try (FileInputStream fis = new FileInputStream(file)) {
+            int length = (int) file.length();
+            byte[] data = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                int read = fis.read(data, offset, length - offset);
+                if (read < 0) break;
+                offset += read;
+            }
+            return new LogReader(data);
+        }
+    }
+
+    byte[] readRecord() {
+        boolean inFragmentedRecord = false;
+        record.reset();
+
+        while (pos + HEADER_SIZE <= data.length) {
+            int blockRemaining = BLOCK_SIZE - (pos % BLOCK_SIZE);
+            if (blockRemaining < HEADER_SIZE) {
+                pos += blockRemaining;
+                continue;
+            }
+
+            int header = pos;
+            int expectedCrc = Crc32C.unmask(Coding.readInt32LE(data, pos));
+            int length = Coding.readInt16LE(data, pos + 4);
+            int type = data[pos + 6] & 0xFF;
+            pos += HEADER_SIZE;
+
+            if (type == 0 && length == 0) {
+                pos = Math.min(header + blockRemaining, data.length);
+                continue;
+            }
+            if (pos + length > data.length) {
+                droppedBytes += data.length - header + record.size();
+                pos = data.length;
+                return null;
+            }
+            if (length > blockRemaining - HEADER_SIZE || Crc32C.value(data, pos - 1, length + 1) != expectedCrc) {
+                int end = Math.min(header + blockRemaining, data.length);
+                droppedBytes += end - header + record.size();
+                record.reset();
+                inFragmentedRecord = false;
+                pos = end;
+                continue;
+            }
+
+            int start = pos;
+            pos += length;
+
+            switch (type) {
+                case FULL:
+                    droppedBytes += record.size();
+                    record.reset();
+                    record.write(data, start, length);
+                    return record.toByteArray();
+                case FIRST:
+                    droppedBytes += record.size();
+                    record.reset();
+                    record.write(data, start, length);
+                    inFragmentedRecord = true;
+                    break;
+                case MIDDLE:
+                    if (inFragmentedRecord) {
+                        record.write(data, start, length);
+                    } else {
+                        droppedBytes += length;
+                    }
+                    break;
+                case LAST:
+                    if (inFragmentedRecord) {
+                        record.write(data, start, length);
+                        return record.toByteArray();
+                    }
+                    droppedBytes += length;
+                    break;
+                default:
+                    droppedBytes += length;
+                    break;
+            }
+        }
+        droppedBytes += record.size();
+        record.reset();
+        return null;
+    }
+
+    long getDroppedBytes() {
+        return droppedBytes;
+    }
+}
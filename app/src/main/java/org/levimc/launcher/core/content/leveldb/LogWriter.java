@@ -0,0 +1,73 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+final class LogWriter {
+    private static final byte[] ZEROES = new byte[LogReader.HEADER_SIZE];
+
+    private final FileOutputStream stream;
+    private final BufferedOutputStream out;
+    private final byte[] header = new byte[LogReader.HEADER_SIZE];
+    private int blockOffset;
+
+    LogWriter(File file) throws IOException {
+        this.stream = new FileOutputStream(file);
+        this.out = new BufferedOutputStream(stream, LogReader.BLOCK_SIZE);
+    }
+
+    void addRecord(byte[] data) throws IOException {
+        int pos = 0;
+        int left = data.length;
+        boolean begin = true;
+        do {
+            int leftover = LogReader.BLOCK_SIZE - blockOffset;
+            if (leftover < LogReader.HEADER_SIZE) {
+                out.write(ZEROES, 0, leftover);
+                blockOffset = 0;
+            }
+
+            int available = LogReader.BLOCK_SIZE - blockOffset - LogReader.HEADER_SIZE;
+            int fragment = Math.min(left, available);
+            boolean end = fragment == left;
+            int type;
+            if (begin && end) {
+                type = LogReader.FULL;
+            } else if (begin) {
+                type = LogReader.FIRST;
+            } else if (end) {
+                type = LogReader.LAST;
+            } else {
+                type = LogReader.MIDDLE;
+            }
+
+            writePhysicalRecord(type, data, pos, fragment);
+            pos += fragment;
+            left -= fragment;
+            begin = false;
+        } while (left > 0);
+    }
+
+    void sync() throws IOException {
+        out.flush();
+        stream.getFD().sync();
+    }
+
+    void close() throws IOException {
+        out.close();
+    }
+
+    private void writePhysicalRecord(int type, byte[] data, int offset, int length) throws IOException {
+        header[6] = (byte) type;
+        int crc = Crc32C.extend(Crc32C.value(header, 6, 1), data, offset, length);
+        Coding.putInt32LE(header, 0, Crc32C.mask(crc));
+        header[4] = (byte) length;
+        header[5] = (byte) (length >>> 8);
+
+        out.write(header);
+        out.write(data, offset, length);
+        blockOffset += LogReader.HEADER_SIZE + length;
+    }
+}
@@ -0,0 +1,119 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+final class MemTable {
+    private static final String TAG = "LevelDBMemTable";
+    private static final byte[] EMPTY = new byte[0];
+
+    private final TreeMap<byte[], byte[]> table = new TreeMap<>(InternalKey.COMPARATOR);
+
+    void add(long sequence, int type, byte[] userKey, byte[] value) {
+        table.put(InternalKey.encode(userKey, sequence, type), value != null ? value : EMPTY);
+    }
+
+    void applyWriteBatch(byte[] data) {
+        if (data.length < 12) return;
+
+        try {
+            long sequence = Coding.readInt64LE(data, 0);
+            int count = Coding.readInt32LE(data, 8);
+            int pos = 12;
+
+            for (int i = 0; i < count && pos < data.length; i++) {
+                int recordType = data[pos++] & 0xFF;
+
+                int[] keyLenResult = Coding.readVarInt(data, pos);
+                int keyLen = keyLenResult[0];
+                pos = keyLenResult[1];
+
+                if (keyLen <= 0 || keyLen > 10000 || pos + keyLen > data.length) {
+                    break;
+                }
+
+                byte[] key = Arrays.copyOfRange(data, pos, pos + keyLen);
+                pos += keyLen;
+
+                if (recordType == InternalKey.TYPE_VALUE) {
+                    int[] valLenResult = Coding.readVarInt(data, pos);
+                    int valLen = valLenResult[0];
+                    pos = valLenResult[1];
+
+                    if (valLen < 0 || pos + valLen > data.length) {
+                        break;
+                    }
+                    byte[] value = Arrays.copyOfRange(data, pos, pos + valLen);
+                    pos += valLen;
+                    add(sequence + i, InternalKey.TYPE_VALUE, key, value);
+                } else if (recordType == InternalKey.TYPE_DELETION) {
+                    add(sequence + i, InternalKey.TYPE_DELETION, key, null);
+                } else {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Error parsing write batch", e);
+        }
+    }
+
+    int size() {
+        return table.size();
+    }
+
+    boolean isEmpty() {
+        return table.isEmpty();
+    }
+
+    InternalIterator iterator() {
+        return new MemTableIterator();
+    }
+
+    private class MemTableIterator implements InternalIterator {
+        private Iterator<Map.Entry<byte[], byte[]>> iterator;
+        private Map.Entry<byte[], byte[]> current;
+
+        @Override
+        public boolean isValid() {
+            return current != null;
+        }
+
+        @Override
+        public void seekToFirst() {
+            iterator = table.entrySet().iterator();
+            next();
+        }
+
+        @Override
+        public void seek(byte[] target) {
+            iterator = table.tailMap(target, true).entrySet().iterator();
+            next();
+        }
+
+        @Override
+        public void next() {
+            current = iterator != null && iterator.hasNext() ? iterator.next() : null;
+        }
+
+        @Override
+        public byte[] keyArray() {
+            return current.getKey();
+        }
+
+        @Override
+        public int keyLength() {
+            return current.getKey().length;
+        }
+
+        @Override
+        public ByteBuffer value() {
+            return ByteBuffer.wrap(current.getValue()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.PriorityQueue;
+
+final class MergingIterator implements InternalIterator {
+    private final InternalIterator[] children;
+    private final PriorityQueue<Integer> heap;
+    private int current = -1;
+
+    MergingIterator(List<InternalIterator> children) {
+        this.children = children.toArray(new InternalIterator[0]);
+        this.heap = new PriorityQueue<>(Math.max(1, this.children.length), this::compareChildren);
+    }
+
+    private int compareChildren(int a, int b) {
+        InternalIterator left = children[a];
+        InternalIterator right = children[b];
+        int result = InternalKey.compare(
+                left.keyArray(), 0, left.keyLength(),
+                right.keyArray(), 0, right.keyLength());
+        return result != 0 ? result : Integer.compare(a, b);
+    }
+
+    @Override
+    public boolean isValid() {
+        return current >= 0;
+    }
+
+    @Override
+    public void seekToFirst() {
+        for (InternalIterator child : children) {
+            child.seekToFirst();
+        }
+        rebuildHeap();
+    }
+
+    @Override
+    public void seek(byte[] target) {
+        for (InternalIterator child : children) {
+            child.seek(target);
+        }
+        rebuildHeap();
+    }
+
+    @Override
+    public void next() {
+        InternalIterator child = children[current];
+        child.next();
+        if (child.isValid()) {
+            heap.add(current);
+        }
+        current = heap.isEmpty() ? -1 : heap.poll();
+    }
+
+    @Override
+    public byte[] keyArray() {
+        return children[current].keyArray();
+    }
+
+    @Override
+    public int keyLength() {
+        return children[current].keyLength();
+    }
+
+    @Override
+    public ByteBuffer value() {
+        return children[current].value();
+    }
+
+    private void rebuildHeap() {
+        heap.clear();
+        for (int i = 0; i < children.length; i++) {
+            if (children[i].isValid()) {
+                heap.add(i);
+            }
+        }
+        current = heap.isEmpty() ? -1 : heap.poll();
+    }
+}
@@ -0,0 +1,170 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import org.levimc.launcher.core.content.nbt.BedrockNbtReader;
+import org.levimc.launcher.core.content.nbt.NbtTag;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class PlayerData {
+    public static final String LOCAL_PLAYER = "~local_player";
+    public static final String SERVER_PLAYER_PREFIX = "player_server_";
+
+    public static final class ItemStack {
+        public final int slot;
+        public final String name;
+        public final int count;
+        public final int damage;
+
+        ItemStack(int slot, String name, int count, int damage) {
+            this.slot = slot;
+            this.name = name;
+            this.count = count;
+            this.damage = damage;
+        }
+
+        @Override
+        public String toString() {
+            return slot + ": " + name + " x" + count;
+        }
+    }
+
+    private final String key;
+    private final NbtTag tag;
+    private final List<ItemStack> inventory;
+    private final List<ItemStack> armor;
+    private final List<ItemStack> offhand;
+    private final List<ItemStack> enderChest;
+
+    private PlayerData(String key, NbtTag tag) {
+        this.key = key;
+        this.tag = tag;
+        this.inventory = readItems(tag.getTag("Inventory"));
+        this.armor = readItems(tag.getTag("Armor"));
+        this.offhand = readItems(tag.getTag("Offhand"));
+        this.enderChest = readItems(tag.getTag("EnderChestInventory"));
+    }
+
+    static PlayerData parse(String key, byte[] value) throws IOException {
+        NbtTag tag = new BedrockNbtReader().readTag(ByteBuffer.wrap(value));
+        if (tag == null || tag.getType() != NbtTag.TAG_COMPOUND) {
+            throw new IOException("Player record " + key + " is not a compound tag");
+        }
+        return new PlayerData(key, tag);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public boolean isLocalPlayer() {
+        return LOCAL_PLAYER.equals(key);
+    }
+
+    public NbtTag getTag() {
+        return tag;
+    }
+
+    public long getUniqueId() {
+        NbtTag id = tag.getTag("UniqueID");
+        return id != null ? id.getLong() : 0;
+    }
+
+    public int getDimension() {
+        NbtTag dimension = tag.getTag("DimensionId");
+        return dimension != null ? dimension.getInt() : LevelDBKey.OVERWORLD;
+    }
+
+    public float[] getPosition() {
+        return readFloats(tag.getTag("Pos"), 3);
+    }
+
+    public float[] getRotation() {
+        return readFloats(tag.getTag("Rotation"), 2);
+    }
+
+    public int getGameMode() {
+        NbtTag mode = tag.getTag("PlayerGameMode");
+        return mode != null ? mode.getInt() : 0;
+    }
+
+    public int getLevel() {
+        NbtTag level = tag.getTag("PlayerLevel");
+        return level != null ? level.getInt() : 0;
+    }
+
+    public float getAttribute(String name) {
+        NbtTag attributes = tag.getTag("Attributes");
+        if (attributes == null) return Float.NaN;
+        for (NbtTag attribute : attributes.getList()) {
+            NbtTag attributeName = attribute.getTag("Name");
+            NbtTag current = attribute.getTag("Current");
+            if (attributeName != null && current != null && name.equals(attributeName.getString())) {
+                return current.getFloat();
+            }
+        }
+        return Float.NaN;
+    }
+
+    public float getHealth() {
+        return getAttribute("minecraft:health");
+    }
+
+    public float getHunger() {
+        return getAttribute("minecraft:player.hunger");
+    }
+
+    public List<ItemStack> getInventory() {
+        return inventory;
+    }
+
+    public List<ItemStack> getArmor() {
+        return armor;
+    }
+
+    public List<ItemStack> getOffhand() {
+        return offhand;
+    }
+
+    public List<ItemStack> getEnderChest() {
+        return enderChest;
+    }
+
+    private static List<ItemStack> readItems(NbtTag list) {
+        if (list == null) return Collections.emptyList();
+        List<ItemStack> items = new ArrayList<>();
+        int index = 0;
+        for (NbtTag item : list.getList()) {
+            NbtTag name = item.getTag("Name");
+            NbtTag count = item.getTag("Count");
+            NbtTag slot = item.getTag("Slot");
+            NbtTag damage = item.getTag("Damage");
+            int position = slot != null ? slot.getByte() & 0xFF : index;
+            int amount = count != null ? count.getByte() & 0xFF : 0;
+            index++;
+            if (name == null || name.getString().isEmpty() || amount == 0) continue;
+            items.add(new ItemStack(position, name.getString(), amount, damage != null ? damage.getShort() : 0));
+        }
+        return Collections.unmodifiableList(items);
+    }
+
+    private static float[] readFloats(NbtTag list, int size) {
+        float[] values = new float[size];
+        if (list == null) return values;
+        List<NbtTag> entries = list.getList();
+        for (int i = 0; i < size && i < entries.size(); i++) {
+            values[i] = entries.get(i).getFloat();
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        float[] pos = getPosition();
+        return "PlayerData{" + key + ", dim=" + getDimension() + ", pos=" + pos[0] + "," + pos[1] + "," + pos[2] +
+               ", inventory=" + inventory.size() + ", enderChest=" + enderChest.size() + "}";
+    }
+}
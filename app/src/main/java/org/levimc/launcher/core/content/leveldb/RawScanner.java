@@ -0,0 +1,101 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+final class RawScanner {
+    interface MatchVisitor {
+        void onMatch(int pattern, int offset);
+    }
+
+    private final byte[][] patterns;
+    private final int[] transitions;
+    private final int[] output;
+    private final int[] outputLink;
+    private final boolean[] startBytes = new boolean[256];
+
+    RawScanner(byte[]... patterns) {
+        this.patterns = patterns;
+        int maxStates = 1;
+        for (byte[] pattern : patterns) {
+            if (pattern.length == 0) {
+                throw new IllegalArgumentException("Empty scan pattern");
+            }
+            maxStates += pattern.length;
+            startBytes[pattern[0] & 0xFF] = true;
+        }
+
+        int[] goTo = new int[maxStates * 256];
+        Arrays.fill(goTo, -1);
+        int[] patternAt = new int[maxStates];
+        Arrays.fill(patternAt, -1);
+        int states = 1;
+        for (int p = 0; p < patterns.length; p++) {
+            int state = 0;
+            for (byte b : patterns[p]) {
+                int slot = state * 256 + (b & 0xFF);
+                if (goTo[slot] < 0) {
+                    goTo[slot] = states++;
+                }
+                state = goTo[slot];
+            }
+            if (patternAt[state] < 0) {
+                patternAt[state] = p;
+            }
+        }
+
+        transitions = Arrays.copyOf(goTo, states * 256);
+        output = Arrays.copyOf(patternAt, states);
+        outputLink = new int[states];
+        int[] fail = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < 256; c++) {
+            int next = transitions[c];
+            if (next < 0) {
+                transitions[c] = 0;
+            } else {
+                fail[next] = 0;
+                outputLink[next] = -1;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int c = 0; c < 256; c++) {
+                int slot = state * 256 + c;
+                int next = transitions[slot];
+                int fallback = transitions[fail[state] * 256 + c];
+                if (next < 0) {
+                    transitions[slot] = fallback;
+                } else {
+                    fail[next] = fallback;
+                    outputLink[next] = output[fallback] >= 0 ? fallback : outputLink[fallback];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    int patternLength(int pattern) {
+        return patterns[pattern].length;
+    }
+
+    void scan(byte[] data, int start, int end, MatchVisitor visitor) {
+        int state = 0;
+        int i = start;
+        while (i < end) {
+            if (state == 0) {
+                while (i < end && !startBytes[data[i] & 0xFF]) {
+                    i++;
+                }
+                if (i == end) break;
+            }
+            state = transitions[state * 256 + (data[i] & 0xFF)];
+            i++;
+            for (int s = output[state] >= 0 ? state : outputLink[state]; s > 0; s = outputLink[s]) {
+                int pattern = output[s];
+                visitor.onMatch(pattern, i - patterns[pattern].length);
+            }
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import android.util.Log;
+
+import org.levimc.launcher.core.content.nbt.BedrockNbtReader;
+import org.levimc.launcher.core.content.nbt.BedrockNbtWriter;
+import org.levimc.launcher.core.content.nbt.NbtTag;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class RegionCopier {
+    private static final String TAG = "RegionCopier";
+    private static final int FLUSH_SIZE = 8 * 1024 * 1024;
+    private static final int SPAWN_AREA_SIZE = 25;
+
+    public static final class Result {
+        private int chunks;
+        private long records;
+        private int entities;
+        private int blockEntities;
+        private int remappedEntities;
+        private long bytes;
+
+        public int getChunkCount() {
+            return chunks;
+        }
+
+        public long getRecordCount() {
+            return records;
+        }
+
+        public int getEntityCount() {
+            return entities;
+        }
+
+        public int getBlockEntityCount() {
+            return blockEntities;
+        }
+
+        public int getRemappedEntityCount() {
+            return remappedEntities;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return "RegionCopier.Result{chunks=" + chunks + ", records=" + records + ", entities=" + entities +
+                   ", blockEntities=" + blockEntities + ", remapped=" + remappedEntities + ", bytes=" + bytes + "}";
+        }
+    }
+
+    private final int dimension;
+    private final int minX;
+    private final int minZ;
+    private final int maxX;
+    private final int maxZ;
+    private int offsetX;
+    private int offsetZ;
+    private int targetDimension;
+
+    public RegionCopier(int dimension, int minX, int minZ, int maxX, int maxZ) {
+        this.dimension = dimension;
+        this.minX = Math.min(minX, maxX);
+        this.minZ = Math.min(minZ, maxZ);
+        this.maxX = Math.max(minX, maxX);
+        this.maxZ = Math.max(minZ, maxZ);
+        this.targetDimension = dimension;
+    }
+
+    public void setOffset(int chunkOffsetX, int chunkOffsetZ) {
+        this.offsetX = chunkOffsetX;
+        this.offsetZ = chunkOffsetZ;
+    }
+
+    public void setTargetDimension(int targetDimension) {
+        this.targetDimension = targetDimension;
+    }
+
+    public Result copy(File sourceDb, File targetDb) throws IOException {
+        Result result = new Result();
+        Set<Long> usedIds = new HashSet<>();
+        Random random = new Random();
+        LevelDBReader source = new LevelDBReader(sourceDb);
+        LevelDBReader target = new LevelDBReader(targetDb);
+        LevelDBWriter writer = new LevelDBWriter(targetDb);
+        try {
+            LevelDBIterator sourceIterator = source.iterator();
+            LevelDBIterator targetIterator = target.iterator();
+            WriteBatch batch = new WriteBatch();
+            for (int x = minX; x <= maxX; x++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    ChunkPos from = new ChunkPos(dimension, x, z);
+                    ChunkPos to = new ChunkPos(targetDimension, x + offsetX, z + offsetZ);
+                    if (!hasChunk(sourceIterator, from)) continue;
+
+                    Set<Long> replaced = clearChunk(target, targetIterator, to, batch);
+                    copyChunk(sourceIterator, from, to, batch, result);
+                    copyActors(source, target, from, to, replaced, usedIds, random, batch, result);
+                    result.chunks++;
+
+                    if (batch.approximateSize() > FLUSH_SIZE) {
+                        result.bytes += batch.approximateSize();
+                        writer.writeTable(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            result.bytes += batch.approximateSize();
+            writer.writeTable(batch);
+        } finally {
+            writer.close();
+            source.close();
+            target.close();
+        }
+        Log.d(TAG, "Copied chunks " + minX + "," + minZ + " to " + maxX + "," + maxZ + " in dimension " + dimension +
+              " by " + offsetX + "," + offsetZ + " into dimension " + targetDimension + ": " + result);
+        return result;
+    }
+
+    private static boolean hasChunk(LevelDBIterator iterator, ChunkPos pos) {
+        byte[] prefix = pos.keyPrefix();
+        for (iterator.seek(prefix); iterator.isValid() && iterator.keyStartsWith(prefix); iterator.next()) {
+            if (pos.matches(iterator.keyArray(), iterator.keyLength())) return true;
+        }
+        return false;
+    }
+
+    private static Set<Long> clearChunk(LevelDBReader target, LevelDBIterator iterator, ChunkPos pos, WriteBatch batch) throws IOException {
+        byte[] prefix = pos.keyPrefix();
+        for (iterator.seek(prefix); iterator.isValid() && iterator.keyStartsWith(prefix); iterator.next()) {
+            if (pos.matches(iterator.keyArray(), iterator.keyLength())) {
+                batch.delete(iterator.key());
+            }
+        }
+
+        Set<Long> replaced = new HashSet<>();
+        byte[] digestKey = LevelDBKey.digestKey(pos);
+        byte[] digest = target.get(digestKey);
+        if (digest != null) {
+            ByteBuffer ids = ByteBuffer.wrap(digest).order(ByteOrder.LITTLE_ENDIAN);
+            while (ids.remaining() >= 8) {
+                long id = ids.getLong();
+                replaced.add(id);
+                batch.delete(LevelDBKey.actorKey(id));
+            }
+            batch.delete(digestKey);
+        }
+        return replaced;
+    }
+
+    private void copyChunk(LevelDBIterator iterator, ChunkPos from, ChunkPos to, WriteBatch batch, Result result) throws IOException {
+        byte[] prefix = from.keyPrefix();
+        byte[] targetPrefix = to.keyPrefix();
+        for (iterator.seek(prefix); iterator.isValid() && iterator.keyStartsWith(prefix); iterator.next()) {
+            byte[] key = iterator.key();
+            if (!from.matches(key, key.length)) continue;
+            int tagOffset = LevelDBKey.chunkTagOffset(key, key.length);
+
+            byte[] targetKey = new byte[targetPrefix.length + key.length - tagOffset];
+            System.arraycopy(targetPrefix, 0, targetKey, 0, targetPrefix.length);
+            System.arraycopy(key, tagOffset, targetKey, targetPrefix.length, key.length - tagOffset);
+
+            byte[] value = iterator.value();
+            int tag = key[tagOffset] & 0xFF;
+            if (tag == LevelDBKey.KeyType.BLOCK_ENTITY.id) {
+                List<NbtTag> tags = new BedrockNbtReader().readAll(value);
+                for (NbtTag blockEntity : tags) {
+                    shiftInt(blockEntity, "x", offsetX << 4);
+                    shiftInt(blockEntity, "z", offsetZ << 4);
+                    shiftInt(blockEntity, "pairx", offsetX << 4);
+                    shiftInt(blockEntity, "pairz", offsetZ << 4);
+                }
+                result.blockEntities += tags.size();
+                value = writeAll(tags);
+            } else if (tag == LevelDBKey.KeyType.ENTITY.id) {
+                List<NbtTag> tags = new BedrockNbtReader().readAll(value);
+                for (NbtTag entity : tags) {
+                    shiftPosition(entity);
+                }
+                result.entities += tags.size();
+                value = writeAll(tags);
+            } else if (tag == LevelDBKey.KeyType.PENDING_TICKS.id || tag == LevelDBKey.KeyType.RANDOM_TICKS.id) {
+                List<NbtTag> tags = new BedrockNbtReader().readAll(value);
+                for (NbtTag ticks : tags) {
+                    NbtTag tickList = ticks.getTag("tickList");
+                    if (tickList == null) continue;
+                    for (NbtTag tick : tickList.getList()) {
+                        shiftInt(tick, "x", offsetX << 4);
+                        shiftInt(tick, "z", offsetZ << 4);
+                    }
+                }
+                value = writeAll(tags);
+            } else if (tag == LevelDBKey.KeyType.HARDCODED_SPAWN_AREAS.id) {
+                value = shiftSpawnAreas(value);
+            }
+            batch.put(targetKey, value);
+            result.records++;
+        }
+    }
+
+    private void copyActors(LevelDBReader source, LevelDBReader target, ChunkPos from, ChunkPos to, Set<Long> replaced,
+                            Set<Long> usedIds, Random random, WriteBatch batch, Result result) throws IOException {
+        byte[] digest = source.get(LevelDBKey.digestKey(from));
+        if (digest == null) return;
+
+        ByteArrayOutputStream ids = new ByteArrayOutputStream(digest.length);
+        ByteBuffer sourceIds = ByteBuffer.wrap(digest).order(ByteOrder.LITTLE_ENDIAN);
+        while (sourceIds.remaining() >= 8) {
+            long id = sourceIds.getLong();
+            byte[] value = source.get(LevelDBKey.actorKey(id));
+            if (value == null) continue;
+
+            NbtTag actor = new BedrockNbtReader().readTag(ByteBuffer.wrap(value));
+            if (actor == null) continue;
+            shiftPosition(actor);
+
+            long newId = id;
+            while (usedIds.contains(newId) || (!replaced.contains(newId) && target.get(LevelDBKey.actorKey(newId)) != null)) {
+                newId = random.nextLong();
+            }
+            usedIds.add(newId);
+            if (newId != id) {
+                NbtTag uniqueId = actor.getTag("UniqueID");
+                if (uniqueId != null) uniqueId.setValue(newId);
+                result.remappedEntities++;
+            }
+
+            batch.put(LevelDBKey.actorKey(newId), writeAll(Collections.singletonList(actor)));
+            Coding.writeInt64LE(ids, newId);
+            result.entities++;
+            result.records++;
+        }
+        if (ids.size() > 0) {
+            batch.put(LevelDBKey.digestKey(to), ids.toByteArray());
+            result.records++;
+        }
+    }
+
+    private void shiftPosition(NbtTag entity) {
+        NbtTag pos = entity.getTag("Pos");
+        if (pos == null || pos.getList().size() < 3) return;
+        List<NbtTag> coordinates = pos.getList();
+        coordinates.get(0).setValue(coordinates.get(0).getFloat() + (offsetX << 4));
+        coordinates.get(2).setValue(coordinates.get(2).getFloat() + (offsetZ << 4));
+    }
+
+    private static void shiftInt(NbtTag compound, String name, int delta) {
+        NbtTag tag = compound.getTag(name);
+        if (tag != null && tag.getType() == NbtTag.TAG_INT) {
+            tag.setValue(tag.getInt() + delta);
+        }
+    }
+
+    private byte[] shiftSpawnAreas(byte[] value) {
+        byte[] shifted = value.clone();
+        if (shifted.length < 4) return shifted;
+        int count = Coding.readInt32LE(shifted, 0);
+        for (int i = 0; i < count && 4 + (i + 1) * SPAWN_AREA_SIZE <= shifted.length; i++) {
+            int area = 4 + i * SPAWN_AREA_SIZE;
+            for (int corner = 0; corner < 2; corner++) {
+                int x = area + corner * 12;
+                Coding.putInt32LE(shifted, x, Coding.readInt32LE(shifted, x) + (offsetX << 4));
+                Coding.putInt32LE(shifted, x + 8, Coding.readInt32LE(shifted, x + 8) + (offsetZ << 4));
+            }
+        }
+        return shifted;
+    }
+
+    private static byte[] writeAll(List<NbtTag> tags) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BedrockNbtWriter writer = new BedrockNbtWriter();
+        for (NbtTag tag : tags) {
+            writer.writeTag(tag, out);
+        }
+        return out.toByteArray();
+    }
+}
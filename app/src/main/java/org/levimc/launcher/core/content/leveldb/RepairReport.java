@@ -0,0 +1,103 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class RepairReport {
+    public enum Status {
+        INTACT, DAMAGED, SALVAGED, MISSING
+    }
+
+    public static final class FileReport {
+        public final String name;
+        public final Status status;
+        public final long recoveredRecords;
+        public final int lostBlocks;
+        public final long lostBytes;
+
+        FileReport(String name, Status status, long recoveredRecords, int lostBlocks, long lostBytes) {
+            this.name = name;
+            this.status = status;
+            this.recoveredRecords = recoveredRecords;
+            this.lostBlocks = lostBlocks;
+            this.lostBytes = lostBytes;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + status + ", recovered=" + recoveredRecords + ", lostBlocks=" + lostBlocks + ", lostBytes=" + lostBytes;
+        }
+    }
+
+    private final List<FileReport> files = new ArrayList<>();
+    private boolean manifestUsed;
+    private long keyCount;
+
+    void addFile(FileReport file) {
+        files.add(file);
+    }
+
+    void setManifestUsed(boolean manifestUsed) {
+        this.manifestUsed = manifestUsed;
+    }
+
+    void setKeyCount(long keyCount) {
+        this.keyCount = keyCount;
+    }
+
+    public List<FileReport> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    public List<FileReport> getDamagedFiles() {
+        List<FileReport> damaged = new ArrayList<>();
+        for (FileReport file : files) {
+            if (file.status != Status.INTACT) damaged.add(file);
+        }
+        return damaged;
+    }
+
+    public boolean isManifestUsed() {
+        return manifestUsed;
+    }
+
+    public boolean isClean() {
+        return getDamagedFiles().isEmpty();
+    }
+
+    public long getKeyCount() {
+        return keyCount;
+    }
+
+    public long getRecoveredRecords() {
+        long total = 0;
+        for (FileReport file : files) {
+            total += file.recoveredRecords;
+        }
+        return total;
+    }
+
+    public int getLostBlocks() {
+        int total = 0;
+        for (FileReport file : files) {
+            total += file.lostBlocks;
+        }
+        return total;
+    }
+
+    public long getLostBytes() {
+        long total = 0;
+        for (FileReport file : files) {
+            total += file.lostBytes;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "RepairReport{files=" + files.size() + ", damaged=" + getDamagedFiles().size() + ", recovered=" +
+               getRecoveredRecords() + ", keys=" + keyCount + ", lostBlocks=" + getLostBlocks() +
+               ", lostBytes=" + getLostBytes() + ", manifest=" + manifestUsed + "}";
+    }
+}
@@ -0,0 +1,83 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class StructureImportResult {
+    public static final class Rejection {
+        public final File file;
+        public final String reason;
+
+        Rejection(File file, String reason) {
+            this.file = file;
+            this.reason = reason;
+        }
+
+        @Override
+        public String toString() {
+            return file.getName() + ": " + reason;
+        }
+    }
+
+    private final List<String> imported = new ArrayList<>();
+    private final List<Rejection> rejected = new ArrayList<>();
+    private final List<String> verifyFailures = new ArrayList<>();
+    private int unchangedCount;
+    private int replacedCount;
+    private long bytes;
+
+    void addImported(String structureId, boolean replaced, long size) {
+        imported.add(structureId);
+        if (replaced) replacedCount++;
+        bytes += size;
+    }
+
+    void addUnchanged() {
+        unchangedCount++;
+    }
+
+    void addRejected(File file, String reason) {
+        rejected.add(new Rejection(file, reason));
+    }
+
+    void addVerifyFailure(String structureId) {
+        verifyFailures.add(structureId);
+    }
+
+    public List<String> getImported() {
+        return Collections.unmodifiableList(imported);
+    }
+
+    public List<Rejection> getRejected() {
+        return Collections.unmodifiableList(rejected);
+    }
+
+    public List<String> getVerifyFailures() {
+        return Collections.unmodifiableList(verifyFailures);
+    }
+
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    public int getReplacedCount() {
+        return replacedCount;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public boolean isVerified() {
+        return verifyFailures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "StructureImportResult{imported=" + imported.size() + ", replaced=" + replacedCount +
+               ", unchanged=" + unchangedCount + ", rejected=" + rejected.size() +
+               ", verifyFailures=" + verifyFailures.size() + ", bytes=" + bytes + "}";
+    }
+}
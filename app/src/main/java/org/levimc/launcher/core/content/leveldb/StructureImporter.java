@@ -0,0 +1,263 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import android.util.Log;
+
+import org.levimc.launcher.core.content.nbt.BedrockNbtReader;
+import org.levimc.launcher.core.content.nbt.NbtTag;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class StructureImporter {
+    private static final String TAG = "StructureImporter";
+    static final String EXTENSION = ".mcstructure";
+    static final String DEFAULT_NAMESPACE = "mystructure";
+    private static final String STRUCTURES_DIRECTORY = "structures";
+    private static final String KEY_PREFIX = "structuretemplate_";
+    private static final int FLUSH_SIZE = 32 * 1024 * 1024;
+    // A full 64x384x64 structure block volume stores one list entry per block.
+    private static final int MAX_BLOCK_LIST_SIZE = 64 * 384 * 64;
+
+    interface ProgressListener {
+        void onProgress(int current, int total, String structureName);
+    }
+
+    private static final class Candidate {
+        final File file;
+        final String structureId;
+        final byte[] key;
+        int length;
+        int crc;
+        String error;
+
+        Candidate(File file, String structureId) {
+            this.file = file;
+            this.structureId = structureId;
+            this.key = (KEY_PREFIX + structureId).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private final File dbDir;
+    private final ExecutorService pool;
+    private final AtomicBoolean cancelled;
+
+    StructureImporter(File dbDir, ExecutorService pool, AtomicBoolean cancelled) {
+        this.dbDir = dbDir;
+        this.pool = pool;
+        this.cancelled = cancelled;
+    }
+
+    static List<File> collectFiles(File source) {
+        List<File> files = new ArrayList<>();
+        if (source.isFile()) {
+            files.add(source);
+        } else {
+            collectFiles(source, files);
+            files.sort((a, b) -> a.getPath().compareTo(b.getPath()));
+        }
+        return files;
+    }
+
+    private static void collectFiles(File dir, List<File> files) {
+        File[] children = dir.listFiles();
+        if (children == null) return;
+        for (File child : children) {
+            if (child.isDirectory()) {
+                collectFiles(child, files);
+            } else if (child.getName().toLowerCase().endsWith(EXTENSION)) {
+                files.add(child);
+            }
+        }
+    }
+
+    // Mirrors the export layout: structures/<namespace>/<name>.mcstructure becomes namespace:name.
+    static String structureId(File file) {
+        String name = file.getName();
+        if (name.toLowerCase().endsWith(EXTENSION)) {
+            name = name.substring(0, name.length() - EXTENSION.length());
+        }
+        List<String> parts = new ArrayList<>();
+        File dir = file.getParentFile();
+        while (dir != null && !STRUCTURES_DIRECTORY.equals(dir.getName())) {
+            parts.add(0, dir.getName());
+            dir = dir.getParentFile();
+        }
+        if (dir == null || parts.isEmpty()) {
+            return DEFAULT_NAMESPACE + ":" + name;
+        }
+        String namespace = parts.remove(0);
+        parts.add(name);
+        return namespace + ":" + String.join("/", parts);
+    }
+
+    StructureImportResult importFiles(List<File> files, ProgressListener listener) throws IOException {
+        long start = System.currentTimeMillis();
+        StructureImportResult result = new StructureImportResult();
+        int total = files.size() * 2;
+
+        List<Future<Candidate>> futures = new ArrayList<>();
+        for (File file : files) {
+            futures.add(pool.submit(() -> validate(file)));
+        }
+        Map<String, Candidate> candidates = new TreeMap<>();
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                checkCancelled(futures);
+                Candidate candidate = futures.get(i).get();
+                listener.onProgress(i, total, candidate.structureId);
+                Candidate previous = candidates.get(candidate.structureId);
+                if (candidate.error != null) {
+                    Log.w(TAG, "Rejected " + candidate.file + " - " + candidate.error);
+                    result.addRejected(candidate.file, candidate.error);
+                } else if (previous != null) {
+                    result.addRejected(candidate.file, "Duplicate of " + previous.file.getName() + " for " + candidate.structureId);
+                } else {
+                    candidates.put(candidate.structureId, candidate);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(futures);
+            throw new InterruptedIOException("Import interrupted");
+        } catch (ExecutionException e) {
+            cancel(futures);
+            throw new IOException("Validation failed: " + e.getCause(), e.getCause());
+        }
+
+        List<Candidate> written = new ArrayList<>();
+        int progress = files.size();
+        LevelDBReader reader = new LevelDBReader(dbDir);
+        LevelDBWriter writer = new LevelDBWriter(dbDir);
+        try {
+            WriteBatch batch = new WriteBatch();
+            for (Candidate candidate : candidates.values()) {
+                checkCancelled(null);
+                listener.onProgress(progress++, total, candidate.structureId);
+                byte[] value = Files.readAllBytes(candidate.file.toPath());
+                if (value.length != candidate.length || Crc32C.value(value, 0, value.length) != candidate.crc) {
+                    result.addRejected(candidate.file, "File changed during import");
+                    continue;
+                }
+                byte[] existing = reader.get(candidate.key);
+                if (existing != null && Arrays.equals(existing, value)) {
+                    result.addUnchanged();
+                    continue;
+                }
+                batch.put(candidate.key, value);
+                result.addImported(candidate.structureId, existing != null, value.length);
+                written.add(candidate);
+
+                if (batch.approximateSize() > FLUSH_SIZE) {
+                    writer.writeTable(batch);
+                    batch.clear();
+                }
+            }
+            writer.writeTable(batch);
+        } finally {
+            writer.close();
+            reader.close();
+        }
+
+        LevelDBReader verifier = new LevelDBReader(dbDir);
+        try {
+            for (Candidate candidate : written) {
+                byte[] value = verifier.get(candidate.key);
+                if (value == null || value.length != candidate.length || Crc32C.value(value, 0, value.length) != candidate.crc) {
+                    Log.e(TAG, "Structure " + candidate.structureId + " did not read back as written");
+                    result.addVerifyFailure(candidate.structureId);
+                }
+            }
+        } finally {
+            verifier.close();
+        }
+        listener.onProgress(total, total, "Complete");
+
+        Log.d(TAG, "Imported " + files.size() + " structure files into " + dbDir + ": " + result + " in " +
+              (System.currentTimeMillis() - start) + " ms");
+        return result;
+    }
+
+    private static Candidate validate(File file) {
+        Candidate candidate = new Candidate(file, structureId(file));
+        try {
+            byte[] data = Files.readAllBytes(file.toPath());
+            candidate.length = data.length;
+            candidate.crc = Crc32C.value(data, 0, data.length);
+            candidate.error = checkStructure(new BedrockNbtReader(MAX_BLOCK_LIST_SIZE).readTag(ByteBuffer.wrap(data)));
+        } catch (IOException e) {
+            candidate.error = e.getMessage();
+        }
+        return candidate;
+    }
+
+    static String checkStructure(NbtTag root) {
+        if (root == null || root.getType() != NbtTag.TAG_COMPOUND) {
+            return "Not a compound tag";
+        }
+        NbtTag size = root.getTag("size");
+        if (size == null || size.getType() != NbtTag.TAG_LIST || size.getList().size() != 3) {
+            return "Missing size";
+        }
+        long volume = 1;
+        for (NbtTag dimension : size.getList()) {
+            if (dimension.getInt() <= 0) return "Invalid size " + dimension.getInt();
+            volume *= dimension.getInt();
+        }
+
+        NbtTag structure = root.getTag("structure");
+        if (structure == null || structure.getType() != NbtTag.TAG_COMPOUND) {
+            return "Missing structure compound";
+        }
+        NbtTag indices = structure.getTag("block_indices");
+        if (indices == null || indices.getType() != NbtTag.TAG_LIST || indices.getList().isEmpty()) {
+            return "Missing block_indices";
+        }
+        NbtTag palette = structure.getTag("palette");
+        NbtTag defaultPalette = palette != null ? palette.getTag("default") : null;
+        NbtTag blockPalette = defaultPalette != null ? defaultPalette.getTag("block_palette") : null;
+        if (blockPalette == null || blockPalette.getType() != NbtTag.TAG_LIST) {
+            return "Missing block palette";
+        }
+
+        int paletteSize = blockPalette.getList().size();
+        for (NbtTag layer : indices.getList()) {
+            List<NbtTag> values = layer.getList();
+            if (values.size() != volume) {
+                return "Block layer has " + values.size() + " entries, expected " + volume;
+            }
+            for (NbtTag value : values) {
+                int index = value.getInt();
+                if (index < -1 || index >= paletteSize) {
+                    return "Palette index " + index + " out of range";
+                }
+            }
+        }
+        return null;
+    }
+
+    private void checkCancelled(List<Future<Candidate>> futures) throws IOException {
+        if (cancelled != null && cancelled.get()) {
+            if (futures != null) cancel(futures);
+            throw new InterruptedIOException("Import cancelled");
+        }
+    }
+
+    private static void cancel(List<Future<Candidate>> futures) {
+        for (Future<Candidate> future : futures) {
+            future.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import org.levimc.launcher.core.content.nbt.BedrockNbtReader;
+import org.levimc.launcher.core.content.nbt.NbtTag;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+public final class SubChunkDecoder {
+    public static final int BLOCK_COUNT = 4096;
+    private static final int MAX_PALETTE_SIZE = BLOCK_COUNT;
+    private static final int MAX_CACHED_STATES = 8192;
+
+    public static final class BlockState {
+        public final String name;
+        public final NbtTag tag;
+
+        BlockState(String name, NbtTag tag) {
+            this.name = name;
+            this.tag = tag;
+        }
+    }
+
+    private final BedrockNbtReader nbtReader = new BedrockNbtReader();
+    private final int[] blocks = new int[BLOCK_COUNT];
+    private BlockState[] palette = new BlockState[16];
+    private ByteBuffer data;
+    private int version;
+    private int yIndex;
+    private int storageCount;
+    private int bitsPerBlock;
+    private int wordsOffset;
+    private int paletteSize;
+    private boolean unpacked;
+
+    private byte[][] cacheKeys = new byte[256][];
+    private BlockState[] cacheValues = new BlockState[256];
+    private int cacheSize;
+
+    public boolean decode(ByteBuffer value, int keyY) throws IOException {
+        data = value.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        unpacked = false;
+        paletteSize = 0;
+        bitsPerBlock = 0;
+        yIndex = keyY;
+
+        if (!data.hasRemaining()) {
+            throw new IOException("Empty SubChunk");
+        }
+        version = data.get() & 0xFF;
+        switch (version) {
+            case 1 -> storageCount = 1;
+            case 8 -> storageCount = readByte();
+            case 9 -> {
+                storageCount = readByte();
+                yIndex = (byte) readByte();
+            }
+            default -> {
+                return false;
+            }
+        }
+        if (storageCount == 0) {
+            return true;
+        }
+        readStorage();
+        return true;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getYIndex() {
+        return yIndex;
+    }
+
+    public int getStorageCount() {
+        return storageCount;
+    }
+
+    public int getPaletteSize() {
+        return paletteSize;
+    }
+
+    public BlockState getBlockState(int paletteIndex) {
+        return palette[paletteIndex];
+    }
+
+    public int indexOf(String name) {
+        for (int i = 0; i < paletteSize; i++) {
+            if (palette[i].name.equals(name)) return i;
+        }
+        return -1;
+    }
+
+    public void countBlocks(int[] counts) {
+        if (paletteSize == 0) return;
+        if (bitsPerBlock == 0) {
+            counts[0] += BLOCK_COUNT;
+            return;
+        }
+
+        int perWord = 32 / bitsPerBlock;
+        int mask = (1 << bitsPerBlock) - 1;
+        int pos = wordsOffset;
+        int remaining = BLOCK_COUNT;
+        while (remaining > 0) {
+            int word = data.getInt(pos);
+            pos += 4;
+            int n = Math.min(perWord, remaining);
+            for (int i = 0; i < n; i++) {
+                int index = word & mask;
+                if (index < paletteSize) counts[index]++;
+                word >>>= bitsPerBlock;
+            }
+            remaining -= n;
+        }
+    }
+
+    public int findBlocks(boolean[] paletteMatch, int[] positions) {
+        if (paletteSize == 0) return 0;
+        if (bitsPerBlock == 0) {
+            if (!paletteMatch[0]) return 0;
+            for (int i = 0; i < BLOCK_COUNT; i++) positions[i] = i;
+            return BLOCK_COUNT;
+        }
+
+        int perWord = 32 / bitsPerBlock;
+        int mask = (1 << bitsPerBlock) - 1;
+        int pos = wordsOffset;
+        int block = 0;
+        int found = 0;
+        while (block < BLOCK_COUNT) {
+            int word = data.getInt(pos);
+            pos += 4;
+            int end = Math.min(block + perWord, BLOCK_COUNT);
+            for (; block < end; block++) {
+                int index = word & mask;
+                if (index < paletteSize && paletteMatch[index]) positions[found++] = (index << 12) | block;
+                word >>>= bitsPerBlock;
+            }
+        }
+        return found;
+    }
+
+    public int getBlock(int x, int y, int z) {
+        if (paletteSize == 0) return -1;
+        if (!unpacked) unpack();
+        return blocks[(x << 8) | (z << 4) | y];
+    }
+
+    private void unpack() {
+        if (bitsPerBlock == 0) {
+            Arrays.fill(blocks, 0);
+        } else {
+            int perWord = 32 / bitsPerBlock;
+            int mask = (1 << bitsPerBlock) - 1;
+            int pos = wordsOffset;
+            int block = 0;
+            while (block < BLOCK_COUNT) {
+                int word = data.getInt(pos);
+                pos += 4;
+                int end = Math.min(block + perWord, BLOCK_COUNT);
+                for (; block < end; block++) {
+                    int index = word & mask;
+                    blocks[block] = index < paletteSize ? index : 0;
+                    word >>>= bitsPerBlock;
+                }
+            }
+        }
+        unpacked = true;
+    }
+
+    private void readStorage() throws IOException {
+        int header = readByte();
+        if ((header & 1) != 0) {
+            throw new IOException("SubChunk uses runtime block ids");
+        }
+        bitsPerBlock = header >>> 1;
+        switch (bitsPerBlock) {
+            case 0, 1, 2, 3, 4, 5, 6, 8, 16 -> { }
+            default -> throw new IOException("Invalid bits per block: " + bitsPerBlock);
+        }
+
+        wordsOffset = data.position();
+        if (bitsPerBlock > 0) {
+            int perWord = 32 / bitsPerBlock;
+            int wordBytes = (BLOCK_COUNT + perWord - 1) / perWord * 4;
+            if (wordBytes + 4 > data.remaining()) {
+                throw new IOException("Truncated SubChunk block data");
+            }
+            data.position(wordsOffset + wordBytes);
+        }
+
+        int size = bitsPerBlock == 0 ? 1 : data.getInt();
+        if (size <= 0 || size > MAX_PALETTE_SIZE) {
+            throw new IOException("Invalid palette size: " + size);
+        }
+        if (size > palette.length) {
+            palette = new BlockState[Math.max(size, palette.length * 2)];
+        }
+        for (int i = 0; i < size; i++) {
+            int start = data.position();
+            BedrockNbtReader.skipTag(data);
+            palette[i] = lookupState(start, data.position());
+        }
+        paletteSize = size;
+    }
+
+    private BlockState lookupState(int start, int end) throws IOException {
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + data.get(i);
+        }
+        hash = spread(hash);
+
+        int mask = cacheKeys.length - 1;
+        int slot = hash & mask;
+        byte[] key;
+        while ((key = cacheKeys[slot]) != null) {
+            if (rangeEquals(key, start, end)) {
+                return cacheValues[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        key = new byte[end - start];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = data.get(start + i);
+        }
+        NbtTag tag = nbtReader.readTag(ByteBuffer.wrap(key));
+        NbtTag nameTag = tag != null ? tag.getTag("name") : null;
+        BlockState state = new BlockState(nameTag != null ? nameTag.getString() : "unknown", tag);
+
+        if (cacheSize * 2 >= cacheKeys.length) {
+            if (cacheKeys.length >= MAX_CACHED_STATES * 2) {
+                Arrays.fill(cacheKeys, null);
+                Arrays.fill(cacheValues, null);
+                cacheSize = 0;
+            } else {
+                growCache();
+            }
+            mask = cacheKeys.length - 1;
+            slot = hash & mask;
+            while (cacheKeys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        cacheKeys[slot] = key;
+        cacheValues[slot] = state;
+        cacheSize++;
+        return state;
+    }
+
+    private boolean rangeEquals(byte[] key, int start, int end) {
+        if (key.length != end - start) return false;
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != data.get(start + i)) return false;
+        }
+        return true;
+    }
+
+    private void growCache() {
+        byte[][] oldKeys = cacheKeys;
+        BlockState[] oldValues = cacheValues;
+        cacheKeys = new byte[oldKeys.length * 2][];
+        cacheValues = new BlockState[oldKeys.length * 2];
+        int mask = cacheKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            byte[] key = oldKeys[i];
+            if (key == null) continue;
+            int slot = spread(Arrays.hashCode(key)) & mask;
+            while (cacheKeys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            cacheKeys[slot] = key;
+            cacheValues[slot] = oldValues[i];
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private int readByte() throws IOException {
+        if (!data.hasRemaining()) {
+            throw new IOException("Truncated SubChunk header");
+        }
+        return data.get() & 0xFF;
+    }
+}
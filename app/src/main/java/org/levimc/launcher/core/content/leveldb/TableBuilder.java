@@ -0,0 +1,213 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+final class TableBuilder {
+    private static final String TAG = "LevelDBTableBuilder";
+    static final int BLOCK_SIZE = 160 * 1024;
+    private static final int RESTART_INTERVAL = 16;
+    private static final int BLOOM_BITS_PER_KEY = 10;
+    private static final byte[] FILTER_KEY = ("filter." + BloomFilter.NAME).getBytes(StandardCharsets.UTF_8);
+
+    private final File file;
+    private final long fileNumber;
+    private final int compressionType;
+    private final FileOutputStream stream;
+    private final BufferedOutputStream out;
+    private final BlockBuilder dataBlock = new BlockBuilder(RESTART_INTERVAL);
+    private final BlockBuilder indexBlock = new BlockBuilder(1);
+    private final FilterBlockBuilder filterBlock = new FilterBlockBuilder(BLOOM_BITS_PER_KEY);
+    private final ByteArrayOutputStream handleEncoding = new ByteArrayOutputStream(BlockHandle.MAX_ENCODED_LENGTH);
+    private final byte[] trailer = new byte[TableReader.BLOCK_TRAILER_SIZE];
+    private Deflater deflater;
+    private byte[] compressed = new byte[0];
+    private byte[] valueBuffer = new byte[0];
+
+    private long offset;
+    private long entries;
+    private byte[] smallest;
+    private byte[] lastKey = new byte[64];
+    private int lastKeyLength;
+    private boolean closed;
+
+    TableBuilder(File file, long fileNumber, int compressionType) throws IOException {
+        if (compressionType != Compression.NONE && compressionType != Compression.ZLIB
+                && compressionType != Compression.ZLIB_RAW) {
+            throw new IllegalArgumentException("Unsupported compression type for writing: " + compressionType);
+        }
+        this.file = file;
+        this.fileNumber = fileNumber;
+        this.compressionType = compressionType;
+        this.stream = new FileOutputStream(file);
+        this.out = new BufferedOutputStream(stream, 64 * 1024);
+        filterBlock.startBlock(0);
+    }
+
+    void add(byte[] key, int keyLength, ByteBuffer value) throws IOException {
+        int length = value.remaining();
+        if (value.hasArray()) {
+            add(key, keyLength, value.array(), value.arrayOffset() + value.position(), length);
+        } else {
+            if (valueBuffer.length < length) {
+                valueBuffer = new byte[Math.max(length, valueBuffer.length * 2)];
+            }
+            value.duplicate().get(valueBuffer, 0, length);
+            add(key, keyLength, valueBuffer, 0, length);
+        }
+    }
+
+    void add(byte[] key, int keyLength, byte[] value, int valueOffset, int valueLength) throws IOException {
+        if (entries > 0 && InternalKey.compare(key, 0, keyLength, lastKey, 0, lastKeyLength) <= 0) {
+            throw new IllegalArgumentException("Table keys must be added in increasing order");
+        }
+        if (smallest == null) {
+            smallest = Arrays.copyOf(key, keyLength);
+        }
+
+        filterBlock.addKey(key, InternalKey.userKeyLength(keyLength));
+        dataBlock.add(key, keyLength, value, valueOffset, valueLength);
+
+        if (lastKey.length < keyLength) {
+            lastKey = new byte[Math.max(keyLength, lastKey.length * 2)];
+        }
+        System.arraycopy(key, 0, lastKey, 0, keyLength);
+        lastKeyLength = keyLength;
+        entries++;
+
+        if (dataBlock.currentSizeEstimate() >= BLOCK_SIZE) {
+            flush();
+        }
+    }
+
+    long entryCount() {
+        return entries;
+    }
+
+    long fileSize() {
+        return offset;
+    }
+
+    FileMetaData finish(int level) throws IOException {
+        if (entries == 0) {
+            throw new IOException("Cannot finish an empty table: " + file.getName());
+        }
+        flush();
+
+        BlockHandle filterHandle = writeRawBlock(filterBlock.finish(), Compression.NONE);
+
+        BlockBuilder metaIndexBlock = new BlockBuilder(RESTART_INTERVAL);
+        handleEncoding.reset();
+        filterHandle.encodeTo(handleEncoding);
+        metaIndexBlock.add(FILTER_KEY, FILTER_KEY.length, handleEncoding.toByteArray(), 0, handleEncoding.size());
+        BlockHandle metaIndexHandle = writeBlock(metaIndexBlock.finish());
+        BlockHandle indexHandle = writeBlock(indexBlock.finish());
+
+        ByteArrayOutputStream footer = new ByteArrayOutputStream(TableReader.FOOTER_SIZE);
+        metaIndexHandle.encodeTo(footer);
+        indexHandle.encodeTo(footer);
+        while (footer.size() < 2 * BlockHandle.MAX_ENCODED_LENGTH) {
+            footer.write(0);
+        }
+        Coding.writeInt64LE(footer, TableReader.TABLE_MAGIC_NUMBER);
+        footer.writeTo(out);
+        offset += footer.size();
+
+        out.flush();
+        stream.getFD().sync();
+        close();
+
+        Log.d(TAG, "Wrote " + file.getName() + ": " + entries + " entries, " + offset + " bytes");
+        return new FileMetaData(level, fileNumber, offset, smallest, Arrays.copyOf(lastKey, lastKeyLength));
+    }
+
+    void abandon() {
+        close();
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "Failed to delete abandoned table " + file.getName());
+        }
+    }
+
+    private void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            out.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to close table " + file.getName(), e);
+        }
+        if (deflater != null) {
+            deflater.end();
+        }
+    }
+
+    private void flush() throws IOException {
+        if (dataBlock.isEmpty()) return;
+        BlockHandle handle = writeBlock(dataBlock.finish());
+        dataBlock.reset();
+
+        handleEncoding.reset();
+        handle.encodeTo(handleEncoding);
+        indexBlock.add(lastKey, lastKeyLength, handleEncoding.toByteArray(), 0, handleEncoding.size());
+        filterBlock.startBlock(offset);
+    }
+
+    private BlockHandle writeBlock(byte[] raw) throws IOException {
+        if (compressionType == Compression.NONE) {
+            return writeRawBlock(raw, Compression.NONE);
+        }
+
+        int length = deflate(raw);
+        if (length >= raw.length - raw.length / 8) {
+            return writeRawBlock(raw, Compression.NONE);
+        }
+        return writeRawBlock(compressed, length, compressionType);
+    }
+
+    private BlockHandle writeRawBlock(byte[] contents, int type) throws IOException {
+        return writeRawBlock(contents, contents.length, type);
+    }
+
+    private BlockHandle writeRawBlock(byte[] contents, int length, int type) throws IOException {
+        BlockHandle handle = new BlockHandle(offset, length);
+        out.write(contents, 0, length);
+
+        trailer[0] = (byte) type;
+        int crc = Crc32C.extend(Crc32C.value(contents, 0, length), trailer, 0, 1);
+        Coding.putInt32LE(trailer, 1, Crc32C.mask(crc));
+        out.write(trailer);
+
+        offset += length + trailer.length;
+        return handle;
+    }
+
+    private int deflate(byte[] raw) {
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, compressionType == Compression.ZLIB_RAW);
+        }
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+
+        if (compressed.length < raw.length + 64) {
+            compressed = new byte[raw.length + raw.length / 8 + 64];
+        }
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,314 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import android.util.Log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class TableReader implements Closeable {
+    private static final String TAG = "LevelDBTable";
+    static final long TABLE_MAGIC_NUMBER = 0xdb4775248b80fb57L;
+    static final int BLOCK_TRAILER_SIZE = 5;
+    static final int FOOTER_SIZE = 48;
+
+    private final File file;
+    private final long fileNumber;
+    private final long fileSize;
+    private final BlockCache cache;
+    private final Block indexBlock;
+    private final AtomicInteger skippedBlocks = new AtomicInteger();
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private FilterBlockReader filter;
+
+    TableReader(File file, long fileNumber, BlockCache cache, boolean memoryMapped) throws IOException {
+        this.file = file;
+        this.fileNumber = fileNumber;
+        this.cache = fileNumber >= 0 ? cache : null;
+        this.raf = new RandomAccessFile(file, "r");
+        this.channel = raf.getChannel();
+
+        try {
+            fileSize = channel.size();
+            if (fileSize < FOOTER_SIZE) {
+                throw new IOException("File too small to be a table: " + file.getName());
+            }
+            if (memoryMapped && fileSize <= Integer.MAX_VALUE) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+                closeChannel();
+            }
+
+            ByteBuffer footer = readRange(fileSize - FOOTER_SIZE, FOOTER_SIZE);
+
+            BlockHandle metaIndexHandle = BlockHandle.decode(footer);
+            BlockHandle indexHandle = BlockHandle.decode(footer);
+
+            footer.position(40);
+            long magic = footer.getLong();
+            if (magic != TABLE_MAGIC_NUMBER) {
+                throw new IOException("Invalid magic number in " + file.getName());
+            }
+            if (!indexHandle.isPlausible(fileSize)) {
+                throw new IOException("Invalid index handle in " + file.getName());
+            }
+
+            indexBlock = readBlock(indexHandle);
+            if (metaIndexHandle.isPlausible(fileSize)) {
+                readFilter(metaIndexHandle);
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    long getFileNumber() {
+        return fileNumber;
+    }
+
+    boolean isMemoryMapped() {
+        return mapped != null;
+    }
+
+    Block readBlock(BlockHandle handle) throws IOException {
+        if (cache != null) {
+            Block cached = cache.get(fileNumber, handle.offset);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Block block = new Block(readRawBlock(handle));
+        if (cache != null) {
+            cache.put(fileNumber, handle.offset, block);
+        }
+        return block;
+    }
+
+    Block readVerifiedBlock(BlockHandle handle) throws IOException {
+        return new Block(readRawBlock(handle, true));
+    }
+
+    private ByteBuffer readRawBlock(BlockHandle handle) throws IOException {
+        return readRawBlock(handle, false);
+    }
+
+    private ByteBuffer readRawBlock(BlockHandle handle, boolean verify) throws IOException {
+        int size = (int) handle.size;
+        if (size < 0 || handle.offset < 0 || handle.offset + size + BLOCK_TRAILER_SIZE > fileSize) {
+            throw new IOException("Block handle out of range at offset " + handle.offset);
+        }
+
+        ByteBuffer contents = readRange(handle.offset, size + BLOCK_TRAILER_SIZE);
+        int compressionType = contents.get(size) & 0xFF;
+        if (verify) {
+            byte[] checked = new byte[size + 1];
+            contents.duplicate().get(checked);
+            if (Crc32C.value(checked, 0, checked.length) != Crc32C.unmask(contents.getInt(size + 1))) {
+                throw new IOException("Block checksum mismatch at offset " + handle.offset + " in " + file.getName());
+            }
+        }
+        contents.limit(size);
+        if (compressionType == Compression.NONE) {
+            return contents.slice().order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        byte[] blockData = new byte[size];
+        contents.get(blockData);
+        return ByteBuffer.wrap(Compression.decompress(compressionType, blockData)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private ByteBuffer readRange(long offset, int length) throws IOException {
+        if (mapped != null) {
+            ByteBuffer view = mapped.duplicate();
+            view.limit((int) (offset + length));
+            view.position((int) offset);
+            return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(buffer, offset);
+        buffer.flip();
+        return buffer;
+    }
+
+    int getSkippedBlockCount() {
+        return skippedBlocks.get();
+    }
+
+    boolean hasFilter() {
+        return filter != null;
+    }
+
+    BlockIterator seekForGet(byte[] seekKey, byte[] userKey) {
+        BlockIterator index = indexBlock.iterator();
+        index.seek(seekKey);
+        if (!index.isValid()) {
+            return null;
+        }
+
+        BlockHandle handle = BlockHandle.decode(index.value());
+        if (filter != null && !filter.keyMayMatch(handle.offset, userKey, userKey.length)) {
+            return null;
+        }
+
+        try {
+            BlockIterator data = readBlock(handle).iterator();
+            data.seek(seekKey);
+            return data.isValid() ? data : null;
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to read data block at offset " + handle.offset + " in " + file.getName() + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void readFilter(BlockHandle metaIndexHandle) {
+        try {
+            BlockIterator meta = readBlock(metaIndexHandle).iterator();
+            byte[] filterKey = ("filter." + BloomFilter.NAME).getBytes(StandardCharsets.UTF_8);
+            for (meta.seekToFirst(); meta.isValid(); meta.next()) {
+                if (InternalKey.compareUserKeys(meta.keyArray(), 0, meta.keyLength(), filterKey, 0, filterKey.length) != 0) {
+                    continue;
+                }
+                BlockHandle handle = BlockHandle.decode(meta.value());
+                if (handle.isPlausible(fileSize)) {
+                    filter = new FilterBlockReader(readRawBlock(handle));
+                }
+                return;
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Ignoring unreadable filter in " + file.getName() + " - " + e.getMessage());
+        }
+    }
+
+    InternalIterator iterator() {
+        return new TableIterator();
+    }
+
+    BlockIterator indexIterator() {
+        return indexBlock.iterator();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        if (channel == null) {
+            throw new IOException("Table is closed: " + file.getName());
+        }
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file in " + file.getName());
+            }
+            position += read;
+        }
+    }
+
+    @Override
+    public void close() {
+        closeChannel();
+        mapped = null;
+    }
+
+    private void closeChannel() {
+        if (raf == null) return;
+        try {
+            channel.close();
+            raf.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to close table " + file.getName(), e);
+        }
+        raf = null;
+        channel = null;
+    }
+
+    private class TableIterator implements InternalIterator {
+        private final BlockIterator index = indexBlock.iterator();
+        private BlockIterator data;
+
+        @Override
+        public boolean isValid() {
+            return data != null && data.isValid();
+        }
+
+        @Override
+        public void seekToFirst() {
+            index.seekToFirst();
+            loadDataBlock();
+            if (data != null) {
+                data.seekToFirst();
+            }
+            skipEmptyBlocks();
+        }
+
+        @Override
+        public void seek(byte[] target) {
+            index.seek(target);
+            loadDataBlock();
+            if (data != null) {
+                data.seek(target);
+            }
+            skipEmptyBlocks();
+        }
+
+        @Override
+        public void next() {
+            data.next();
+            skipEmptyBlocks();
+        }
+
+        @Override
+        public byte[] keyArray() {
+            return data.keyArray();
+        }
+
+        @Override
+        public int keyLength() {
+            return data.keyLength();
+        }
+
+        @Override
+        public ByteBuffer value() {
+            return data.value();
+        }
+
+        private void skipEmptyBlocks() {
+            while (data == null || !data.isValid()) {
+                if (!index.isValid()) {
+                    data = null;
+                    return;
+                }
+                index.next();
+                loadDataBlock();
+                if (data != null) {
+                    data.seekToFirst();
+                }
+            }
+        }
+
+        private void loadDataBlock() {
+            data = null;
+            while (index.isValid()) {
+                BlockHandle handle = BlockHandle.decode(index.value());
+                try {
+                    data = readBlock(handle).iterator();
+                    return;
+                } catch (Exception e) {
+                    Log.w(TAG, "Failed to read data block at offset " + handle.offset + " in " + file.getName() + " - " + e.getMessage());
+                    skippedBlocks.incrementAndGet();
+                    index.next();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+final class TableSalvager {
+    private static final String TAG = "TableSalvager";
+    private static final int BLOCK_TRAILER_SIZE = 5;
+    private static final int MAX_KEY_LENGTH = 64 * 1024;
+    private static final int MAX_VALUE_LENGTH = 64 * 1024 * 1024;
+    private static final int MAX_BLOCK_SIZE = 16 * 1024 * 1024;
+    private static final int PROBE_INPUT = 1024;
+    private static final byte FILTER_BASE_LG = 11;
+    private static final byte[] METAINDEX_PREFIX = "filter.".getBytes(StandardCharsets.US_ASCII);
+
+    static final class Hit {
+        final byte[] userKey;
+        final long sequence;
+        final int type;
+        final byte[] value;
+        final long blockOffset;
+        final long offset;
+
+        Hit(byte[] userKey, long sequence, int type, byte[] value, long blockOffset, long offset) {
+            this.userKey = userKey;
+            this.sequence = sequence;
+            this.type = type;
+            this.value = value;
+            this.blockOffset = blockOffset;
+            this.offset = offset;
+        }
+    }
+
+    private final RawScanner scanner;
+    private int blockCount;
+    private long lostBytes;
+
+    TableSalvager(RawScanner scanner) {
+        this.scanner = scanner;
+    }
+
+    List<Hit> salvage(File file) throws IOException {
+        byte[] data = Files.readAllBytes(file.toPath());
+        List<Hit> hits = new ArrayList<>();
+        Set<ByteBuffer> seen = new HashSet<>();
+        blockCount = 0;
+        lostBytes = 0;
+
+        int limit = dataLimit(data);
+        int offset = 0;
+        int gapStart = -1;
+        int[] consumed = new int[1];
+        Inflater probe = new Inflater(true);
+        try {
+            while (offset + BLOCK_TRAILER_SIZE < limit) {
+                byte[] contents = null;
+                int size = 0;
+                if (gapStart < 0 || mayStartBlock(probe, data, offset)) {
+                    contents = inflateBlock(data, offset, consumed);
+                    size = consumed[0];
+                }
+                if (contents == null && gapStart < 0) {
+                    size = findUncompressedBlock(data, offset);
+                    contents = size >= 0 ? Arrays.copyOfRange(data, offset, offset + size) : null;
+                }
+                if (contents == null) {
+                    if (gapStart < 0) gapStart = offset;
+                    offset++;
+                    continue;
+                }
+                if (gapStart >= 0) {
+                    scanGap(data, gapStart, offset, hits, seen);
+                    gapStart = -1;
+                }
+                if (isMetaBlock(contents)) break;
+                readEntries(contents, offset, hits, seen);
+                offset += size + BLOCK_TRAILER_SIZE;
+                blockCount++;
+            }
+        } finally {
+            probe.end();
+        }
+        if (gapStart >= 0) {
+            scanGap(data, gapStart, limit, hits, seen);
+        }
+
+        Log.d(TAG, file.getName() + ": " + blockCount + " blocks walked, " + hits.size() + " entries recovered, " +
+              lostBytes + " bytes unreadable");
+        return hits;
+    }
+
+    int getBlockCount() {
+        return blockCount;
+    }
+
+    long getLostBytes() {
+        return lostBytes;
+    }
+
+    // An intact footer bounds the data blocks, so a trailing gap is not scanned into the unshared keys of the index block.
+    private static int dataLimit(byte[] data) {
+        if (data.length < TableReader.FOOTER_SIZE
+                || Coding.readInt64LE(data, data.length - 8) != TableReader.TABLE_MAGIC_NUMBER) {
+            return data.length;
+        }
+        BlockHandle metaIndex = BlockHandle.decode(ByteBuffer.wrap(data, data.length - TableReader.FOOTER_SIZE,
+                TableReader.FOOTER_SIZE).order(ByteOrder.LITTLE_ENDIAN));
+        if (metaIndex.offset > 0 && metaIndex.offset < data.length - TableReader.FOOTER_SIZE) {
+            return (int) metaIndex.offset;
+        }
+        return data.length;
+    }
+
+    private void scanGap(byte[] data, int start, int end, List<Hit> hits, Set<ByteBuffer> seen) {
+        lostBytes += end - start;
+        if (scanner == null) return;
+        scanner.scan(data, start, end, (pattern, keyStart) -> {
+            Hit hit = decodeEntry(data, keyStart, scanner.patternLength(pattern));
+            if (hit != null && seen.add(internalKey(hit))) {
+                hits.add(hit);
+            }
+        });
+    }
+
+    // Inside a damaged region every offset is a candidate, so only offsets whose first inflated bytes look like an unshared entry header are fully inflated.
+    private static boolean mayStartBlock(Inflater probe, byte[] data, int offset) {
+        byte[] header = new byte[2];
+        int start = offset;
+        if (data.length - offset > 2 && (data[offset] & 0x0F) == 8 && (((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF)) % 31 == 0) {
+            start += 2;
+        }
+        if (!isDeflateHeader(data, start)) return false;
+        probe.reset();
+        probe.setInput(data, start, Math.min(data.length - start, PROBE_INPUT));
+        try {
+            if (probe.inflate(header) < header.length) return false;
+        } catch (DataFormatException e) {
+            return false;
+        }
+        return header[0] == 0 && (header[1] & 0xFF) >= 8;
+    }
+
+    // Rejects stored headers whose length check fails and dynamic headers whose code length code is not a complete prefix code, as inflate would.
+    private static boolean isDeflateHeader(byte[] data, int offset) {
+        if (offset + 10 >= data.length) return false;
+        int type = bits(data, offset, 1, 2);
+        if (type == 3) return false;
+        if (type == 0) {
+            return (Coding.readInt16LE(data, offset + 1) ^ Coding.readInt16LE(data, offset + 3)) == 0xFFFF;
+        }
+        if (type == 1) return true;
+
+        int codeLengths = bits(data, offset, 13, 4) + 4;
+        int[] counts = new int[8];
+        for (int i = 0; i < codeLengths; i++) {
+            counts[bits(data, offset, 17 + i * 3, 3)]++;
+        }
+        int left = 1;
+        for (int length = 1; length < counts.length; length++) {
+            left = (left << 1) - counts[length];
+            if (left < 0) return false;
+        }
+        return left == 0;
+    }
+
+    private static int bits(byte[] data, int offset, int position, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            int bit = position + i;
+            value |= ((data[offset + (bit >> 3)] >> (bit & 7)) & 1) << i;
+        }
+        return value;
+    }
+
+    private static byte[] inflateBlock(byte[] data, int offset, int[] consumed) {
+        int available = data.length - offset - BLOCK_TRAILER_SIZE;
+        for (int type : new int[]{Compression.ZLIB_RAW, Compression.ZLIB}) {
+            byte[] contents;
+            try {
+                contents = Compression.inflate(data, offset, available, type == Compression.ZLIB_RAW, consumed);
+            } catch (IOException | RuntimeException e) {
+                continue;
+            }
+            int size = consumed[0];
+            if ((data[offset + size] & 0xFF) != type) continue;
+            int expected = Crc32C.unmask(Coding.readInt32LE(data, offset + size + 1));
+            if (Crc32C.value(data, offset, size + 1) == expected) {
+                return contents;
+            }
+        }
+        return null;
+    }
+
+    // Stored blocks are not self-delimiting, so the block length is found by rolling the CRC forward until the trailer matches.
+    private static int findUncompressedBlock(byte[] data, int offset) {
+        int limit = Math.min(data.length - BLOCK_TRAILER_SIZE, offset + MAX_BLOCK_SIZE);
+        int crc = 0;
+        for (int end = offset; end < limit; end++) {
+            if (end - offset >= 4 && data[end] == Compression.NONE) {
+                int expected = Crc32C.unmask(Coding.readInt32LE(data, end + 1));
+                if (Crc32C.extend(crc, data, end, 1) == expected) {
+                    return end - offset;
+                }
+            }
+            crc = Crc32C.extend(crc, data, end, 1);
+        }
+        return -1;
+    }
+
+    private static boolean isMetaBlock(byte[] contents) {
+        int length = contents.length;
+        if (length >= 5 && contents[length - 1] == FILTER_BASE_LG) {
+            int arrayOffset = Coding.readInt32LE(contents, length - 5);
+            if (arrayOffset >= 0 && arrayOffset <= length - 5 && (length - 5 - arrayOffset) % 4 == 0) {
+                return true;
+            }
+        }
+        try {
+            BlockIterator iterator = new Block(ByteBuffer.wrap(contents).order(ByteOrder.LITTLE_ENDIAN)).iterator();
+            iterator.seekToFirst();
+            if (!iterator.isValid()) return false;
+            if (LevelDBKey.startsWith(iterator.keyArray(), iterator.keyLength(), METAINDEX_PREFIX)) {
+                return true;
+            }
+            long expectedOffset = 0;
+            for (; iterator.isValid(); iterator.next()) {
+                ByteBuffer value = iterator.value();
+                BlockHandle handle = BlockHandle.decode(value);
+                if (value.hasRemaining() || handle.offset != expectedOffset || handle.size <= 0) return false;
+                expectedOffset = handle.offset + handle.size + BLOCK_TRAILER_SIZE;
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static void readEntries(byte[] contents, long blockOffset, List<Hit> hits, Set<ByteBuffer> seen) {
+        BlockIterator iterator;
+        try {
+            iterator = new Block(ByteBuffer.wrap(contents).order(ByteOrder.LITTLE_ENDIAN)).iterator();
+        } catch (IOException e) {
+            return;
+        }
+        for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+            byte[] key = iterator.keyArray();
+            int length = iterator.keyLength();
+            if (length < 8) continue;
+            int type = InternalKey.type(key, 0, length);
+            long sequence = InternalKey.sequence(key, 0, length);
+            if (type > InternalKey.TYPE_VALUE || sequence >= InternalKey.MAX_SEQUENCE) continue;
+            byte[] value = null;
+            if (type != InternalKey.TYPE_DELETION) {
+                ByteBuffer slice = iterator.value();
+                value = new byte[slice.remaining()];
+                slice.get(value);
+            }
+            Hit hit = new Hit(InternalKey.userKey(key, 0, length), sequence, type, value, blockOffset, blockOffset);
+            seen.add(internalKey(hit));
+            hits.add(hit);
+        }
+    }
+
+    // Raw matches are only trusted when an unshared entry header ends exactly where the key starts.
+    private static Hit decodeEntry(byte[] data, int keyStart, int minKeyLength) {
+        for (int header = keyStart - 3; header >= Math.max(0, keyStart - 11); header--) {
+            if (data[header] != 0) continue;
+            int[] keyLength = Coding.readVarInt(data, header + 1);
+            int[] valueLength = Coding.readVarInt(data, keyLength[1]);
+            if (valueLength[1] != keyStart) continue;
+
+            int internalLength = keyLength[0];
+            int valueSize = valueLength[0];
+            if (internalLength < minKeyLength + 8 || internalLength > MAX_KEY_LENGTH
+                    || valueSize < 0 || valueSize > MAX_VALUE_LENGTH
+                    || (long) keyStart + internalLength + valueSize > data.length) {
+                continue;
+            }
+
+            long sequence = InternalKey.sequence(data, keyStart, internalLength);
+            int type = InternalKey.type(data, keyStart, internalLength);
+            if (type > InternalKey.TYPE_VALUE || sequence >= InternalKey.MAX_SEQUENCE) {
+                continue;
+            }
+            int valueStart = keyStart + internalLength;
+            byte[] userKey = Arrays.copyOfRange(data, keyStart, valueStart - 8);
+            byte[] value = type == InternalKey.TYPE_DELETION ? null : Arrays.copyOfRange(data, valueStart, valueStart + valueSize);
+            return new Hit(userKey, sequence, type, value, -1, keyStart);
+        }
+        return null;
+    }
+
+    private static ByteBuffer internalKey(Hit hit) {
+        return ByteBuffer.wrap(InternalKey.encode(hit.userKey, hit.sequence, hit.type));
+    }
+}
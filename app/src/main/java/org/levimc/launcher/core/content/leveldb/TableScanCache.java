@@ -0,0 +1,176 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+final class TableScanCache {
+    private static final String TAG = "TableScanCache";
+    private static final String SUFFIX = ".scan";
+    private static final int MAGIC = 0x4C534341;
+    private static final int FORMAT_VERSION = 1;
+
+    static final class Entry {
+        final byte[] key;
+        final long blockOffset;
+        final long blockSize;
+        final int valueOffset;
+        final int valueLength;
+
+        Entry(byte[] key, long blockOffset, long blockSize, int valueOffset, int valueLength) {
+            this.key = key;
+            this.blockOffset = blockOffset;
+            this.blockSize = blockSize;
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+        }
+    }
+
+    private final File directory;
+
+    TableScanCache(File directory) {
+        this.directory = directory;
+    }
+
+    List<Entry> entries(TableReader table, byte[] prefix) {
+        File tableFile = table.getFile();
+        File sidecar = new File(directory, tableFile.getName() + SUFFIX);
+        long size = tableFile.length();
+        long modified = tableFile.lastModified();
+
+        List<Entry> entries = load(sidecar, size, modified, prefix);
+        if (entries != null) {
+            return entries;
+        }
+
+        entries = new ArrayList<>();
+        if (scan(table, prefix, entries) && prefix.length <= 0xFFFF) {
+            save(sidecar, size, modified, prefix, entries);
+        }
+        return entries;
+    }
+
+    void retainOnly(Set<String> tableNames) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null) return;
+        for (File file : files) {
+            String tableName = file.getName().substring(0, file.getName().length() - SUFFIX.length());
+            if (!tableNames.contains(tableName) && !file.delete()) {
+                Log.w(TAG, "Failed to delete stale scan cache: " + file.getName());
+            }
+        }
+    }
+
+    private static boolean scan(TableReader table, byte[] prefix, List<Entry> entries) {
+        byte[] seekKey = InternalKey.seekKey(prefix);
+        BlockIterator index = table.indexIterator();
+        boolean complete = true;
+        for (index.seek(seekKey); index.isValid(); index.next()) {
+            BlockHandle handle = BlockHandle.decode(index.value());
+            BlockIterator data;
+            try {
+                data = table.readBlock(handle).iterator();
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to read block at offset " + handle.offset + " in " +
+                      table.getFile().getName() + " - " + e.getMessage());
+                complete = false;
+                continue;
+            }
+            for (data.seek(seekKey); data.isValid(); data.next()) {
+                byte[] key = data.keyArray();
+                int length = data.keyLength();
+                if (!startsWith(key, InternalKey.userKeyLength(length), prefix)) {
+                    return complete;
+                }
+                if (length > 0xFFFF) {
+                    complete = false;
+                }
+                int valueLength = InternalKey.type(key, 0, length) == InternalKey.TYPE_DELETION ? -1 : data.valueLength();
+                entries.add(new Entry(Arrays.copyOf(key, length), handle.offset, handle.size,
+                        data.valueOffset(), valueLength));
+            }
+        }
+        return complete;
+    }
+
+    private static List<Entry> load(File sidecar, long size, long modified, byte[] prefix) {
+        if (!sidecar.isFile()) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(sidecar)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+                    || in.readLong() != size || in.readLong() != modified) {
+                return null;
+            }
+            byte[] cachedPrefix = new byte[in.readUnsignedShort()];
+            in.readFully(cachedPrefix);
+            if (!Arrays.equals(cachedPrefix, prefix)) {
+                return null;
+            }
+            int count = in.readInt();
+            if (count < 0) {
+                return null;
+            }
+            List<Entry> entries = new ArrayList<>(Math.min(count, 4096));
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[in.readUnsignedShort()];
+                in.readFully(key);
+                entries.add(new Entry(key, in.readLong(), in.readLong(), in.readInt(), in.readInt()));
+            }
+            return entries;
+        } catch (IOException e) {
+            Log.w(TAG, "Ignoring unreadable scan cache " + sidecar.getName() + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void save(File sidecar, long size, long modified, byte[] prefix, List<Entry> entries) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.w(TAG, "Cannot create scan cache directory: " + directory);
+            return;
+        }
+        File temp = new File(sidecar.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(size);
+                out.writeLong(modified);
+                out.writeShort(prefix.length);
+                out.write(prefix);
+                out.writeInt(entries.size());
+                for (Entry entry : entries) {
+                    out.writeShort(entry.key.length);
+                    out.write(entry.key);
+                    out.writeLong(entry.blockOffset);
+                    out.writeLong(entry.blockSize);
+                    out.writeInt(entry.valueOffset);
+                    out.writeInt(entry.valueLength);
+                }
+            }
+            Files.move(temp.toPath(), sidecar.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to save scan cache " + sidecar.getName(), e);
+            temp.delete();
+        }
+    }
+
+    private static boolean startsWith(byte[] key, int length, byte[] prefix) {
+        if (prefix.length > length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[i] != prefix[i]) return false;
+        }
+        return true;
+    }
+}
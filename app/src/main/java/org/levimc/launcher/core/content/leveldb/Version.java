@@ -0,0 +1,154 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+final class Version {
+    private static final String TAG = "LevelDBVersion";
+    static final int NUM_LEVELS = 7;
+    static final String BYTEWISE_COMPARATOR = "leveldb.BytewiseComparator";
+
+    final List<List<FileMetaData>> levels = new ArrayList<>();
+    String comparator;
+    String manifestName;
+    long logNumber;
+    long prevLogNumber;
+    long nextFileNumber;
+    long lastSequence;
+
+    private Version() {
+        for (int i = 0; i < NUM_LEVELS; i++) {
+            levels.add(new ArrayList<>());
+        }
+    }
+
+    static Version create() {
+        Version version = new Version();
+        version.comparator = BYTEWISE_COMPARATOR;
+        version.nextFileNumber = 1;
+        return version;
+    }
+
+    static Version load(File dbDir) throws IOException {
+        File current = new File(dbDir, "CURRENT");
+        if (!current.isFile()) {
+            throw new IOException("CURRENT file not found");
+        }
+
+        String manifestName = new String(Files.readAllBytes(current.toPath()), StandardCharsets.UTF_8).trim();
+        File manifest = new File(dbDir, manifestName);
+        if (manifestName.isEmpty() || !manifest.isFile()) {
+            throw new IOException("MANIFEST not found: " + manifestName);
+        }
+
+        Version version = new Version();
+        version.manifestName = manifestName;
+        List<Map<Long, FileMetaData>> files = new ArrayList<>();
+        for (int i = 0; i < NUM_LEVELS; i++) {
+            files.add(new HashMap<>());
+        }
+
+        LogReader reader = LogReader.open(manifest);
+        byte[] record;
+        int edits = 0;
+        while ((record = reader.readRecord()) != null) {
+            VersionEdit edit = VersionEdit.decode(record);
+            edits++;
+            if (edit.comparator != null) version.comparator = edit.comparator;
+            if (edit.logNumber >= 0) version.logNumber = edit.logNumber;
+            if (edit.prevLogNumber >= 0) version.prevLogNumber = edit.prevLogNumber;
+            if (edit.nextFileNumber >= 0) version.nextFileNumber = edit.nextFileNumber;
+            if (edit.lastSequence >= 0) version.lastSequence = edit.lastSequence;
+            for (long[] deleted : edit.deletedFiles) {
+                files.get((int) deleted[0]).remove(deleted[1]);
+            }
+            for (FileMetaData file : edit.newFiles) {
+                files.get(file.level).put(file.number, file);
+            }
+        }
+        if (edits == 0) {
+            throw new IOException("MANIFEST contains no edits: " + manifestName);
+        }
+
+        for (int level = 0; level < NUM_LEVELS; level++) {
+            version.levels.get(level).addAll(files.get(level).values());
+            version.sortLevel(level);
+        }
+
+        Log.d(TAG, "Loaded " + manifestName + ": " + version.fileCount() + " live tables, log " +
+              version.logNumber + ", last sequence " + version.lastSequence);
+        return version;
+    }
+
+    void addFile(FileMetaData file) {
+        levels.get(file.level).add(file);
+        sortLevel(file.level);
+    }
+
+    VersionEdit snapshot() {
+        VersionEdit edit = new VersionEdit();
+        edit.comparator = comparator != null ? comparator : BYTEWISE_COMPARATOR;
+        edit.logNumber = logNumber;
+        edit.prevLogNumber = prevLogNumber;
+        edit.nextFileNumber = nextFileNumber;
+        edit.lastSequence = lastSequence;
+        for (List<FileMetaData> level : levels) {
+            edit.newFiles.addAll(level);
+        }
+        return edit;
+    }
+
+    private void sortLevel(int level) {
+        List<FileMetaData> levelFiles = levels.get(level);
+        if (level == 0) {
+            levelFiles.sort((a, b) -> Long.compare(b.number, a.number));
+        } else {
+            levelFiles.sort(Comparator.comparing(f -> f.smallest, InternalKey.COMPARATOR));
+        }
+    }
+
+    int fileCount() {
+        int count = 0;
+        for (List<FileMetaData> level : levels) {
+            count += level.size();
+        }
+        return count;
+    }
+
+    boolean isLiveLog(long number) {
+        return number >= logNumber || (prevLogNumber != 0 && number == prevLogNumber);
+    }
+
+    static String tableFileName(long number) {
+        return String.format(Locale.ROOT, "%06d.ldb", number);
+    }
+
+    static String logFileName(long number) {
+        return String.format(Locale.ROOT, "%06d.log", number);
+    }
+
+    static String manifestFileName(long number) {
+        return String.format(Locale.ROOT, "MANIFEST-%06d", number);
+    }
+
+    static File tableFile(File dbDir, long number) {
+        File file = new File(dbDir, tableFileName(number));
+        if (!file.exists()) {
+            File legacy = new File(dbDir, String.format(Locale.ROOT, "%06d.sst", number));
+            if (legacy.exists()) {
+                return legacy;
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,127 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+final class VersionEdit {
+    private static final int TAG_COMPARATOR = 1;
+    private static final int TAG_LOG_NUMBER = 2;
+    private static final int TAG_NEXT_FILE_NUMBER = 3;
+    private static final int TAG_LAST_SEQUENCE = 4;
+    private static final int TAG_COMPACT_POINTER = 5;
+    private static final int TAG_DELETED_FILE = 6;
+    private static final int TAG_NEW_FILE = 7;
+    private static final int TAG_PREV_LOG_NUMBER = 9;
+
+    String comparator;
+    long logNumber = -1;
+    long prevLogNumber = -1;
+    long nextFileNumber = -1;
+    long lastSequence = -1;
+    final List<long[]> deletedFiles = new ArrayList<>();
+    final List<FileMetaData> newFiles = new ArrayList<>();
+
+    static VersionEdit decode(byte[] record) throws IOException {
+        VersionEdit edit = new VersionEdit();
+        ByteBuffer buffer = ByteBuffer.wrap(record).order(ByteOrder.LITTLE_ENDIAN);
+
+        while (buffer.hasRemaining()) {
+            int tag = Coding.readVarInt32(buffer);
+            switch (tag) {
+                case TAG_COMPARATOR:
+                    edit.comparator = new String(readLengthPrefixed(buffer), StandardCharsets.UTF_8);
+                    break;
+                case TAG_LOG_NUMBER:
+                    edit.logNumber = Coding.readVarInt64(buffer);
+                    break;
+                case TAG_PREV_LOG_NUMBER:
+                    edit.prevLogNumber = Coding.readVarInt64(buffer);
+                    break;
+                case TAG_NEXT_FILE_NUMBER:
+                    edit.nextFileNumber = Coding.readVarInt64(buffer);
+                    break;
+                case TAG_LAST_SEQUENCE:
+                    edit.lastSequence = Coding.readVarInt64(buffer);
+                    break;
+                case TAG_COMPACT_POINTER:
+                    Coding.readVarInt32(buffer);
+                    readLengthPrefixed(buffer);
+                    break;
+                case TAG_DELETED_FILE: {
+                    int level = readLevel(buffer);
+                    long number = Coding.readVarInt64(buffer);
+                    edit.deletedFiles.add(new long[]{level, number});
+                    break;
+                }
+                case TAG_NEW_FILE: {
+                    int level = readLevel(buffer);
+                    long number = Coding.readVarInt64(buffer);
+                    long size = Coding.readVarInt64(buffer);
+                    byte[] smallest = readLengthPrefixed(buffer);
+                    byte[] largest = readLengthPrefixed(buffer);
+                    edit.newFiles.add(new FileMetaData(level, number, size, smallest, largest));
+                    break;
+                }
+                default:
+                    throw new IOException("Unknown VersionEdit tag: " + tag);
+            }
+        }
+        return edit;
+    }
+
+    byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (comparator != null) {
+            byte[] name = comparator.getBytes(StandardCharsets.UTF_8);
+            Coding.writeVarInt32(out, TAG_COMPARATOR);
+            Coding.writeLengthPrefixed(out, name, 0, name.length);
+        }
+        writeNumber(out, TAG_LOG_NUMBER, logNumber);
+        writeNumber(out, TAG_PREV_LOG_NUMBER, prevLogNumber);
+        writeNumber(out, TAG_NEXT_FILE_NUMBER, nextFileNumber);
+        writeNumber(out, TAG_LAST_SEQUENCE, lastSequence);
+        for (long[] deleted : deletedFiles) {
+            Coding.writeVarInt32(out, TAG_DELETED_FILE);
+            Coding.writeVarInt32(out, (int) deleted[0]);
+            Coding.writeVarInt64(out, deleted[1]);
+        }
+        for (FileMetaData file : newFiles) {
+            Coding.writeVarInt32(out, TAG_NEW_FILE);
+            Coding.writeVarInt32(out, file.level);
+            Coding.writeVarInt64(out, file.number);
+            Coding.writeVarInt64(out, file.fileSize);
+            Coding.writeLengthPrefixed(out, file.smallest, 0, file.smallest.length);
+            Coding.writeLengthPrefixed(out, file.largest, 0, file.largest.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeNumber(ByteArrayOutputStream out, int tag, long value) {
+        if (value < 0) return;
+        Coding.writeVarInt32(out, tag);
+        Coding.writeVarInt64(out, value);
+    }
+
+    private static int readLevel(ByteBuffer buffer) throws IOException {
+        int level = Coding.readVarInt32(buffer);
+        if (level < 0 || level >= Version.NUM_LEVELS) {
+            throw new IOException("Invalid level in VersionEdit: " + level);
+        }
+        return level;
+    }
+
+    private static byte[] readLengthPrefixed(ByteBuffer buffer) throws IOException {
+        int length = Coding.readVarInt32(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Invalid length in VersionEdit: " + length);
+        }
+        byte[] data = new byte[length];
+        buffer.get(data);
+        return data;
+    }
+}
@@ -0,0 +1,170 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class WorldDiff {
+    private static final String TAG = "WorldDiff";
+    private static final byte[] STRUCTURE_PREFIX = "structuretemplate_".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PLAYER_PREFIX = "player_".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LOCAL_PLAYER = "~local_player".getBytes(StandardCharsets.US_ASCII);
+
+    public enum Change {
+        ADDED, REMOVED, CHANGED
+    }
+
+    public enum Category {
+        STRUCTURE, PLAYER, ENTITY, OTHER
+    }
+
+    public static final class KeyChange {
+        public final Category category;
+        public final String name;
+        public final Change change;
+
+        KeyChange(Category category, String name, Change change) {
+            this.category = category;
+            this.name = name;
+            this.change = change;
+        }
+
+        @Override
+        public String toString() {
+            return change + " " + category + " " + name;
+        }
+    }
+
+    private final Map<ChunkPos, int[]> chunkChanges = new HashMap<>();
+    private final List<KeyChange> keyChanges = new ArrayList<>();
+    private final int[] totals = new int[Change.values().length];
+    private long unchanged;
+
+    public static WorldDiff compare(File baseDb, File otherDb, AtomicBoolean cancelled) throws IOException {
+        WorldDiff diff = new WorldDiff();
+        LevelDBReader base = new LevelDBReader(baseDb);
+        LevelDBReader other = new LevelDBReader(otherDb);
+        try {
+            LevelDBIterator a = base.iterator();
+            LevelDBIterator b = other.iterator();
+            a.seekToFirst();
+            b.seekToFirst();
+            long steps = 0;
+            while (a.isValid() || b.isValid()) {
+                if ((++steps & 0xFFF) == 0 && cancelled != null && cancelled.get()) {
+                    throw new InterruptedIOException("World diff cancelled");
+                }
+                int order;
+                if (!a.isValid()) {
+                    order = 1;
+                } else if (!b.isValid()) {
+                    order = -1;
+                } else {
+                    order = InternalKey.compareUserKeys(a.keyArray(), 0, a.keyLength(), b.keyArray(), 0, b.keyLength());
+                }
+
+                if (order < 0) {
+                    diff.record(a.key(), Change.REMOVED);
+                    a.next();
+                } else if (order > 0) {
+                    diff.record(b.key(), Change.ADDED);
+                    b.next();
+                } else {
+                    if (a.valueSlice().equals(b.valueSlice())) {
+                        diff.unchanged++;
+                    } else {
+                        diff.record(a.key(), Change.CHANGED);
+                    }
+                    a.next();
+                    b.next();
+                }
+            }
+        } finally {
+            base.close();
+            other.close();
+        }
+        Log.d(TAG, "Compared " + baseDb + " with " + otherDb + ": " + diff);
+        return diff;
+    }
+
+    private void record(byte[] key, Change change) {
+        totals[change.ordinal()]++;
+        ChunkPos pos = ChunkPos.fromKey(key, key.length);
+        if (pos == null) {
+            pos = LevelDBKey.digestChunk(key, key.length);
+        }
+        if (pos != null) {
+            int[] counts = chunkChanges.get(pos);
+            if (counts == null) {
+                counts = new int[Change.values().length];
+                chunkChanges.put(pos, counts);
+            }
+            counts[change.ordinal()]++;
+            return;
+        }
+
+        if (LevelDBKey.startsWith(key, key.length, STRUCTURE_PREFIX)) {
+            keyChanges.add(new KeyChange(Category.STRUCTURE, new LevelDBKey(key).getStructureId(), change));
+        } else if (LevelDBKey.startsWith(key, key.length, PLAYER_PREFIX) || LevelDBKey.startsWith(key, key.length, LOCAL_PLAYER)) {
+            keyChanges.add(new KeyChange(Category.PLAYER, new String(key, StandardCharsets.UTF_8), change));
+        } else if (LevelDBKey.isActorKey(key, key.length)) {
+            keyChanges.add(new KeyChange(Category.ENTITY, Long.toHexString(LevelDBKey.actorId(key)), change));
+        } else {
+            keyChanges.add(new KeyChange(Category.OTHER, new LevelDBKey(key).getDisplayName(), change));
+        }
+    }
+
+    public boolean isEmpty() {
+        return totals[0] + totals[1] + totals[2] == 0;
+    }
+
+    public int getCount(Change change) {
+        return totals[change.ordinal()];
+    }
+
+    public long getUnchangedCount() {
+        return unchanged;
+    }
+
+    public List<ChunkPos> getChangedChunks() {
+        List<ChunkPos> chunks = new ArrayList<>(chunkChanges.keySet());
+        chunks.sort((a, b) -> {
+            if (a.dimension != b.dimension) return Integer.compare(a.dimension, b.dimension);
+            if (a.x != b.x) return Integer.compare(a.x, b.x);
+            return Integer.compare(a.z, b.z);
+        });
+        return chunks;
+    }
+
+    public int getChunkChangeCount(ChunkPos pos, Change change) {
+        int[] counts = chunkChanges.get(pos);
+        return counts != null ? counts[change.ordinal()] : 0;
+    }
+
+    public List<KeyChange> getKeyChanges() {
+        return Collections.unmodifiableList(keyChanges);
+    }
+
+    public List<KeyChange> getKeyChanges(Category category) {
+        List<KeyChange> result = new ArrayList<>();
+        for (KeyChange change : keyChanges) {
+            if (change.category == category) result.add(change);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "WorldDiff{added=" + totals[0] + ", removed=" + totals[1] + ", changed=" + totals[2] +
+               ", unchanged=" + unchanged + ", chunks=" + chunkChanges.size() + ", keys=" + keyChanges.size() + "}";
+    }
+}
@@ -0,0 +1,49 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.io.ByteArrayOutputStream;
+
+public class WriteBatch {
+    static final int HEADER_SIZE = 12;
+
+    private final ByteArrayOutputStream records = new ByteArrayOutputStream();
+    private int count;
+
+    public void put(byte[] key, byte[] value) {
+        records.write(InternalKey.TYPE_VALUE);
+        Coding.writeLengthPrefixed(records, key, 0, key.length);
+        Coding.writeLengthPrefixed(records, value, 0, value.length);
+        count++;
+    }
+
+    public void delete(byte[] key) {
+        records.write(InternalKey.TYPE_DELETION);
+        Coding.writeLengthPrefixed(records, key, 0, key.length);
+        count++;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public int approximateSize() {
+        return HEADER_SIZE + records.size();
+    }
+
+    public void clear() {
+        records.reset();
+        count = 0;
+    }
+
+    byte[] encode(long sequence) {
+        byte[] data = new byte[HEADER_SIZE + records.size()];
+        Coding.putInt64LE(data, 0, sequence);
+        Coding.putInt32LE(data, 8, count);
+        byte[] body = records.toByteArray();
+        System.arraycopy(body, 0, data, HEADER_SIZE, body.length);
+        return data;
+    }
+}
@@ -0,0 +1,762 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+final class ZstdDecoder {
+    private static final int MAGIC = 0xFD2FB528;
+    private static final int SKIPPABLE_MAGIC = 0x184D2A50;
+    private static final int SKIPPABLE_MAGIC_MASK = 0xFFFFFFF0;
+
+    private static final int BLOCK_RAW = 0;
+    private static final int BLOCK_RLE = 1;
+    private static final int BLOCK_COMPRESSED = 2;
+
+    private static final int LITERALS_RAW = 0;
+    private static final int LITERALS_RLE = 1;
+    private static final int LITERALS_COMPRESSED = 2;
+
+    private static final int MODE_PREDEFINED = 0;
+    private static final int MODE_RLE = 1;
+    private static final int MODE_FSE = 2;
+
+    private static final int LITERALS_LENGTH = 0;
+    private static final int OFFSET = 1;
+    private static final int MATCH_LENGTH = 2;
+
+    private static final int MAX_BLOCK_SIZE = 128 * 1024;
+    private static final int MAX_OUTPUT_SIZE = 100 * 1024 * 1024;
+    private static final int INITIAL_BUFFER = 64 * 1024;
+    private static final int MAX_RETAINED_BUFFER = 4 * 1024 * 1024;
+    private static final int MAX_HUFFMAN_BITS = 11;
+    private static final int MAX_HUFFMAN_SYMBOL = 255;
+    private static final int MAX_WEIGHT_ACCURACY = 6;
+
+    private static final int[] MAX_ACCURACY = {9, 8, 9};
+    private static final int[] MAX_SYMBOL = {35, 31, 52};
+
+    private static final int[] LITERALS_LENGTH_BASE = {
+            0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15,
+            16, 18, 20, 22, 24, 28, 32, 40, 48, 64, 128, 256, 512, 1024, 2048, 4096,
+            8192, 16384, 32768, 65536
+    };
+    private static final int[] LITERALS_LENGTH_BITS = {
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            1, 1, 1, 1, 2, 2, 3, 3, 4, 6, 7, 8, 9, 10, 11, 12,
+            13, 14, 15, 16
+    };
+    private static final int[] MATCH_LENGTH_BASE = {
+            3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18,
+            19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32, 33, 34,
+            35, 37, 39, 41, 43, 47, 51, 59, 67, 83, 99, 131, 259, 515, 1027, 2051,
+            4099, 8195, 16387, 32771, 65539
+    };
+    private static final int[] MATCH_LENGTH_BITS = {
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            1, 1, 1, 1, 2, 2, 3, 3, 4, 4, 5, 7, 8, 9, 10, 11,
+            12, 13, 14, 15, 16
+    };
+
+    private static final FseTable[] PREDEFINED = {
+            FseTable.predefined(6, new short[]{
+                    4, 3, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 1, 1, 1,
+                    2, 2, 2, 2, 2, 2, 2, 2, 2, 3, 2, 1, 1, 1, 1, 1,
+                    -1, -1, -1, -1
+            }),
+            FseTable.predefined(5, new short[]{
+                    1, 1, 1, 1, 1, 1, 2, 2, 2, 1, 1, 1, 1, 1, 1, 1,
+                    1, 1, 1, 1, 1, 1, 1, 1, -1, -1, -1, -1, -1
+            }),
+            FseTable.predefined(6, new short[]{
+                    1, 4, 3, 2, 2, 2, 2, 2, 2, 1, 1, 1, 1, 1, 1, 1,
+                    1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+                    1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, -1, -1,
+                    -1, -1, -1, -1, -1
+            })
+    };
+
+    private final BitReader bits = new BitReader();
+    private final byte[] literals = new byte[MAX_BLOCK_SIZE];
+    private final byte[] huffmanSymbols = new byte[1 << MAX_HUFFMAN_BITS];
+    private final byte[] huffmanBits = new byte[1 << MAX_HUFFMAN_BITS];
+    private final byte[] weights = new byte[MAX_HUFFMAN_SYMBOL + 3];
+    private final short[] normalized = new short[MAX_HUFFMAN_SYMBOL + 1];
+    private final int[] symbolNext = new int[MAX_HUFFMAN_SYMBOL + 1];
+    private final FseTable weightTable = new FseTable(MAX_WEIGHT_ACCURACY);
+    private final FseTable[] tables = {
+            new FseTable(MAX_ACCURACY[LITERALS_LENGTH]),
+            new FseTable(MAX_ACCURACY[OFFSET]),
+            new FseTable(MAX_ACCURACY[MATCH_LENGTH])
+    };
+    private final FseTable[] current = new FseTable[3];
+    private final int[] repeatOffsets = new int[3];
+
+    private byte[] output = new byte[INITIAL_BUFFER];
+    private int outputLength;
+    private int huffmanMaxBits;
+
+    private byte[] literalSource;
+    private int literalPos;
+    private int literalEnd;
+
+    byte[] decompress(byte[] data) throws IOException {
+        outputLength = 0;
+        try {
+            int pos = 0;
+            while (pos < data.length) {
+                if (data.length - pos < 4) {
+                    throw new IOException("Truncated zstd frame header");
+                }
+                int magic = Coding.readInt32LE(data, pos);
+                if ((magic & SKIPPABLE_MAGIC_MASK) == SKIPPABLE_MAGIC) {
+                    long skip = Coding.readInt32LE(data, pos + 4) & 0xFFFFFFFFL;
+                    if (pos + 8 + skip > data.length) {
+                        throw new IOException("Truncated zstd skippable frame");
+                    }
+                    pos += 8 + (int) skip;
+                } else if (magic == MAGIC) {
+                    pos = decodeFrame(data, pos + 4);
+                } else {
+                    throw new IOException("Bad zstd magic: 0x" + Integer.toHexString(magic));
+                }
+            }
+            return Arrays.copyOf(output, outputLength);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt zstd frame", e);
+        } finally {
+            literalSource = null;
+            if (output.length > MAX_RETAINED_BUFFER) {
+                output = new byte[INITIAL_BUFFER];
+            }
+        }
+    }
+
+    private int decodeFrame(byte[] src, int pos) throws IOException {
+        int descriptor = src[pos++] & 0xFF;
+        int contentSizeFlag = descriptor >>> 6;
+        boolean singleSegment = (descriptor & 0x20) != 0;
+        boolean hasChecksum = (descriptor & 0x04) != 0;
+        int dictionaryFlag = descriptor & 0x03;
+        if ((descriptor & 0x08) != 0) {
+            throw new IOException("Reserved zstd frame header bit set");
+        }
+
+        if (!singleSegment) {
+            pos++;
+        }
+
+        int dictionaryIdSize = dictionaryFlag == 3 ? 4 : dictionaryFlag;
+        if (readLittleEndian(src, pos, dictionaryIdSize) != 0) {
+            throw new IOException("zstd dictionaries are not supported");
+        }
+        pos += dictionaryIdSize;
+
+        int contentSizeBytes = contentSizeFlag == 0 ? (singleSegment ? 1 : 0) : 1 << contentSizeFlag;
+        long contentSize = -1;
+        if (contentSizeBytes > 0) {
+            contentSize = readLittleEndian(src, pos, contentSizeBytes);
+            if (contentSizeBytes == 2) contentSize += 256;
+            pos += contentSizeBytes;
+            if (contentSize < 0 || contentSize > MAX_OUTPUT_SIZE - outputLength) {
+                throw new IOException("zstd frame too large: " + contentSize);
+            }
+            ensureCapacity((int) contentSize);
+        }
+
+        int frameStart = outputLength;
+        repeatOffsets[0] = 1;
+        repeatOffsets[1] = 4;
+        repeatOffsets[2] = 8;
+        huffmanMaxBits = 0;
+        Arrays.fill(current, null);
+
+        boolean lastBlock;
+        do {
+            if (pos + 3 > src.length) {
+                throw new IOException("Truncated zstd block header");
+            }
+            int header = (int) readLittleEndian(src, pos, 3);
+            pos += 3;
+            lastBlock = (header & 1) != 0;
+            int type = (header >>> 1) & 3;
+            int size = header >>> 3;
+            if (size > MAX_BLOCK_SIZE) {
+                throw new IOException("zstd block too large: " + size);
+            }
+
+            switch (type) {
+                case BLOCK_RAW:
+                    if (pos + size > src.length) {
+                        throw new IOException("Truncated zstd raw block");
+                    }
+                    ensureCapacity(size);
+                    System.arraycopy(src, pos, output, outputLength, size);
+                    outputLength += size;
+                    pos += size;
+                    break;
+                case BLOCK_RLE:
+                    ensureCapacity(size);
+                    Arrays.fill(output, outputLength, outputLength + size, src[pos]);
+                    outputLength += size;
+                    pos++;
+                    break;
+                case BLOCK_COMPRESSED:
+                    if (pos + size > src.length) {
+                        throw new IOException("Truncated zstd compressed block");
+                    }
+                    decodeBlock(src, pos, pos + size, frameStart);
+                    pos += size;
+                    break;
+                default:
+                    throw new IOException("Reserved zstd block type");
+            }
+        } while (!lastBlock);
+
+        if (hasChecksum) {
+            pos += 4;
+        }
+        if (contentSize >= 0 && outputLength - frameStart != contentSize) {
+            throw new IOException("zstd frame size mismatch: " + (outputLength - frameStart) + "/" + contentSize);
+        }
+        return pos;
+    }
+
+    private void decodeBlock(byte[] src, int pos, int end, int frameStart) throws IOException {
+        pos = decodeLiterals(src, pos, end);
+
+        int header = src[pos++] & 0xFF;
+        int count;
+        if (header < 128) {
+            count = header;
+        } else if (header < 255) {
+            count = ((header - 128) << 8) + (src[pos++] & 0xFF);
+        } else {
+            count = (src[pos] & 0xFF) + ((src[pos + 1] & 0xFF) << 8) + 0x7F00;
+            pos += 2;
+        }
+
+        if (count > 0) {
+            int modes = src[pos++] & 0xFF;
+            if ((modes & 0x03) != 0) {
+                throw new IOException("Reserved zstd sequence mode bits set");
+            }
+            for (int kind = LITERALS_LENGTH; kind <= MATCH_LENGTH; kind++) {
+                pos = selectTable(kind, (modes >>> (6 - 2 * kind)) & 3, src, pos, end);
+            }
+            decodeSequences(src, pos, end, count, frameStart);
+        }
+
+        int remaining = literalEnd - literalPos;
+        ensureCapacity(remaining);
+        System.arraycopy(literalSource, literalPos, output, outputLength, remaining);
+        outputLength += remaining;
+    }
+
+    private int decodeLiterals(byte[] src, int pos, int end) throws IOException {
+        int header = src[pos] & 0xFF;
+        int type = header & 3;
+        int sizeFormat = (header >>> 2) & 3;
+
+        if (type == LITERALS_RAW || type == LITERALS_RLE) {
+            int size;
+            if (sizeFormat == 1) {
+                size = (header >>> 4) + ((src[pos + 1] & 0xFF) << 4);
+                pos += 2;
+            } else if (sizeFormat == 3) {
+                size = (header >>> 4) + ((src[pos + 1] & 0xFF) << 4) + ((src[pos + 2] & 0xFF) << 12);
+                pos += 3;
+            } else {
+                size = header >>> 3;
+                pos++;
+            }
+            if (size > MAX_BLOCK_SIZE) {
+                throw new IOException("zstd literals too large: " + size);
+            }
+
+            if (type == LITERALS_RAW) {
+                if (pos + size > end) {
+                    throw new IOException("Truncated zstd raw literals");
+                }
+                setLiterals(src, pos, pos + size);
+                return pos + size;
+            }
+            Arrays.fill(literals, 0, size, src[pos]);
+            setLiterals(literals, 0, size);
+            return pos + 1;
+        }
+
+        int size;
+        int compressedSize;
+        if (sizeFormat <= 1) {
+            int value = (int) readLittleEndian(src, pos, 3);
+            size = (value >>> 4) & 0x3FF;
+            compressedSize = (value >>> 14) & 0x3FF;
+            pos += 3;
+        } else if (sizeFormat == 2) {
+            int value = Coding.readInt32LE(src, pos);
+            size = (value >>> 4) & 0x3FFF;
+            compressedSize = value >>> 18;
+            pos += 4;
+        } else {
+            long value = readLittleEndian(src, pos, 5);
+            size = (int) ((value >>> 4) & 0x3FFFF);
+            compressedSize = (int) ((value >>> 22) & 0x3FFFF);
+            pos += 5;
+        }
+        if (size > MAX_BLOCK_SIZE || pos + compressedSize > end) {
+            throw new IOException("Corrupt zstd literals header");
+        }
+
+        int streamEnd = pos + compressedSize;
+        int streamStart = pos;
+        if (type == LITERALS_COMPRESSED) {
+            streamStart = readHuffmanTable(src, pos, streamEnd);
+        } else if (huffmanMaxBits == 0) {
+            throw new IOException("zstd treeless literals without a previous table");
+        }
+
+        if (sizeFormat == 0) {
+            decodeHuffmanStream(src, streamStart, streamEnd, 0, size);
+        } else {
+            if (streamEnd - streamStart < 6) {
+                throw new IOException("Truncated zstd literals jump table");
+            }
+            int segment = (size + 3) / 4;
+            if (segment * 3 > size) {
+                throw new IOException("Corrupt zstd literals size: " + size);
+            }
+            int start1 = streamStart + 6;
+            int start2 = start1 + Coding.readInt16LE(src, streamStart);
+            int start3 = start2 + Coding.readInt16LE(src, streamStart + 2);
+            int start4 = start3 + Coding.readInt16LE(src, streamStart + 4);
+            if (start4 > streamEnd) {
+                throw new IOException("Corrupt zstd literals jump table");
+            }
+            decodeHuffmanStream(src, start1, start2, 0, segment);
+            decodeHuffmanStream(src, start2, start3, segment, 2 * segment);
+            decodeHuffmanStream(src, start3, start4, 2 * segment, 3 * segment);
+            decodeHuffmanStream(src, start4, streamEnd, 3 * segment, size);
+        }
+        setLiterals(literals, 0, size);
+        return streamEnd;
+    }
+
+    private void setLiterals(byte[] source, int start, int end) {
+        literalSource = source;
+        literalPos = start;
+        literalEnd = end;
+    }
+
+    private int readHuffmanTable(byte[] src, int pos, int end) throws IOException {
+        int header = src[pos++] & 0xFF;
+        int count;
+        if (header < 128) {
+            int weightsEnd = pos + header;
+            if (weightsEnd > end) {
+                throw new IOException("Truncated zstd Huffman weights");
+            }
+            count = decodeWeights(src, pos, weightsEnd);
+            pos = weightsEnd;
+        } else {
+            count = header - 127;
+            int size = (count + 1) / 2;
+            if (pos + size > end) {
+                throw new IOException("Truncated zstd Huffman weights");
+            }
+            for (int i = 0; i < count; i++) {
+                int b = src[pos + i / 2] & 0xFF;
+                weights[i] = (byte) ((i & 1) == 0 ? b >>> 4 : b & 0x0F);
+            }
+            pos += size;
+        }
+        buildHuffmanTable(count);
+        return pos;
+    }
+
+    private int decodeWeights(byte[] src, int pos, int end) throws IOException {
+        pos = readFseTable(src, pos, end, weightTable, MAX_WEIGHT_ACCURACY, MAX_HUFFMAN_BITS);
+        bits.init(src, pos, end);
+
+        FseTable table = weightTable;
+        int state1 = (int) bits.read(table.accuracy);
+        int state2 = (int) bits.read(table.accuracy);
+        int count = 0;
+        while (true) {
+            if (count > MAX_HUFFMAN_SYMBOL) {
+                throw new IOException("Too many zstd Huffman weights");
+            }
+            weights[count++] = table.symbols[state1];
+            state1 = table.baselines[state1] + (int) bits.read(table.bits[state1]);
+            if (bits.position < 0) {
+                weights[count++] = table.symbols[state2];
+                break;
+            }
+            weights[count++] = table.symbols[state2];
+            state2 = table.baselines[state2] + (int) bits.read(table.bits[state2]);
+            if (bits.position < 0) {
+                weights[count++] = table.symbols[state1];
+                break;
+            }
+        }
+        if (count > MAX_HUFFMAN_SYMBOL) {
+            throw new IOException("Too many zstd Huffman weights");
+        }
+        return count;
+    }
+
+    private void buildHuffmanTable(int count) throws IOException {
+        int sum = 0;
+        for (int i = 0; i < count; i++) {
+            int weight = weights[i];
+            if (weight > MAX_HUFFMAN_BITS) {
+                throw new IOException("Corrupt zstd Huffman weight: " + weight);
+            }
+            if (weight > 0) sum += 1 << (weight - 1);
+        }
+        if (sum == 0) {
+            throw new IOException("Empty zstd Huffman table");
+        }
+
+        int maxBits = 32 - Integer.numberOfLeadingZeros(sum);
+        int rest = (1 << maxBits) - sum;
+        if (maxBits > MAX_HUFFMAN_BITS || (rest & (rest - 1)) != 0) {
+            throw new IOException("Corrupt zstd Huffman weights");
+        }
+        weights[count] = (byte) (Integer.numberOfTrailingZeros(rest) + 1);
+
+        int position = 0;
+        for (int weight = 1; weight <= maxBits; weight++) {
+            int length = 1 << (weight - 1);
+            byte numBits = (byte) (maxBits + 1 - weight);
+            for (int symbol = 0; symbol <= count; symbol++) {
+                if (weights[symbol] == weight) {
+                    Arrays.fill(huffmanSymbols, position, position + length, (byte) symbol);
+                    Arrays.fill(huffmanBits, position, position + length, numBits);
+                    position += length;
+                }
+            }
+        }
+        huffmanMaxBits = maxBits;
+    }
+
+    private void decodeHuffmanStream(byte[] src, int start, int end, int from, int to) throws IOException {
+        BitReader reader = bits;
+        reader.init(src, start, end);
+        int maxBits = huffmanMaxBits;
+        byte[] symbols = huffmanSymbols;
+        byte[] numBits = huffmanBits;
+        for (int i = from; i < to; i++) {
+            int index = (int) reader.peek(maxBits);
+            literals[i] = symbols[index];
+            reader.position -= numBits[index];
+        }
+        if (reader.position != 0) {
+            throw new IOException("Corrupt zstd Huffman stream");
+        }
+    }
+
+    private int selectTable(int kind, int mode, byte[] src, int pos, int end) throws IOException {
+        switch (mode) {
+            case MODE_PREDEFINED:
+                current[kind] = PREDEFINED[kind];
+                return pos;
+            case MODE_RLE:
+                int symbol = src[pos++] & 0xFF;
+                if (symbol > MAX_SYMBOL[kind]) {
+                    throw new IOException("Corrupt zstd RLE symbol: " + symbol);
+                }
+                tables[kind].setRle(symbol);
+                current[kind] = tables[kind];
+                return pos;
+            case MODE_FSE:
+                pos = readFseTable(src, pos, end, tables[kind], MAX_ACCURACY[kind], MAX_SYMBOL[kind]);
+                current[kind] = tables[kind];
+                return pos;
+            default:
+                if (current[kind] == null) {
+                    throw new IOException("zstd repeat mode without a previous table");
+                }
+                return pos;
+        }
+    }
+
+    private int readFseTable(byte[] src, int pos, int end, FseTable table, int maxAccuracy, int maxSymbol)
+            throws IOException {
+        int accuracy = (readForward(src, pos, end, 0) & 0x0F) + 5;
+        if (accuracy > maxAccuracy) {
+            throw new IOException("zstd FSE accuracy too large: " + accuracy);
+        }
+
+        int bitOffset = 4;
+        int remaining = (1 << accuracy) + 1;
+        int threshold = 1 << accuracy;
+        int numBits = accuracy + 1;
+        int symbol = 0;
+        boolean previousZero = false;
+        while (remaining > 1 && symbol <= maxSymbol) {
+            if (previousZero) {
+                int repeat;
+                do {
+                    repeat = readForward(src, pos, end, bitOffset) & 3;
+                    bitOffset += 2;
+                    for (int i = 0; i < repeat && symbol <= maxSymbol; i++) {
+                        normalized[symbol++] = 0;
+                    }
+                } while (repeat == 3);
+                if (symbol > maxSymbol) break;
+            }
+
+            int value = readForward(src, pos, end, bitOffset);
+            int max = (2 * threshold - 1) - remaining;
+            int count;
+            if ((value & (threshold - 1)) < max) {
+                count = value & (threshold - 1);
+                bitOffset += numBits - 1;
+            } else {
+                count = value & (2 * threshold - 1);
+                if (count >= threshold) count -= max;
+                bitOffset += numBits;
+            }
+            count--;
+            remaining -= Math.abs(count);
+            normalized[symbol++] = (short) count;
+            previousZero = count == 0;
+            while (remaining < threshold) {
+                numBits--;
+                threshold >>= 1;
+            }
+        }
+
+        pos += (bitOffset + 7) >>> 3;
+        if (remaining != 1 || pos > end) {
+            throw new IOException("Corrupt zstd FSE table description");
+        }
+        table.build(normalized, symbol, accuracy, symbolNext);
+        return pos;
+    }
+
+    private void decodeSequences(byte[] src, int pos, int end, int count, int frameStart) throws IOException {
+        BitReader reader = bits;
+        reader.init(src, pos, end);
+
+        FseTable literalsLengths = current[LITERALS_LENGTH];
+        FseTable offsets = current[OFFSET];
+        FseTable matchLengths = current[MATCH_LENGTH];
+        int literalsLengthState = (int) reader.read(literalsLengths.accuracy);
+        int offsetState = (int) reader.read(offsets.accuracy);
+        int matchLengthState = (int) reader.read(matchLengths.accuracy);
+        int[] repeat = repeatOffsets;
+
+        for (int i = 0; i < count; i++) {
+            int offsetCode = offsets.symbols[offsetState];
+            int matchLengthCode = matchLengths.symbols[matchLengthState];
+            int literalsLengthCode = literalsLengths.symbols[literalsLengthState];
+
+            long offsetValue = (1L << offsetCode) + reader.read(offsetCode);
+            int matchLength = MATCH_LENGTH_BASE[matchLengthCode]
+                    + (int) reader.read(MATCH_LENGTH_BITS[matchLengthCode]);
+            int literalLength = LITERALS_LENGTH_BASE[literalsLengthCode]
+                    + (int) reader.read(LITERALS_LENGTH_BITS[literalsLengthCode]);
+
+            int offset;
+            if (offsetValue > 3) {
+                if (offsetValue - 3 > MAX_OUTPUT_SIZE) {
+                    throw new IOException("Corrupt zstd offset: " + offsetValue);
+                }
+                offset = (int) (offsetValue - 3);
+                repeat[2] = repeat[1];
+                repeat[1] = repeat[0];
+                repeat[0] = offset;
+            } else {
+                int index = (int) offsetValue - 1 + (literalLength == 0 ? 1 : 0);
+                if (index == 0) {
+                    offset = repeat[0];
+                } else {
+                    offset = index == 3 ? repeat[0] - 1 : repeat[index];
+                    if (index != 1) repeat[2] = repeat[1];
+                    repeat[1] = repeat[0];
+                    repeat[0] = offset;
+                }
+            }
+
+            if (i + 1 < count) {
+                literalsLengthState = literalsLengths.baselines[literalsLengthState]
+                        + (int) reader.read(literalsLengths.bits[literalsLengthState]);
+                matchLengthState = matchLengths.baselines[matchLengthState]
+                        + (int) reader.read(matchLengths.bits[matchLengthState]);
+                offsetState = offsets.baselines[offsetState]
+                        + (int) reader.read(offsets.bits[offsetState]);
+            }
+
+            copySequence(literalLength, matchLength, offset, frameStart);
+        }
+
+        if (reader.position != 0) {
+            throw new IOException("Corrupt zstd sequence stream");
+        }
+    }
+
+    private void copySequence(int literalLength, int matchLength, int offset, int frameStart) throws IOException {
+        if (literalLength > literalEnd - literalPos) {
+            throw new IOException("zstd sequence overruns literals");
+        }
+        ensureCapacity(literalLength + matchLength);
+        byte[] out = output;
+        System.arraycopy(literalSource, literalPos, out, outputLength, literalLength);
+        literalPos += literalLength;
+        int position = outputLength + literalLength;
+
+        if (offset <= 0 || offset > position - frameStart) {
+            throw new IOException("Corrupt zstd match offset: " + offset);
+        }
+        int from = position - offset;
+        if (offset >= matchLength) {
+            System.arraycopy(out, from, out, position, matchLength);
+        } else {
+            for (int i = 0; i < matchLength; i++) {
+                out[position + i] = out[from + i];
+            }
+        }
+        outputLength = position + matchLength;
+    }
+
+    private void ensureCapacity(int extra) throws IOException {
+        long required = (long) outputLength + extra;
+        if (required <= output.length) return;
+        if (required > MAX_OUTPUT_SIZE) {
+            throw new IOException("Decompressed block exceeds " + MAX_OUTPUT_SIZE + " bytes");
+        }
+        int capacity = (int) Math.min(MAX_OUTPUT_SIZE, Math.max(required, (long) output.length * 2));
+        output = Arrays.copyOf(output, capacity);
+    }
+
+    private static int readForward(byte[] src, int pos, int end, int bitOffset) {
+        int index = pos + (bitOffset >>> 3);
+        long word = 0;
+        for (int i = 0; i < 5 && index + i < end; i++) {
+            word |= (long) (src[index + i] & 0xFF) << (8 * i);
+        }
+        return (int) (word >>> (bitOffset & 7));
+    }
+
+    private static long readLittleEndian(byte[] src, int pos, int size) {
+        long value = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            value = (value << 8) | (src[pos + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static final class BitReader {
+        private byte[] data;
+        private int start;
+        private int end;
+        int position;
+
+        void init(byte[] data, int start, int end) throws IOException {
+            if (end <= start || data[end - 1] == 0) {
+                throw new IOException("Corrupt zstd bitstream");
+            }
+            this.data = data;
+            this.start = start;
+            this.end = end;
+            position = (end - start - 1) * 8 + (31 - Integer.numberOfLeadingZeros(data[end - 1] & 0xFF));
+        }
+
+        long read(int count) {
+            if (count == 0) return 0;
+            position -= count;
+            return bitsAt(position, count);
+        }
+
+        long peek(int count) {
+            return bitsAt(position - count, count);
+        }
+
+        private long bitsAt(int pos, int count) {
+            if (pos < 0) {
+                int available = count + pos;
+                return available > 0 ? bitsAt(0, available) << -pos : 0;
+            }
+            int index = start + (pos >>> 3);
+            long word;
+            if (index + 8 <= end) {
+                word = Coding.readInt64LE(data, index);
+            } else {
+                word = 0;
+                for (int i = end - 1; i >= index; i--) {
+                    word = (word << 8) | (data[i] & 0xFF);
+                }
+            }
+            return (word >>> (pos & 7)) & ((1L << count) - 1);
+        }
+    }
+
+    private static final class FseTable {
+        final byte[] symbols;
+        final byte[] bits;
+        final int[] baselines;
+        int accuracy;
+
+        FseTable(int maxAccuracy) {
+            symbols = new byte[1 << maxAccuracy];
+            bits = new byte[1 << maxAccuracy];
+            baselines = new int[1 << maxAccuracy];
+        }
+
+        static FseTable predefined(int accuracy, short[] distribution) {
+            FseTable table = new FseTable(accuracy);
+            try {
+                table.build(distribution, distribution.length, accuracy, new int[distribution.length]);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return table;
+        }
+
+        void setRle(int symbol) {
+            accuracy = 0;
+            symbols[0] = (byte) symbol;
+            bits[0] = 0;
+            baselines[0] = 0;
+        }
+
+        void build(short[] distribution, int symbolCount, int accuracy, int[] next) throws IOException {
+            int size = 1 << accuracy;
+            int high = size - 1;
+            for (int s = 0; s < symbolCount; s++) {
+                if (distribution[s] == -1) {
+                    symbols[high--] = (byte) s;
+                    next[s] = 1;
+                } else {
+                    next[s] = distribution[s];
+                }
+            }
+
+            int mask = size - 1;
+            int step = (size >>> 1) + (size >>> 3) + 3;
+            int position = 0;
+            for (int s = 0; s < symbolCount; s++) {
+                for (int i = 0; i < distribution[s]; i++) {
+                    symbols[position] = (byte) s;
+                    do {
+                        position = (position + step) & mask;
+                    } while (position > high);
+                }
+            }
+            if (position != 0) {
+                throw new IOException("Corrupt zstd FSE distribution");
+            }
+
+            for (int state = 0; state < size; state++) {
+                int symbol = symbols[state] & 0xFF;
+                int nextState = next[symbol]++;
+                int numBits = accuracy - (31 - Integer.numberOfLeadingZeros(nextState));
+                bits[state] = (byte) numBits;
+                baselines[state] = (nextState << numBits) - size;
+            }
+            this.accuracy = accuracy;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
@@ -15,10 +16,19 @@ import java.util.Map;
 
 public class BedrockNbtReader {
     
+    private final int maxListSize;
     private ByteBuffer buffer;
     private int headerVersion;
     private int payloadLength;
 
+    public BedrockNbtReader() {
+        this(MAX_LIST_SIZE);
+    }
+
+    public BedrockNbtReader(int maxListSize) {
+        this.maxListSize = maxListSize;
+    }
+
     public NbtTag readFile(File file) throws IOException {
         byte[] data = readFileBytes(file);
         return readFromBytes(data);
@@ -44,6 +54,38 @@ public class BedrockNbtReader {
         return readTag();
     }
 
+    public NbtTag readTag(ByteBuffer source) throws IOException {
+        ByteOrder order = source.order();
+        buffer = source.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            return readTag();
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated NBT data");
+        } finally {
+            source.order(order);
+        }
+    }
+
+    public List<NbtTag> readAll(byte[] data) throws IOException {
+        List<NbtTag> tags = new ArrayList<>();
+        ByteBuffer source = ByteBuffer.wrap(data);
+        while (source.hasRemaining()) {
+            tags.add(readTag(source));
+        }
+        return tags;
+    }
+
+    public static void skipTag(ByteBuffer source) throws IOException {
+        try {
+            byte type = source.get();
+            if (type == NbtTag.TAG_END) return;
+            skip(source, source.getShort() & 0xFFFF, 1);
+            skipPayload(source, type, 0);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated NBT data");
+        }
+    }
+
     public int getHeaderVersion() {
         return headerVersion;
     }
@@ -138,6 +180,48 @@ public class BedrockNbtReader {
         return array;
     }
 
+    private static void skipPayload(ByteBuffer source, byte type, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("NBT nested too deeply");
+        }
+        switch (type) {
+            case NbtTag.TAG_BYTE -> skip(source, 1, 1);
+            case NbtTag.TAG_SHORT -> skip(source, 1, 2);
+            case NbtTag.TAG_INT, NbtTag.TAG_FLOAT -> skip(source, 1, 4);
+            case NbtTag.TAG_LONG, NbtTag.TAG_DOUBLE -> skip(source, 1, 8);
+            case NbtTag.TAG_BYTE_ARRAY -> skip(source, source.getInt(), 1);
+            case NbtTag.TAG_STRING -> skip(source, source.getShort() & 0xFFFF, 1);
+            case NbtTag.TAG_INT_ARRAY -> skip(source, source.getInt(), 4);
+            case NbtTag.TAG_LONG_ARRAY -> skip(source, source.getInt(), 8);
+            case NbtTag.TAG_LIST -> {
+                byte listType = source.get();
+                int length = source.getInt();
+                if (length < 0 || length > MAX_LIST_SIZE) {
+                    throw new IOException("Invalid list length: " + length);
+                }
+                for (int i = 0; i < length; i++) {
+                    skipPayload(source, listType, depth + 1);
+                }
+            }
+            case NbtTag.TAG_COMPOUND -> {
+                byte childType;
+                while ((childType = source.get()) != NbtTag.TAG_END) {
+                    skip(source, source.getShort() & 0xFFFF, 1);
+                    skipPayload(source, childType, depth + 1);
+                }
+            }
+            default -> throw new IOException("Unknown tag type: " + type);
+        }
+    }
+
+    private static void skip(ByteBuffer source, int count, int size) throws IOException {
+        if (count < 0 || (long) count * size > source.remaining()) {
+            throw new IOException("NBT value exceeds buffer: " + count);
+        }
+        source.position(source.position() + count * size);
+    }
+
+    private static final int MAX_DEPTH = 512;
     private static final int MAX_LIST_SIZE = 65536;
     private static final int MAX_ARRAY_SIZE = 1024 * 1024;
 
@@ -145,7 +229,7 @@ public class BedrockNbtReader {
         byte listType = buffer.get();
         int length = buffer.getInt();
 
-        if (length < 0 || length > MAX_LIST_SIZE) {
+        if (length < 0 || length > maxListSize) {
             throw new IOException("Invalid list length: " + length);
         }
         
@@ -48,6 +48,11 @@ public class BedrockNbtWriter {
         return finalOutput.toByteArray();
     }
 
+    public void writeTag(NbtTag root, ByteArrayOutputStream out) throws IOException {
+        baos = out;
+        writeTag(root);
+    }
+
     private void writeTag(NbtTag tag) throws IOException {
         if (tag == null || tag.getType() == NbtTag.TAG_END) {
             baos.write(NbtTag.TAG_END);
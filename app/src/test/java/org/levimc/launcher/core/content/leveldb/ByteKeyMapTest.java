@@ -0,0 +1,120 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class ByteKeyMapTest {
+    private static final int KEYS = 1_000_000;
+
+    @Test
+    public void matchesHashMapAcrossResizes() {
+        Random random = new Random(7);
+        ByteKeyMap map = new ByteKeyMap(1);
+        Map<ByteBuffer, Integer> model = new HashMap<>();
+        byte[][] keys = new byte[KEYS][];
+        int checkpoint = 16;
+
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = chunkKey(random, i);
+            int entry = map.add(keys[i], 0, keys[i].length, i);
+            Integer previous = model.putIfAbsent(ByteBuffer.wrap(keys[i]), i);
+            assertEquals(previous != null ? previous : i, map.value(entry));
+
+            // Re-adding an existing key must return its entry instead of a new one.
+            byte[] repeat = keys[random.nextInt(i + 1)];
+            assertEquals(map.find(repeat, 0, repeat.length), map.add(repeat, 0, repeat.length, -1));
+
+            if (i + 1 == checkpoint) {
+                assertMatches(map, model);
+                checkpoint <<= 2;
+            }
+        }
+        assertMatches(map, model);
+
+        for (int i = 0; i < KEYS; i++) {
+            byte[] absent = chunkKey(random, KEYS + i);
+            absent[8] = 0x7F;
+            assertEquals(ByteKeyMap.MISSING, map.find(absent, 0, absent.length));
+        }
+    }
+
+    @Test
+    public void distinguishesKeysWithEqualHashes() {
+        Random random = new Random(11);
+        Map<Integer, byte[]> byHash = new HashMap<>();
+        ByteKeyMap map = new ByteKeyMap(16);
+        Map<ByteBuffer, Integer> model = new HashMap<>();
+        int collisions = 0;
+
+        for (int i = 0; i < KEYS; i++) {
+            byte[] key = chunkKey(random, i);
+            byte[] other = byHash.putIfAbsent(ByteKeyMap.hash(key, 0, key.length), key);
+            if (other == null || Arrays.equals(other, key)) continue;
+
+            collisions++;
+            map.add(other, 0, other.length, 2 * collisions);
+            map.add(key, 0, key.length, 2 * collisions + 1);
+            model.putIfAbsent(ByteBuffer.wrap(other), 2 * collisions);
+            model.putIfAbsent(ByteBuffer.wrap(key), 2 * collisions + 1);
+        }
+        assertTrue("no 32-bit hash collisions among " + KEYS + " keys", collisions > 0);
+        assertMatches(map, model);
+    }
+
+    @Test
+    public void findsKeysInsideLargerArrays() {
+        ByteKeyMap map = new ByteKeyMap(4);
+        byte[] buffer = {9, 1, 2, 3, 4, 5, 9};
+        int whole = map.add(buffer, 1, 5, 1);
+        int prefix = map.add(buffer, 1, 4, 2);
+        int empty = map.add(buffer, 3, 0, 3);
+
+        assertNotEquals(whole, prefix);
+        assertEquals(whole, map.find(new byte[]{1, 2, 3, 4, 5}, 0, 5));
+        assertEquals(prefix, map.find(new byte[]{0, 1, 2, 3, 4}, 1, 4));
+        assertEquals(empty, map.find(new byte[0], 0, 0));
+        assertEquals(ByteKeyMap.MISSING, map.find(new byte[]{2, 3, 4, 5}, 0, 4));
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, Arrays.copyOfRange(map.keys(), map.keyOffset(prefix),
+                map.keyOffset(prefix) + map.keyLength(prefix)));
+
+        map.setValue(prefix, 20);
+        assertEquals(20, map.value(map.find(buffer, 1, 4)));
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(ByteKeyMap.MISSING, map.find(buffer, 1, 5));
+        assertEquals(0, map.add(buffer, 2, 3, 7));
+        assertEquals(7, map.value(map.find(new byte[]{2, 3, 4}, 0, 3)));
+    }
+
+    private static void assertMatches(ByteKeyMap map, Map<ByteBuffer, Integer> model) {
+        assertEquals(model.size(), map.size());
+        for (Map.Entry<ByteBuffer, Integer> entry : model.entrySet()) {
+            byte[] key = entry.getKey().array();
+            int found = map.find(key, 0, key.length);
+            assertNotEquals(ByteKeyMap.MISSING, found);
+            assertEquals((int) entry.getValue(), map.value(found));
+            assertArrayEquals(key, Arrays.copyOfRange(map.keys(), map.keyOffset(found), map.keyOffset(found) + map.keyLength(found)));
+        }
+    }
+
+    // Chunk-style keys: x, z, a tag byte, and a dimension on roughly half of them. Duplicates are expected.
+    private static byte[] chunkKey(Random random, int i) {
+        byte[] key = new byte[random.nextBoolean() ? 9 : 13];
+        Coding.putInt32LE(key, 0, random.nextInt(2000) - 1000);
+        Coding.putInt32LE(key, 4, random.nextInt(2000) - 1000);
+        key[8] = (byte) (0x2C + (i & 3));
+        if (key.length == 13) Coding.putInt32LE(key, 9, 1);
+        return key;
+    }
+}
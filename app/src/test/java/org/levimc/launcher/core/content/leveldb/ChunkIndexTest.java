@@ -0,0 +1,108 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.bytes;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.hex;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ChunkIndexTest {
+    private static final ChunkPos KEPT = new ChunkPos(LevelDBKey.OVERWORLD, 1, 2);
+    private static final ChunkPos DELETED = new ChunkPos(LevelDBKey.OVERWORLD, -3, 4);
+    private static final ChunkPos REWRITTEN = new ChunkPos(LevelDBKey.OVERWORLD, 5, -6);
+    private static final ChunkPos NETHER = new ChunkPos(LevelDBKey.NETHER, 0, 0);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void deletionsInNewerLogHideChunksFromOlderTables() throws IOException {
+        File db = folder.newFolder("db");
+        LevelDBWriter writer = new LevelDBWriter(db);
+        try {
+            WriteBatch batch = new WriteBatch();
+            for (ChunkPos pos : Arrays.asList(KEPT, DELETED, REWRITTEN, NETHER)) {
+                putChunk(batch, pos, "table");
+            }
+            writer.writeTable(batch);
+
+            batch = new WriteBatch();
+            deleteChunk(batch, REWRITTEN);
+            writer.writeTable(batch);
+
+            batch = new WriteBatch();
+            deleteChunk(batch, DELETED);
+            batch.delete(KEPT.key(LevelDBKey.KeyType.ENTITY));
+            batch.put(REWRITTEN.subChunkKey(0), bytes("log"));
+            deleteChunk(batch, NETHER);
+            batch.put(NETHER.key(LevelDBKey.KeyType.CHUNK_VERSION), bytes("log"));
+            writer.writeLog(batch);
+        } finally {
+            writer.close();
+        }
+
+        File indexFile = new File(folder.getRoot(), "chunk_index.bin");
+        ChunkIndex index = new ChunkIndex(db, indexFile);
+        index.update();
+        assertIndex(index);
+        assertTrue(indexFile.isFile());
+
+        ChunkIndex reloaded = new ChunkIndex(db, indexFile);
+        reloaded.update();
+        assertIndex(reloaded);
+
+        LevelDBReader reader = new LevelDBReader(db);
+        try {
+            assertTrue(reader.readChunk(index, DELETED).isEmpty());
+            assertEquals(Arrays.asList(hex(KEPT.key(LevelDBKey.KeyType.CHUNK_VERSION)), hex(KEPT.subChunkKey(0)),
+                    hex(KEPT.subChunkKey(-1))), keys(reader.readChunk(index, KEPT)));
+            assertEquals(Arrays.asList(hex(REWRITTEN.subChunkKey(0))), keys(reader.readChunk(index, REWRITTEN)));
+            assertEquals(Arrays.asList(hex(NETHER.key(LevelDBKey.KeyType.CHUNK_VERSION))), keys(reader.readChunk(index, NETHER)));
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void assertIndex(ChunkIndex index) {
+        assertEquals(3, index.getChunkCount());
+        assertEquals(Arrays.asList(KEPT, REWRITTEN), index.getChunks(LevelDBKey.OVERWORLD));
+        assertEquals(Arrays.asList(NETHER), index.getChunks(LevelDBKey.NETHER));
+        assertFalse(index.contains(DELETED));
+        assertTrue(index.contains(KEPT));
+    }
+
+    private static void putChunk(WriteBatch batch, ChunkPos pos, String value) {
+        for (byte[] key : chunkKeys(pos)) {
+            batch.put(key, bytes(value + hex(key)));
+        }
+    }
+
+    private static void deleteChunk(WriteBatch batch, ChunkPos pos) {
+        for (byte[] key : chunkKeys(pos)) {
+            batch.delete(key);
+        }
+    }
+
+    private static List<byte[]> chunkKeys(ChunkPos pos) {
+        return Arrays.asList(pos.key(LevelDBKey.KeyType.CHUNK_VERSION), pos.key(LevelDBKey.KeyType.ENTITY),
+                pos.subChunkKey(0), pos.subChunkKey(-1));
+    }
+
+    private static List<String> keys(List<LevelDBEntry> entries) {
+        List<String> keys = new ArrayList<>();
+        for (LevelDBEntry entry : entries) {
+            keys.add(hex(entry.getKey().getRawKey()));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,92 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.bytes;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.dump;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.hex;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ChunkPrunerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void pruneKeepsAreasWithTheirActorsAndGlobalKeys() throws IOException {
+        File db = folder.newFolder("db");
+        Map<String, byte[]> expected = new TreeMap<>();
+        long nextActor = 1;
+
+        LevelDBWriter writer = new LevelDBWriter(db);
+        try {
+            WriteBatch batch = new WriteBatch();
+            for (int dimension = LevelDBKey.OVERWORLD; dimension <= LevelDBKey.NETHER; dimension++) {
+                for (int x = -10; x < 10; x++) {
+                    for (int z = -10; z < 10; z++) {
+                        ChunkPos pos = new ChunkPos(dimension, x, z);
+                        boolean keep = dimension == LevelDBKey.NETHER
+                                || (Math.abs(x) <= 3 && Math.abs(z) <= 3)
+                                || (x >= 8 && z >= 8);
+                        long first = nextActor++;
+                        long second = nextActor++;
+                        byte[] ids = new byte[16];
+                        Coding.putInt64LE(ids, 0, first);
+                        Coding.putInt64LE(ids, 8, second);
+
+                        put(batch, expected, keep, pos.key(LevelDBKey.KeyType.CHUNK_VERSION), new byte[]{40});
+                        put(batch, expected, keep, pos.subChunkKey(0), bytes("sub" + pos));
+                        put(batch, expected, keep, LevelDBKey.digestKey(pos), ids);
+                        put(batch, expected, keep, LevelDBKey.actorKey(first), bytes("actor" + first));
+                        put(batch, expected, keep, LevelDBKey.actorKey(second), bytes("actor" + second));
+                    }
+                }
+            }
+            put(batch, expected, true, bytes("~local_player"), bytes("player"));
+            put(batch, expected, true, bytes("structuretemplate_mystructure:house"), bytes("house"));
+            writer.writeTable(batch);
+        } finally {
+            writer.close();
+        }
+
+        ChunkPruner pruner = new ChunkPruner();
+        pruner.keepRadius(LevelDBKey.OVERWORLD, 0, 0, 3);
+        pruner.keepArea(LevelDBKey.OVERWORLD, 9, 9, 8, 8);
+        assertFalse(pruner.isPruned(LevelDBKey.NETHER, 100, 100));
+        assertTrue(pruner.isPruned(LevelDBKey.OVERWORLD, 4, 0));
+
+        CompactionResult result = pruner.prune(db);
+        Map<String, byte[]> actual = dump(db);
+        assertEquals(expected.keySet(), new TreeMap<>(actual).keySet());
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getKey(), entry.getValue(), actual.get(entry.getKey()));
+        }
+        assertEquals(expected.size(), result.getEntriesKept());
+        assertEquals((400 - 49 - 4) * 5, result.getEntriesDropped());
+    }
+
+    @Test
+    public void pruneWithoutKeptAreasFails() throws IOException {
+        File db = folder.newFolder("db");
+        try {
+            new ChunkPruner().prune(db);
+            fail("Pruned without any kept area");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static void put(WriteBatch batch, Map<String, byte[]> expected, boolean keep, byte[] key, byte[] value) {
+        batch.put(key, value);
+        if (keep) expected.put(hex(key), value);
+    }
+}
@@ -0,0 +1,164 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.bytes;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.resource;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class CompressionTest {
+    private static final int FIXTURE_KEYS = 300;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void snappyMatchesReferenceCompressor() throws IOException {
+        byte[] expected = resource("/leveldb/compression-input.bin");
+        assertArrayEquals(expected, Compression.decompress(Compression.SNAPPY, resource("/leveldb/compression-input.snappy")));
+    }
+
+    @Test
+    public void lz4MatchesReferenceCompressor() throws IOException {
+        byte[] expected = resource("/leveldb/compression-input.bin");
+        assertArrayEquals(expected, Compression.decompress(Compression.LZ4, resource("/leveldb/compression-input.lz4")));
+    }
+
+    @Test
+    public void corruptSnappyThrows() throws IOException {
+        byte[] data = resource("/leveldb/compression-input.snappy");
+        assertCorrupt(Compression.SNAPPY, Arrays.copyOf(data, data.length / 2));
+        assertCorrupt(Compression.SNAPPY, new byte[0]);
+
+        byte[] longer = data.clone();
+        longer[0] ^= 0x01;
+        assertCorrupt(Compression.SNAPPY, longer);
+    }
+
+    @Test
+    public void corruptLz4Throws() throws IOException {
+        byte[] data = resource("/leveldb/compression-input.lz4");
+        assertCorrupt(Compression.LZ4, Arrays.copyOf(data, data.length / 2));
+        assertCorrupt(Compression.LZ4, new byte[]{1, 2});
+
+        byte[] longer = data.clone();
+        longer[0] += 1;
+        assertCorrupt(Compression.LZ4, longer);
+    }
+
+    @Test
+    public void corruptDeflateAndUnknownTypesThrow() {
+        assertCorrupt(Compression.ZLIB_RAW, bytes("not a deflate stream at all"));
+        assertCorrupt(Compression.ZLIB, bytes("not a zlib stream either"));
+        assertCorrupt(3, bytes("payload"));
+    }
+
+    // table-*.ldb come from an independent table writer in Bedrock's layout, not from a world save
+    @Test
+    public void uncompressedTableDecodesEveryBlock() throws IOException {
+        assertTableDecodes("table-none.ldb", Compression.NONE);
+    }
+
+    @Test
+    public void zlibTableDecodesEveryBlock() throws IOException {
+        assertTableDecodes("table-zlib.ldb", Compression.ZLIB);
+    }
+
+    @Test
+    public void rawDeflateTableDecodesEveryBlock() throws IOException {
+        assertTableDecodes("table-zlib-raw.ldb", Compression.ZLIB_RAW);
+    }
+
+    @Test
+    public void corruptTableBlockFailsVerification() throws IOException {
+        byte[] table = resource("/leveldb/table-zlib-raw.ldb");
+        table[10] ^= 0x40;
+        File file = folder.newFile("000001.ldb");
+        Files.write(file.toPath(), table);
+
+        TableReader reader = new TableReader(file, 1, null, false);
+        try {
+            BlockIterator index = reader.indexIterator();
+            index.seekToFirst();
+            reader.readVerifiedBlock(BlockHandle.decode(index.value()));
+            fail("Corrupt block passed verification");
+        } catch (IOException expected) {
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void assertTableDecodes(String name, int compressionType) throws IOException {
+        byte[] table = resource("/leveldb/" + name);
+        File file = folder.newFile("000001.ldb");
+        Files.write(file.toPath(), table);
+
+        int key = 0;
+        boolean deletionPending = true;
+        int blocks = 0;
+        TableReader reader = new TableReader(file, 1, null, false);
+        try {
+            BlockIterator index = reader.indexIterator();
+            for (index.seekToFirst(); index.isValid(); index.next()) {
+                BlockHandle handle = BlockHandle.decode(index.value());
+                assertEquals(compressionType, table[(int) (handle.offset + handle.size)]);
+                BlockIterator block = reader.readVerifiedBlock(handle).iterator();
+                blocks++;
+                for (block.seekToFirst(); block.isValid(); block.next()) {
+                    byte[] internalKey = block.keyArray();
+                    int length = block.keyLength();
+                    assertArrayEquals(bytes(String.format("key%05d", key)), InternalKey.userKey(internalKey, 0, length));
+
+                    ByteBuffer slice = block.value();
+                    byte[] value = new byte[slice.remaining()];
+                    slice.get(value);
+                    if (key % 20 == 0 && deletionPending) {
+                        assertEquals(InternalKey.TYPE_DELETION, InternalKey.type(internalKey, 0, length));
+                        assertEquals(1000 + key, InternalKey.sequence(internalKey, 0, length));
+                        assertEquals(0, value.length);
+                        deletionPending = false;
+                        continue;
+                    }
+                    assertEquals(InternalKey.TYPE_VALUE, InternalKey.type(internalKey, 0, length));
+                    assertEquals(key + 1, InternalKey.sequence(internalKey, 0, length));
+                    assertArrayEquals(expectedValue(key), value);
+                    key++;
+                    deletionPending = true;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        assertEquals(FIXTURE_KEYS, key);
+        assertTrue(blocks > 1);
+        assertFalse(reader.getSkippedBlockCount() > 0);
+    }
+
+    private static byte[] expectedValue(int key) {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i <= key % 20; i++) {
+            value.append('v').append(key).append(':');
+        }
+        return bytes(value.toString());
+    }
+
+    private static void assertCorrupt(int compressionType, byte[] data) {
+        try {
+            Compression.decompress(compressionType, data);
+            fail("Corrupt type " + compressionType + " block decompressed");
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class FlatChunkWriterTest {
+    private static final String AIR = "minecraft:air";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void flatChunksDecodeBackToTheColumn() throws IOException {
+        List<String> column = new ArrayList<>();
+        column.add("minecraft:bedrock");
+        column.addAll(Collections.nCopies(40, "minecraft:stone"));
+        column.addAll(Collections.nCopies(3, "minecraft:dirt"));
+        column.add(AIR);
+        column.add("minecraft:grass_block");
+
+        File db = new File(folder.getRoot(), "db");
+        int radius = 2;
+        assertEquals(25, new FlatChunkWriter(column, 1).write(db, radius));
+
+        LevelDBReader reader = new LevelDBReader(db);
+        try {
+            for (int x = -radius; x <= radius; x++) {
+                for (int z = -radius; z <= radius; z++) {
+                    ChunkPos pos = new ChunkPos(LevelDBKey.OVERWORLD, x, z);
+                    assertColumn(reader, pos, column);
+                    assertChunkRecords(reader, pos, column.size(), 1);
+                }
+            }
+            assertNull(reader.get(new ChunkPos(LevelDBKey.OVERWORLD, radius + 1, 0).key(LevelDBKey.KeyType.CHUNK_VERSION)));
+            assertNull(reader.get(new ChunkPos(LevelDBKey.NETHER, 0, 0).key(LevelDBKey.KeyType.CHUNK_VERSION)));
+            assertEquals(25 * (3 + 3), reader.readAllEntries().size());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void fullHeightColumnUsesWiderPalettesAndIsClipped() throws IOException {
+        List<String> column = new ArrayList<>();
+        for (int y = 0; y < 400; y++) {
+            // 16 distinct blocks in the bottom sub-chunk, two in the next, three in the one after, stone above.
+            if (y < 16) column.add("minecraft:test_" + y);
+            else if (y < 32) column.add(y % 2 == 0 ? "minecraft:stone" : AIR);
+            else if (y < 48) column.add(y % 3 == 0 ? "minecraft:dirt" : y % 3 == 1 ? "minecraft:sand" : AIR);
+            else column.add("minecraft:stone");
+        }
+
+        File db = new File(folder.getRoot(), "db");
+        assertEquals(1, new FlatChunkWriter(column, 7).write(db, 0));
+
+        LevelDBReader reader = new LevelDBReader(db);
+        try {
+            ChunkPos pos = new ChunkPos(LevelDBKey.OVERWORLD, 0, 0);
+            assertColumn(reader, pos, column.subList(0, FlatChunkWriter.WORLD_HEIGHT));
+            assertChunkRecords(reader, pos, FlatChunkWriter.WORLD_HEIGHT, 7);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void existingDatabaseIsRejected() throws IOException {
+        File db = folder.newFolder("db");
+        LevelDBWriter writer = new LevelDBWriter(db);
+        try {
+            WriteBatch batch = new WriteBatch();
+            batch.put(LevelDBTestUtil.bytes("key"), LevelDBTestUtil.bytes("value"));
+            writer.writeTable(batch);
+        } finally {
+            writer.close();
+        }
+
+        try {
+            new FlatChunkWriter(Collections.singletonList("minecraft:stone"), 1).write(db, 1);
+            fail("Flat chunks were written into an existing database");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static void assertColumn(LevelDBReader reader, ChunkPos pos, List<String> column) throws IOException {
+        SubChunkDecoder decoder = new SubChunkDecoder();
+        int minSubChunk = FlatChunkWriter.MIN_Y >> 4;
+        for (int index = 0; index < FlatChunkWriter.WORLD_HEIGHT >> 4; index++) {
+            int subChunkY = minSubChunk + index;
+            byte[] value = reader.get(pos.subChunkKey(subChunkY));
+            if (isAir(column, index * 16, index * 16 + 16)) {
+                assertNull("sub-chunk " + subChunkY + " of " + pos, value);
+                continue;
+            }
+            assertTrue(decoder.decode(ByteBuffer.wrap(value), subChunkY));
+            assertEquals(subChunkY, decoder.getYIndex());
+            for (int y = 0; y < 16; y++) {
+                int worldY = index * 16 + y;
+                String expected = worldY < column.size() ? column.get(worldY) : AIR;
+                for (int x = 0; x < 16; x++) {
+                    for (int z = 0; z < 16; z++) {
+                        assertEquals(pos + " y=" + worldY, expected, decoder.getBlockState(decoder.getBlock(x, y, z)).name);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void assertChunkRecords(LevelDBReader reader, ChunkPos pos, int top, int biome) throws IOException {
+        byte[] data3D = reader.get(pos.key(LevelDBKey.KeyType.DATA_3D));
+        assertEquals(512 + 5 + 23, data3D.length);
+        for (int column = 0; column < 256; column++) {
+            assertEquals(top, (data3D[column * 2] & 0xFF) | (data3D[column * 2 + 1] & 0xFF) << 8);
+        }
+        assertEquals(1, data3D[512]);
+        assertEquals(biome, Coding.readInt32LE(data3D, 513));
+        for (int i = 517; i < data3D.length; i++) {
+            assertEquals((byte) 0xFF, data3D[i]);
+        }
+        assertArrayEquals(new byte[]{40}, reader.get(pos.key(LevelDBKey.KeyType.CHUNK_VERSION)));
+        assertArrayEquals(new byte[]{2, 0, 0, 0}, reader.get(pos.key(LevelDBKey.KeyType.FINALIZED_STATE)));
+    }
+
+    private static boolean isAir(List<String> column, int from, int to) {
+        for (int y = from; y < Math.min(to, column.size()); y++) {
+            if (!AIR.equals(column.get(y))) return false;
+        }
+        return true;
+    }
+}
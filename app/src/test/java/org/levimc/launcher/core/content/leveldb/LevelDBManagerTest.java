@@ -0,0 +1,188 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.bytes;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.compound;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.list;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.nbt;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.levimc.launcher.core.content.nbt.NbtTag;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class LevelDBManagerTest {
+    private static final String GRASS = "minecraft:grass_block";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File world;
+    private LevelDBManager manager;
+
+    @Before
+    public void setUp() throws IOException {
+        world = folder.newFolder("world");
+        manager = new LevelDBManager(world);
+    }
+
+    @After
+    public void tearDown() {
+        manager.shutdown();
+    }
+
+    @Test
+    public void blockSearchIsTruncatedOnlyWhenAMatchIsDropped() throws Exception {
+        // Grass fills the bottom layer of the lowest sub-chunk; the sub-chunk above holds only stone.
+        List<String> column = new ArrayList<>();
+        column.add(GRASS);
+        column.addAll(Collections.nCopies(16, "minecraft:stone"));
+        int chunks = new FlatChunkWriter(column, 1).write(new File(world, "db"), 1);
+        int total = chunks * 256;
+
+        BlockSearchResult exact = findBlocks(total);
+        assertEquals(total, exact.getMatches().size());
+        assertFalse(exact.isTruncated());
+
+        BlockSearchResult larger = findBlocks(total + 1);
+        assertEquals(total, larger.getMatches().size());
+        assertFalse(larger.isTruncated());
+
+        BlockSearchResult smaller = findBlocks(total - 1);
+        assertEquals(total - 1, smaller.getMatches().size());
+        assertTrue(smaller.isTruncated());
+    }
+
+    @Test
+    public void loadPlayerReadsLocalAndServerRecords() throws Exception {
+        NbtTag local = player(1, 10f, 70f, -5f);
+        local.putTag("Inventory", list("Inventory",
+                item(0, "minecraft:diamond", 64),
+                item(1, "minecraft:dirt", 200),
+                item(2, "", 1),
+                item(3, "minecraft:stone", 0)));
+        NbtTag server = player(0, 0f, 64f, 0f);
+        server.putTag("EnderChestInventory", list("EnderChestInventory", item(5, "minecraft:ender_pearl", 16)));
+
+        LevelDBWriter writer = new LevelDBWriter(new File(world, "db"));
+        try {
+            WriteBatch batch = new WriteBatch();
+            batch.put(bytes(PlayerData.LOCAL_PLAYER), nbt(local));
+            batch.put(bytes("player_server_0f3c"), nbt(server));
+            batch.put(bytes("player_server_broken"), bytes("not nbt"));
+            writer.writeTable(batch);
+        } finally {
+            writer.close();
+        }
+
+        List<PlayerData> players = loadPlayers(null);
+        assertEquals(2, players.size());
+        PlayerData first = players.get(0);
+        assertTrue(first.isLocalPlayer());
+        assertEquals(1, first.getDimension());
+        assertEquals(-5f, first.getPosition()[2], 0f);
+        assertEquals(Arrays.asList("0: minecraft:diamond x64", "1: minecraft:dirt x200"), names(first.getInventory()));
+        assertEquals("player_server_0f3c", players.get(1).getKey());
+        assertFalse(players.get(1).isLocalPlayer());
+
+        List<PlayerData> single = loadPlayers("player_server_0f3c");
+        assertEquals(1, single.size());
+        assertEquals(Arrays.asList("5: minecraft:ender_pearl x16"), names(single.get(0).getEnderChest()));
+        assertTrue(single.get(0).getInventory().isEmpty());
+        assertTrue(loadPlayers("player_server_broken").isEmpty());
+        assertEquals(1, loadPlayers(PlayerData.LOCAL_PLAYER).size());
+    }
+
+    private List<PlayerData> loadPlayers(String key) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<List<PlayerData>> result = new AtomicReference<>();
+        AtomicReference<String> error = new AtomicReference<>();
+        LevelDBManager.PlayerCallback callback = new LevelDBManager.PlayerCallback() {
+            @Override
+            public void onComplete(List<PlayerData> players) {
+                result.set(players);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(String message) {
+                error.set(message);
+                done.countDown();
+            }
+        };
+        if (key != null) {
+            manager.loadPlayer(key, callback);
+        } else {
+            manager.loadPlayers(callback);
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertNotNull(error.get(), result.get());
+        return result.get();
+    }
+
+    private static NbtTag player(int dimension, float x, float y, float z) {
+        NbtTag player = compound("");
+        player.putTag("DimensionId", new NbtTag(NbtTag.TAG_INT, "DimensionId", dimension));
+        player.putTag("Pos", list("Pos", new NbtTag(NbtTag.TAG_FLOAT, "", x), new NbtTag(NbtTag.TAG_FLOAT, "", y),
+                new NbtTag(NbtTag.TAG_FLOAT, "", z)));
+        return player;
+    }
+
+    private static NbtTag item(int slot, String name, int count) {
+        NbtTag item = compound("");
+        item.putTag("Name", new NbtTag(NbtTag.TAG_STRING, "Name", name));
+        item.putTag("Count", new NbtTag(NbtTag.TAG_BYTE, "Count", (byte) count));
+        item.putTag("Slot", new NbtTag(NbtTag.TAG_BYTE, "Slot", (byte) slot));
+        item.putTag("Damage", new NbtTag(NbtTag.TAG_SHORT, "Damage", (short) 0));
+        return item;
+    }
+
+    private static List<String> names(List<PlayerData.ItemStack> items) {
+        List<String> names = new ArrayList<>();
+        for (PlayerData.ItemStack item : items) {
+            names.add(item.toString());
+        }
+        return names;
+    }
+
+    private BlockSearchResult findBlocks(int limit) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<BlockSearchResult> result = new AtomicReference<>();
+        AtomicReference<String> error = new AtomicReference<>();
+        manager.findBlocks(Collections.singleton(GRASS), LevelDBKey.OVERWORLD, limit, new LevelDBManager.BlockSearchCallback() {
+            @Override
+            public void onProgress(int current, int total) {
+            }
+
+            @Override
+            public void onComplete(BlockSearchResult found) {
+                result.set(found);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(String message) {
+                error.set(message);
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertNotNull(error.get(), result.get());
+        return result.get();
+    }
+}
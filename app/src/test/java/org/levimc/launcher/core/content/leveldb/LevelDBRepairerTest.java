@@ -0,0 +1,199 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.assertSameEntries;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.bytes;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.dump;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.hex;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+public class LevelDBRepairerTest {
+    private static final int KEYS = 2000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void cleanDatabaseIsCopiedExactly() throws IOException {
+        File db = folder.newFolder("db");
+        LevelDBWriter writer = new LevelDBWriter(db);
+        try {
+            for (int round = 0; round < 3; round++) {
+                WriteBatch batch = new WriteBatch();
+                for (int i = round; i < KEYS; i += round + 1) {
+                    batch.put(key(i), bytes("round" + round + ":" + i));
+                }
+                for (int i = round; i < KEYS; i += 37) {
+                    batch.delete(key(i));
+                }
+                writer.writeTable(batch);
+            }
+            WriteBatch batch = new WriteBatch();
+            for (int i = 0; i < KEYS; i += 11) {
+                batch.put(key(i), bytes("log:" + i));
+            }
+            writer.writeLog(batch);
+        } finally {
+            writer.close();
+        }
+
+        Map<String, byte[]> expected = dump(db);
+        File out = folder.newFolder("out");
+        RepairReport report = new LevelDBRepairer(null).repair(db, out);
+
+        assertTrue(report.toString(), report.isClean());
+        assertTrue(report.isManifestUsed());
+        assertEquals(expected.size(), report.getKeyCount());
+        assertSameEntries(expected, dump(out));
+    }
+
+    @Test
+    public void corruptBlockLosesOnlyItsOwnKeys() throws IOException {
+        File db = folder.newFolder("db");
+        Map<String, byte[]> expected = writeTable(db);
+        File table = onlyTable(db);
+
+        BlockHandle damaged;
+        Set<String> lost = new HashSet<>();
+        TableReader reader = new TableReader(table, 1, null, false);
+        try {
+            BlockIterator index = reader.indexIterator();
+            index.seekToFirst();
+            index.next();
+            assertTrue(index.isValid());
+            damaged = BlockHandle.decode(index.value());
+            BlockIterator block = reader.readVerifiedBlock(damaged).iterator();
+            for (block.seekToFirst(); block.isValid(); block.next()) {
+                lost.add(hex(InternalKey.userKey(block.keyArray(), 0, block.keyLength())));
+            }
+        } finally {
+            reader.close();
+        }
+        assertFalse(lost.isEmpty());
+        flipByte(table, damaged.offset + damaged.size / 2);
+
+        File out = folder.newFolder("out");
+        RepairReport report = new LevelDBRepairer(null).repair(db, out);
+
+        assertFalse(report.isClean());
+        assertEquals(1, report.getDamagedFiles().size());
+        RepairReport.FileReport file = report.getDamagedFiles().get(0);
+        assertEquals(table.getName(), file.name);
+        assertEquals(RepairReport.Status.DAMAGED, file.status);
+        assertEquals(1, file.lostBlocks);
+        assertEquals(damaged.size + TableReader.BLOCK_TRAILER_SIZE, file.lostBytes);
+
+        expected.keySet().removeAll(lost);
+        assertEquals(expected.size(), report.getKeyCount());
+        assertSameEntries(expected, dump(out));
+    }
+
+    @Test
+    public void tableWithoutFooterIsSalvaged() throws IOException {
+        File db = folder.newFolder("db");
+        Map<String, byte[]> expected = writeTable(db);
+        File table = onlyTable(db);
+        try (RandomAccessFile file = new RandomAccessFile(table, "rw")) {
+            file.seek(file.length() - 48);
+            file.write(new byte[48]);
+        }
+
+        File out = folder.newFolder("out");
+        RepairReport report = new LevelDBRepairer(null).repair(db, out);
+
+        assertEquals(RepairReport.Status.SALVAGED, report.getDamagedFiles().get(0).status);
+        assertSameEntries(expected, dump(out));
+    }
+
+    @Test
+    public void truncatedLogKeepsCompleteRecords() throws IOException {
+        File db = folder.newFolder("db");
+        Map<String, byte[]> expected = writeTable(db);
+        LevelDBWriter writer = new LevelDBWriter(db);
+        try {
+            for (int i = 0; i < 10; i++) {
+                WriteBatch batch = new WriteBatch();
+                batch.put(key(i), bytes("log:" + i));
+                writer.writeLog(batch);
+                if (i < 9) expected.put(hex(key(i)), bytes("log:" + i));
+            }
+        } finally {
+            writer.close();
+        }
+        File[] logs = db.listFiles((dir, name) -> name.endsWith(".log"));
+        assertEquals(1, logs.length);
+        try (RandomAccessFile file = new RandomAccessFile(logs[0], "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        File out = folder.newFolder("out");
+        RepairReport report = new LevelDBRepairer(null).repair(db, out);
+
+        assertEquals(1, report.getDamagedFiles().size());
+        assertEquals(logs[0].getName(), report.getDamagedFiles().get(0).name);
+        assertSameEntries(expected, dump(out));
+    }
+
+    @Test
+    public void nonEmptyTargetIsRejected() throws IOException {
+        File db = folder.newFolder("db");
+        writeTable(db);
+        File out = folder.newFolder("out");
+        assertTrue(new File(out, "keep.txt").createNewFile());
+        try {
+            new LevelDBRepairer(null).repair(db, out);
+            fail("Repaired into a non-empty directory");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static Map<String, byte[]> writeTable(File db) throws IOException {
+        Map<String, byte[]> expected = new TreeMap<>();
+        LevelDBWriter writer = new LevelDBWriter(db);
+        try {
+            WriteBatch batch = new WriteBatch();
+            for (int i = 0; i < KEYS; i++) {
+                byte[] value = bytes("value" + i + "-" + "x".repeat(200 + i % 97));
+                batch.put(key(i), value);
+                expected.put(hex(key(i)), value);
+            }
+            writer.writeTable(batch);
+        } finally {
+            writer.close();
+        }
+        return expected;
+    }
+
+    private static File onlyTable(File db) {
+        File[] tables = db.listFiles((dir, name) -> name.endsWith(".ldb"));
+        assertEquals(1, tables.length);
+        return tables[0];
+    }
+
+    private static void flipByte(File file, long position) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(position);
+            int value = raf.read();
+            raf.seek(position);
+            raf.write(value ^ 0x5A);
+        }
+    }
+
+    private static byte[] key(int i) {
+        return bytes(String.format("key%05d", i));
+    }
+}
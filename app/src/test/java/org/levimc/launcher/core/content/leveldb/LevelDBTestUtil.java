@@ -0,0 +1,93 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.levimc.launcher.core.content.nbt.BedrockNbtReader;
+import org.levimc.launcher.core.content.nbt.BedrockNbtWriter;
+import org.levimc.launcher.core.content.nbt.NbtTag;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class LevelDBTestUtil {
+    private LevelDBTestUtil() {
+    }
+
+    public static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static String hex(byte[] data) {
+        StringBuilder builder = new StringBuilder(data.length * 2);
+        for (byte b : data) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    public static byte[] unhex(String hex) {
+        byte[] data = new byte[hex.length() / 2];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return data;
+    }
+
+    public static Map<String, byte[]> dump(File db) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        LevelDBReader reader = new LevelDBReader(db);
+        try {
+            LevelDBIterator iterator = reader.iterator();
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                entries.put(hex(iterator.key()), iterator.value());
+            }
+        } finally {
+            reader.close();
+        }
+        return entries;
+    }
+
+    public static void assertSameEntries(Map<String, byte[]> expected, Map<String, byte[]> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getKey(), entry.getValue(), actual.get(entry.getKey()));
+        }
+    }
+
+    public static NbtTag compound(String name) {
+        return new NbtTag(NbtTag.TAG_COMPOUND, name, new LinkedHashMap<String, NbtTag>());
+    }
+
+    public static NbtTag list(String name, NbtTag... tags) {
+        return new NbtTag(NbtTag.TAG_LIST, name, new ArrayList<>(Arrays.asList(tags)));
+    }
+
+    public static byte[] nbt(NbtTag... tags) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BedrockNbtWriter writer = new BedrockNbtWriter();
+        for (NbtTag tag : tags) {
+            writer.writeTag(tag, out);
+        }
+        return out.toByteArray();
+    }
+
+    public static List<NbtTag> readAll(byte[] value) throws IOException {
+        return new BedrockNbtReader().readAll(value);
+    }
+
+    public static byte[] resource(String name) throws IOException {
+        try (InputStream in = LevelDBTestUtil.class.getResourceAsStream(name)) {
+            if (in == null) throw new IOException("Missing test resource " + name);
+            return in.readAllBytes();
+        }
+    }
+}
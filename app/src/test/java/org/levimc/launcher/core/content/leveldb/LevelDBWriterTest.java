@@ -0,0 +1,200 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.bytes;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.dump;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class LevelDBWriterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writeLogIsVisibleToReader() throws IOException {
+        File db = folder.newFolder("db");
+        LevelDBWriter writer = new LevelDBWriter(db);
+        WriteBatch batch = new WriteBatch();
+        for (int i = 0; i < 100; i++) {
+            batch.put(bytes(String.format("key%03d", i)), bytes("value" + i));
+        }
+        writer.writeLog(batch);
+        writer.close();
+
+        LevelDBReader reader = new LevelDBReader(db);
+        try {
+            for (int i = 0; i < 100; i++) {
+                assertArrayEquals(bytes("value" + i), reader.get(bytes(String.format("key%03d", i))));
+            }
+            assertNull(reader.get(bytes("missing")));
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void writeTableMergesLogsOverwritesAndDeletes() throws IOException {
+        File db = folder.newFolder("db");
+        TreeMap<String, String> model = new TreeMap<>();
+        LevelDBWriter writer = new LevelDBWriter(db);
+        try {
+            WriteBatch batch = new WriteBatch();
+            for (int i = 0; i < 500; i++) {
+                put(batch, model, String.format("a%04d", i), "log" + i);
+            }
+            writer.writeLog(batch);
+
+            batch = new WriteBatch();
+            for (int i = 0; i < 500; i += 3) {
+                put(batch, model, String.format("a%04d", i), "table" + i);
+            }
+            for (int i = 1; i < 500; i += 7) {
+                batch.delete(bytes(String.format("a%04d", i)));
+                model.remove(String.format("a%04d", i));
+            }
+            writer.writeTable(batch);
+        } finally {
+            writer.close();
+        }
+
+        File[] logs = db.listFiles((dir, name) -> name.endsWith(".log"));
+        assertEquals(0, logs == null ? 0 : logs.length);
+        assertModel(model, db);
+    }
+
+    @Test
+    public void compactKeepsLatestValuesAndDropsDeletes() throws IOException {
+        File db = folder.newFolder("db");
+        TreeMap<String, String> model = new TreeMap<>();
+        for (int round = 0; round < 4; round++) {
+            LevelDBWriter writer = new LevelDBWriter(db);
+            try {
+                WriteBatch batch = new WriteBatch();
+                for (int i = round; i < 2000; i += 2) {
+                    put(batch, model, String.format("k%05d", i), "round" + round + "-" + i);
+                }
+                for (int i = round; i < 2000; i += 11) {
+                    batch.delete(bytes(String.format("k%05d", i)));
+                    model.remove(String.format("k%05d", i));
+                }
+                writer.writeTable(batch);
+            } finally {
+                writer.close();
+            }
+        }
+        Map<String, byte[]> before = dump(db);
+
+        LevelDBWriter writer = new LevelDBWriter(db);
+        CompactionResult result;
+        try {
+            result = writer.compact(null);
+        } finally {
+            writer.close();
+        }
+
+        assertEquals(model.size(), result.getEntriesKept());
+        assertTrue(result.getEntriesDropped() > 0);
+        assertEquals(before.keySet(), dump(db).keySet());
+        assertModel(model, db);
+    }
+
+    @Test
+    public void compactAppliesDropFilter() throws IOException {
+        File db = folder.newFolder("db");
+        LevelDBWriter writer = new LevelDBWriter(db);
+        try {
+            WriteBatch batch = new WriteBatch();
+            batch.put(bytes("keep1"), bytes("1"));
+            batch.put(bytes("drop1"), bytes("2"));
+            batch.put(bytes("keep2"), bytes("3"));
+            writer.writeTable(batch);
+            writer.compact((key, length) -> key[0] == 'd');
+        } finally {
+            writer.close();
+        }
+
+        TreeMap<String, String> model = new TreeMap<>();
+        model.put("keep1", "1");
+        model.put("keep2", "3");
+        assertModel(model, db);
+    }
+
+    @Test
+    public void reopenedWriterContinuesSequence() throws IOException {
+        File db = folder.newFolder("db");
+        for (int round = 0; round < 3; round++) {
+            LevelDBWriter writer = new LevelDBWriter(db);
+            try {
+                WriteBatch batch = new WriteBatch();
+                batch.put(bytes("key"), bytes("value" + round));
+                if (round == 1) {
+                    writer.writeLog(batch);
+                } else {
+                    writer.writeTable(batch);
+                }
+            } finally {
+                writer.close();
+            }
+
+            LevelDBReader reader = new LevelDBReader(db);
+            try {
+                assertArrayEquals(bytes("value" + round), reader.get(bytes("key")));
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    @Test
+    public void readerRejectsUseAfterClose() throws IOException {
+        File db = folder.newFolder("db");
+        LevelDBWriter writer = new LevelDBWriter(db);
+        WriteBatch batch = new WriteBatch();
+        batch.put(bytes("key"), bytes("value"));
+        writer.writeTable(batch);
+        writer.close();
+
+        LevelDBReader reader = new LevelDBReader(db);
+        assertArrayEquals(bytes("value"), reader.get(bytes("key")));
+        reader.close();
+        try {
+            reader.get(bytes("key"));
+            fail("Closed reader returned data");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static void put(WriteBatch batch, Map<String, String> model, String key, String value) {
+        batch.put(bytes(key), bytes(value));
+        model.put(key, value);
+    }
+
+    private static void assertModel(TreeMap<String, String> model, File db) throws IOException {
+        Map<String, byte[]> actual = dump(db);
+        assertEquals(model.size(), actual.size());
+        LevelDBReader reader = new LevelDBReader(db);
+        try {
+            LevelDBIterator iterator = reader.iterator();
+            iterator.seekToFirst();
+            for (Map.Entry<String, String> entry : model.entrySet()) {
+                assertTrue(iterator.isValid());
+                assertArrayEquals(bytes(entry.getKey()), iterator.key());
+                assertArrayEquals(bytes(entry.getValue()), iterator.value());
+                iterator.next();
+            }
+        } finally {
+            reader.close();
+        }
+    }
+}
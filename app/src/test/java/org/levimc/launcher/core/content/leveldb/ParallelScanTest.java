@@ -0,0 +1,116 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import static org.junit.Assert.assertEquals;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.bytes;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.hex;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ParallelScanTest {
+    private static final int KEYS = 20000;
+    private static final KeyFilter ODD_SUFFIX = (key, length) -> (key[length - 1] & 1) == 1;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File db;
+    private ExecutorService pool;
+
+    @Before
+    public void setUp() throws IOException {
+        db = folder.newFolder("db");
+        pool = Executors.newFixedThreadPool(4);
+
+        // Overlapping level-0 tables, a compacted base and a live log, so every source has to be merged.
+        LevelDBWriter writer = new LevelDBWriter(db);
+        try {
+            for (int round = 0; round < 4; round++) {
+                WriteBatch batch = new WriteBatch();
+                for (int i = round; i < KEYS; i += round + 1) {
+                    batch.put(key(i), bytes("r" + round + ":" + i));
+                }
+                for (int i = round * 5; i < KEYS; i += 97) {
+                    batch.delete(key(i));
+                }
+                writer.writeTable(batch);
+                if (round == 1) writer.compact(null);
+            }
+            WriteBatch batch = new WriteBatch();
+            for (int i = 0; i < KEYS; i += 13) {
+                batch.put(key(i), bytes("log:" + i));
+            }
+            writer.writeLog(batch);
+        } finally {
+            writer.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void forEachParallelMatchesSequentialScan() throws IOException {
+        LevelDBReader reader = new LevelDBReader(db);
+        try {
+            List<String> expected = sequential(reader, null);
+            List<String> filtered = sequential(reader, ODD_SUFFIX);
+            for (int partitions : new int[]{1, 2, 4, 16}) {
+                assertEquals("partitions=" + partitions, expected, visitAll(reader, null, partitions));
+                assertEquals("partitions=" + partitions, filtered, visitAll(reader, ODD_SUFFIX, partitions));
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private List<String> visitAll(LevelDBReader reader, KeyFilter filter, int partitions) throws IOException {
+        // Visitors are created in key-range order, so concatenating their output must reproduce the sequential order.
+        List<List<String>> ranges = new ArrayList<>();
+        reader.forEachParallel(filter, pool, null, partitions, () -> {
+            List<String> range = new ArrayList<>();
+            ranges.add(range);
+            return (key, keyLength, value) -> range.add(entry(Arrays.copyOf(key, keyLength), value));
+        });
+        List<String> visited = new ArrayList<>();
+        for (List<String> range : ranges) {
+            visited.addAll(range);
+        }
+        return visited;
+    }
+
+    private static List<String> sequential(LevelDBReader reader, KeyFilter filter) throws IOException {
+        List<String> entries = new ArrayList<>();
+        LevelDBIterator iterator = reader.iterator();
+        for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+            byte[] key = iterator.key();
+            if (filter != null && !filter.accept(key, key.length)) continue;
+            entries.add(hex(key) + "=" + hex(iterator.value()));
+        }
+        return entries;
+    }
+
+    private static String entry(byte[] key, ByteBuffer value) {
+        byte[] data = new byte[value.remaining()];
+        value.duplicate().get(data);
+        return hex(key) + "=" + hex(data);
+    }
+
+    private static byte[] key(int i) {
+        return bytes("p" + (i % 10) + String.format("k%06d", i));
+    }
+}
@@ -0,0 +1,83 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.bytes;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class RawScannerTest {
+    @Test
+    public void overlappingAndSharedPrefixPatternsMatchNaiveSearch() {
+        byte[][] patterns = {
+            bytes("ab"), bytes("abc"), bytes("abcab"), bytes("bca"), bytes("a"), bytes("aa"), bytes("aaa"), bytes("cab")
+        };
+        RawScanner scanner = new RawScanner(patterns);
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            byte[] data = new byte[random.nextInt(300)];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) ('a' + random.nextInt(4));
+            }
+            int start = data.length == 0 ? 0 : random.nextInt(data.length);
+            int end = start + random.nextInt(data.length - start + 1);
+            assertEquals(naive(patterns, data, start, end), scan(scanner, data, start, end));
+        }
+    }
+
+    @Test
+    public void highBytesAndSalvagePatternsMatchNaiveSearch() {
+        byte[][] patterns = {
+            bytes("structuretemplate_"), bytes("~local_player"), bytes("player_"), bytes("map_"),
+            new byte[]{(byte) 0xFF, (byte) 0x80}, new byte[]{(byte) 0x80, (byte) 0x80, 0}
+        };
+        RawScanner scanner = new RawScanner(patterns);
+        Random random = new Random(11);
+        for (int round = 0; round < 100; round++) {
+            byte[] data = new byte[2000];
+            random.nextBytes(data);
+            for (int i = 0; i < 20; i++) {
+                byte[] pattern = patterns[random.nextInt(patterns.length)];
+                int at = random.nextInt(data.length - pattern.length);
+                System.arraycopy(pattern, 0, data, at, pattern.length);
+            }
+            List<String> expected = naive(patterns, data, 0, data.length);
+            assertFalse(expected.isEmpty());
+            assertEquals(expected, scan(scanner, data, 0, data.length));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyPatternIsRejected() {
+        new RawScanner(bytes("map_"), new byte[0]);
+    }
+
+    private static List<String> scan(RawScanner scanner, byte[] data, int start, int end) {
+        List<String> matches = new ArrayList<>();
+        scanner.scan(data, start, end, (pattern, offset) -> matches.add(offset + ":" + pattern));
+        Collections.sort(matches);
+        return matches;
+    }
+
+    private static List<String> naive(byte[][] patterns, byte[] data, int start, int end) {
+        List<String> matches = new ArrayList<>();
+        for (int offset = start; offset < end; offset++) {
+            for (int p = 0; p < patterns.length; p++) {
+                byte[] pattern = patterns[p];
+                if (offset + pattern.length > end) continue;
+                boolean match = true;
+                for (int i = 0; i < pattern.length && match; i++) {
+                    match = data[offset + i] == pattern[i];
+                }
+                if (match) matches.add(offset + ":" + p);
+            }
+        }
+        Collections.sort(matches);
+        return matches;
+    }
+}
@@ -0,0 +1,159 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.bytes;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.resource;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReaderGetTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void bloomFilterMatchesBothTailVariants() {
+        List<byte[]> keys = new ArrayList<>();
+        for (int x = -8; x < 8; x++) {
+            for (int y = -4; y < 4; y++) {
+                keys.add(subChunkKey(x, -x, y));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BloomFilter.createFilter(keys, 10, out);
+        ByteBuffer filter = ByteBuffer.wrap(out.toByteArray());
+
+        int highTail = 0;
+        for (byte[] key : keys) {
+            assertTrue(BloomFilter.keyMayMatch(key, key.length, filter, 0, filter.limit()));
+            if (BloomFilter.hasHighTailByte(key, key.length)) {
+                highTail++;
+                assertNotEquals(BloomFilter.hash(key, key.length, false), BloomFilter.hash(key, key.length, true));
+            }
+        }
+        assertTrue(highTail > 0);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            byte[] absent = bytes("absent" + i);
+            if (BloomFilter.keyMayMatch(absent, absent.length, filter, 0, filter.limit())) falsePositives++;
+        }
+        assertTrue("false positives: " + falsePositives, falsePositives < 500);
+    }
+
+    @Test
+    public void tableWithSignedTailFilterFindsEveryKey() throws IOException {
+        assertFixtureLookups("bloom-signed.ldb");
+    }
+
+    @Test
+    public void tableWithUnsignedTailFilterFindsEveryKey() throws IOException {
+        assertFixtureLookups("bloom-unsigned.ldb");
+    }
+
+    @Test
+    public void getSeesDeletionsAndNewerLogValues() throws IOException {
+        File db = folder.newFolder("db");
+        LevelDBWriter writer = new LevelDBWriter(db);
+        try {
+            WriteBatch batch = new WriteBatch();
+            for (int i = 0; i < 300; i++) {
+                batch.put(key(i), bytes("table" + i));
+            }
+            writer.writeTable(batch);
+
+            batch = new WriteBatch();
+            for (int i = 0; i < 300; i += 5) {
+                batch.delete(key(i));
+            }
+            batch.put(key(1), bytes("second" + 1));
+            writer.writeTable(batch);
+
+            batch = new WriteBatch();
+            for (int i = 0; i < 300; i += 7) {
+                batch.delete(key(i));
+            }
+            batch.put(key(2), bytes("log" + 2));
+            batch.put(key(5), bytes("revived" + 5));
+            writer.writeLog(batch);
+        } finally {
+            writer.close();
+        }
+
+        LevelDBReader reader = new LevelDBReader(db);
+        try {
+            for (int i = 0; i < 300; i++) {
+                byte[] expected;
+                if (i == 1) expected = bytes("second1");
+                else if (i == 2) expected = bytes("log2");
+                else if (i == 5) expected = bytes("revived5");
+                else if (i % 5 == 0 || i % 7 == 0) expected = null;
+                else expected = bytes("table" + i);
+                assertArrayEquals("key " + i, expected, reader.get(key(i)));
+            }
+            assertNull(reader.get(bytes("missing")));
+            assertNull(reader.get(subChunkKey(-1, -1, -1)));
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void assertFixtureLookups(String name) throws IOException {
+        File file = folder.newFile("000005.ldb");
+        Files.write(file.toPath(), resource("/leveldb/" + name));
+        TableReader table = new TableReader(file, 5, null, false);
+        try {
+            assertTrue(table.hasFilter());
+            for (int x = -8; x < 8; x++) {
+                for (int z = -8; z < 8; z++) {
+                    for (int y = -4; y < 4; y++) {
+                        byte[] key = subChunkKey(x, z, y);
+                        BlockIterator found = table.seekForGet(InternalKey.seekKey(key), key);
+                        assertNotNull(x + "," + z + "," + y, found);
+                        assertArrayEquals(key, InternalKey.userKey(found.keyArray(), 0, found.keyLength()));
+                        ByteBuffer value = found.value();
+                        byte[] data = new byte[value.remaining()];
+                        value.get(data);
+                        assertArrayEquals(bytes("v" + x + "," + z + "," + y), data);
+                    }
+                }
+            }
+
+            int passed = 0;
+            for (int x = 100; x < 200; x++) {
+                byte[] key = subChunkKey(x, x, -3);
+                if (table.seekForGet(InternalKey.seekKey(key), key) != null) passed++;
+            }
+            assertTrue("absent keys found: " + passed, passed < 100);
+        } finally {
+            table.close();
+        }
+    }
+
+    private static byte[] subChunkKey(int x, int z, int y) {
+        byte[] key = new byte[10];
+        Coding.putInt32LE(key, 0, x);
+        Coding.putInt32LE(key, 4, z);
+        key[8] = (byte) LevelDBKey.KeyType.SUB_CHUNK.id;
+        key[9] = (byte) y;
+        return key;
+    }
+
+    private static byte[] key(int i) {
+        return bytes(String.format("key%04d", i));
+    }
+}
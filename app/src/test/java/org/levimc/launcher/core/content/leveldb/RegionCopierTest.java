@@ -0,0 +1,331 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.assertSameEntries;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.compound;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.dump;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.list;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.nbt;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.readAll;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.levimc.launcher.core.content.nbt.NbtTag;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class RegionCopierTest {
+    private static final int SOURCE_RADIUS = 3;
+    private static final int COPY_RADIUS = 2;
+    private static final int OFFSET_X = 100;
+    private static final int OFFSET_Z = -7;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void copyWithOffsetRewritesCoordinatesAndRemapsActorIds() throws IOException {
+        File src = writeSource(folder.newFolder("src"));
+        File dst = folder.newFolder("dst");
+        long conflicting = actorId(0, 0);
+        LevelDBWriter writer = new LevelDBWriter(dst);
+        try {
+            WriteBatch batch = new WriteBatch();
+            for (int x = -4; x <= 4; x++) {
+                for (int z = -4; z <= 4; z++) {
+                    ChunkPos pos = new ChunkPos(LevelDBKey.OVERWORLD, x + OFFSET_X, z + OFFSET_Z);
+                    for (int y = 0; y < 8; y++) {
+                        batch.put(pos.subChunkKey(y), new byte[]{(byte) y});
+                    }
+                    long id = 500000 + (x + 4) * 9 + z + 4;
+                    batch.put(LevelDBKey.digestKey(pos), ids(id));
+                    batch.put(LevelDBKey.actorKey(id), nbt(actor(id, pos.x * 16, pos.z * 16, "minecraft:zombie")));
+                }
+            }
+            ChunkPos far = new ChunkPos(LevelDBKey.OVERWORLD, 500, 500);
+            batch.put(LevelDBKey.digestKey(far), ids(conflicting));
+            batch.put(LevelDBKey.actorKey(conflicting), nbt(actor(conflicting, 8000, 8000, "minecraft:villager")));
+            writer.writeTable(batch);
+        } finally {
+            writer.close();
+        }
+        Map<String, byte[]> sourceBefore = dump(src);
+        Map<String, byte[]> targetBefore = dump(dst);
+
+        RegionCopier copier = new RegionCopier(LevelDBKey.OVERWORLD, COPY_RADIUS, COPY_RADIUS, -COPY_RADIUS, -COPY_RADIUS);
+        copier.setOffset(OFFSET_X, OFFSET_Z);
+        RegionCopier.Result result = copier.copy(src, dst);
+
+        int chunks = (2 * COPY_RADIUS + 1) * (2 * COPY_RADIUS + 1);
+        assertEquals(chunks, result.getChunkCount());
+        assertEquals(chunks * 2, result.getBlockEntityCount());
+        assertEquals(1, result.getRemappedEntityCount());
+        assertSameEntries(sourceBefore, dump(src));
+
+        LevelDBReader source = new LevelDBReader(src);
+        LevelDBReader target = new LevelDBReader(dst);
+        try {
+            for (int x = -COPY_RADIUS; x <= COPY_RADIUS; x++) {
+                for (int z = -COPY_RADIUS; z <= COPY_RADIUS; z++) {
+                    ChunkPos from = new ChunkPos(LevelDBKey.OVERWORLD, x, z);
+                    ChunkPos to = new ChunkPos(LevelDBKey.OVERWORLD, x + OFFSET_X, z + OFFSET_Z);
+                    assertChunkCopied(source, target, from, to, OFFSET_X, OFFSET_Z);
+                    Set<Long> copied = assertActorsCopied(source, target, from, to, OFFSET_X, OFFSET_Z);
+                    if (x == 0 && z == 0) {
+                        assertFalse(copied.contains(conflicting));
+                    } else {
+                        assertEquals(new HashSet<>(readIds(source.get(LevelDBKey.digestKey(from)))), copied);
+                    }
+                }
+            }
+            NbtTag villager = readAll(target.get(LevelDBKey.actorKey(conflicting))).get(0);
+            assertEquals("minecraft:villager", villager.getTag("identifier").getString());
+        } finally {
+            source.close();
+            target.close();
+        }
+
+        // Outside the destination square nothing moves; inside it the old chunk records and actors are gone.
+        Map<String, byte[]> targetAfter = dump(dst);
+        for (Map.Entry<String, byte[]> entry : targetBefore.entrySet()) {
+            byte[] key = LevelDBTestUtil.unhex(entry.getKey());
+            ChunkPos pos = ChunkPos.fromKey(key, key.length);
+            if (pos == null) pos = LevelDBKey.digestChunk(key, key.length);
+            long id = LevelDBKey.isActorKey(key, key.length) ? LevelDBKey.actorId(key) : -1;
+            boolean replaced = id >= 500000
+                    ? inCopiedArea(500000, id)
+                    : pos != null && Math.abs(pos.x - OFFSET_X) <= COPY_RADIUS && Math.abs(pos.z - OFFSET_Z) <= COPY_RADIUS;
+            if (!replaced) {
+                assertArrayEquals(entry.getKey(), entry.getValue(), targetAfter.get(entry.getKey()));
+            } else if (id >= 0 || (key.length == 10 && key[9] >= 4)) {
+                assertNull(entry.getKey(), targetAfter.get(entry.getKey()));
+            }
+        }
+    }
+
+    @Test
+    public void copyIntoAnotherDimensionOfTheSameWorldRemapsEveryActor() throws IOException {
+        File world = writeSource(folder.newFolder("world"));
+        Map<String, byte[]> before = dump(world);
+
+        RegionCopier copier = new RegionCopier(LevelDBKey.OVERWORLD, -1, -1, 1, 1);
+        copier.setTargetDimension(LevelDBKey.NETHER);
+        RegionCopier.Result result = copier.copy(world, world);
+        assertEquals(9, result.getChunkCount());
+        assertEquals(18, result.getRemappedEntityCount());
+
+        Map<String, byte[]> after = dump(world);
+        for (Map.Entry<String, byte[]> entry : before.entrySet()) {
+            assertArrayEquals(entry.getKey(), entry.getValue(), after.get(entry.getKey()));
+        }
+
+        LevelDBReader reader = new LevelDBReader(world);
+        try {
+            Set<Long> allIds = new HashSet<>();
+            for (int x = -1; x <= 1; x++) {
+                for (int z = -1; z <= 1; z++) {
+                    ChunkPos from = new ChunkPos(LevelDBKey.OVERWORLD, x, z);
+                    ChunkPos to = new ChunkPos(LevelDBKey.NETHER, x, z);
+                    assertChunkCopied(reader, reader, from, to, 0, 0);
+                    for (long id : assertActorsCopied(reader, reader, from, to, 0, 0)) {
+                        assertTrue(allIds.add(id));
+                        assertFalse(readIds(reader.get(LevelDBKey.digestKey(from))).contains(id));
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void assertChunkCopied(LevelDBReader source, LevelDBReader target, ChunkPos from, ChunkPos to,
+                                          int offsetX, int offsetZ) throws IOException {
+        List<byte[]> sourceKeys = chunkKeys(source, from);
+        assertEquals(sourceKeys.size(), chunkKeys(target, to).size());
+        int dx = offsetX * 16;
+        int dz = offsetZ * 16;
+        for (byte[] key : sourceKeys) {
+            int tagOffset = LevelDBKey.chunkTagOffset(key, key.length);
+            byte[] targetKey = to.keyPrefix();
+            targetKey = Arrays.copyOf(targetKey, targetKey.length + key.length - tagOffset);
+            System.arraycopy(key, tagOffset, targetKey, targetKey.length - (key.length - tagOffset), key.length - tagOffset);
+
+            byte[] expected = source.get(key);
+            byte[] actual = target.get(targetKey);
+            assertNotNull(actual);
+            int tag = key[tagOffset] & 0xFF;
+            if (tag == LevelDBKey.KeyType.BLOCK_ENTITY.id) {
+                List<NbtTag> was = readAll(expected);
+                List<NbtTag> now = readAll(actual);
+                assertEquals(was.size(), now.size());
+                for (int i = 0; i < was.size(); i++) {
+                    assertEquals(was.get(i).getTag("x").getInt() + dx, now.get(i).getTag("x").getInt());
+                    assertEquals(was.get(i).getTag("y").getInt(), now.get(i).getTag("y").getInt());
+                    assertEquals(was.get(i).getTag("z").getInt() + dz, now.get(i).getTag("z").getInt());
+                }
+                assertEquals(was.get(0).getTag("pairx").getInt() + dx, now.get(0).getTag("pairx").getInt());
+                assertEquals(was.get(0).getTag("pairz").getInt() + dz, now.get(0).getTag("pairz").getInt());
+            } else if (tag == LevelDBKey.KeyType.ENTITY.id) {
+                assertPositionShifted(readAll(expected).get(0), readAll(actual).get(0), dx, dz);
+            } else if (tag == LevelDBKey.KeyType.PENDING_TICKS.id) {
+                NbtTag was = readAll(expected).get(0).getTag("tickList").getList().get(0);
+                NbtTag now = readAll(actual).get(0).getTag("tickList").getList().get(0);
+                assertEquals(was.getTag("x").getInt() + dx, now.getTag("x").getInt());
+                assertEquals(was.getTag("z").getInt() + dz, now.getTag("z").getInt());
+            } else {
+                assertArrayEquals(expected, actual);
+            }
+        }
+    }
+
+    private static Set<Long> assertActorsCopied(LevelDBReader source, LevelDBReader target, ChunkPos from, ChunkPos to,
+                                                int offsetX, int offsetZ) throws IOException {
+        List<Long> sourceIds = readIds(source.get(LevelDBKey.digestKey(from)));
+        List<Long> targetIds = readIds(target.get(LevelDBKey.digestKey(to)));
+        assertEquals(sourceIds.size(), targetIds.size());
+        for (int i = 0; i < sourceIds.size(); i++) {
+            NbtTag was = readAll(source.get(LevelDBKey.actorKey(sourceIds.get(i)))).get(0);
+            NbtTag now = readAll(target.get(LevelDBKey.actorKey(targetIds.get(i)))).get(0);
+            assertEquals((long) targetIds.get(i), now.getTag("UniqueID").getLong());
+            assertEquals(was.getTag("identifier").getString(), now.getTag("identifier").getString());
+            assertPositionShifted(was, now, offsetX * 16, offsetZ * 16);
+        }
+        return new HashSet<>(targetIds);
+    }
+
+    private static void assertPositionShifted(NbtTag was, NbtTag now, int dx, int dz) {
+        List<NbtTag> before = was.getTag("Pos").getList();
+        List<NbtTag> after = now.getTag("Pos").getList();
+        assertEquals(before.get(0).getFloat() + dx, after.get(0).getFloat(), 0);
+        assertEquals(before.get(1).getFloat(), after.get(1).getFloat(), 0);
+        assertEquals(before.get(2).getFloat() + dz, after.get(2).getFloat(), 0);
+    }
+
+    private static boolean inCopiedArea(long base, long id) {
+        int x = (int) ((id - base) / 9) - 4;
+        int z = (int) ((id - base) % 9) - 4;
+        return Math.abs(x) <= COPY_RADIUS && Math.abs(z) <= COPY_RADIUS;
+    }
+
+    private static File writeSource(File db) throws IOException {
+        Random random = new Random(1);
+        LevelDBWriter writer = new LevelDBWriter(db);
+        try {
+            WriteBatch batch = new WriteBatch();
+            for (int x = -SOURCE_RADIUS; x <= SOURCE_RADIUS; x++) {
+                for (int z = -SOURCE_RADIUS; z <= SOURCE_RADIUS; z++) {
+                    ChunkPos pos = new ChunkPos(LevelDBKey.OVERWORLD, x, z);
+                    batch.put(pos.key(LevelDBKey.KeyType.CHUNK_VERSION), new byte[]{40});
+                    for (int y = 0; y < 4; y++) {
+                        byte[] subChunk = new byte[500];
+                        random.nextBytes(subChunk);
+                        batch.put(pos.subChunkKey(y), subChunk);
+                    }
+
+                    NbtTag chest = compound("");
+                    put(chest, NbtTag.TAG_STRING, "id", "Chest");
+                    put(chest, NbtTag.TAG_INT, "x", x * 16 + 1);
+                    put(chest, NbtTag.TAG_INT, "y", 70);
+                    put(chest, NbtTag.TAG_INT, "z", z * 16 + 2);
+                    put(chest, NbtTag.TAG_INT, "pairx", x * 16 + 2);
+                    put(chest, NbtTag.TAG_INT, "pairz", z * 16 + 2);
+                    NbtTag sign = compound("");
+                    put(sign, NbtTag.TAG_STRING, "id", "Sign");
+                    put(sign, NbtTag.TAG_INT, "x", x * 16 + 5);
+                    put(sign, NbtTag.TAG_INT, "y", 71);
+                    put(sign, NbtTag.TAG_INT, "z", z * 16 + 6);
+                    batch.put(pos.key(LevelDBKey.KeyType.BLOCK_ENTITY), nbt(chest, sign));
+
+                    NbtTag cow = compound("");
+                    put(cow, NbtTag.TAG_STRING, "identifier", "minecraft:cow");
+                    cow.putTag("Pos", position(x * 16 + 3.5f, 64, z * 16 + 4.5f));
+                    batch.put(pos.key(LevelDBKey.KeyType.ENTITY), nbt(cow));
+
+                    NbtTag tick = compound("");
+                    put(tick, NbtTag.TAG_INT, "x", x * 16 + 7);
+                    put(tick, NbtTag.TAG_INT, "y", 60);
+                    put(tick, NbtTag.TAG_INT, "z", z * 16 + 8);
+                    List<NbtTag> tickList = new ArrayList<>();
+                    tickList.add(tick);
+                    NbtTag ticks = compound("");
+                    ticks.putTag("tickList", new NbtTag(NbtTag.TAG_LIST, "tickList", tickList));
+                    batch.put(pos.key(LevelDBKey.KeyType.PENDING_TICKS), nbt(ticks));
+
+                    long id = actorId(x, z);
+                    batch.put(LevelDBKey.digestKey(pos), ids(id, id + 1));
+                    batch.put(LevelDBKey.actorKey(id), nbt(actor(id, x * 16 + 8, z * 16 + 8, "minecraft:pig")));
+                    batch.put(LevelDBKey.actorKey(id + 1), nbt(actor(id + 1, x * 16 + 9, z * 16 + 9, "minecraft:sheep")));
+                }
+            }
+            writer.writeTable(batch);
+        } finally {
+            writer.close();
+        }
+        return db;
+    }
+
+    private static long actorId(int x, int z) {
+        return 1000 + ((x + SOURCE_RADIUS) * (2 * SOURCE_RADIUS + 1) + z + SOURCE_RADIUS) * 2L;
+    }
+
+    private static List<byte[]> chunkKeys(LevelDBReader reader, ChunkPos pos) throws IOException {
+        List<byte[]> keys = new ArrayList<>();
+        byte[] prefix = pos.keyPrefix();
+        LevelDBIterator iterator = reader.iterator();
+        for (iterator.seek(prefix); iterator.isValid() && iterator.keyStartsWith(prefix); iterator.next()) {
+            byte[] key = iterator.key();
+            if (pos.matches(key, key.length)) keys.add(key);
+        }
+        return keys;
+    }
+
+    private static List<Long> readIds(byte[] digest) {
+        List<Long> ids = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.wrap(digest).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.remaining() >= 8) {
+            ids.add(buffer.getLong());
+        }
+        return ids;
+    }
+
+    private static byte[] ids(long... ids) {
+        byte[] data = new byte[ids.length * 8];
+        for (int i = 0; i < ids.length; i++) {
+            Coding.putInt64LE(data, i * 8, ids[i]);
+        }
+        return data;
+    }
+
+    private static NbtTag actor(long id, float x, float z, String identifier) {
+        NbtTag actor = compound("");
+        put(actor, NbtTag.TAG_STRING, "identifier", identifier);
+        put(actor, NbtTag.TAG_LONG, "UniqueID", id);
+        actor.putTag("Pos", position(x, 64, z));
+        return actor;
+    }
+
+    private static NbtTag position(float x, float y, float z) {
+        return list("Pos", new NbtTag(NbtTag.TAG_FLOAT, "", x), new NbtTag(NbtTag.TAG_FLOAT, "", y),
+                new NbtTag(NbtTag.TAG_FLOAT, "", z));
+    }
+
+    private static void put(NbtTag compound, byte type, String name, Object value) {
+        compound.putTag(name, new NbtTag(type, name, value));
+    }
+}
@@ -0,0 +1,210 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.bytes;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.compound;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.nbt;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.levimc.launcher.core.content.nbt.BedrockNbtReader;
+import org.levimc.launcher.core.content.nbt.NbtTag;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class StructureImporterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ExecutorService pool;
+
+    @Before
+    public void setUp() {
+        pool = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void importsStructuresAndReadsThemBack() throws IOException {
+        Random random = new Random(3);
+        File library = folder.newFolder("library");
+        File structures = new File(library, "structures");
+        Map<String, byte[]> expected = new TreeMap<>();
+        for (int i = 0; i < 60; i++) {
+            String namespace = "ns" + (i % 5);
+            String path = i % 7 == 0 ? "sub/s" + i : "s" + i;
+            byte[] data = structure(1 + random.nextInt(8), 1 + random.nextInt(8), 1 + random.nextInt(8), 1 + random.nextInt(20), 0, random);
+            write(new File(structures, namespace + "/" + path + ".mcstructure"), data);
+            expected.put(namespace + ":" + path, data);
+        }
+        byte[] loose = structure(2, 2, 2, 2, 0, random);
+        write(new File(library, "loose.mcstructure"), loose);
+        expected.put(StructureImporter.DEFAULT_NAMESPACE + ":loose", loose);
+        write(new File(structures, "ns0/truncated.mcstructure"), Arrays.copyOf(expected.get("ns0:s5"), 100));
+        write(new File(structures, "ns0/bad_index.mcstructure"), structure(2, 2, 2, 3, 5, random));
+        write(new File(structures, "ns0/junk.mcstructure"), new byte[]{1, 2, 3});
+        write(new File(structures, "ns0/readme.txt"), new byte[]{1});
+
+        File db = folder.newFolder("db");
+        LevelDBWriter writer = new LevelDBWriter(db);
+        try {
+            WriteBatch batch = new WriteBatch();
+            batch.put(key("ns2:s2"), expected.get("ns2:s2"));
+            batch.put(key("ns3:s3"), new byte[]{9});
+            for (int i = 0; i < 500; i++) {
+                batch.put(bytes("other" + i), bytes("value" + i));
+            }
+            writer.writeTable(batch);
+        } finally {
+            writer.close();
+        }
+
+        List<File> files = StructureImporter.collectFiles(library);
+        assertEquals(expected.size() + 3, files.size());
+        StructureImporter importer = new StructureImporter(db, pool, new AtomicBoolean());
+        StructureImportResult result = importer.importFiles(files, (current, total, name) -> {
+        });
+
+        assertTrue(result.isVerified());
+        assertEquals(expected.size() - 1, result.getImported().size());
+        assertEquals(1, result.getReplacedCount());
+        assertEquals(1, result.getUnchangedCount());
+        Set<String> rejected = new HashSet<>();
+        for (StructureImportResult.Rejection rejection : result.getRejected()) {
+            rejected.add(rejection.file.getName());
+        }
+        assertEquals(new HashSet<>(Arrays.asList("truncated.mcstructure", "bad_index.mcstructure", "junk.mcstructure")), rejected);
+
+        LevelDBReader reader = new LevelDBReader(db);
+        try {
+            for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+                assertArrayEquals(entry.getKey(), entry.getValue(), reader.get(key(entry.getKey())));
+            }
+            assertArrayEquals(bytes("value42"), reader.get(bytes("other42")));
+        } finally {
+            reader.close();
+        }
+
+        StructureImportResult again = importer.importFiles(files, (current, total, name) -> {
+        });
+        assertEquals(0, again.getImported().size());
+        assertEquals(expected.size(), again.getUnchangedCount());
+    }
+
+    @Test
+    public void importAcceptsFullSizeStructureBlocks() throws IOException {
+        byte[] data = structure(64, 64, 64, 8, 0, new Random(5));
+        try {
+            new BedrockNbtReader().readTag(ByteBuffer.wrap(data));
+            fail("Default reader accepted a " + 64 * 64 * 64 + " entry list");
+        } catch (IOException expected) {
+        }
+
+        File file = new File(folder.newFolder("structures", "big"), "house.mcstructure");
+        write(file, data);
+        File db = folder.newFolder("db");
+        StructureImportResult result = new StructureImporter(db, pool, null)
+                .importFiles(StructureImporter.collectFiles(file.getParentFile()), (current, total, name) -> {
+                });
+
+        assertEquals(Arrays.asList("big:house"), result.getImported());
+        LevelDBReader reader = new LevelDBReader(db);
+        try {
+            assertArrayEquals(data, reader.get(key("big:house")));
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void structureIdFollowsExportLayout() {
+        assertEquals("ns:a/b", StructureImporter.structureId(new File("/x/structures/ns/a/b.mcstructure")));
+        assertEquals("ns:b", StructureImporter.structureId(new File("/x/structures/ns/b.MCSTRUCTURE")));
+        assertEquals(StructureImporter.DEFAULT_NAMESPACE + ":b", StructureImporter.structureId(new File("/x/other/b.mcstructure")));
+        assertNotNull(StructureImporter.checkStructure(new NbtTag(NbtTag.TAG_COMPOUND, "", new LinkedHashMap<String, NbtTag>())));
+    }
+
+    private static byte[] key(String structureId) {
+        return bytes("structuretemplate_" + structureId);
+    }
+
+    private static void write(File file, byte[] data) throws IOException {
+        File dir = file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        Files.write(file.toPath(), data);
+    }
+
+    private static byte[] structure(int sizeX, int sizeY, int sizeZ, int paletteSize, int badIndex, Random random) throws IOException {
+        int volume = sizeX * sizeY * sizeZ;
+        int[] blocks = new int[volume];
+        int[] water = new int[volume];
+        for (int i = 0; i < volume; i++) {
+            blocks[i] = random.nextInt(paletteSize);
+            water[i] = -1;
+        }
+        if (badIndex != 0) blocks[volume / 2] = badIndex;
+
+        List<NbtTag> layers = new ArrayList<>();
+        layers.add(ints("", blocks));
+        layers.add(ints("", water));
+        List<NbtTag> palette = new ArrayList<>();
+        for (int i = 0; i < paletteSize; i++) {
+            NbtTag block = compound("");
+            block.putTag("name", new NbtTag(NbtTag.TAG_STRING, "name", "minecraft:block" + i));
+            block.putTag("states", compound("states"));
+            palette.add(block);
+        }
+        NbtTag defaultPalette = compound("default");
+        defaultPalette.putTag("block_palette", new NbtTag(NbtTag.TAG_LIST, "block_palette", palette));
+        defaultPalette.putTag("block_position_data", compound("block_position_data"));
+        NbtTag palettes = compound("palette");
+        palettes.putTag("default", defaultPalette);
+
+        NbtTag structure = compound("structure");
+        structure.putTag("block_indices", new NbtTag(NbtTag.TAG_LIST, "block_indices", layers));
+        structure.putTag("entities", new NbtTag(NbtTag.TAG_LIST, "entities", new ArrayList<NbtTag>()));
+        structure.putTag("palette", palettes);
+
+        NbtTag root = compound("");
+        root.putTag("format_version", new NbtTag(NbtTag.TAG_INT, "format_version", 1));
+        root.putTag("size", ints("size", sizeX, sizeY, sizeZ));
+        root.putTag("structure", structure);
+        root.putTag("structure_world_origin", ints("structure_world_origin", 0, 64, 0));
+
+        return nbt(root);
+    }
+
+    private static NbtTag ints(String name, int... values) {
+        List<NbtTag> list = new ArrayList<>();
+        for (int value : values) {
+            list.add(new NbtTag(NbtTag.TAG_INT, "", value));
+        }
+        return new NbtTag(NbtTag.TAG_LIST, name, list);
+    }
+}
@@ -0,0 +1,170 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.bytes;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.hex;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class TableSalvagerTest {
+    private static final int KEYS = 3000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void intactTablesRecoverEveryEntry() throws IOException {
+        for (int compression : new int[]{Compression.NONE, Compression.ZLIB, Compression.ZLIB_RAW}) {
+            File file = folder.newFile("intact" + compression + ".ldb");
+            Set<String> expected = writeTable(file, compression);
+            TableSalvager salvager = new TableSalvager(LevelDBReader.SALVAGE_SCANNER);
+            assertEquals("compression " + compression, expected, entries(salvager.salvage(file)));
+            assertEquals(dataBlocks(file).size(), salvager.getBlockCount());
+            assertEquals(0, salvager.getLostBytes());
+        }
+    }
+
+    @Test
+    public void zeroedFooterDoesNotStopSalvage() throws IOException {
+        for (int compression : new int[]{Compression.NONE, Compression.ZLIB_RAW}) {
+            File file = folder.newFile("footer" + compression + ".ldb");
+            Set<String> expected = writeTable(file, compression);
+            int blocks = dataBlocks(file).size();
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.seek(raf.length() - 48);
+                raf.write(new byte[48]);
+            }
+            TableSalvager salvager = new TableSalvager(LevelDBReader.SALVAGE_SCANNER);
+            assertEquals("compression " + compression, expected, entries(salvager.salvage(file)));
+            assertEquals(blocks, salvager.getBlockCount());
+        }
+    }
+
+    @Test
+    public void corruptMiddleBlockLosesOnlyItsEntries() throws IOException {
+        File file = folder.newFile("000001.ldb");
+        Set<String> expected = writeTable(file, Compression.ZLIB_RAW);
+        List<BlockHandle> blocks = dataBlocks(file);
+        assertTrue(blocks.size() >= 3);
+        BlockHandle damaged = blocks.get(1);
+        Set<String> lost = blockEntries(file, damaged);
+        corrupt(file, damaged);
+
+        TableSalvager salvager = new TableSalvager(LevelDBReader.SALVAGE_SCANNER);
+        Set<String> recovered = entries(salvager.salvage(file));
+        Set<String> survivors = new TreeSet<>(expected);
+        survivors.removeAll(lost);
+        assertEquals(survivors, recovered);
+        assertEquals(blocks.size() - 1, salvager.getBlockCount());
+        assertEquals(damaged.size + 5, salvager.getLostBytes());
+    }
+
+    @Test
+    public void corruptStoredBlockIsScannedForKnownKeys() throws IOException {
+        File file = folder.newFile("000001.ldb");
+        Set<String> expected = writeTable(file, Compression.NONE);
+        List<BlockHandle> blocks = dataBlocks(file);
+        BlockHandle damaged = blocks.get(1);
+        Set<String> before = blockEntries(file, blocks.get(0));
+        Set<String> lost = blockEntries(file, damaged);
+        corrupt(file, damaged);
+
+        TableSalvager salvager = new TableSalvager(LevelDBReader.SALVAGE_SCANNER);
+        Set<String> recovered = entries(salvager.salvage(file));
+        assertTrue(expected.containsAll(recovered));
+        assertTrue(recovered.containsAll(before));
+        Set<String> fromDamaged = new HashSet<>(recovered);
+        fromDamaged.retainAll(lost);
+        assertTrue("recovered " + fromDamaged.size() + " of " + lost.size(), fromDamaged.size() >= lost.size() / 16 - 1);
+        assertTrue(salvager.getLostBytes() > 0);
+    }
+
+    private static Set<String> writeTable(File file, int compression) throws IOException {
+        Set<String> expected = new TreeSet<>();
+        TableBuilder builder = new TableBuilder(file, 1, compression);
+        for (int i = 0; i < KEYS; i++) {
+            byte[] userKey = bytes(String.format("structuretemplate_mystructure:s%05d", i));
+            int type = i % 10 == 3 ? InternalKey.TYPE_DELETION : InternalKey.TYPE_VALUE;
+            byte[] value = type == InternalKey.TYPE_VALUE ? bytes("value " + i + " " + "x".repeat(100 + i % 151) + i) : new byte[0];
+            byte[] key = InternalKey.encode(userKey, i + 1, type);
+            builder.add(key, key.length, value, 0, value.length);
+            expected.add(entry(userKey, i + 1, type, type == InternalKey.TYPE_VALUE ? value : null));
+        }
+        builder.finish(0);
+        return expected;
+    }
+
+    private static List<BlockHandle> dataBlocks(File file) throws IOException {
+        List<BlockHandle> blocks = new ArrayList<>();
+        TableReader reader = new TableReader(file, 1, null, false);
+        try {
+            BlockIterator index = reader.indexIterator();
+            for (index.seekToFirst(); index.isValid(); index.next()) {
+                blocks.add(BlockHandle.decode(index.value()));
+            }
+        } finally {
+            reader.close();
+        }
+        return blocks;
+    }
+
+    private static Set<String> blockEntries(File file, BlockHandle handle) throws IOException {
+        Set<String> entries = new TreeSet<>();
+        TableReader reader = new TableReader(file, 1, null, false);
+        try {
+            BlockIterator block = reader.readVerifiedBlock(handle).iterator();
+            for (block.seekToFirst(); block.isValid(); block.next()) {
+                byte[] key = block.keyArray();
+                int length = block.keyLength();
+                int type = InternalKey.type(key, 0, length);
+                byte[] value = null;
+                if (type == InternalKey.TYPE_VALUE) {
+                    value = new byte[block.value().remaining()];
+                    block.value().get(value);
+                }
+                entries.add(entry(InternalKey.userKey(key, 0, length), InternalKey.sequence(key, 0, length), type, value));
+            }
+        } finally {
+            reader.close();
+        }
+        return entries;
+    }
+
+    private static void corrupt(File file, BlockHandle handle) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long middle = handle.offset + handle.size / 2;
+            raf.seek(middle);
+            byte[] bytes = new byte[8];
+            raf.readFully(bytes);
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] ^= 0x5A;
+            }
+            raf.seek(middle);
+            raf.write(bytes);
+        }
+    }
+
+    private static Set<String> entries(List<TableSalvager.Hit> hits) {
+        Set<String> entries = new TreeSet<>();
+        for (TableSalvager.Hit hit : hits) {
+            assertTrue(entries.add(entry(hit.userKey, hit.sequence, hit.type, hit.value)));
+        }
+        return entries;
+    }
+
+    private static String entry(byte[] userKey, long sequence, int type, byte[] value) {
+        return hex(userKey) + "/" + sequence + "/" + type + "=" + (value == null ? "-" : hex(value));
+    }
+}
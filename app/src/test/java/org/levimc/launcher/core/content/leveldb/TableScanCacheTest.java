@@ -0,0 +1,170 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.bytes;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.hex;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class TableScanCacheTest {
+    private static final byte[] PREFIX = bytes("structuretemplate_");
+    private static final long OLD_TIME = 1000000000000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void unchangedTableIsServedFromSidecar() throws IOException {
+        File table = table("a", 0, 400);
+        File cacheDir = folder.newFolder("cache");
+        File sidecar = new File(cacheDir, table.getName() + ".scan");
+
+        List<String> scanned = entries(new TableScanCache(cacheDir), table, PREFIX);
+        assertEquals(400, scanned.size());
+        assertTrue(sidecar.isFile());
+
+        assertTrue(sidecar.setLastModified(OLD_TIME));
+        assertEquals(scanned, entries(new TableScanCache(cacheDir), table, PREFIX));
+        assertEquals(OLD_TIME, sidecar.lastModified());
+
+        List<String> other = entries(new TableScanCache(cacheDir), table, bytes("other_"));
+        assertEquals(50, other.size());
+        assertNotEquals(OLD_TIME, sidecar.lastModified());
+    }
+
+    @Test
+    public void replacedTableMissesCache() throws IOException {
+        File table = table("a", 0, 400);
+        File cacheDir = folder.newFolder("cache");
+        List<String> first = entries(new TableScanCache(cacheDir), table, PREFIX);
+
+        File replacement = table("b", 1000, 300);
+        Files.move(replacement.toPath(), table.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        assertTrue(table.setLastModified(table.lastModified() + 5000));
+
+        List<String> second = entries(new TableScanCache(cacheDir), table, PREFIX);
+        assertEquals(300, second.size());
+        assertNotEquals(first, second);
+        assertEquals(second, entries(new TableScanCache(folder.newFolder("fresh")), table, PREFIX));
+    }
+
+    @Test
+    public void corruptSidecarIsRescannedAndRewritten() throws IOException {
+        File table = table("a", 0, 400);
+        File cacheDir = folder.newFolder("cache");
+        File sidecar = new File(cacheDir, table.getName() + ".scan");
+        List<String> expected = entries(new TableScanCache(cacheDir), table, PREFIX);
+
+        byte[] data = Files.readAllBytes(sidecar.toPath());
+        Files.write(sidecar.toPath(), Arrays.copyOf(data, data.length / 2));
+        assertEquals(expected, entries(new TableScanCache(cacheDir), table, PREFIX));
+        assertEquals(data.length, sidecar.length());
+
+        Files.write(sidecar.toPath(), bytes("not a scan cache"));
+        assertEquals(expected, entries(new TableScanCache(cacheDir), table, PREFIX));
+        assertEquals(data.length, sidecar.length());
+    }
+
+    @Test
+    public void cachedPrefixScanMatchesIterator() throws IOException {
+        File db = folder.newFolder("db");
+        LevelDBWriter writer = new LevelDBWriter(db);
+        try {
+            WriteBatch batch = new WriteBatch();
+            for (int i = 0; i < 500; i++) {
+                batch.put(structureKey(i), bytes("old" + i));
+                batch.put(bytes("other_" + i), bytes("x"));
+            }
+            writer.writeTable(batch);
+            batch = new WriteBatch();
+            for (int i = 0; i < 500; i += 3) {
+                batch.delete(structureKey(i));
+            }
+            for (int i = 0; i < 500; i += 4) {
+                batch.put(structureKey(i), bytes("new" + i));
+            }
+            writer.writeTable(batch);
+            batch = new WriteBatch();
+            for (int i = 0; i < 500; i += 5) {
+                batch.delete(structureKey(i));
+            }
+            batch.put(structureKey(600), bytes("log"));
+            writer.writeLog(batch);
+        } finally {
+            writer.close();
+        }
+
+        File cacheDir = folder.newFolder("cache");
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        LevelDBReader reader = new LevelDBReader(db);
+        try {
+            List<String> expected = strings(reader.scanPrefix(PREFIX));
+            assertEquals(expected, strings(reader.scanPrefixCached(PREFIX, cacheDir, pool, null)));
+            assertEquals(2, cacheDir.listFiles((dir, name) -> name.endsWith(".scan")).length);
+            assertEquals(expected, strings(reader.scanPrefixCached(PREFIX, cacheDir, pool, null)));
+        } finally {
+            reader.close();
+            pool.shutdownNow();
+        }
+    }
+
+    private File table(String name, int first, int count) throws IOException {
+        File db = folder.newFolder(name);
+        LevelDBWriter writer = new LevelDBWriter(db);
+        try {
+            WriteBatch batch = new WriteBatch();
+            for (int i = first; i < first + count; i++) {
+                batch.put(structureKey(i), bytes("value" + i));
+            }
+            for (int i = 0; i < 50; i++) {
+                batch.put(bytes("other_" + i), bytes("x"));
+            }
+            writer.writeTable(batch);
+        } finally {
+            writer.close();
+        }
+        File[] tables = db.listFiles((dir, file) -> file.endsWith(".ldb"));
+        assertEquals(1, tables.length);
+        return tables[0];
+    }
+
+    private static List<String> entries(TableScanCache cache, File file, byte[] prefix) throws IOException {
+        TableReader table = new TableReader(file, 1, null, false);
+        try {
+            List<String> entries = new ArrayList<>();
+            for (TableScanCache.Entry entry : cache.entries(table, prefix)) {
+                entries.add(hex(entry.key) + "@" + entry.blockOffset + "+" + entry.blockSize + ":" +
+                        entry.valueOffset + "," + entry.valueLength);
+            }
+            return entries;
+        } finally {
+            table.close();
+        }
+    }
+
+    private static List<String> strings(List<LevelDBEntry> list) {
+        List<String> entries = new ArrayList<>();
+        for (LevelDBEntry entry : list) {
+            entries.add(hex(entry.getKey().getRawKey()) + "=" + hex(entry.getValue()));
+        }
+        return entries;
+    }
+
+    private static byte[] structureKey(int i) {
+        return bytes(String.format("structuretemplate_mystructure:s%04d", i));
+    }
+}
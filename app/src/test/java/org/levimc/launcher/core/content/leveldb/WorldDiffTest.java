@@ -0,0 +1,125 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.bytes;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class WorldDiffTest {
+    private static final ChunkPos A = new ChunkPos(LevelDBKey.OVERWORLD, 0, 0);
+    private static final ChunkPos B = new ChunkPos(LevelDBKey.OVERWORLD, 1, 0);
+    private static final ChunkPos C = new ChunkPos(LevelDBKey.NETHER, -1, 2);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void compareGroupsChangesByChunkAndCategory() throws IOException {
+        File base = folder.newFolder("base");
+        LevelDBWriter writer = new LevelDBWriter(base);
+        try {
+            writer.writeTable(baseBatch());
+            WriteBatch batch = new WriteBatch();
+            batch.put(bytes("mobevents"), bytes("events-1"));
+            writer.writeLog(batch);
+        } finally {
+            writer.close();
+        }
+
+        File other = folder.newFolder("other");
+        writer = new LevelDBWriter(other);
+        try {
+            writer.writeTable(baseBatch());
+
+            WriteBatch batch = new WriteBatch();
+            batch.put(A.subChunkKey(1), bytes("sub1-changed"));
+            batch.put(A.subChunkKey(2), bytes("sub2"));
+            batch.put(LevelDBKey.digestKey(A), bytes("digest-changed"));
+            batch.delete(B.subChunkKey(0));
+            batch.put(C.key(LevelDBKey.KeyType.CHUNK_VERSION), bytes("v"));
+            batch.put(bytes("structuretemplate_mystructure:c"), bytes("c"));
+            batch.put(bytes("player_server_2"), bytes("p2"));
+            writer.writeTable(batch);
+
+            batch = new WriteBatch();
+            batch.delete(bytes("structuretemplate_mystructure:b"));
+            batch.delete(LevelDBKey.actorKey(2));
+            batch.put(LevelDBKey.actorKey(3), bytes("actor3"));
+            batch.put(bytes("~local_player"), bytes("local-changed"));
+            batch.put(bytes("mobevents"), bytes("events-2"));
+            writer.writeLog(batch);
+        } finally {
+            writer.close();
+        }
+
+        WorldDiff diff = WorldDiff.compare(base, other, null);
+        assertFalse(diff.isEmpty());
+        assertEquals(5, diff.getCount(WorldDiff.Change.ADDED));
+        assertEquals(3, diff.getCount(WorldDiff.Change.REMOVED));
+        assertEquals(4, diff.getCount(WorldDiff.Change.CHANGED));
+        assertEquals(5, diff.getUnchangedCount());
+
+        assertEquals(Arrays.asList(A, B, C), diff.getChangedChunks());
+        assertChunk(diff, A, 1, 0, 2);
+        assertChunk(diff, B, 0, 1, 0);
+        assertChunk(diff, C, 1, 0, 0);
+
+        assertEquals(Arrays.asList("REMOVED mystructure:b", "ADDED mystructure:c"),
+                names(diff.getKeyChanges(WorldDiff.Category.STRUCTURE)));
+        assertEquals(Arrays.asList("ADDED player_server_2", "CHANGED ~local_player"),
+                names(diff.getKeyChanges(WorldDiff.Category.PLAYER)));
+        assertEquals(Arrays.asList("REMOVED 2", "ADDED 3"), names(diff.getKeyChanges(WorldDiff.Category.ENTITY)));
+        List<WorldDiff.KeyChange> others = diff.getKeyChanges(WorldDiff.Category.OTHER);
+        assertEquals(1, others.size());
+        assertEquals(WorldDiff.Change.CHANGED, others.get(0).change);
+        assertEquals(7, diff.getKeyChanges().size());
+
+        WorldDiff reverse = WorldDiff.compare(other, base, null);
+        assertEquals(3, reverse.getCount(WorldDiff.Change.ADDED));
+        assertEquals(5, reverse.getCount(WorldDiff.Change.REMOVED));
+        assertEquals(4, reverse.getCount(WorldDiff.Change.CHANGED));
+        assertChunk(reverse, A, 0, 1, 2);
+
+        assertTrue(WorldDiff.compare(base, base, null).isEmpty());
+    }
+
+    private static WriteBatch baseBatch() {
+        WriteBatch batch = new WriteBatch();
+        batch.put(A.key(LevelDBKey.KeyType.CHUNK_VERSION), bytes("v"));
+        batch.put(A.subChunkKey(0), bytes("sub0"));
+        batch.put(A.subChunkKey(1), bytes("sub1"));
+        batch.put(LevelDBKey.digestKey(A), bytes("digest"));
+        batch.put(B.subChunkKey(0), bytes("sub0"));
+        batch.put(bytes("structuretemplate_mystructure:a"), bytes("a"));
+        batch.put(bytes("structuretemplate_mystructure:b"), bytes("b"));
+        batch.put(bytes("~local_player"), bytes("local"));
+        batch.put(bytes("player_server_1"), bytes("p1"));
+        batch.put(LevelDBKey.actorKey(1), bytes("actor1"));
+        batch.put(LevelDBKey.actorKey(2), bytes("actor2"));
+        return batch;
+    }
+
+    private static void assertChunk(WorldDiff diff, ChunkPos pos, int added, int removed, int changed) {
+        assertEquals(pos + " added", added, diff.getChunkChangeCount(pos, WorldDiff.Change.ADDED));
+        assertEquals(pos + " removed", removed, diff.getChunkChangeCount(pos, WorldDiff.Change.REMOVED));
+        assertEquals(pos + " changed", changed, diff.getChunkChangeCount(pos, WorldDiff.Change.CHANGED));
+    }
+
+    private static List<String> names(List<WorldDiff.KeyChange> changes) {
+        List<String> names = new ArrayList<>();
+        for (WorldDiff.KeyChange change : changes) {
+            names.add(change.change + " " + change.name);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,114 @@
+package org.levimc.launcher.core.content.leveldb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.resource;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class ZstdDecoderTest {
+    private static final int[] LEVELS = {-5, 1, 3, 9, 19};
+
+    @Test
+    public void decodesReferenceFramesAtEveryLevel() throws IOException {
+        byte[] expected = resource("/leveldb/zstd-input.bin");
+        ZstdDecoder decoder = new ZstdDecoder();
+        for (int level : LEVELS) {
+            byte[] frame = resource("/leveldb/zstd-input.level" + level + ".zst");
+            assertArrayEquals("level " + level, expected, decoder.decompress(frame));
+        }
+    }
+
+    @Test
+    public void decodesFrameWithChecksumAndNoContentSize() throws IOException {
+        assertArrayEquals(resource("/leveldb/zstd-input.bin"),
+                new ZstdDecoder().decompress(resource("/leveldb/zstd-input.checksum.zst")));
+    }
+
+    @Test
+    public void decodesRawAndRleBlocks() throws IOException {
+        ZstdDecoder decoder = new ZstdDecoder();
+        assertArrayEquals(resource("/leveldb/zstd-random.bin"), decoder.decompress(resource("/leveldb/zstd-random.zst")));
+        assertArrayEquals(new byte[300000], decoder.decompress(resource("/leveldb/zstd-zeros.zst")));
+    }
+
+    @Test
+    public void decodesConcatenatedAndSkippableFrames() throws IOException {
+        byte[] random = resource("/leveldb/zstd-random.bin");
+        byte[] input = resource("/leveldb/zstd-input.bin");
+
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        frames.write(resource("/leveldb/zstd-random.zst"));
+        frames.write(new byte[]{0x5A, 0x2A, 0x4D, 0x18, 3, 0, 0, 0, 1, 2, 3});
+        frames.write(resource("/leveldb/zstd-input.level19.zst"));
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(random);
+        expected.write(input);
+        assertArrayEquals(expected.toByteArray(), new ZstdDecoder().decompress(frames.toByteArray()));
+    }
+
+    @Test
+    public void truncatedFramesThrow() throws IOException {
+        byte[] frame = resource("/leveldb/zstd-input.level3.zst");
+        assertCorrupt(Arrays.copyOf(frame, 3));
+        assertCorrupt(Arrays.copyOf(frame, 7));
+        assertCorrupt(Arrays.copyOf(frame, frame.length / 2));
+        assertCorrupt(Arrays.copyOf(frame, frame.length - 1));
+
+        byte[] random = resource("/leveldb/zstd-random.zst");
+        assertCorrupt(Arrays.copyOf(random, random.length - 100));
+    }
+
+    @Test
+    public void corruptFramesThrow() throws IOException {
+        byte[] frame = resource("/leveldb/zstd-input.level3.zst");
+
+        byte[] badMagic = frame.clone();
+        badMagic[0] ^= 0x01;
+        assertCorrupt(badMagic);
+
+        byte[] reservedBlock = frame.clone();
+        reservedBlock[firstBlockHeader(frame)] |= 0x06;
+        assertCorrupt(reservedBlock);
+
+        byte[] oversizedBlock = frame.clone();
+        oversizedBlock[firstBlockHeader(frame) + 2] = (byte) 0xFF;
+        assertCorrupt(oversizedBlock);
+
+        byte[] trailingGarbage = Arrays.copyOf(frame, frame.length + 2);
+        assertCorrupt(trailingGarbage);
+    }
+
+    @Test
+    public void decoderIsReusableAfterFailure() throws IOException {
+        byte[] frame = resource("/leveldb/zstd-input.level9.zst");
+        ZstdDecoder decoder = new ZstdDecoder();
+        try {
+            decoder.decompress(Arrays.copyOf(frame, frame.length / 3));
+            fail("Truncated frame decompressed");
+        } catch (IOException expected) {
+        }
+        assertArrayEquals(resource("/leveldb/zstd-input.bin"), decoder.decompress(frame));
+    }
+
+    private static int firstBlockHeader(byte[] frame) {
+        int descriptor = frame[4] & 0xFF;
+        boolean singleSegment = (descriptor & 0x20) != 0;
+        int[] dictionaryIdSizes = {0, 1, 2, 4};
+        int[] contentSizeSizes = {singleSegment ? 1 : 0, 2, 4, 8};
+        return 5 + (singleSegment ? 0 : 1) + dictionaryIdSizes[descriptor & 0x03] + contentSizeSizes[descriptor >>> 6];
+    }
+
+    private static void assertCorrupt(byte[] data) {
+        try {
+            new ZstdDecoder().decompress(data);
+            fail("Corrupt zstd frame decompressed");
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.levimc.launcher.core.content.nbt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.levimc.launcher.core.content.leveldb.LevelDBTestUtil.nbt;
+
+import org.junit.Test;
+import org.levimc.launcher.core.content.leveldb.LevelDBTestUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+public class BedrockNbtReaderTest {
+    @Test
+    public void readTagRestoresByteOrderAndAdvancesPosition() throws IOException {
+        byte[] first = nbt(compound("first", 7));
+        byte[] second = nbt(compound("second", 9));
+        ByteBuffer source = ByteBuffer.allocate(first.length + second.length + 4);
+        source.put(first).put(second).putInt(0x01020304).flip();
+
+        BedrockNbtReader reader = new BedrockNbtReader();
+        assertEquals(7, reader.readTag(source).getTag("first").getInt());
+        assertEquals(ByteOrder.BIG_ENDIAN, source.order());
+        assertEquals(first.length, source.position());
+
+        assertEquals(9, reader.readTag(source).getTag("second").getInt());
+        assertEquals(ByteOrder.BIG_ENDIAN, source.order());
+        assertEquals(0x01020304, source.getInt());
+    }
+
+    @Test
+    public void readAllReadsConcatenatedTags() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(nbt(compound("first", 7)));
+        out.write(nbt(compound("second", 9)));
+
+        List<NbtTag> tags = new BedrockNbtReader().readAll(out.toByteArray());
+        assertEquals(2, tags.size());
+        assertEquals(7, tags.get(0).getTag("first").getInt());
+        assertEquals(9, tags.get(1).getTag("second").getInt());
+        assertTrue(new BedrockNbtReader().readAll(new byte[0]).isEmpty());
+    }
+
+    @Test
+    public void readAllRejectsTrailingGarbage() throws IOException {
+        byte[] tag = nbt(compound("value", 1));
+        byte[] data = Arrays.copyOf(tag, tag.length + 2);
+        data[tag.length] = NbtTag.TAG_COMPOUND;
+        data[tag.length + 1] = 5;
+        try {
+            new BedrockNbtReader().readAll(data);
+            fail("Trailing bytes were accepted");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void readTagRestoresByteOrderOnFailure() throws IOException {
+        byte[] data = nbt(compound("value", 1));
+        ByteBuffer source = ByteBuffer.wrap(data, 0, data.length - 3);
+        try {
+            new BedrockNbtReader().readTag(source);
+            fail("Truncated tag was read");
+        } catch (IOException expected) {
+        }
+        assertEquals(ByteOrder.BIG_ENDIAN, source.order());
+    }
+
+    private static NbtTag compound(String name, int value) {
+        NbtTag root = LevelDBTestUtil.compound("");
+        root.putTag(name, new NbtTag(NbtTag.TAG_INT, name, value));
+        return root;
+    }
+}